@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.datadistillr.udf;
+
+import io.netty.buffer.DrillBuf;
+
+/**
+ * A direct-mapped cache from VARCHAR addresses to the cells they parse to, for string columns where the same few
+ * addresses repeat on many rows.  The cache is keyed on the bytes of the value in the Drill buffer, read as two longs
+ * and a length, so a repeated address costs one hash probe and no String.
+ * <p>
+ * A UDF keeps one in its workspace, so each fragment has its own and uses it from a single thread.  The number of
+ * slots is datadistillr.h3.address_cache.size, rounded up to a power of two.  A size of 0 disables the cache.
+ */
+public final class H3AddressCache {
+
+  private static final int MAX_SIZE = 1 << 20;
+
+  /**
+   * The longest address that is cached, which covers the 15 digits of every valid index.
+   */
+  private static final int MAX_LENGTH = 16;
+
+  private final long[] keys1;
+
+  private final long[] keys2;
+
+  private final int[] lengths;
+
+  private final long[] cells;
+
+  private final int mask;
+
+  H3AddressCache(long size) {
+    int capacity = 0;
+    if (size > 0) {
+      capacity = 1;
+      while (capacity < size && capacity < MAX_SIZE) {
+        capacity <<= 1;
+      }
+    }
+    keys1 = new long[capacity];
+    keys2 = new long[capacity];
+    lengths = new int[capacity];
+    cells = new long[capacity];
+    mask = capacity - 1;
+  }
+
+  public static H3AddressCache create() {
+    return new H3AddressCache(H3Config.getLong(H3Config.ADDRESS_CACHE_SIZE, 1024));
+  }
+
+  /**
+   * Parses a hexadecimal address like {@link H3Strings#readCell}, remembering addresses that parse.
+   *
+   * @throws NumberFormatException if the text is not an unsigned hexadecimal number of at most 16 digits.
+   */
+  public long readCell(DrillBuf buffer, int start, int end) {
+    int length = end - start;
+    if (mask < 0 || length == 0 || length > MAX_LENGTH) {
+      return H3Strings.readCell(buffer, start, end);
+    }
+    long key1;
+    long key2;
+    if (length >= 8) {
+      // The two words overlap for addresses shorter than 16 bytes, which the length tells apart.
+      key1 = buffer.getLong(start);
+      key2 = buffer.getLong(end - 8);
+    } else {
+      key1 = 0L;
+      for (int i = start; i < end; i++) {
+        key1 = (key1 << 8) | (buffer.getByte(i) & 0xFF);
+      }
+      key2 = 0L;
+    }
+    int slot = H3CellMap.hash(key1 ^ Long.rotateLeft(key2 * 0x9e3779b97f4a7c15L, 32) ^ length) & mask;
+    if (lengths[slot] == length && keys1[slot] == key1 && keys2[slot] == key2) {
+      H3Metrics.ADDRESS_CACHE_HITS.inc();
+      return cells[slot];
+    }
+    H3Metrics.ADDRESS_CACHE_MISSES.inc();
+    long cell = H3Strings.readCell(buffer, start, end);
+    keys1[slot] = key1;
+    keys2[slot] = key2;
+    lengths[slot] = length;
+    cells[slot] = cell;
+    return cell;
+  }
+}
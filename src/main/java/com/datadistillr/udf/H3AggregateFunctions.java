@@ -0,0 +1,695 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.datadistillr.udf;
+
+import io.netty.buffer.DrillBuf;
+import org.apache.drill.exec.expr.DrillAggFunc;
+import org.apache.drill.exec.expr.DrillSimpleFunc;
+import org.apache.drill.exec.expr.annotations.FunctionTemplate;
+import org.apache.drill.exec.expr.annotations.Output;
+import org.apache.drill.exec.expr.annotations.Param;
+import org.apache.drill.exec.expr.annotations.Workspace;
+import org.apache.drill.exec.expr.holders.BigIntHolder;
+import org.apache.drill.exec.expr.holders.Float8Holder;
+import org.apache.drill.exec.expr.holders.IntHolder;
+import org.apache.drill.exec.expr.holders.NullableBigIntHolder;
+import org.apache.drill.exec.expr.holders.NullableFloat8Holder;
+import org.apache.drill.exec.expr.holders.NullableTimeStampHolder;
+import org.apache.drill.exec.expr.holders.NullableVarBinaryHolder;
+import org.apache.drill.exec.expr.holders.ObjectHolder;
+import org.apache.drill.exec.expr.holders.TimeStampHolder;
+import org.apache.drill.exec.expr.holders.VarBinaryHolder;
+import org.apache.drill.exec.vector.complex.writer.BaseWriter;
+
+import javax.inject.Inject;
+
+/**
+ * Aggregates that count cells in primitive hash maps and emit the counts as a compact VARBINARY (see
+ * {@link H3Histogram}).  Partial results can be combined with h3HistogramMerge, so a local aggregate followed by a
+ * merge only ships one small value per fragment instead of one row per cell.  h3Path gathers the points of a
+ * trajectory instead and emits the cells it passes through as a VARBINARY path (see {@link H3Path}).
+ */
+@SuppressWarnings("deprecation")
+public class H3AggregateFunctions {
+
+  @FunctionTemplate(names = {"h3Histogram", "h3_histogram"},
+    scope = FunctionTemplate.FunctionScope.POINT_AGGREGATE)
+  public static class h3Histogram implements DrillAggFunc {
+
+    @Param
+    BigIntHolder cellInput;
+
+    @Workspace
+    ObjectHolder counts;
+
+    @Output
+    NullableVarBinaryHolder out;
+
+    @Inject
+    DrillBuf buffer;
+
+    @Workspace
+    ObjectHolder metrics;
+
+    @Override
+    public void setup() {
+      metrics = new ObjectHolder();
+      metrics.obj = com.datadistillr.udf.H3Metrics.function("h3Histogram", false);
+      counts = new ObjectHolder();
+      counts.obj = new com.datadistillr.udf.H3CellMap();
+    }
+
+    @Override
+    public void add() {
+      com.datadistillr.udf.H3Aggregation.add(metrics.obj, counts.obj, cellInput.value);
+    }
+
+    @Override
+    public void output() {
+      buffer = com.datadistillr.udf.H3Aggregation.histogram(counts.obj, buffer);
+      out.buffer = buffer;
+      out.start = 0;
+      out.end = buffer.writerIndex();
+      out.isSet = out.end == 0 ? 0 : 1;
+    }
+
+    @Override
+    public void reset() {
+      counts = new ObjectHolder();
+      counts.obj = new com.datadistillr.udf.H3CellMap();
+    }
+  }
+
+  @FunctionTemplate(names = {"h3Histogram", "h3_histogram"},
+    scope = FunctionTemplate.FunctionScope.POINT_AGGREGATE)
+  public static class h3HistogramNullable implements DrillAggFunc {
+
+    @Param
+    NullableBigIntHolder cellInput;
+
+    @Workspace
+    ObjectHolder counts;
+
+    @Output
+    NullableVarBinaryHolder out;
+
+    @Inject
+    DrillBuf buffer;
+
+    @Workspace
+    ObjectHolder metrics;
+
+    @Override
+    public void setup() {
+      metrics = new ObjectHolder();
+      metrics.obj = com.datadistillr.udf.H3Metrics.function("h3Histogram", false);
+      counts = new ObjectHolder();
+      counts.obj = new com.datadistillr.udf.H3CellMap();
+    }
+
+    @Override
+    public void add() {
+      com.datadistillr.udf.H3Aggregation.add(metrics.obj, counts.obj, cellInput.isSet, cellInput.value);
+    }
+
+    @Override
+    public void output() {
+      buffer = com.datadistillr.udf.H3Aggregation.histogram(counts.obj, buffer);
+      out.buffer = buffer;
+      out.start = 0;
+      out.end = buffer.writerIndex();
+      out.isSet = out.end == 0 ? 0 : 1;
+    }
+
+    @Override
+    public void reset() {
+      counts = new ObjectHolder();
+      counts.obj = new com.datadistillr.udf.H3CellMap();
+    }
+  }
+
+  @FunctionTemplate(names = {"h3HistogramMerge", "h3_histogram_merge"},
+    scope = FunctionTemplate.FunctionScope.POINT_AGGREGATE)
+  public static class h3HistogramMerge implements DrillAggFunc {
+
+    @Param
+    VarBinaryHolder histogramInput;
+
+    @Workspace
+    ObjectHolder counts;
+
+    @Output
+    NullableVarBinaryHolder out;
+
+    @Inject
+    DrillBuf buffer;
+
+    @Workspace
+    ObjectHolder metrics;
+
+    @Override
+    public void setup() {
+      metrics = new ObjectHolder();
+      metrics.obj = com.datadistillr.udf.H3Metrics.function("h3HistogramMerge", false);
+      counts = new ObjectHolder();
+      counts.obj = new com.datadistillr.udf.H3CellMap();
+    }
+
+    @Override
+    public void add() {
+      com.datadistillr.udf.H3Aggregation.merge(metrics.obj, counts.obj, 1, histogramInput.buffer,
+        histogramInput.start, histogramInput.end);
+    }
+
+    @Override
+    public void output() {
+      buffer = com.datadistillr.udf.H3Aggregation.histogram(counts.obj, buffer);
+      out.buffer = buffer;
+      out.start = 0;
+      out.end = buffer.writerIndex();
+      out.isSet = out.end == 0 ? 0 : 1;
+    }
+
+    @Override
+    public void reset() {
+      counts = new ObjectHolder();
+      counts.obj = new com.datadistillr.udf.H3CellMap();
+    }
+  }
+
+  @FunctionTemplate(names = {"h3HistogramMerge", "h3_histogram_merge"},
+    scope = FunctionTemplate.FunctionScope.POINT_AGGREGATE)
+  public static class h3HistogramMergeNullable implements DrillAggFunc {
+
+    @Param
+    NullableVarBinaryHolder histogramInput;
+
+    @Workspace
+    ObjectHolder counts;
+
+    @Output
+    NullableVarBinaryHolder out;
+
+    @Inject
+    DrillBuf buffer;
+
+    @Workspace
+    ObjectHolder metrics;
+
+    @Override
+    public void setup() {
+      metrics = new ObjectHolder();
+      metrics.obj = com.datadistillr.udf.H3Metrics.function("h3HistogramMerge", false);
+      counts = new ObjectHolder();
+      counts.obj = new com.datadistillr.udf.H3CellMap();
+    }
+
+    @Override
+    public void add() {
+      com.datadistillr.udf.H3Aggregation.merge(metrics.obj, counts.obj, histogramInput.isSet, histogramInput.buffer,
+        histogramInput.start, histogramInput.end);
+    }
+
+    @Override
+    public void output() {
+      buffer = com.datadistillr.udf.H3Aggregation.histogram(counts.obj, buffer);
+      out.buffer = buffer;
+      out.start = 0;
+      out.end = buffer.writerIndex();
+      out.isSet = out.end == 0 ? 0 : 1;
+    }
+
+    @Override
+    public void reset() {
+      counts = new ObjectHolder();
+      counts.obj = new com.datadistillr.udf.H3CellMap();
+    }
+  }
+
+  @FunctionTemplate(names = {"h3HistogramEntries", "h3_histogram_entries"},
+    scope = FunctionTemplate.FunctionScope.SIMPLE)
+  public static class h3HistogramEntries implements DrillSimpleFunc {
+
+    @Param
+    NullableVarBinaryHolder histogramInput;
+
+    @Output
+    BaseWriter.ComplexWriter outWriter;
+
+    @Workspace
+    com.datadistillr.udf.H3FunctionMetrics metrics;
+
+    @Override
+    public void setup() {
+      metrics = com.datadistillr.udf.H3Metrics.function("h3HistogramEntries", false);
+    }
+
+    @Override
+    public void eval() {
+      com.datadistillr.udf.H3Aggregation.writeEntries(metrics, histogramInput.isSet, histogramInput.buffer,
+        histogramInput.start, histogramInput.end, outWriter, false);
+    }
+  }
+
+  @FunctionTemplate(names = {"h3Pyramid", "h3_pyramid"},
+    scope = FunctionTemplate.FunctionScope.POINT_AGGREGATE)
+  public static class h3Pyramid implements DrillAggFunc {
+
+    @Param
+    BigIntHolder cellInput;
+
+    @Param
+    IntHolder minResolutionInput;
+
+    @Workspace
+    ObjectHolder counts;
+
+    @Workspace
+    IntHolder minResolution;
+
+    @Output
+    NullableVarBinaryHolder out;
+
+    @Inject
+    DrillBuf buffer;
+
+    @Workspace
+    ObjectHolder metrics;
+
+    @Override
+    public void setup() {
+      metrics = new ObjectHolder();
+      metrics.obj = com.datadistillr.udf.H3Metrics.function("h3Pyramid", false);
+      counts = new ObjectHolder();
+      counts.obj = new com.datadistillr.udf.H3CellMap();
+    }
+
+    @Override
+    public void add() {
+      minResolution.value = minResolutionInput.value;
+      com.datadistillr.udf.H3Aggregation.add(metrics.obj, counts.obj, cellInput.value);
+    }
+
+    @Override
+    public void output() {
+      buffer = com.datadistillr.udf.H3Aggregation.pyramid(counts.obj, minResolution.value, buffer);
+      out.buffer = buffer;
+      out.start = 0;
+      out.end = buffer.writerIndex();
+      out.isSet = out.end == 0 ? 0 : 1;
+    }
+
+    @Override
+    public void reset() {
+      counts = new ObjectHolder();
+      counts.obj = new com.datadistillr.udf.H3CellMap();
+    }
+  }
+
+  @FunctionTemplate(names = {"h3Pyramid", "h3_pyramid"},
+    scope = FunctionTemplate.FunctionScope.POINT_AGGREGATE)
+  public static class h3PyramidNullable implements DrillAggFunc {
+
+    @Param
+    NullableBigIntHolder cellInput;
+
+    @Param
+    IntHolder minResolutionInput;
+
+    @Workspace
+    ObjectHolder counts;
+
+    @Workspace
+    IntHolder minResolution;
+
+    @Output
+    NullableVarBinaryHolder out;
+
+    @Inject
+    DrillBuf buffer;
+
+    @Workspace
+    ObjectHolder metrics;
+
+    @Override
+    public void setup() {
+      metrics = new ObjectHolder();
+      metrics.obj = com.datadistillr.udf.H3Metrics.function("h3Pyramid", false);
+      counts = new ObjectHolder();
+      counts.obj = new com.datadistillr.udf.H3CellMap();
+    }
+
+    @Override
+    public void add() {
+      minResolution.value = minResolutionInput.value;
+      com.datadistillr.udf.H3Aggregation.add(metrics.obj, counts.obj, cellInput.isSet, cellInput.value);
+    }
+
+    @Override
+    public void output() {
+      buffer = com.datadistillr.udf.H3Aggregation.pyramid(counts.obj, minResolution.value, buffer);
+      out.buffer = buffer;
+      out.start = 0;
+      out.end = buffer.writerIndex();
+      out.isSet = out.end == 0 ? 0 : 1;
+    }
+
+    @Override
+    public void reset() {
+      counts = new ObjectHolder();
+      counts.obj = new com.datadistillr.udf.H3CellMap();
+    }
+  }
+
+  @FunctionTemplate(names = {"h3PyramidEntries", "h3_pyramid_entries"},
+    scope = FunctionTemplate.FunctionScope.SIMPLE)
+  public static class h3PyramidEntries implements DrillSimpleFunc {
+
+    @Param
+    NullableVarBinaryHolder pyramidInput;
+
+    @Output
+    BaseWriter.ComplexWriter outWriter;
+
+    @Workspace
+    com.datadistillr.udf.H3FunctionMetrics metrics;
+
+    @Override
+    public void setup() {
+      metrics = com.datadistillr.udf.H3Metrics.function("h3PyramidEntries", false);
+    }
+
+    @Override
+    public void eval() {
+      com.datadistillr.udf.H3Aggregation.writeEntries(metrics, pyramidInput.isSet, pyramidInput.buffer,
+        pyramidInput.start, pyramidInput.end, outWriter, true);
+    }
+  }
+
+  @FunctionTemplate(names = {"h3AdaptiveBins", "h3_adaptive_bins"},
+    scope = FunctionTemplate.FunctionScope.POINT_AGGREGATE)
+  public static class h3AdaptiveBins implements DrillAggFunc {
+
+    @Param
+    BigIntHolder cellInput;
+
+    @Param
+    IntHolder maxCountInput;
+
+    @Param
+    IntHolder minResolutionInput;
+
+    @Workspace
+    ObjectHolder counts;
+
+    @Workspace
+    IntHolder maxCount;
+
+    @Workspace
+    IntHolder minResolution;
+
+    @Output
+    NullableVarBinaryHolder out;
+
+    @Inject
+    DrillBuf buffer;
+
+    @Workspace
+    ObjectHolder metrics;
+
+    @Override
+    public void setup() {
+      metrics = new ObjectHolder();
+      metrics.obj = com.datadistillr.udf.H3Metrics.function("h3AdaptiveBins", false);
+      counts = new ObjectHolder();
+      counts.obj = new com.datadistillr.udf.H3CellMap();
+    }
+
+    @Override
+    public void add() {
+      maxCount.value = maxCountInput.value;
+      minResolution.value = minResolutionInput.value;
+      com.datadistillr.udf.H3Aggregation.add(metrics.obj, counts.obj, cellInput.value);
+    }
+
+    @Override
+    public void output() {
+      buffer = com.datadistillr.udf.H3Aggregation.adaptiveBins(counts.obj, maxCount.value, minResolution.value, buffer);
+      out.buffer = buffer;
+      out.start = 0;
+      out.end = buffer.writerIndex();
+      out.isSet = out.end == 0 ? 0 : 1;
+    }
+
+    @Override
+    public void reset() {
+      counts = new ObjectHolder();
+      counts.obj = new com.datadistillr.udf.H3CellMap();
+    }
+  }
+
+  @FunctionTemplate(names = {"h3AdaptiveBins", "h3_adaptive_bins"},
+    scope = FunctionTemplate.FunctionScope.POINT_AGGREGATE)
+  public static class h3AdaptiveBinsNullable implements DrillAggFunc {
+
+    @Param
+    NullableBigIntHolder cellInput;
+
+    @Param
+    IntHolder maxCountInput;
+
+    @Param
+    IntHolder minResolutionInput;
+
+    @Workspace
+    ObjectHolder counts;
+
+    @Workspace
+    IntHolder maxCount;
+
+    @Workspace
+    IntHolder minResolution;
+
+    @Output
+    NullableVarBinaryHolder out;
+
+    @Inject
+    DrillBuf buffer;
+
+    @Workspace
+    ObjectHolder metrics;
+
+    @Override
+    public void setup() {
+      metrics = new ObjectHolder();
+      metrics.obj = com.datadistillr.udf.H3Metrics.function("h3AdaptiveBins", false);
+      counts = new ObjectHolder();
+      counts.obj = new com.datadistillr.udf.H3CellMap();
+    }
+
+    @Override
+    public void add() {
+      maxCount.value = maxCountInput.value;
+      minResolution.value = minResolutionInput.value;
+      com.datadistillr.udf.H3Aggregation.add(metrics.obj, counts.obj, cellInput.isSet, cellInput.value);
+    }
+
+    @Override
+    public void output() {
+      buffer = com.datadistillr.udf.H3Aggregation.adaptiveBins(counts.obj, maxCount.value, minResolution.value, buffer);
+      out.buffer = buffer;
+      out.start = 0;
+      out.end = buffer.writerIndex();
+      out.isSet = out.end == 0 ? 0 : 1;
+    }
+
+    @Override
+    public void reset() {
+      counts = new ObjectHolder();
+      counts.obj = new com.datadistillr.udf.H3CellMap();
+    }
+  }
+
+  @FunctionTemplate(names = {"h3Path", "h3_path"},
+    scope = FunctionTemplate.FunctionScope.POINT_AGGREGATE)
+  public static class h3Path implements DrillAggFunc {
+
+    @Param
+    Float8Holder latInput;
+
+    @Param
+    Float8Holder lngInput;
+
+    @Param
+    TimeStampHolder timeInput;
+
+    @Param
+    IntHolder resolutionInput;
+
+    @Workspace
+    ObjectHolder points;
+
+    @Workspace
+    IntHolder resolution;
+
+    @Output
+    NullableVarBinaryHolder out;
+
+    @Inject
+    DrillBuf buffer;
+
+    @Workspace
+    ObjectHolder h3;
+
+    @Workspace
+    ObjectHolder metrics;
+
+    @Override
+    public void setup() {
+      metrics = new ObjectHolder();
+      metrics.obj = com.datadistillr.udf.H3Metrics.function("h3Path", true);
+      h3 = new ObjectHolder();
+      try {
+        h3.obj = com.uber.h3core.H3Core.newInstance();
+      } catch (java.io.IOException e) {
+        h3.obj = null;
+      }
+      points = new ObjectHolder();
+      points.obj = new com.datadistillr.udf.H3Path();
+    }
+
+    @Override
+    public void add() {
+      resolution.value = resolutionInput.value;
+      com.datadistillr.udf.H3Aggregation.addPoint(metrics.obj, points.obj, 1, timeInput.value,
+        latInput.value, lngInput.value);
+    }
+
+    @Override
+    public void output() {
+      buffer = com.datadistillr.udf.H3Aggregation.path(h3.obj, metrics.obj, points.obj, resolution.value, buffer);
+      out.buffer = buffer;
+      out.start = 0;
+      out.end = buffer.writerIndex();
+      out.isSet = out.end == 0 ? 0 : 1;
+    }
+
+    @Override
+    public void reset() {
+      points = new ObjectHolder();
+      points.obj = new com.datadistillr.udf.H3Path();
+    }
+  }
+
+  @FunctionTemplate(names = {"h3Path", "h3_path"},
+    scope = FunctionTemplate.FunctionScope.POINT_AGGREGATE)
+  public static class h3PathNullable implements DrillAggFunc {
+
+    @Param
+    NullableFloat8Holder latInput;
+
+    @Param
+    NullableFloat8Holder lngInput;
+
+    @Param
+    NullableTimeStampHolder timeInput;
+
+    @Param
+    IntHolder resolutionInput;
+
+    @Workspace
+    ObjectHolder points;
+
+    @Workspace
+    IntHolder resolution;
+
+    @Output
+    NullableVarBinaryHolder out;
+
+    @Inject
+    DrillBuf buffer;
+
+    @Workspace
+    ObjectHolder h3;
+
+    @Workspace
+    ObjectHolder metrics;
+
+    @Override
+    public void setup() {
+      metrics = new ObjectHolder();
+      metrics.obj = com.datadistillr.udf.H3Metrics.function("h3Path", true);
+      h3 = new ObjectHolder();
+      try {
+        h3.obj = com.uber.h3core.H3Core.newInstance();
+      } catch (java.io.IOException e) {
+        h3.obj = null;
+      }
+      points = new ObjectHolder();
+      points.obj = new com.datadistillr.udf.H3Path();
+    }
+
+    @Override
+    public void add() {
+      resolution.value = resolutionInput.value;
+      com.datadistillr.udf.H3Aggregation.addPoint(metrics.obj, points.obj,
+        latInput.isSet & lngInput.isSet & timeInput.isSet, timeInput.value, latInput.value, lngInput.value);
+    }
+
+    @Override
+    public void output() {
+      buffer = com.datadistillr.udf.H3Aggregation.path(h3.obj, metrics.obj, points.obj, resolution.value, buffer);
+      out.buffer = buffer;
+      out.start = 0;
+      out.end = buffer.writerIndex();
+      out.isSet = out.end == 0 ? 0 : 1;
+    }
+
+    @Override
+    public void reset() {
+      points = new ObjectHolder();
+      points.obj = new com.datadistillr.udf.H3Path();
+    }
+  }
+
+  @FunctionTemplate(names = {"h3PathCells", "h3_path_cells"},
+    scope = FunctionTemplate.FunctionScope.SIMPLE)
+  public static class h3PathCells implements DrillSimpleFunc {
+
+    @Param
+    NullableVarBinaryHolder pathInput;
+
+    @Output
+    BaseWriter.ComplexWriter outWriter;
+
+    @Workspace
+    com.datadistillr.udf.H3FunctionMetrics metrics;
+
+    @Override
+    public void setup() {
+      metrics = com.datadistillr.udf.H3Metrics.function("h3PathCells", false);
+    }
+
+    @Override
+    public void eval() {
+      com.datadistillr.udf.H3Aggregation.writePathCells(metrics, pathInput.isSet, pathInput.buffer, pathInput.start,
+        pathInput.end, outWriter);
+    }
+  }
+}
@@ -0,0 +1,207 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.datadistillr.udf;
+
+import com.uber.h3core.H3Core;
+import io.netty.buffer.DrillBuf;
+import org.apache.drill.exec.vector.complex.writer.BaseWriter;
+
+/**
+ * Row-level implementations of the aggregates in {@link H3AggregateFunctions}.  The workspace objects are passed as
+ * they are held in the aggregate's ObjectHolders, so the generated code only makes the call.
+ * <p>
+ * The output methods write the encoded histogram or path at the start of the buffer and return it with its writer index
+ * set to the length of the value, which is 0 when nothing was counted.
+ */
+public final class H3Aggregation {
+
+  private H3Aggregation() {
+  }
+
+  /**
+   * Counts one occurrence of the cell.
+   *
+   * @param metrics the {@link H3FunctionMetrics} of the aggregate.
+   * @param counts the {@link H3CellMap} of the current group.
+   */
+  public static void add(Object metrics, Object counts, long cell) {
+    add(metrics, counts, 1, cell);
+  }
+
+  /**
+   * Counts one occurrence of the cell if it is set.
+   */
+  public static void add(Object metrics, Object counts, int isSet, long cell) {
+    H3FunctionMetrics functionMetrics = (H3FunctionMetrics) metrics;
+    long started = functionMetrics.start();
+    try {
+      if (isSet == 1) {
+        ((H3CellMap) counts).add(cell, 1);
+      }
+    } catch (RuntimeException e) {
+      functionMetrics.error();
+      throw e;
+    } finally {
+      functionMetrics.stop(started);
+    }
+  }
+
+  /**
+   * Adds the counts of an encoded histogram to those of the current group if it is set.
+   */
+  public static void merge(Object metrics, Object counts, int isSet, DrillBuf histogram, int start, int end) {
+    H3FunctionMetrics functionMetrics = (H3FunctionMetrics) metrics;
+    long started = functionMetrics.start();
+    try {
+      if (isSet == 1) {
+        H3Histogram.mergeInto((H3CellMap) counts, histogram, start, end);
+      }
+    } catch (RuntimeException e) {
+      functionMetrics.error();
+      throw e;
+    } finally {
+      functionMetrics.stop(started);
+    }
+  }
+
+  /**
+   * Gathers one point of a trajectory if its time and coordinates are all set.
+   *
+   * @param points the {@link H3Path} of the current group.
+   */
+  public static void addPoint(Object metrics, Object points, int isSet, long time, double latitude,
+                              double longitude) {
+    H3FunctionMetrics functionMetrics = (H3FunctionMetrics) metrics;
+    long started = functionMetrics.start();
+    try {
+      if (isSet == 1) {
+        ((H3Path) points).add(time, latitude, longitude);
+      }
+    } catch (RuntimeException e) {
+      functionMetrics.error();
+      throw e;
+    } finally {
+      functionMetrics.stop(started);
+    }
+  }
+
+  public static DrillBuf histogram(Object counts, DrillBuf buffer) {
+    return encode((H3CellMap) counts, buffer);
+  }
+
+  public static DrillBuf pyramid(Object counts, int minResolution, DrillBuf buffer) {
+    H3CellMap map = (H3CellMap) counts;
+    if (map.size() > 0) {
+      H3Histogram.rollUp(map, minResolution);
+    }
+    return encode(map, buffer);
+  }
+
+  public static DrillBuf adaptiveBins(Object counts, int maxCount, int minResolution, DrillBuf buffer) {
+    H3CellMap map = (H3CellMap) counts;
+    if (map.size() == 0) {
+      return H3Strings.empty(buffer);
+    }
+    return encode(H3Histogram.adaptiveBins(map, maxCount, minResolution), buffer);
+  }
+
+  /**
+   * Writes the gathered points as an encoded path of cells at the resolution.
+   *
+   * @param h3 the H3Core of the aggregate, or null if it could not be loaded.
+   *
+   * @see H3Path#cells
+   */
+  public static DrillBuf path(Object h3, Object metrics, Object points, int resolution, DrillBuf buffer) {
+    H3FunctionMetrics functionMetrics = (H3FunctionMetrics) metrics;
+    long started = functionMetrics.start();
+    try {
+      H3Path path = (H3Path) points;
+      if (h3 == null) {
+        functionMetrics.fallback();
+        return H3Strings.empty(buffer);
+      }
+      if (path.size() == 0) {
+        return H3Strings.empty(buffer);
+      }
+      long[] cells = path.cells((H3Core) h3, resolution);
+      if (cells.length == 0) {
+        return H3Strings.empty(buffer);
+      }
+      buffer = buffer.reallocIfNeeded(H3Path.encodedSize(cells.length));
+      buffer.writerIndex(H3Path.encode(cells, buffer));
+      return buffer;
+    } catch (RuntimeException e) {
+      functionMetrics.error();
+      throw e;
+    } finally {
+      functionMetrics.stop(started);
+    }
+  }
+
+  /**
+   * Writes the entries of an encoded histogram or pyramid as a list of maps, or an empty list if it is not set.
+   */
+  public static void writeEntries(H3FunctionMetrics metrics, int isSet, DrillBuf histogram, int start, int end,
+                                  BaseWriter.ComplexWriter outWriter, boolean includeResolution) {
+    long started = metrics.start();
+    try {
+      BaseWriter.ListWriter listWriter = outWriter.rootAsList();
+      if (isSet == 1) {
+        H3Histogram.writeEntries(histogram, start, end, listWriter, includeResolution);
+      }
+    } catch (RuntimeException e) {
+      metrics.error();
+      throw e;
+    } finally {
+      metrics.stop(started);
+    }
+  }
+
+  /**
+   * Writes the cells of an encoded path as a list in path order, or an empty list if it is not set.
+   */
+  public static void writePathCells(H3FunctionMetrics metrics, int isSet, DrillBuf path, int start, int end,
+                                    BaseWriter.ComplexWriter outWriter) {
+    long started = metrics.start();
+    try {
+      BaseWriter.ListWriter listWriter = outWriter.rootAsList();
+      if (isSet == 1) {
+        H3Path.writeCells(path, start, end, listWriter);
+      }
+    } catch (RuntimeException e) {
+      metrics.error();
+      throw e;
+    } finally {
+      metrics.stop(started);
+    }
+  }
+
+  private static DrillBuf encode(H3CellMap counts, DrillBuf buffer) {
+    if (counts.size() == 0) {
+      return H3Strings.empty(buffer);
+    }
+    long[] cells = counts.sortedKeys();
+    int size = H3Histogram.encodedSize(counts, cells);
+    buffer = buffer.reallocIfNeeded(size);
+    H3Histogram.encode(counts, cells, buffer);
+    buffer.writerIndex(size);
+    return buffer;
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.datadistillr.udf;
+
+/**
+ * Indexes points and measures distances an array at a time.  Functions that gather many points before producing
+ * their output, such as aggregates, use it instead of the per-row methods.
+ * <p>
+ * The work is done by the kernel {@link H3BatchKernels} picks for the running JVM.  On Java 17 and later with the
+ * {@code jdk.incubator.vector} module added, the jar's Java 17 classes use SIMD lanes for the trigonometry and the
+ * choice of icosahedron face.  Otherwise, and whenever the vector API cannot be loaded, each point is handled by the
+ * same scalar code as the per-row functions.  Both give the same cells as {@link H3GeoIndexer#geoToH3}, except
+ * possibly for points exactly on a cell edge or vertex.
+ */
+public final class H3Batch {
+
+  private static final H3BatchKernel KERNEL = H3BatchKernels.create();
+
+  private H3Batch() {
+  }
+
+  /**
+   * Indexes the first count points into out.  Points that cannot be indexed, because a coordinate is not finite,
+   * get 0 instead of failing the whole batch.
+   *
+   * @param latitudes latitudes in degrees.
+   * @param longitudes longitudes in degrees.
+   * @throws IllegalArgumentException if the resolution is out of range.
+   */
+  public static void geoToH3(double[] latitudes, double[] longitudes, int count, int resolution, long[] out) {
+    H3GeoIndexer.checkResolution(resolution);
+    checkLength(count, latitudes.length, longitudes.length, out.length);
+    KERNEL.geoToH3(latitudes, longitudes, count, resolution, out);
+  }
+
+  /**
+   * Writes the great circle distance between the first count pairs of points into out, in kilometers.
+   *
+   * @see H3GreatCircle#distanceKm
+   */
+  public static void distanceKm(double[] latitudes1, double[] longitudes1, double[] latitudes2, double[] longitudes2,
+                                int count, double[] out) {
+    checkLength(count, latitudes1.length, longitudes1.length, out.length);
+    checkLength(count, latitudes2.length, longitudes2.length, out.length);
+    KERNEL.distanceKm(latitudes1, longitudes1, latitudes2, longitudes2, count, out);
+  }
+
+  /**
+   * @return the name of the kernel in use, for logging.
+   */
+  public static String kernel() {
+    return KERNEL.toString();
+  }
+
+  private static void checkLength(int count, int length1, int length2, int length3) {
+    if (count < 0 || count > Math.min(length1, Math.min(length2, length3))) {
+      throw new IndexOutOfBoundsException(String.format("count %d exceeds the array lengths", count));
+    }
+  }
+}
@@ -0,0 +1,34 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.datadistillr.udf;
+
+/**
+ * Chooses the {@link H3BatchKernel} for the running JVM.  This is the Java 7 version, which always uses the scalar
+ * kernel; the multi-release jar holds a Java 17 version of this class that tries the vector API first.
+ */
+final class H3BatchKernels {
+
+  private H3BatchKernels() {
+  }
+
+  static H3BatchKernel create() {
+    return new H3ScalarBatchKernel();
+  }
+}
@@ -0,0 +1,48 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.datadistillr.udf;
+
+/**
+ * Buffers for finding cell and edge boundaries with {@link H3GeoIndexer#cellBoundary} and
+ * {@link H3GeoIndexer#edgeBoundary}, so that a caller that keeps one can find any number of boundaries without
+ * creating objects.  Instances are not thread-safe.
+ */
+final class H3CellBoundary {
+
+  /**
+   * The most vertices a boundary can have: a Class III hexagon with four of its edges crossing icosahedron edges.
+   */
+  static final int MAX_VERTICES = 10;
+
+  /**
+   * The vertices found, as x/y/z on the unit sphere, with room for one more point after them.
+   */
+  final double[] vertices = new double[(MAX_VERTICES + 1) * 3];
+
+  // Faces and IJK+ coordinates, with the face at index 3.
+  final int[] center = new int[4];
+
+  final int[][] substrate = new int[6][4];
+
+  final int[] vertex = new int[4];
+
+  final int[] lastVertex = new int[4];
+
+  final int[] crossing = new int[4];
+}
@@ -0,0 +1,41 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.datadistillr.udf;
+
+/**
+ * Measures great circle distances between cell centers.  The centers are found with
+ * {@link H3GeoIndexer#cellCenter} rather than H3Core.h3ToGeo and written into a buffer owned by the instance, so a
+ * UDF that keeps one in its workspace creates no objects per row.  Instances are not thread-safe.
+ */
+public final class H3CellDistance {
+
+  private final double[] centers = new double[6];
+
+  /**
+   * @return the distance between the centers of the cells in kilometers, or NaN if either index is not a cell.
+   */
+  public double km(long cell1, long cell2) {
+    if (!H3GeoIndexer.cellCenter(cell1, centers, 0) || !H3GeoIndexer.cellCenter(cell2, centers, 3)) {
+      return Double.NaN;
+    }
+    return H3GreatCircle.angle(centers[0], centers[1], centers[2], centers[3], centers[4], centers[5])
+      * H3GreatCircle.EARTH_RADIUS_KM;
+  }
+}
@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.datadistillr.udf;
+
+import java.util.Arrays;
+
+/**
+ * An open-addressing hash map from H3 cells to long values, kept in two primitive arrays so that
+ * aggregates can count millions of cells without boxing.
+ * <p>
+ * Cell 0 is never a valid H3 index, so it marks empty slots and cannot be used as a key.
+ */
+public final class H3CellMap {
+
+  private static final int MIN_CAPACITY = 16;
+
+  private long[] keys;
+
+  private long[] values;
+
+  private int size;
+
+  private int mask;
+
+  private int resizeAt;
+
+  public H3CellMap() {
+    this(MIN_CAPACITY);
+  }
+
+  public H3CellMap(int expectedSize) {
+    int capacity = MIN_CAPACITY;
+    while (capacity * 3 / 4 < expectedSize) {
+      capacity <<= 1;
+    }
+    allocate(capacity);
+  }
+
+  private void allocate(int capacity) {
+    keys = new long[capacity];
+    values = new long[capacity];
+    mask = capacity - 1;
+    resizeAt = capacity * 3 / 4;
+  }
+
+  static int hash(long cell) {
+    // The finalizer from MurmurHash3; the low bits of an H3 index are mostly the constant unused digits.
+    cell ^= cell >>> 33;
+    cell *= 0xff51afd7ed558ccdL;
+    cell ^= cell >>> 33;
+    cell *= 0xc4ceb9fe1a85ec53L;
+    cell ^= cell >>> 33;
+    return (int) cell;
+  }
+
+  private int slot(long cell) {
+    int slot = hash(cell) & mask;
+    while (keys[slot] != 0L && keys[slot] != cell) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  /**
+   * Adds the delta to the value of the cell, inserting the cell with the delta as its value if it is not present.
+   * Cell 0 is ignored.
+   */
+  public void add(long cell, long delta) {
+    if (cell == 0L) {
+      return;
+    }
+    int slot = slot(cell);
+    if (keys[slot] == 0L) {
+      keys[slot] = cell;
+      values[slot] = delta;
+      if (++size > resizeAt) {
+        grow();
+      }
+    } else {
+      values[slot] += delta;
+    }
+  }
+
+  /**
+   * Sets the value of the cell.  Cell 0 is ignored.
+   */
+  public void put(long cell, long value) {
+    if (cell == 0L) {
+      return;
+    }
+    int slot = slot(cell);
+    values[slot] = value;
+    if (keys[slot] == 0L) {
+      keys[slot] = cell;
+      if (++size > resizeAt) {
+        grow();
+      }
+    }
+  }
+
+  /**
+   * @return the value of the cell, or the default value if the cell is not present.
+   */
+  public long get(long cell, long defaultValue) {
+    if (cell == 0L) {
+      return defaultValue;
+    }
+    int slot = slot(cell);
+    return keys[slot] == 0L ? defaultValue : values[slot];
+  }
+
+  public boolean containsKey(long cell) {
+    return cell != 0L && keys[slot(cell)] != 0L;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public void clear() {
+    Arrays.fill(keys, 0L);
+    size = 0;
+  }
+
+  /**
+   * @return every cell in the map in ascending order.
+   */
+  public long[] sortedKeys() {
+    long[] sorted = new long[size];
+    int count = 0;
+    for (long key : keys) {
+      if (key != 0L) {
+        sorted[count++] = key;
+      }
+    }
+    Arrays.sort(sorted);
+    return sorted;
+  }
+
+  private void grow() {
+    long[] oldKeys = keys;
+    long[] oldValues = values;
+    allocate(oldKeys.length << 1);
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] != 0L) {
+        int slot = slot(oldKeys[i]);
+        keys[slot] = oldKeys[i];
+        values[slot] = oldValues[i];
+      }
+    }
+  }
+}
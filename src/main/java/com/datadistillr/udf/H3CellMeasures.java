@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.datadistillr.udf;
+
+/**
+ * Exact cell areas and edge lengths, computed from the boundaries {@link H3GeoIndexer} finds instead of calling the H3
+ * native library.  As in H3's cellAreaRads2, a cell's area is the sum of the spherical triangles between its center
+ * and each pair of adjacent vertices, and as in exactEdgeLengthRads, an edge's length is the sum of the great circle
+ * distances between its vertices.
+ * <p>
+ * Results are kept in a {@link H3MeasureCache} shared by every fragment on the Drillbit, with room for
+ * datadistillr.h3.measure_cache.size indexes, so a cell that repeats across rows, fragments or queries is usually only
+ * measured once.  Instances hold the buffers boundaries are found in, so a UDF that keeps one in its workspace creates
+ * no objects per row apart from new cache entries.  Instances are not thread-safe.
+ */
+public final class H3CellMeasures {
+
+  private static final H3MeasureCache CACHE = new H3MeasureCache(H3Config.getLong(H3Config.MEASURE_CACHE_SIZE,
+    65536));
+
+  private final H3CellBoundary boundary = new H3CellBoundary();
+
+  /**
+   * @return the area of the cell in square kilometers, or NaN if the index is not a cell.
+   */
+  public double areaKm2(long cell) {
+    return areaRads2(cell) * H3GreatCircle.EARTH_RADIUS_KM * H3GreatCircle.EARTH_RADIUS_KM;
+  }
+
+  /**
+   * @return the area of the cell in square meters, or NaN if the index is not a cell.
+   */
+  public double areaM2(long cell) {
+    return areaKm2(cell) * 1000 * 1000;
+  }
+
+  /**
+   * @return the length of the unidirectional edge in kilometers, or NaN if the index is not an edge.
+   */
+  public double edgeLengthKm(long edge) {
+    return edgeLengthRads(edge) * H3GreatCircle.EARTH_RADIUS_KM;
+  }
+
+  /**
+   * @return the length of the unidirectional edge in meters, or NaN if the index is not an edge.
+   */
+  public double edgeLengthM(long edge) {
+    return edgeLengthKm(edge) * 1000;
+  }
+
+  /**
+   * @return the area of the cell in steradians, or NaN if the index is not a cell.
+   */
+  double areaRads2(long cell) {
+    double area = CACHE.get(cell);
+    if (!Double.isNaN(area)) {
+      return area;
+    }
+    int count = H3GeoIndexer.cellBoundary(cell, boundary);
+    if (count == 0) {
+      return Double.NaN;
+    }
+    double[] points = boundary.vertices;
+    int center = count * 3;
+    H3GeoIndexer.cellCenter(cell, points, center);
+    area = 0.0;
+    for (int i = 0; i < count; i++) {
+      area += H3GreatCircle.triangleArea(points, i * 3, (i + 1) % count * 3, center);
+    }
+    CACHE.put(cell, area);
+    return area;
+  }
+
+  /**
+   * @return the length of the edge in radians, or NaN if the index is not an edge.
+   */
+  double edgeLengthRads(long edge) {
+    double length = CACHE.get(edge);
+    if (!Double.isNaN(length)) {
+      return length;
+    }
+    int count = H3GeoIndexer.edgeBoundary(edge, boundary);
+    if (count == 0) {
+      return Double.NaN;
+    }
+    double[] points = boundary.vertices;
+    length = 0.0;
+    for (int i = 3; i < count * 3; i += 3) {
+      length += H3GreatCircle.angle(points[i - 3], points[i - 2], points[i - 1], points[i], points[i + 1],
+        points[i + 2]);
+    }
+    CACHE.put(edge, length);
+    return length;
+  }
+}
@@ -0,0 +1,208 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.datadistillr.udf;
+
+import io.netty.buffer.DrillBuf;
+import org.apache.drill.common.exceptions.UserException;
+import org.apache.drill.exec.vector.complex.writer.BaseWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The VARBINARY cell set format used by the h3Set functions: a format byte followed by the distinct cells in
+ * ascending order as 8 byte little endian longs.  They are read and written with DrillBuf's getLong and setLong, which
+ * are little endian; its getLongLE and setLongLE swap bytes.
+ * <p>
+ * Every operation works on the encoded bytes directly.  Membership is a binary search, and union and intersection
+ * are a single merge of the two inputs into the output buffer, so no set is ever decoded into Java objects.
+ */
+public final class H3CellSet {
+
+  private static final Logger logger = LoggerFactory.getLogger(H3CellSet.class);
+
+  static final byte FORMAT = 2;
+
+  static final int HEADER_BYTES = 1;
+
+  static final int CELL_BYTES = 8;
+
+  private H3CellSet() {
+  }
+
+  /**
+   * @return the number of bytes a set of the given number of cells takes.
+   */
+  public static int encodedSize(int cardinality) {
+    return HEADER_BYTES + cardinality * CELL_BYTES;
+  }
+
+  /**
+   * Writes the sorted, distinct cells as a set at the start of the buffer, which must hold at least
+   * {@link #encodedSize(int)} bytes.
+   *
+   * @return the number of bytes written.
+   */
+  public static int encode(long[] sortedCells, DrillBuf buffer) {
+    buffer.setByte(0, FORMAT);
+    int index = HEADER_BYTES;
+    for (long cell : sortedCells) {
+      buffer.setLong(index, cell);
+      index += CELL_BYTES;
+    }
+    return index;
+  }
+
+  /**
+   * @return the number of cells in an encoded set.
+   */
+  public static int cardinality(DrillBuf buffer, int start, int end) {
+    int length = end - start;
+    if (length < HEADER_BYTES || buffer.getByte(start) != FORMAT || (length - HEADER_BYTES) % CELL_BYTES != 0) {
+      throw UserException.functionError()
+        .message("Value is not an H3 cell set")
+        .build(logger);
+    }
+    return (length - HEADER_BYTES) / CELL_BYTES;
+  }
+
+  /**
+   * @return whether the encoded set holds the cell.
+   */
+  public static boolean contains(DrillBuf buffer, int start, int end, long cell) {
+    return indexOf(buffer, start + HEADER_BYTES, cardinality(buffer, start, end), cell) >= 0;
+  }
+
+  /**
+   * Writes the union of two encoded sets at the start of the output buffer, which must hold at least
+   * {@link #encodedSize(int)} bytes for the sum of both cardinalities.
+   *
+   * @return the number of bytes written.
+   */
+  public static int union(DrillBuf left, int leftStart, int leftEnd,
+                          DrillBuf right, int rightStart, int rightEnd, DrillBuf out) {
+    int leftCount = cardinality(left, leftStart, leftEnd);
+    int rightCount = cardinality(right, rightStart, rightEnd);
+    int leftIndex = leftStart + HEADER_BYTES;
+    int rightIndex = rightStart + HEADER_BYTES;
+    int i = 0;
+    int j = 0;
+    int index = HEADER_BYTES;
+    out.setByte(0, FORMAT);
+    while (i < leftCount && j < rightCount) {
+      long leftCell = left.getLong(leftIndex + i * CELL_BYTES);
+      long rightCell = right.getLong(rightIndex + j * CELL_BYTES);
+      if (leftCell <= rightCell) {
+        out.setLong(index, leftCell);
+        i++;
+        if (leftCell == rightCell) {
+          j++;
+        }
+      } else {
+        out.setLong(index, rightCell);
+        j++;
+      }
+      index += CELL_BYTES;
+    }
+    // Copy whichever tail is left as is.
+    if (i < leftCount) {
+      int length = (leftCount - i) * CELL_BYTES;
+      out.setBytes(index, left, leftIndex + i * CELL_BYTES, length);
+      index += length;
+    } else if (j < rightCount) {
+      int length = (rightCount - j) * CELL_BYTES;
+      out.setBytes(index, right, rightIndex + j * CELL_BYTES, length);
+      index += length;
+    }
+    return index;
+  }
+
+  /**
+   * Writes the intersection of two encoded sets at the start of the output buffer, which must hold at least
+   * {@link #encodedSize(int)} bytes for the smaller cardinality.
+   *
+   * @return the number of bytes written.
+   */
+  public static int intersect(DrillBuf left, int leftStart, int leftEnd,
+                              DrillBuf right, int rightStart, int rightEnd, DrillBuf out) {
+    int leftCount = cardinality(left, leftStart, leftEnd);
+    int rightCount = cardinality(right, rightStart, rightEnd);
+    if (leftCount > rightCount) {
+      return intersect(right, rightStart, rightEnd, left, leftStart, leftEnd, out);
+    }
+    int leftIndex = leftStart + HEADER_BYTES;
+    int rightIndex = rightStart + HEADER_BYTES;
+    int index = HEADER_BYTES;
+    out.setByte(0, FORMAT);
+    if ((long) leftCount * (32 - Integer.numberOfLeadingZeros(rightCount)) < leftCount + rightCount) {
+      // Probing the larger set is cheaper than a merge when the sizes are very different.
+      for (int i = 0; i < leftCount; i++) {
+        long cell = left.getLong(leftIndex + i * CELL_BYTES);
+        if (indexOf(right, rightIndex, rightCount, cell) >= 0) {
+          out.setLong(index, cell);
+          index += CELL_BYTES;
+        }
+      }
+      return index;
+    }
+    int i = 0;
+    int j = 0;
+    while (i < leftCount && j < rightCount) {
+      long leftCell = left.getLong(leftIndex + i * CELL_BYTES);
+      long rightCell = right.getLong(rightIndex + j * CELL_BYTES);
+      if (leftCell < rightCell) {
+        i++;
+      } else if (leftCell > rightCell) {
+        j++;
+      } else {
+        out.setLong(index, leftCell);
+        index += CELL_BYTES;
+        i++;
+        j++;
+      }
+    }
+    return index;
+  }
+
+  /**
+   * Writes the cells of an encoded set to a list in ascending order.
+   */
+  public static void writeCells(DrillBuf buffer, int start, int end, BaseWriter.ListWriter listWriter) {
+    int count = cardinality(buffer, start, end);
+    for (int i = 0; i < count; i++) {
+      listWriter.bigInt().writeBigInt(buffer.getLong(start + HEADER_BYTES + i * CELL_BYTES));
+    }
+  }
+
+  private static int indexOf(DrillBuf buffer, int cellsStart, int count, long cell) {
+    int low = 0;
+    int high = count - 1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      long value = buffer.getLong(cellsStart + middle * CELL_BYTES);
+      if (value < cell) {
+        low = middle + 1;
+      } else if (value > cell) {
+        high = middle - 1;
+      } else {
+        return middle;
+      }
+    }
+    return -1;
+  }
+}
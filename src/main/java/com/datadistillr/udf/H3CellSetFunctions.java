@@ -0,0 +1,289 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.datadistillr.udf;
+
+import io.netty.buffer.DrillBuf;
+import org.apache.drill.exec.expr.DrillAggFunc;
+import org.apache.drill.exec.expr.DrillSimpleFunc;
+import org.apache.drill.exec.expr.annotations.FunctionTemplate;
+import org.apache.drill.exec.expr.annotations.Output;
+import org.apache.drill.exec.expr.annotations.Param;
+import org.apache.drill.exec.expr.annotations.Workspace;
+import org.apache.drill.exec.expr.holders.BigIntHolder;
+import org.apache.drill.exec.expr.holders.BitHolder;
+import org.apache.drill.exec.expr.holders.IntHolder;
+import org.apache.drill.exec.expr.holders.NullableBigIntHolder;
+import org.apache.drill.exec.expr.holders.NullableVarBinaryHolder;
+import org.apache.drill.exec.expr.holders.ObjectHolder;
+import org.apache.drill.exec.expr.holders.VarBinaryHolder;
+import org.apache.drill.exec.vector.complex.writer.BaseWriter;
+
+import javax.inject.Inject;
+
+/**
+ * Functions that build and combine compact VARBINARY cell sets (see {@link H3CellSet}).  Comparing coverage areas
+ * with these functions keeps one value per area, where the equivalent FLATTEN and join plan produces one row per
+ * cell of every pair of areas.
+ */
+@SuppressWarnings("deprecation")
+public class H3CellSetFunctions {
+
+  @FunctionTemplate(names = {"h3SetAgg", "h3_set_agg"},
+    scope = FunctionTemplate.FunctionScope.POINT_AGGREGATE)
+  public static class h3SetAgg implements DrillAggFunc {
+
+    @Param
+    BigIntHolder cellInput;
+
+    @Workspace
+    ObjectHolder cells;
+
+    @Output
+    NullableVarBinaryHolder out;
+
+    @Inject
+    DrillBuf buffer;
+
+    @Workspace
+    ObjectHolder metrics;
+
+    @Override
+    public void setup() {
+      metrics = new ObjectHolder();
+      metrics.obj = com.datadistillr.udf.H3Metrics.function("h3SetAgg", false);
+      cells = new ObjectHolder();
+      cells.obj = new com.datadistillr.udf.H3CellMap();
+    }
+
+    @Override
+    public void add() {
+      com.datadistillr.udf.H3Aggregation.add(metrics.obj, cells.obj, cellInput.value);
+    }
+
+    @Override
+    public void output() {
+      buffer = com.datadistillr.udf.H3SetOperations.encode(cells.obj, buffer);
+      out.buffer = buffer;
+      out.start = 0;
+      out.end = buffer.writerIndex();
+      out.isSet = out.end == 0 ? 0 : 1;
+    }
+
+    @Override
+    public void reset() {
+      cells = new ObjectHolder();
+      cells.obj = new com.datadistillr.udf.H3CellMap();
+    }
+  }
+
+  @FunctionTemplate(names = {"h3SetAgg", "h3_set_agg"},
+    scope = FunctionTemplate.FunctionScope.POINT_AGGREGATE)
+  public static class h3SetAggNullable implements DrillAggFunc {
+
+    @Param
+    NullableBigIntHolder cellInput;
+
+    @Workspace
+    ObjectHolder cells;
+
+    @Output
+    NullableVarBinaryHolder out;
+
+    @Inject
+    DrillBuf buffer;
+
+    @Workspace
+    ObjectHolder metrics;
+
+    @Override
+    public void setup() {
+      metrics = new ObjectHolder();
+      metrics.obj = com.datadistillr.udf.H3Metrics.function("h3SetAgg", false);
+      cells = new ObjectHolder();
+      cells.obj = new com.datadistillr.udf.H3CellMap();
+    }
+
+    @Override
+    public void add() {
+      com.datadistillr.udf.H3Aggregation.add(metrics.obj, cells.obj, cellInput.isSet, cellInput.value);
+    }
+
+    @Override
+    public void output() {
+      buffer = com.datadistillr.udf.H3SetOperations.encode(cells.obj, buffer);
+      out.buffer = buffer;
+      out.start = 0;
+      out.end = buffer.writerIndex();
+      out.isSet = out.end == 0 ? 0 : 1;
+    }
+
+    @Override
+    public void reset() {
+      cells = new ObjectHolder();
+      cells.obj = new com.datadistillr.udf.H3CellMap();
+    }
+  }
+
+  @FunctionTemplate(names = {"h3SetUnion", "h3_set_union"},
+    scope = FunctionTemplate.FunctionScope.SIMPLE,
+    nulls = FunctionTemplate.NullHandling.NULL_IF_NULL)
+  public static class h3SetUnion implements DrillSimpleFunc {
+
+    @Param
+    VarBinaryHolder left;
+
+    @Param
+    VarBinaryHolder right;
+
+    @Output
+    VarBinaryHolder out;
+
+    @Inject
+    DrillBuf buffer;
+
+    @Workspace
+    com.datadistillr.udf.H3FunctionMetrics metrics;
+
+    @Override
+    public void setup() {
+      metrics = com.datadistillr.udf.H3Metrics.function("h3SetUnion", false);
+    }
+
+    @Override
+    public void eval() {
+      buffer = com.datadistillr.udf.H3SetOperations.union(metrics, left.buffer, left.start, left.end, right.buffer,
+        right.start, right.end, buffer);
+      out.buffer = buffer;
+      out.start = 0;
+      out.end = buffer.writerIndex();
+    }
+  }
+
+  @FunctionTemplate(names = {"h3SetIntersect", "h3_set_intersect"},
+    scope = FunctionTemplate.FunctionScope.SIMPLE,
+    nulls = FunctionTemplate.NullHandling.NULL_IF_NULL)
+  public static class h3SetIntersect implements DrillSimpleFunc {
+
+    @Param
+    VarBinaryHolder left;
+
+    @Param
+    VarBinaryHolder right;
+
+    @Output
+    VarBinaryHolder out;
+
+    @Inject
+    DrillBuf buffer;
+
+    @Workspace
+    com.datadistillr.udf.H3FunctionMetrics metrics;
+
+    @Override
+    public void setup() {
+      metrics = com.datadistillr.udf.H3Metrics.function("h3SetIntersect", false);
+    }
+
+    @Override
+    public void eval() {
+      buffer = com.datadistillr.udf.H3SetOperations.intersect(metrics, left.buffer, left.start, left.end,
+        right.buffer, right.start, right.end, buffer);
+      out.buffer = buffer;
+      out.start = 0;
+      out.end = buffer.writerIndex();
+    }
+  }
+
+  @FunctionTemplate(names = {"h3SetCardinality", "h3_set_cardinality"},
+    scope = FunctionTemplate.FunctionScope.SIMPLE,
+    nulls = FunctionTemplate.NullHandling.NULL_IF_NULL)
+  public static class h3SetCardinality implements DrillSimpleFunc {
+
+    @Param
+    VarBinaryHolder set;
+
+    @Output
+    IntHolder result;
+
+    @Workspace
+    com.datadistillr.udf.H3FunctionMetrics metrics;
+
+    @Override
+    public void setup() {
+      metrics = com.datadistillr.udf.H3Metrics.function("h3SetCardinality", false);
+    }
+
+    @Override
+    public void eval() {
+      result.value = com.datadistillr.udf.H3SetOperations.cardinality(metrics, set.buffer, set.start, set.end);
+    }
+  }
+
+  @FunctionTemplate(names = {"h3SetContains", "h3_set_contains"},
+    scope = FunctionTemplate.FunctionScope.SIMPLE,
+    nulls = FunctionTemplate.NullHandling.NULL_IF_NULL)
+  public static class h3SetContains implements DrillSimpleFunc {
+
+    @Param
+    VarBinaryHolder set;
+
+    @Param
+    BigIntHolder cell;
+
+    @Output
+    BitHolder result;
+
+    @Workspace
+    com.datadistillr.udf.H3FunctionMetrics metrics;
+
+    @Override
+    public void setup() {
+      metrics = com.datadistillr.udf.H3Metrics.function("h3SetContains", false);
+    }
+
+    @Override
+    public void eval() {
+      result.value = com.datadistillr.udf.H3SetOperations.contains(metrics, set.buffer, set.start, set.end, cell.value);
+    }
+  }
+
+  @FunctionTemplate(names = {"h3SetCells", "h3_set_cells"},
+    scope = FunctionTemplate.FunctionScope.SIMPLE)
+  public static class h3SetCells implements DrillSimpleFunc {
+
+    @Param
+    NullableVarBinaryHolder set;
+
+    @Output
+    BaseWriter.ComplexWriter outWriter;
+
+    @Workspace
+    com.datadistillr.udf.H3FunctionMetrics metrics;
+
+    @Override
+    public void setup() {
+      metrics = com.datadistillr.udf.H3Metrics.function("h3SetCells", false);
+    }
+
+    @Override
+    public void eval() {
+      com.datadistillr.udf.H3SetOperations.writeCells(metrics, set.isSet, set.buffer, set.start, set.end, outWriter);
+    }
+  }
+}
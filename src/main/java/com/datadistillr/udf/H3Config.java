@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.datadistillr.udf;
+
+import org.apache.drill.common.config.DrillConfig;
+
+/**
+ * Settings for the H3 functions.  Defaults are in this module's drill-module.conf and can be overridden in
+ * drill-override.conf or with Java system properties on the Drillbit.
+ */
+public final class H3Config {
+
+  /**
+   * The most cells a single traversal function call may return.
+   */
+  public static final String MAX_TRAVERSAL_CELLS = "datadistillr.h3.traversal.max_cells";
+
+  /**
+   * The number of cell areas and edge lengths kept in the Drillbit's cache.
+   */
+  public static final String MEASURE_CACHE_SIZE = "datadistillr.h3.measure_cache.size";
+
+  /**
+   * The number of recent results each fragment of a function with a memo remembers, unless set for the function.
+   */
+  public static final String MEMO_SIZE = "datadistillr.h3.memo.size";
+
+  /**
+   * The number of VARCHAR addresses each fragment of a function with an address cache remembers.
+   */
+  public static final String ADDRESS_CACHE_SIZE = "datadistillr.h3.address_cache.size";
+
+  /**
+   * The most cells a single polyfill call may fill, estimated from the bounding boxes of its polygons.
+   */
+  public static final String MAX_POLYFILL_CELLS = "datadistillr.h3.polyfill.max_cells";
+
+  /**
+   * The most bytes of polyfill results the Drillbit keeps for polygons that are filled again.
+   */
+  public static final String POLYFILL_CACHE_BYTES = "datadistillr.h3.polyfill.cache_bytes";
+
+  /**
+   * The directory h3DistanceToSet reads cell set files from.  Files are not read at all when it is empty.
+   */
+  public static final String CELL_SET_DIRECTORY = "datadistillr.h3.cell_sets.directory";
+
+  /**
+   * The largest cell set file h3DistanceToSet reads, in bytes.
+   */
+  public static final String MAX_CELL_SET_FILE_BYTES = "datadistillr.h3.cell_sets.max_file_bytes";
+
+  private static volatile DrillConfig config;
+
+  private H3Config() {
+  }
+
+  /**
+   * @return the value at the path, or the default value if the path is not set.
+   */
+  public static long getLong(String path, long defaultValue) {
+    DrillConfig drillConfig = config();
+    return drillConfig.hasPath(path) ? drillConfig.getLong(path) : defaultValue;
+  }
+
+  /**
+   * @return the value at the path, or the default value if the path is not set.
+   */
+  public static String getString(String path, String defaultValue) {
+    DrillConfig drillConfig = config();
+    return drillConfig.hasPath(path) ? drillConfig.getString(path) : defaultValue;
+  }
+
+  private static DrillConfig config() {
+    DrillConfig drillConfig = config;
+    if (drillConfig == null) {
+      synchronized (H3Config.class) {
+        drillConfig = config;
+        if (drillConfig == null) {
+          drillConfig = DrillConfig.create();
+          config = drillConfig;
+        }
+      }
+    }
+    return drillConfig;
+  }
+}
@@ -0,0 +1,217 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.datadistillr.udf;
+
+import com.uber.h3core.H3Core;
+import org.apache.drill.common.exceptions.UserException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The grid distance from every cell within k of a set of source cells to the nearest source, computed once with a
+ * breadth-first search that starts from all sources together.  Each lookup is then a single hash map probe, where
+ * comparing every row with every source costs one h3Distance per source.
+ */
+public final class H3DistanceField {
+
+  private static final Logger logger = LoggerFactory.getLogger(H3DistanceField.class);
+
+  private final H3CellMap distances;
+
+  private H3DistanceField(H3CellMap distances) {
+    this.distances = distances;
+  }
+
+  /**
+   * The default largest cell set file, in bytes.
+   */
+  static final long DEFAULT_MAX_FILE_BYTES = 32L << 20;
+
+  /**
+   * Builds the field for the cells listed in the spec, which is either the path of a file in the configured cell set
+   * directory or the cells themselves.  Cells are BIGINTs or hexadecimal addresses separated by commas or whitespace.
+   * Errors name a bad cell by its position rather than quoting it, so that they never show what a file holds.
+   *
+   * @throws UserException if the spec cannot be read, holds no cells or the field would be larger than the traversal
+   * limit.
+   */
+  public static H3DistanceField build(H3Core h3, String spec, int maxK) {
+    String text = spec;
+    String source = "The H3 cell set";
+    Path file = cellSetFile(spec);
+    if (file != null) {
+      text = new String(read(file), StandardCharsets.UTF_8);
+      source = "The H3 cell set file " + file.getFileName();
+    }
+
+    String[] tokens = text.trim().split("[,\\s]+");
+    long[] sources = new long[tokens.length];
+    int count = 0;
+    for (String token : tokens) {
+      if (token.isEmpty()) {
+        continue;
+      }
+      long cell = H3LookupTableBuilder.parseCell(token);
+      if (cell == 0L) {
+        throw UserException.functionError()
+          .message("%s has something other than an H3 cell at position %d", source, count + 1)
+          .build(logger);
+      }
+      sources[count++] = cell;
+    }
+    if (count == 0) {
+      throw UserException.functionError()
+        .message("%s is empty", source)
+        .build(logger);
+    }
+    return build(h3, Arrays.copyOf(sources, count), maxK);
+  }
+
+  /**
+   * @return the file the spec names in the cell set directory, or null if no directory is configured or the spec
+   * names no regular file inside it, in which case the spec is taken as a list of cells.
+   */
+  private static Path cellSetFile(String spec) {
+    String directory = H3Config.getString(H3Config.CELL_SET_DIRECTORY, "");
+    if (directory.isEmpty()) {
+      return null;
+    }
+    try {
+      Path root = Paths.get(directory).toRealPath();
+      Path file = root.resolve(spec.trim());
+      if (!Files.isRegularFile(file)) {
+        return null;
+      }
+      // Resolve links and .. so the file cannot be outside the directory.
+      file = file.toRealPath();
+      return file.startsWith(root) ? file : null;
+    } catch (IOException | InvalidPathException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Reads the file, failing as soon as it has more bytes than the configured limit.
+   */
+  private static byte[] read(Path file) {
+    long maxBytes = Math.min(H3Config.getLong(H3Config.MAX_CELL_SET_FILE_BYTES, DEFAULT_MAX_FILE_BYTES),
+      Integer.MAX_VALUE - 8);
+    try (InputStream in = Files.newInputStream(file)) {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      byte[] chunk = new byte[8192];
+      int read;
+      while ((read = in.read(chunk)) >= 0) {
+        if (bytes.size() + read > maxBytes) {
+          throw UserException.functionError()
+            .message("The H3 cell set file %s is larger than the limit of %d bytes", file.getFileName(), maxBytes)
+            .addContext("Raise the limit with the " + H3Config.MAX_CELL_SET_FILE_BYTES + " setting")
+            .build(logger);
+        }
+        bytes.write(chunk, 0, read);
+      }
+      return bytes.toByteArray();
+    } catch (IOException e) {
+      throw UserException.dataReadError(e)
+        .message("Unable to read H3 cell set file %s", file.getFileName())
+        .build(logger);
+    }
+  }
+
+  /**
+   * Builds the field of every cell within maxK of the sources.
+   *
+   * @throws UserException if maxK is negative or the field would be larger than the traversal limit.
+   */
+  public static H3DistanceField build(H3Core h3, long[] sources, int maxK) {
+    if (maxK < 0) {
+      throw UserException.functionError()
+        .message("Maximum distance must not be negative, got %d", maxK)
+        .build(logger);
+    }
+    long maxCells = H3Traversal.maxCells();
+    H3CellMap distances = new H3CellMap(sources.length);
+    long[] frontier = new long[sources.length];
+    int frontierSize = 0;
+    for (long source : sources) {
+      if (!distances.containsKey(source)) {
+        if (distances.size() >= maxCells) {
+          throw tooLarge(maxCells, 0, maxK);
+        }
+        distances.put(source, 0L);
+        frontier[frontierSize++] = source;
+      }
+    }
+
+    long[] next = new long[frontierSize * 6];
+    for (int distance = 1; distance <= maxK && frontierSize > 0; distance++) {
+      int nextSize = 0;
+      for (int i = 0; i < frontierSize; i++) {
+        List<Long> neighbours = h3.kRing(frontier[i], 1);
+        for (Long neighbour : neighbours) {
+          long cell = neighbour;
+          if (cell != 0L && !distances.containsKey(cell)) {
+            // Checked per cell, so a single layer cannot run far past the limit before it is noticed.
+            if (distances.size() >= maxCells) {
+              throw tooLarge(maxCells, distance, maxK);
+            }
+            distances.put(cell, distance);
+            if (nextSize == next.length) {
+              next = Arrays.copyOf(next, Math.max(16, nextSize * 2));
+            }
+            next[nextSize++] = cell;
+          }
+        }
+      }
+      long[] swap = frontier;
+      frontier = next;
+      next = swap;
+      frontierSize = nextSize;
+    }
+    return new H3DistanceField(distances);
+  }
+
+  private static UserException tooLarge(long maxCells, int distance, int maxK) {
+    return UserException.functionError()
+      .message("The distance field reaches more than %d cells by distance %d of %d", maxCells, distance, maxK)
+      .addContext("Lower the maximum distance or raise the " + H3Config.MAX_TRAVERSAL_CELLS + " setting")
+      .build(logger);
+  }
+
+  /**
+   * @return the grid distance from the cell to the nearest source, or -1 if it is further than the maximum distance.
+   */
+  public int distance(long cell) {
+    return (int) distances.get(cell, -1L);
+  }
+
+  public int size() {
+    return distances.size();
+  }
+}
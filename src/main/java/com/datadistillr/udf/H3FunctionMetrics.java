@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.datadistillr.udf;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Histogram;
+
+/**
+ * Instrumentation for the eval path of one function.  The counters are shared by every instance of the function
+ * and are backed by LongAdders, so counting a row costs an uncontended add.  Latency is only measured for one row
+ * in every {@link #SAMPLE_INTERVAL}, which keeps the cost of reading the clock off most rows.
+ * <p>
+ * Each UDF instance holds its own object in a workspace and uses it from a single thread:
+ * <pre>
+ *   long started = metrics.start();
+ *   try {
+ *     ...
+ *   } catch (RuntimeException e) {
+ *     metrics.error();
+ *     throw e;
+ *   } finally {
+ *     metrics.stop(started);
+ *   }
+ * </pre>
+ */
+public final class H3FunctionMetrics {
+
+  static final int SAMPLE_INTERVAL = 128;
+
+  private final Counter rows;
+
+  private final Counter nativeCalls;
+
+  private final Counter fallbacks;
+
+  private final Counter errors;
+
+  private final Counter memoHits;
+
+  private final Histogram latency;
+
+  private final boolean usesNative;
+
+  private int untilSample;
+
+  private boolean fellBack;
+
+  private boolean memoHit;
+
+  H3FunctionMetrics(Counter rows, Counter nativeCalls, Counter fallbacks, Counter errors, Counter memoHits,
+                    Histogram latency, boolean usesNative) {
+    this.rows = rows;
+    this.nativeCalls = nativeCalls;
+    this.fallbacks = fallbacks;
+    this.errors = errors;
+    this.memoHits = memoHits;
+    this.latency = latency;
+    this.usesNative = usesNative;
+  }
+
+  /**
+   * Counts a row.
+   *
+   * @return the start time if this row's latency is sampled, otherwise 0.
+   */
+  public long start() {
+    rows.inc();
+    fellBack = false;
+    memoHit = false;
+    if (--untilSample > 0) {
+      return 0L;
+    }
+    untilSample = SAMPLE_INTERVAL;
+    return System.nanoTime();
+  }
+
+  /**
+   * Records the latency of a sampled row, and counts the row as a call into the H3 library unless it fell back or
+   * was found in the function's memo.
+   */
+  public void stop(long started) {
+    if (usesNative && !fellBack && !memoHit) {
+      nativeCalls.inc();
+    }
+    if (started != 0L) {
+      latency.update(System.nanoTime() - started);
+    }
+  }
+
+  /**
+   * Counts a row that returned a default value because the H3 library could not be loaded.
+   */
+  public void fallback() {
+    fellBack = true;
+    fallbacks.inc();
+  }
+
+  /**
+   * Counts a row whose result was found in the function's {@link H3Memo}.
+   */
+  public void memoHit() {
+    memoHit = true;
+    memoHits.inc();
+  }
+
+  /**
+   * Counts a row that failed with an exception.
+   */
+  public void error() {
+    errors.inc();
+  }
+}
@@ -0,0 +1,1378 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.datadistillr.udf;
+
+import java.util.Arrays;
+
+/**
+ * A Java implementation of H3's geoToH3, h3ToGeo and h3ToGeoBoundary, ported from the C library that ships with
+ * h3-java 3.7.1.  Indexing a point is a projection onto the nearest icosahedron face followed by integer arithmetic,
+ * so doing it here avoids a JNI transition per row and lets the JIT compile the whole call into the generated UDF
+ * code.
+ * <p>
+ * The C library finds the point's position on the face from its great circle distance and azimuth to the face
+ * center, which takes seven trigonometric calls after the face is known.  The same gnomonic projection is done here
+ * with dot products against the face's axes, which are computed once from the library's tables.  The two agree on
+ * random points at every resolution, but a point that lies exactly on a cell edge or vertex, such as one returned by
+ * h3ToGeoBoundary, may be assigned to a different one of the cells that share it.  Cell centers are found with the
+ * inverse projection, so they come out as points on the unit sphere without any trigonometry, and so do the vertices
+ * of cell and edge boundaries.
+ */
+public final class H3GeoIndexer {
+
+  private static final int NUM_ICOSA_FACES = 20;
+
+  private static final int MAX_FACE_COORD = 2;
+
+  private static final double M_SIN60 = Math.sqrt(3.0) / 2.0;
+
+  private static final double M_SQRT7 = Math.sqrt(7.0);
+
+  /**
+   * Rotation angle between Class II and Class III resolution axes, asin(sqrt(3/28)).
+   */
+  private static final double M_AP7_ROT_RADS = 0.3334731722518321;
+
+  /**
+   * Scaling factor from hex2d resolution 0 unit length to gnomonic unit length.
+   */
+  private static final double RES0_U_GNOMONIC = 0.381966011250105;
+
+  /**
+   * An index with mode 0, resolution 0, base cell 0 and every digit set to 7.
+   */
+  private static final long H3_INIT = 35184372088831L;
+
+  private static final int MODE_OFFSET = 59;
+
+  private static final long HEXAGON_MODE = 1L;
+
+  private static final long UNIDIRECTIONAL_EDGE_MODE = 2L;
+
+  /**
+   * Offset of the reserved bits, which hold the direction of a unidirectional edge.
+   */
+  private static final int RESERVED_OFFSET = 56;
+
+  private static final int RESOLUTION_OFFSET = 52;
+
+  static final int BASE_CELL_OFFSET = 45;
+
+  private static final int DIGIT_BITS = 3;
+
+  private static final long DIGIT_MASK = 7L;
+
+  private static final int CENTER_DIGIT = 0;
+
+  private static final int K_AXES_DIGIT = 1;
+
+  private static final int JK_AXES_DIGIT = 3;
+
+  private static final int IK_AXES_DIGIT = 5;
+
+  private static final int INVALID_DIGIT = 7;
+
+  private static final int IJ_QUADRANT = 1;
+
+  private static final int KI_QUADRANT = 2;
+
+  private static final int JK_QUADRANT = 3;
+
+  private static final int NO_OVERAGE = 0;
+
+  private static final int FACE_EDGE = 1;
+
+  private static final int NEW_FACE = 2;
+
+  private static final int NUM_HEX_VERTS = 6;
+
+  private static final int NUM_PENT_VERTS = 5;
+
+  /**
+   * The single precision machine epsilon the C library compares substrate positions with.
+   */
+  private static final double FLT_EPSILON = 1.1920929E-7;
+
+  static final int NUM_BASE_CELLS = 122;
+
+  /**
+   * The digit of each unit IJK vector, indexed by i * 4 + j * 2 + k after normalization.
+   */
+  private static final int[] UNIT_DIGITS = {0, 1, 2, 3, 4, 5, 6, INVALID_DIGIT};
+
+  /**
+   * The digit each digit becomes after a 60 degree counter-clockwise rotation.
+   */
+  static final int[] ROTATE_60_CCW = {0, 5, 3, 1, 6, 4, 2, 7};
+
+  /**
+   * The digit each digit becomes after a 60 degree clockwise rotation.
+   */
+  static final int[] ROTATE_60_CW = {0, 3, 6, 2, 5, 1, 4, 7};
+
+  /**
+   * The IJK+ unit vector of each digit.
+   */
+  private static final int[][] DIGIT_UNIT_VECTORS = {
+    {0, 0, 0}, {0, 0, 1}, {0, 1, 0}, {0, 1, 1}, {1, 0, 0}, {1, 0, 1}, {1, 1, 0}
+  };
+
+  /**
+   * The vertices of the origin cell on the aperture 33r substrate grid of a Class II resolution, counter-clockwise
+   * from the i axis.  Pentagons use the first five.
+   */
+  private static final int[][] CLASS_II_VERTICES = {
+    {2, 1, 0}, {1, 2, 0}, {0, 2, 1}, {0, 1, 2}, {1, 0, 2}, {2, 0, 1}
+  };
+
+  /**
+   * The vertices of the origin cell on the aperture 33r7r substrate grid of a Class III resolution.
+   */
+  private static final int[][] CLASS_III_VERTICES = {
+    {5, 4, 0}, {1, 5, 0}, {0, 5, 4}, {0, 1, 5}, {4, 0, 5}, {5, 0, 1}
+  };
+
+  /**
+   * The first vertex of the edge in each direction from a hexagon, before rotating for the cell's face.
+   */
+  private static final int[] HEXAGON_DIRECTION_VERTICES = {-1, 3, 1, 2, 5, 4, 0};
+
+  /**
+   * The first vertex of the edge in each direction from a pentagon, which has no edge in the k direction.
+   */
+  private static final int[] PENTAGON_DIRECTION_VERTICES = {-1, -1, 1, 2, 4, 3, 0};
+
+  /**
+   * Icosahedron face centers as x/y/z on the unit sphere.
+   */
+  private static final double[][] FACE_CENTER_POINT = {
+    {0.2199307791404606, 0.6583691780274996, 0.7198475378926182},
+    {-0.2139234834501421, 0.1478171829550703, 0.9656017935214205},
+    {0.1092625278784797, -0.481195157287321, 0.8697775121287253},
+    {0.7428567301586791, -0.3593941678278028, 0.5648005936517033},
+    {0.8112534709140969, 0.3448953237639384, 0.472138773641393},
+    {-0.1055498149613921, 0.9794457296411413, 0.1718874610009365},
+    {-0.8075407579970092, 0.1533552485898818, 0.5695261994882688},
+    {-0.2846148069787907, -0.8644080972654206, 0.4144792552473539},
+    {0.7405621473854482, -0.6673299564565524, -0.0789837646326737},
+    {0.8512303986474293, 0.4722343788582681, -0.2289137388687808},
+    {-0.7405621473854481, 0.6673299564565524, 0.0789837646326737},
+    {-0.8512303986474292, -0.4722343788582682, 0.2289137388687808},
+    {0.1055498149613919, -0.9794457296411413, -0.1718874610009365},
+    {0.8075407579970092, -0.1533552485898819, -0.5695261994882688},
+    {0.2846148069787908, 0.8644080972654204, -0.4144792552473539},
+    {-0.7428567301586791, 0.3593941678278027, -0.5648005936517033},
+    {-0.811253470914097, -0.3448953237639382, -0.472138773641393},
+    {-0.2199307791404607, -0.6583691780274996, -0.7198475378926182},
+    {0.213923483450142, -0.1478171829550704, -0.9656017935214205},
+    {-0.1092625278784796, 0.481195157287321, -0.8697775121287253}
+  };
+
+  /**
+   * Icosahedron face centers as latitude/longitude in radians.
+   */
+  private static final double[][] FACE_CENTER_GEO = {
+    {0.80358264971899, 1.2483974196173961},
+    {1.3077478834556382, 2.5369450098779214},
+    {1.054751253523952, -1.3475173589003966},
+    {0.6001915955381868, -0.45060390946975576},
+    {0.49171542819877384, 0.40198820291130694},
+    {0.1727453274156187, 1.6781468852804338},
+    {0.6059293215713507, 2.9539233298124117},
+    {0.42737051832897965, -1.8888762003362853},
+    {-0.07906611854921283, -0.7334295133808677},
+    {-0.23096164445538364, 0.506495587332349},
+    {0.07906611854921283, 2.4081631402089254},
+    {0.23096164445538364, -2.635097066257444},
+    {-0.1727453274156187, -1.4634457683093596},
+    {-0.6059293215713507, -0.18766932377738163},
+    {-0.42737051832897965, 1.2527164532535078},
+    {-0.6001915955381868, 2.6909887441200375},
+    {-0.49171542819877384, -2.7396044506784865},
+    {-0.80358264971899, -1.8931952339723972},
+    {-1.3077478834556382, -0.6046476437118721},
+    {-1.054751253523952, 1.7940752946893965}
+  };
+
+  /**
+   * Azimuth in radians from each face center to the vertices that define the face's Class II i, j and k axes.
+   */
+  private static final double[][] FACE_AXES_AZ_RADS_CII = {
+    {5.6199582685239395, 3.5255631661307447, 1.4311680637375488},
+    {5.7603390817141875, 3.665943979320992, 1.571548876927796},
+    {0.78021365439343, 4.969003859179821, 2.8746087567866256},
+    {0.4304693639799999, 4.619259568766391, 2.5248644663731956},
+    {6.130269123335111, 4.0358740209419155, 1.9414789185487202},
+    {2.692877706530643, 0.5984826041374471, 4.787272808923838},
+    {2.982963003477244, 0.8885679010840484, 5.07735810587044},
+    {3.532912002790141, 1.4385169003969456, 5.627307105183337},
+    {3.494305004259568, 1.3999099018663728, 5.588700106652764},
+    {3.0032141694995382, 0.908819067106343, 5.0976092718927335},
+    {5.930472956509812, 3.836077854116616, 1.7416827517234204},
+    {0.13837848409025486, 4.327168688876646, 2.23277358648345},
+    {0.4487149470591504, 4.6375051518455415, 2.543110049452346},
+    {0.15862965011254937, 4.3474198548989405, 2.2530247525057447},
+    {5.891865957979238, 3.797470855586043, 1.7030757531928475},
+    {2.711123289609793, 0.6167281872165977, 4.8055183920029885},
+    {3.294508837434268, 1.2001137350410729, 5.388903939827464},
+    {3.80481969224544, 1.7104245898522445, 5.8992147946386355},
+    {3.6644388790551923, 1.570043776661997, 5.758833981448388},
+    {2.361378999196363, 0.2669838968031676, 4.455774101589559}
+  };
+
+  /**
+   * The base cell at each resolution 0 IJK+ coordinate of each face, indexed by face * 27 + i * 9 + j * 3 + k.
+   */
+  private static final int[] FACE_IJK_BASE_CELLS = {
+    16, 18, 24, 33, 30, 32, 49, 48, 50,
+    8, 5, 10, 22, 16, 18, 41, 33, 30,
+    4, 0, 2, 15, 8, 5, 31, 22, 16,
+    2, 6, 14, 10, 11, 17, 24, 23, 25,
+    0, 1, 9, 5, 2, 6, 18, 10, 11,
+    4, 3, 7, 8, 0, 1, 16, 5, 2,
+    7, 21, 38, 9, 19, 34, 14, 20, 36,
+    3, 13, 29, 1, 7, 21, 6, 9, 19,
+    4, 12, 26, 0, 3, 13, 2, 1, 7,
+    26, 42, 58, 29, 43, 62, 38, 47, 64,
+    12, 28, 44, 13, 26, 42, 21, 29, 43,
+    4, 15, 31, 3, 12, 28, 7, 13, 26,
+    31, 41, 49, 44, 53, 61, 58, 65, 75,
+    15, 22, 33, 28, 31, 41, 42, 44, 53,
+    4, 8, 16, 12, 15, 22, 26, 28, 31,
+    50, 48, 49, 32, 30, 33, 24, 18, 16,
+    70, 67, 66, 52, 50, 48, 37, 32, 30,
+    83, 87, 85, 74, 70, 67, 57, 52, 50,
+    25, 23, 24, 17, 11, 10, 14, 6, 2,
+    45, 39, 37, 35, 25, 23, 27, 17, 11,
+    63, 59, 57, 56, 45, 39, 46, 35, 25,
+    36, 20, 14, 34, 19, 9, 38, 21, 7,
+    55, 40, 27, 54, 36, 20, 51, 34, 19,
+    72, 60, 46, 73, 55, 40, 71, 54, 36,
+    64, 47, 38, 62, 43, 29, 58, 42, 26,
+    84, 69, 51, 82, 64, 47, 76, 62, 43,
+    97, 89, 71, 98, 84, 69, 96, 82, 64,
+    75, 65, 58, 61, 53, 44, 49, 41, 31,
+    94, 86, 76, 81, 75, 65, 66, 61, 53,
+    107, 104, 96, 101, 94, 86, 85, 81, 75,
+    57, 59, 63, 74, 78, 79, 83, 92, 95,
+    37, 39, 45, 52, 57, 59, 70, 74, 78,
+    24, 23, 25, 32, 37, 39, 50, 52, 57,
+    46, 60, 72, 56, 68, 80, 63, 77, 90,
+    27, 40, 55, 35, 46, 60, 45, 56, 68,
+    14, 20, 36, 17, 27, 40, 25, 35, 46,
+    71, 89, 97, 73, 91, 103, 72, 88, 105,
+    51, 69, 84, 54, 71, 89, 55, 73, 91,
+    38, 47, 64, 34, 51, 69, 36, 54, 71,
+    96, 104, 107, 98, 110, 115, 97, 111, 119,
+    76, 86, 94, 82, 96, 104, 84, 98, 110,
+    58, 65, 75, 62, 76, 86, 64, 82, 96,
+    85, 87, 83, 101, 102, 100, 107, 112, 114,
+    66, 67, 70, 81, 85, 87, 94, 101, 102,
+    49, 48, 50, 61, 66, 67, 75, 81, 85,
+    95, 92, 83, 79, 78, 74, 63, 59, 57,
+    109, 108, 100, 93, 95, 92, 77, 79, 78,
+    117, 118, 114, 106, 109, 108, 90, 93, 95,
+    90, 77, 63, 80, 68, 56, 72, 60, 46,
+    106, 93, 79, 99, 90, 77, 88, 80, 68,
+    117, 109, 95, 113, 106, 93, 105, 99, 90,
+    105, 88, 72, 103, 91, 73, 97, 89, 71,
+    113, 99, 80, 116, 105, 88, 111, 103, 91,
+    117, 106, 90, 121, 113, 99, 119, 116, 105,
+    119, 111, 97, 115, 110, 98, 107, 104, 96,
+    121, 116, 103, 120, 119, 111, 112, 115, 110,
+    117, 113, 105, 118, 121, 116, 114, 120, 119,
+    114, 112, 107, 100, 102, 101, 83, 87, 85,
+    118, 120, 115, 108, 114, 112, 92, 100, 102,
+    117, 121, 119, 109, 118, 120, 95, 108, 114
+  };
+
+  /**
+   * The number of 60 degree counter-clockwise rotations into the base cell's coordinate system, indexed like
+   * {@link #FACE_IJK_BASE_CELLS}.
+   */
+  private static final int[] FACE_IJK_BASE_CELL_ROTATIONS = {
+    0, 0, 0, 0, 0, 3, 1, 3, 3,
+    0, 5, 5, 0, 0, 0, 1, 0, 0,
+    0, 5, 5, 1, 0, 5, 1, 0, 0,
+    0, 0, 0, 0, 0, 3, 1, 3, 3,
+    0, 5, 5, 0, 0, 0, 1, 0, 0,
+    1, 5, 5, 1, 0, 5, 1, 0, 0,
+    0, 0, 0, 0, 0, 3, 1, 3, 3,
+    0, 5, 5, 0, 0, 0, 1, 0, 0,
+    2, 5, 5, 1, 0, 5, 1, 0, 0,
+    0, 0, 0, 0, 0, 3, 1, 3, 3,
+    0, 5, 5, 0, 0, 0, 1, 0, 0,
+    3, 5, 5, 1, 0, 5, 1, 0, 0,
+    0, 0, 0, 0, 0, 3, 1, 3, 3,
+    0, 5, 5, 0, 0, 0, 1, 0, 0,
+    4, 5, 5, 1, 0, 5, 1, 0, 0,
+    0, 0, 3, 0, 3, 3, 3, 3, 3,
+    0, 0, 3, 3, 0, 0, 3, 0, 3,
+    0, 3, 3, 3, 0, 0, 1, 3, 0,
+    0, 0, 3, 0, 3, 3, 3, 3, 3,
+    0, 0, 3, 3, 0, 0, 3, 0, 3,
+    0, 3, 3, 3, 0, 0, 3, 3, 0,
+    0, 0, 3, 0, 3, 3, 3, 3, 3,
+    0, 0, 3, 3, 0, 0, 3, 0, 3,
+    0, 3, 3, 3, 0, 0, 3, 3, 0,
+    0, 0, 3, 0, 3, 3, 3, 3, 3,
+    0, 0, 3, 3, 0, 0, 3, 0, 3,
+    0, 3, 3, 3, 0, 0, 3, 3, 0,
+    0, 0, 3, 0, 3, 3, 3, 3, 3,
+    0, 0, 3, 3, 0, 0, 3, 0, 3,
+    0, 3, 3, 3, 0, 0, 3, 3, 0,
+    0, 0, 3, 0, 3, 3, 3, 3, 3,
+    0, 3, 3, 0, 0, 0, 3, 0, 3,
+    0, 3, 3, 3, 0, 3, 3, 0, 0,
+    0, 0, 3, 0, 3, 3, 3, 3, 3,
+    0, 3, 3, 0, 0, 0, 3, 0, 3,
+    0, 3, 3, 3, 0, 3, 3, 0, 0,
+    0, 0, 3, 0, 3, 3, 3, 3, 3,
+    0, 3, 3, 0, 0, 0, 3, 0, 3,
+    0, 3, 3, 3, 0, 3, 3, 0, 0,
+    0, 0, 3, 0, 3, 3, 3, 3, 3,
+    0, 3, 3, 0, 0, 0, 3, 0, 3,
+    0, 3, 3, 3, 0, 3, 3, 0, 0,
+    0, 0, 3, 0, 3, 3, 3, 3, 3,
+    0, 3, 3, 0, 0, 0, 3, 0, 3,
+    0, 3, 3, 3, 0, 3, 3, 0, 0,
+    0, 0, 0, 0, 0, 3, 1, 3, 3,
+    0, 0, 5, 1, 0, 0, 1, 0, 0,
+    4, 5, 5, 1, 0, 0, 1, 1, 0,
+    0, 0, 0, 0, 0, 3, 1, 3, 3,
+    0, 0, 5, 1, 0, 0, 1, 0, 0,
+    3, 5, 5, 1, 0, 0, 1, 1, 0,
+    0, 0, 0, 0, 0, 3, 1, 3, 3,
+    0, 0, 5, 1, 0, 0, 1, 0, 0,
+    2, 5, 5, 1, 0, 0, 1, 1, 0,
+    0, 0, 0, 0, 0, 3, 1, 3, 3,
+    0, 0, 5, 1, 0, 0, 1, 0, 0,
+    1, 5, 5, 1, 0, 0, 1, 1, 0,
+    0, 0, 0, 0, 0, 3, 1, 3, 3,
+    0, 0, 5, 1, 0, 0, 1, 0, 0,
+    0, 5, 5, 1, 0, 0, 1, 1, 0
+  };
+
+  /**
+   * The pentagon base cells, the two faces, if any, on which each is clockwise offset, and the faces in the
+   * directions from the pentagon's center with digits 2 to 6.
+   */
+  private static final int[][] PENTAGONS = {
+    {4, -1, -1, 4, 0, 2, 1, 3},
+    {14, 2, 6, 6, 11, 2, 7, 1},
+    {24, 1, 5, 5, 10, 1, 6, 0},
+    {38, 3, 7, 7, 12, 3, 8, 2},
+    {49, 0, 9, 9, 14, 0, 5, 4},
+    {58, 4, 8, 8, 13, 4, 9, 3},
+    {63, 11, 15, 11, 6, 15, 10, 16},
+    {72, 12, 16, 12, 7, 16, 11, 17},
+    {83, 10, 19, 10, 5, 19, 14, 15},
+    {97, 13, 17, 13, 8, 17, 12, 18},
+    {107, 14, 18, 14, 9, 18, 13, 19},
+    {117, -1, -1, 15, 19, 17, 18, 16}
+  };
+
+  /**
+   * The home face and IJK+ coordinates of each base cell.
+   */
+  static final int[][] BASE_CELL_HOMES = {
+    {1, 1, 0, 0}, {2, 1, 1, 0}, {1, 0, 0, 0}, {2, 1, 0, 0}, {0, 2, 0, 0}, {1, 1, 1, 0},
+    {1, 0, 0, 1}, {2, 0, 0, 0}, {0, 1, 0, 0}, {2, 0, 1, 0}, {1, 0, 1, 0}, {1, 0, 1, 1},
+    {3, 1, 0, 0}, {3, 1, 1, 0}, {11, 2, 0, 0}, {4, 1, 0, 0}, {0, 0, 0, 0}, {6, 0, 1, 0},
+    {0, 0, 0, 1}, {2, 0, 1, 1}, {7, 0, 0, 1}, {2, 0, 0, 1}, {0, 1, 1, 0}, {6, 0, 0, 1},
+    {10, 2, 0, 0}, {6, 0, 0, 0}, {3, 0, 0, 0}, {11, 1, 0, 0}, {4, 1, 1, 0}, {3, 0, 1, 0},
+    {0, 0, 1, 1}, {4, 0, 0, 0}, {5, 0, 1, 0}, {0, 0, 1, 0}, {7, 0, 1, 0}, {11, 1, 1, 0},
+    {7, 0, 0, 0}, {10, 1, 0, 0}, {12, 2, 0, 0}, {6, 1, 0, 1}, {7, 1, 0, 1}, {4, 0, 0, 1},
+    {3, 0, 0, 1}, {3, 0, 1, 1}, {4, 0, 1, 0}, {6, 1, 0, 0}, {11, 0, 0, 0}, {8, 0, 0, 1},
+    {5, 0, 0, 1}, {14, 2, 0, 0}, {5, 0, 0, 0}, {12, 1, 0, 0}, {10, 1, 1, 0}, {4, 0, 1, 1},
+    {12, 1, 1, 0}, {7, 1, 0, 0}, {11, 0, 1, 0}, {10, 0, 0, 0}, {13, 2, 0, 0}, {10, 0, 0, 1},
+    {11, 0, 0, 1}, {9, 0, 1, 0}, {8, 0, 1, 0}, {6, 2, 0, 0}, {8, 0, 0, 0}, {9, 0, 0, 1},
+    {14, 1, 0, 0}, {5, 1, 0, 1}, {16, 0, 1, 1}, {8, 1, 0, 1}, {5, 1, 0, 0}, {12, 0, 0, 0},
+    {7, 2, 0, 0}, {12, 0, 1, 0}, {10, 0, 1, 0}, {9, 0, 0, 0}, {13, 1, 0, 0}, {16, 0, 0, 1},
+    {15, 0, 1, 1}, {15, 0, 1, 0}, {16, 0, 1, 0}, {14, 1, 1, 0}, {13, 1, 1, 0}, {5, 2, 0, 0},
+    {8, 1, 0, 0}, {14, 0, 0, 0}, {9, 1, 0, 1}, {14, 0, 0, 1}, {17, 0, 0, 1}, {12, 0, 0, 1},
+    {16, 0, 0, 0}, {17, 0, 1, 1}, {15, 0, 0, 1}, {16, 1, 0, 1}, {9, 1, 0, 0}, {15, 0, 0, 0},
+    {13, 0, 0, 0}, {8, 2, 0, 0}, {13, 0, 1, 0}, {17, 1, 0, 1}, {19, 0, 1, 0}, {14, 0, 1, 0},
+    {19, 0, 1, 1}, {17, 0, 1, 0}, {13, 0, 0, 1}, {17, 0, 0, 0}, {16, 1, 0, 0}, {9, 2, 0, 0},
+    {15, 1, 0, 1}, {15, 1, 0, 0}, {18, 0, 1, 1}, {18, 0, 0, 1}, {19, 0, 0, 1}, {17, 1, 0, 0},
+    {19, 0, 0, 0}, {18, 0, 1, 0}, {18, 1, 0, 1}, {19, 2, 0, 0}, {19, 1, 0, 0}, {18, 0, 0, 0},
+    {19, 1, 0, 1}, {18, 1, 0, 0}
+  };
+
+  /**
+   * For each face, the orientation of the face itself and of its neighbors across the IJ, KI and JK edges, as the
+   * neighbor's face, the IJK translation of the origin and the number of 60 degree counter-clockwise rotations.
+   */
+  private static final int[][][] FACE_NEIGHBORS = {
+    {{0, 0, 0, 0, 0}, {4, 2, 0, 2, 1}, {1, 2, 2, 0, 5}, {5, 0, 2, 2, 3}},
+    {{1, 0, 0, 0, 0}, {0, 2, 0, 2, 1}, {2, 2, 2, 0, 5}, {6, 0, 2, 2, 3}},
+    {{2, 0, 0, 0, 0}, {1, 2, 0, 2, 1}, {3, 2, 2, 0, 5}, {7, 0, 2, 2, 3}},
+    {{3, 0, 0, 0, 0}, {2, 2, 0, 2, 1}, {4, 2, 2, 0, 5}, {8, 0, 2, 2, 3}},
+    {{4, 0, 0, 0, 0}, {3, 2, 0, 2, 1}, {0, 2, 2, 0, 5}, {9, 0, 2, 2, 3}},
+    {{5, 0, 0, 0, 0}, {10, 2, 2, 0, 3}, {14, 2, 0, 2, 3}, {0, 0, 2, 2, 3}},
+    {{6, 0, 0, 0, 0}, {11, 2, 2, 0, 3}, {10, 2, 0, 2, 3}, {1, 0, 2, 2, 3}},
+    {{7, 0, 0, 0, 0}, {12, 2, 2, 0, 3}, {11, 2, 0, 2, 3}, {2, 0, 2, 2, 3}},
+    {{8, 0, 0, 0, 0}, {13, 2, 2, 0, 3}, {12, 2, 0, 2, 3}, {3, 0, 2, 2, 3}},
+    {{9, 0, 0, 0, 0}, {14, 2, 2, 0, 3}, {13, 2, 0, 2, 3}, {4, 0, 2, 2, 3}},
+    {{10, 0, 0, 0, 0}, {5, 2, 2, 0, 3}, {6, 2, 0, 2, 3}, {15, 0, 2, 2, 3}},
+    {{11, 0, 0, 0, 0}, {6, 2, 2, 0, 3}, {7, 2, 0, 2, 3}, {16, 0, 2, 2, 3}},
+    {{12, 0, 0, 0, 0}, {7, 2, 2, 0, 3}, {8, 2, 0, 2, 3}, {17, 0, 2, 2, 3}},
+    {{13, 0, 0, 0, 0}, {8, 2, 2, 0, 3}, {9, 2, 0, 2, 3}, {18, 0, 2, 2, 3}},
+    {{14, 0, 0, 0, 0}, {9, 2, 2, 0, 3}, {5, 2, 0, 2, 3}, {19, 0, 2, 2, 3}},
+    {{15, 0, 0, 0, 0}, {16, 2, 0, 2, 1}, {19, 2, 2, 0, 5}, {10, 0, 2, 2, 3}},
+    {{16, 0, 0, 0, 0}, {17, 2, 0, 2, 1}, {15, 2, 2, 0, 5}, {11, 0, 2, 2, 3}},
+    {{17, 0, 0, 0, 0}, {18, 2, 0, 2, 1}, {16, 2, 2, 0, 5}, {12, 0, 2, 2, 3}},
+    {{18, 0, 0, 0, 0}, {19, 2, 0, 2, 1}, {17, 2, 2, 0, 5}, {13, 0, 2, 2, 3}},
+    {{19, 0, 0, 0, 0}, {15, 2, 0, 2, 1}, {18, 2, 2, 0, 5}, {14, 0, 2, 2, 3}}
+  };
+
+  /**
+   * For each face and resolution class, unit vectors in the plane tangent to the face center along the hex2d x and y
+   * axes, indexed by face * 2 + resolution % 2.
+   */
+  private static final double[][] FACE_AXES = new double[NUM_ICOSA_FACES * 2][];
+
+  /**
+   * The hex2d length of a unit gnomonic distance at each resolution.
+   */
+  private static final double[] RESOLUTION_SCALE = new double[H3IndexBits.MAX_RESOLUTION + 2];
+
+  /**
+   * For each pair of faces, the quadrant of the first face that the second one is across, 0 for the face itself and
+   * -1 for faces that are not adjacent.
+   */
+  private static final int[][] ADJACENT_FACE_QUADRANTS = new int[NUM_ICOSA_FACES][NUM_ICOSA_FACES];
+
+  static final boolean[] IS_PENTAGON = new boolean[NUM_BASE_CELLS];
+
+  static final int[][] CW_OFFSET_FACES = new int[NUM_BASE_CELLS][];
+
+  private static final int[][] PENTAGON_DIRECTION_FACES = new int[NUM_BASE_CELLS][];
+
+  static {
+    for (int face = 0; face < NUM_ICOSA_FACES; face++) {
+      double lat = FACE_CENTER_GEO[face][0];
+      double lng = FACE_CENTER_GEO[face][1];
+      double[] north = {-Math.sin(lat) * Math.cos(lng), -Math.sin(lat) * Math.sin(lng), Math.cos(lat)};
+      double[] east = {-Math.sin(lng), Math.cos(lng), 0.0};
+      for (int resolutionClass = 0; resolutionClass < 2; resolutionClass++) {
+        // Azimuths are clockwise from north, and Class III axes are rotated counter-clockwise from Class II.
+        double azimuth = FACE_AXES_AZ_RADS_CII[face][0] - resolutionClass * M_AP7_ROT_RADS;
+        double[] axes = new double[6];
+        for (int i = 0; i < 3; i++) {
+          axes[i] = north[i] * Math.cos(azimuth) + east[i] * Math.sin(azimuth);
+          axes[i + 3] = north[i] * Math.sin(azimuth) - east[i] * Math.cos(azimuth);
+        }
+        FACE_AXES[face * 2 + resolutionClass] = axes;
+      }
+    }
+    double scale = 1.0 / RES0_U_GNOMONIC;
+    // One more than the finest resolution, for the substrate grid of its boundary.
+    for (int resolution = 0; resolution <= H3IndexBits.MAX_RESOLUTION + 1; resolution++) {
+      RESOLUTION_SCALE[resolution] = scale;
+      scale *= M_SQRT7;
+    }
+    for (int[] pentagon : PENTAGONS) {
+      IS_PENTAGON[pentagon[0]] = true;
+      CW_OFFSET_FACES[pentagon[0]] = new int[] {pentagon[1], pentagon[2]};
+      PENTAGON_DIRECTION_FACES[pentagon[0]] = Arrays.copyOfRange(pentagon, 3, 8);
+    }
+    for (int face = 0; face < NUM_ICOSA_FACES; face++) {
+      Arrays.fill(ADJACENT_FACE_QUADRANTS[face], -1);
+      for (int quadrant = 0; quadrant <= JK_QUADRANT; quadrant++) {
+        ADJACENT_FACE_QUADRANTS[face][FACE_NEIGHBORS[face][quadrant][0]] = quadrant;
+      }
+    }
+  }
+
+  private H3GeoIndexer() {
+  }
+
+  /**
+   * Indexes a point the same way H3Core.geoToH3 does.
+   *
+   * @param latitude latitude in degrees.
+   * @param longitude longitude in degrees.
+   * @throws IllegalArgumentException if the resolution is out of range or a coordinate is not finite.
+   */
+  public static long geoToH3(double latitude, double longitude, int resolution) {
+    checkResolution(resolution);
+    double lat = Math.toRadians(latitude);
+    double lng = Math.toRadians(longitude);
+    if (Double.isNaN(lat) || Double.isInfinite(lat) || Double.isNaN(lng) || Double.isInfinite(lng)) {
+      throw new IllegalArgumentException("Latitude or longitude were invalid.");
+    }
+    double cosLat = Math.cos(lat);
+    double x = Math.cos(lng) * cosLat;
+    double y = Math.sin(lng) * cosLat;
+    double z = Math.sin(lat);
+    return faceToH3(nearestFace(x, y, z), x, y, z, resolution);
+  }
+
+  /**
+   * @throws IllegalArgumentException if the resolution is out of range.
+   */
+  static void checkResolution(int resolution) {
+    if (resolution < 0 || resolution > H3IndexBits.MAX_RESOLUTION) {
+      throw new IllegalArgumentException(
+        String.format("resolution %d is out of range (must be 0 <= res <= 15)", resolution));
+    }
+  }
+
+  /**
+   * @return the icosahedron face whose center is nearest to the point on the unit sphere.
+   */
+  static int nearestFace(double x, double y, double z) {
+    int face = 0;
+    double sqd = squareDistance(FACE_CENTER_POINT[0], x, y, z);
+    for (int f = 1; f < NUM_ICOSA_FACES; f++) {
+      double sqdT = squareDistance(FACE_CENTER_POINT[f], x, y, z);
+      if (sqdT < sqd) {
+        face = f;
+        sqd = sqdT;
+      }
+    }
+    return face;
+  }
+
+  /**
+   * @return the face center as x/y/z on the unit sphere.
+   */
+  static double[] faceCenter(int face) {
+    return FACE_CENTER_POINT[face];
+  }
+
+  /**
+   * Indexes a point on the unit sphere, given the face it is nearest to.
+   */
+  static long faceToH3(int face, double x, double y, double z, int resolution) {
+    // Gnomonic projection onto the plane tangent to the face center, then scaling for the resolution.
+    double[] center = FACE_CENTER_POINT[face];
+    double cosDistance = center[0] * x + center[1] * y + center[2] * z;
+    double px = x / cosDistance - center[0];
+    double py = y / cosDistance - center[1];
+    double pz = z / cosDistance - center[2];
+    double[] axes = FACE_AXES[face * 2 + resolution % 2];
+    double scale = RESOLUTION_SCALE[resolution];
+    int[] ijk = new int[3];
+    hex2dToCoordIjk((px * axes[0] + py * axes[1] + pz * axes[2]) * scale,
+      (px * axes[3] + py * axes[4] + pz * axes[5]) * scale, ijk);
+    long h3 = faceIjkToH3(face, ijk, resolution);
+    if (h3 == 0L) {
+      throw new IllegalArgumentException("Latitude or longitude were invalid.");
+    }
+    return h3;
+  }
+
+  private static double squareDistance(double[] point, double x, double y, double z) {
+    double dx = point[0] - x;
+    double dy = point[1] - y;
+    double dz = point[2] - z;
+    return dx * dx + dy * dy + dz * dz;
+  }
+
+  /**
+   * Finds the center of the cell, the point H3Core.h3ToGeo returns, as x/y/z on the unit sphere.  Nothing is
+   * allocated apart from the IJK+ coordinates, so the JIT can keep the whole decode in registers.
+   *
+   * @param point receives x, y and z at offset, offset + 1 and offset + 2.
+   * @return false, leaving the point unchanged, if the index is not a cell.
+   */
+  static boolean cellCenter(long cell, double[] point, int offset) {
+    if (!isCell(cell)) {
+      return false;
+    }
+    int resolution = H3IndexBits.getResolution(cell);
+    int[] ijk = new int[3];
+    int face = h3ToFaceIjk(cell, resolution, ijk);
+
+    // Inverse of the projection in faceToH3: the hex2d position scaled back to the tangent plane, then onto the
+    // sphere.
+    double i = ijk[0] - ijk[2];
+    double j = ijk[1] - ijk[2];
+    double scale = RESOLUTION_SCALE[resolution];
+    double x = (i - 0.5 * j) / scale;
+    double y = j * M_SIN60 / scale;
+    double[] center = FACE_CENTER_POINT[face];
+    double[] axes = FACE_AXES[face * 2 + resolution % 2];
+    double px = center[0] + x * axes[0] + y * axes[3];
+    double py = center[1] + x * axes[1] + y * axes[4];
+    double pz = center[2] + x * axes[2] + y * axes[5];
+    double norm = Math.sqrt(px * px + py * py + pz * pz);
+    point[offset] = px / norm;
+    point[offset + 1] = py / norm;
+    point[offset + 2] = pz / norm;
+    return true;
+  }
+
+  /**
+   * Finds the vertices of the cell's boundary, the points H3Core.h3ToGeoBoundary returns, as x/y/z on the unit
+   * sphere.  Like the C library, the vertices are found on a substrate grid fine enough to hold them, and an edge of
+   * a Class III cell that crosses an icosahedron edge gets an extra vertex where it crosses.
+   *
+   * @return the number of vertices written to the boundary, or 0 if the index is not a cell.
+   */
+  static int cellBoundary(long cell, H3CellBoundary boundary) {
+    if (!isCell(cell)) {
+      return 0;
+    }
+    int resolution = H3IndexBits.getResolution(cell);
+    int[] center = boundary.center;
+    center[3] = h3ToFaceIjk(cell, resolution, center);
+    if (isPentagon(cell)) {
+      return pentagonBoundary(center, resolution, 0, NUM_PENT_VERTS, boundary);
+    }
+    return hexagonBoundary(center, resolution, 0, NUM_HEX_VERTS, boundary);
+  }
+
+  /**
+   * Finds the vertices of a unidirectional edge, the points H3Core.getH3UnidirectionalEdgeBoundary returns: the two
+   * vertices the edge's origin shares with its destination, with a vertex between them if the edge crosses an
+   * icosahedron edge.
+   *
+   * @return the number of vertices written to the boundary, or 0 if the index is not a unidirectional edge.
+   */
+  static int edgeBoundary(long edge, H3CellBoundary boundary) {
+    if (edge >>> MODE_OFFSET != UNIDIRECTIONAL_EDGE_MODE) {
+      return 0;
+    }
+    int direction = (int) ((edge >>> RESERVED_OFFSET) & DIGIT_MASK);
+    long origin = (edge & ~(0xFFL << RESERVED_OFFSET)) | (HEXAGON_MODE << MODE_OFFSET);
+    if (direction == CENTER_DIGIT || direction == INVALID_DIGIT || !isCell(origin)) {
+      return 0;
+    }
+    boolean pentagon = isPentagon(origin);
+    if (pentagon && direction == K_AXES_DIGIT) {
+      return 0;
+    }
+
+    int resolution = H3IndexBits.getResolution(origin);
+    int[] center = boundary.center;
+    center[3] = h3ToFaceIjk(origin, resolution, center);
+    int rotations = vertexRotations(origin, resolution, center[3]);
+    if (pentagon) {
+      int start = (PENTAGON_DIRECTION_VERTICES[direction] + NUM_PENT_VERTS - rotations) % NUM_PENT_VERTS;
+      return pentagonBoundary(center, resolution, start, 2, boundary);
+    }
+    int start = (HEXAGON_DIRECTION_VERTICES[direction] + NUM_HEX_VERTS - rotations) % NUM_HEX_VERTS;
+    return hexagonBoundary(center, resolution, start, 2, boundary);
+  }
+
+  /**
+   * @return the number of 60 degree counter-clockwise rotations from the cell's directions to the vertex numbering of
+   * its face.
+   */
+  private static int vertexRotations(long cell, int resolution, int face) {
+    int baseCell = getBaseCell(cell);
+    int rotations = -1;
+    for (int slot = face * 27; slot < face * 27 + 27; slot++) {
+      if (FACE_IJK_BASE_CELLS[slot] == baseCell) {
+        rotations = FACE_IJK_BASE_CELL_ROTATIONS[slot];
+        break;
+      }
+    }
+    if (!IS_PENTAGON[baseCell]) {
+      return rotations;
+    }
+
+    int[] directionFaces = PENTAGON_DIRECTION_FACES[baseCell];
+    int ikFace = directionFaces[IK_AXES_DIGIT - 2];
+    // The polar pentagons have no clockwise offset faces, and rotate once more on every face but their home face.
+    if (face != BASE_CELL_HOMES[baseCell][0] && (CW_OFFSET_FACES[baseCell][0] < 0 || face == ikFace)) {
+      rotations = (rotations + 1) % 6;
+    }
+    // Cells that cross the deleted k sub-sequence between the JK and IK directions.
+    int leadingDigit = leadingNonZeroDigit(cell, resolution);
+    if (leadingDigit == JK_AXES_DIGIT && face == ikFace) {
+      rotations = (rotations + 5) % 6;
+    } else if (leadingDigit == IK_AXES_DIGIT && face == directionFaces[JK_AXES_DIGIT - 2]) {
+      rotations = (rotations + 1) % 6;
+    }
+    return rotations;
+  }
+
+  /**
+   * Writes length vertices of a hexagon starting at vertex start, with the extra vertices of edges that cross onto
+   * another face.
+   *
+   * @param center the face and IJK+ coordinates of the cell, which are overwritten.
+   */
+  private static int hexagonBoundary(int[] center, int resolution, int start, int length, H3CellBoundary boundary) {
+    int[][] vertices = boundary.substrate;
+    int substrateResolution = substrateVertices(center, resolution, NUM_HEX_VERTS, vertices);
+    int face = center[3];
+    int[] fijk = boundary.vertex;
+    int count = 0;
+    int lastFace = -1;
+    int lastOverage = NO_OVERAGE;
+    // A whole loop takes one more step to check the last edge for a crossing.
+    int end = start + length + (length == NUM_HEX_VERTS ? 1 : 0);
+    for (int vertex = start; vertex < end; vertex++) {
+      int v = vertex % NUM_HEX_VERTS;
+      System.arraycopy(vertices[v], 0, fijk, 0, 4);
+      int overage = adjustSubstrateOverage(fijk, substrateResolution);
+      // Class II cell edges have their vertices on the face edge, so only Class III edges cross it.
+      if (resolution % 2 == 1 && vertex > start && fijk[3] != lastFace && lastOverage != FACE_EDGE) {
+        int[] last = vertices[(v + NUM_HEX_VERTS - 1) % NUM_HEX_VERTS];
+        int crossedFace = lastFace == face ? fijk[3] : lastFace;
+        count = addCrossing(last, vertices[v], face, ADJACENT_FACE_QUADRANTS[face][crossedFace], substrateResolution,
+          true, boundary, count);
+      }
+      if (vertex < start + NUM_HEX_VERTS) {
+        count = addVertex(fijk, fijk[3], substrateResolution, boundary, count);
+      }
+      lastFace = fijk[3];
+      lastOverage = overage;
+    }
+    return count;
+  }
+
+  /**
+   * Writes length vertices of a pentagon starting at vertex start.  Every edge of a Class III pentagon crosses onto
+   * another face.
+   *
+   * @param center the face and IJK+ coordinates of the cell, which are overwritten.
+   */
+  private static int pentagonBoundary(int[] center, int resolution, int start, int length, H3CellBoundary boundary) {
+    int[][] vertices = boundary.substrate;
+    int substrateResolution = substrateVertices(center, resolution, NUM_PENT_VERTS, vertices);
+    int[] fijk = boundary.vertex;
+    int[] last = boundary.lastVertex;
+    int[] crossing = boundary.crossing;
+    int count = 0;
+    int end = start + length + (length == NUM_PENT_VERTS ? 1 : 0);
+    for (int vertex = start; vertex < end; vertex++) {
+      System.arraycopy(vertices[vertex % NUM_PENT_VERTS], 0, fijk, 0, 4);
+      // A pentagon vertex may need a second move.
+      int overage;
+      do {
+        overage = adjustSubstrateOverage(fijk, substrateResolution);
+      } while (overage == NEW_FACE);
+      if (resolution % 2 == 1 && vertex > start) {
+        // Move this vertex onto the last one's face, and find where the edge between them leaves it.
+        System.arraycopy(fijk, 0, crossing, 0, 4);
+        int[] orientation = FACE_NEIGHBORS[fijk[3]][ADJACENT_FACE_QUADRANTS[fijk[3]][last[3]]];
+        crossing[3] = orientation[0];
+        for (int r = 0; r < orientation[4]; r++) {
+          rotate60ccw(crossing);
+        }
+        int unitScale = 3 * unitScale(substrateResolution);
+        crossing[0] += orientation[1] * unitScale;
+        crossing[1] += orientation[2] * unitScale;
+        crossing[2] += orientation[3] * unitScale;
+        normalize(crossing);
+        count = addCrossing(last, crossing, crossing[3], ADJACENT_FACE_QUADRANTS[crossing[3]][fijk[3]],
+          substrateResolution, false, boundary, count);
+      }
+      if (vertex < start + NUM_PENT_VERTS) {
+        count = addVertex(fijk, fijk[3], substrateResolution, boundary, count);
+      }
+      System.arraycopy(fijk, 0, last, 0, 4);
+    }
+    return count;
+  }
+
+  /**
+   * Finds the vertices of the cell on the substrate grid, the aperture 33r grid of its resolution or, for a Class III
+   * resolution, the aperture 33r7r grid that has the orientation of the Class II resolution below.
+   *
+   * @param center the face and IJK+ coordinates of the cell, which are moved onto the substrate grid.
+   * @param vertices receives the face and coordinates of each vertex.
+   * @return the Class II resolution of the substrate grid.
+   */
+  private static int substrateVertices(int[] center, int resolution, int count, int[][] vertices) {
+    // Aperture 3 and 3r steps, composed: i * (2, 0, 1) + j * (1, 2, 0) + k * (0, 1, 2), then i * (2, 1, 0) +
+    // j * (0, 2, 1) + k * (1, 0, 2).
+    int i = center[0];
+    int j = center[1];
+    int k = center[2];
+    center[0] = 2 * i + j;
+    center[1] = 2 * j + k;
+    center[2] = i + 2 * k;
+    normalize(center);
+    i = center[0];
+    j = center[1];
+    k = center[2];
+    center[0] = 2 * i + k;
+    center[1] = i + 2 * j;
+    center[2] = j + 2 * k;
+    normalize(center);
+
+    int[][] offsets = CLASS_II_VERTICES;
+    int substrateResolution = resolution;
+    if (resolution % 2 == 1) {
+      downAp7r(center);
+      offsets = CLASS_III_VERTICES;
+      substrateResolution++;
+    }
+    for (int v = 0; v < count; v++) {
+      int[] vertex = vertices[v];
+      vertex[0] = center[0] + offsets[v][0];
+      vertex[1] = center[1] + offsets[v][1];
+      vertex[2] = center[2] + offsets[v][2];
+      normalize(vertex);
+      vertex[3] = center[3];
+    }
+    return substrateResolution;
+  }
+
+  /**
+   * Adds the point where the line between two substrate vertices on the face crosses the face's edge in the
+   * quadrant.
+   *
+   * @param skipVertices whether to leave out a crossing at either vertex, where no extra vertex is needed.
+   */
+  private static int addCrossing(int[] from, int[] to, int face, int quadrant, int substrateResolution,
+                                 boolean skipVertices, H3CellBoundary boundary, int count) {
+    double x0 = hex2dX(from);
+    double y0 = hex2dY(from);
+    double x1 = hex2dX(to);
+    double y1 = hex2dY(to);
+
+    // The face's edges run between its corners at (3, 0), (-1.5, 3 * sin 60) and (-1.5, -3 * sin 60) times the
+    // largest coordinate sum on the face.
+    double maxDim = 2 * unitScale(substrateResolution);
+    double cornerX = -1.5 * maxDim;
+    double cornerY = 3.0 * M_SIN60 * maxDim;
+    double cornerX0;
+    double cornerY0;
+    double cornerX1;
+    double cornerY1;
+    if (quadrant == IJ_QUADRANT) {
+      cornerX0 = 3.0 * maxDim;
+      cornerY0 = 0.0;
+      cornerX1 = cornerX;
+      cornerY1 = cornerY;
+    } else if (quadrant == JK_QUADRANT) {
+      cornerX0 = cornerX;
+      cornerY0 = cornerY;
+      cornerX1 = cornerX;
+      cornerY1 = -cornerY;
+    } else {
+      cornerX0 = cornerX;
+      cornerY0 = -cornerY;
+      cornerX1 = 3.0 * maxDim;
+      cornerY1 = 0.0;
+    }
+
+    double dx = x1 - x0;
+    double dy = y1 - y0;
+    double edgeX = cornerX1 - cornerX0;
+    double edgeY = cornerY1 - cornerY0;
+    // The C library keeps the parameter in single precision.
+    float t = (float) ((edgeX * (y0 - cornerY0) - edgeY * (x0 - cornerX0)) / (-edgeX * dy + dx * edgeY));
+    double x = x0 + t * dx;
+    double y = y0 + t * dy;
+    if (skipVertices && (isSamePoint(x, y, x0, y0) || isSamePoint(x, y, x1, y1))) {
+      return count;
+    }
+    return addPoint(x, y, face, substrateResolution, boundary, count);
+  }
+
+  private static boolean isSamePoint(double x0, double y0, double x1, double y1) {
+    return Math.abs(x0 - x1) < FLT_EPSILON && Math.abs(y0 - y1) < FLT_EPSILON;
+  }
+
+  private static int addVertex(int[] ijk, int face, int substrateResolution, H3CellBoundary boundary, int count) {
+    return addPoint(hex2dX(ijk), hex2dY(ijk), face, substrateResolution, boundary, count);
+  }
+
+  /**
+   * Adds the point at the hex2d position on the face's substrate grid, which is three times as fine as the Class II
+   * resolution's cell grid, to the boundary.
+   */
+  private static int addPoint(double x, double y, int face, int substrateResolution, H3CellBoundary boundary,
+                              int count) {
+    double scale = 3.0 * RESOLUTION_SCALE[substrateResolution];
+    double[] center = FACE_CENTER_POINT[face];
+    double[] axes = FACE_AXES[face * 2];
+    double px = center[0] + (x * axes[0] + y * axes[3]) / scale;
+    double py = center[1] + (x * axes[1] + y * axes[4]) / scale;
+    double pz = center[2] + (x * axes[2] + y * axes[5]) / scale;
+    double norm = Math.sqrt(px * px + py * py + pz * pz);
+    double[] points = boundary.vertices;
+    points[count * 3] = px / norm;
+    points[count * 3 + 1] = py / norm;
+    points[count * 3 + 2] = pz / norm;
+    return count + 1;
+  }
+
+  private static double hex2dX(int[] ijk) {
+    return (ijk[0] - ijk[2]) - 0.5 * (ijk[1] - ijk[2]);
+  }
+
+  private static double hex2dY(int[] ijk) {
+    return (ijk[1] - ijk[2]) * M_SIN60;
+  }
+
+  /**
+   * @return whether the index is in cell mode with a valid base cell and no unused digit within its resolution.
+   */
+  private static boolean isCell(long h3) {
+    if (h3 >>> MODE_OFFSET != HEXAGON_MODE) {
+      return false;
+    }
+    if (getBaseCell(h3) >= NUM_BASE_CELLS) {
+      return false;
+    }
+    int resolution = H3IndexBits.getResolution(h3);
+    for (int r = 1; r <= resolution; r++) {
+      if (getDigit(h3, r) == INVALID_DIGIT) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Finds the face and IJK+ coordinates of the cell, moving it onto a neighboring face when it lies beyond the edge
+   * of its base cell's home face.
+   *
+   * @return the face.
+   */
+  private static int h3ToFaceIjk(long h3, int resolution, int[] ijk) {
+    int baseCell = getBaseCell(h3);
+    boolean pentagon = IS_PENTAGON[baseCell];
+    // Adjust for the pentagon's missing sequence: all of sub-sequence 5 needs to be adjusted.
+    if (pentagon && leadingNonZeroDigit(h3, resolution) == 5) {
+      h3 = rotate(h3, resolution, ROTATE_60_CW);
+    }
+
+    int[] home = BASE_CELL_HOMES[baseCell];
+    int face = home[0];
+    ijk[0] = home[1];
+    ijk[1] = home[2];
+    ijk[2] = home[3];
+    // The hierarchy of a hexagon base cell centered on its face stays on the face.
+    boolean possibleOverage = pentagon || (resolution != 0 && (ijk[0] != 0 || ijk[1] != 0 || ijk[2] != 0));
+    for (int r = 1; r <= resolution; r++) {
+      if (r % 2 == 1) {
+        downAp7(ijk);
+      } else {
+        downAp7r(ijk);
+      }
+      neighbor(ijk, getDigit(h3, r));
+    }
+    if (!possibleOverage) {
+      return face;
+    }
+
+    int i = ijk[0];
+    int j = ijk[1];
+    int k = ijk[2];
+    // Overages are detected on the Class II grid, so drop a Class III cell into the next finer resolution.
+    int classIIResolution = resolution;
+    if (resolution % 2 == 1) {
+      downAp7r(ijk);
+      classIIResolution++;
+    }
+    boolean pentagonLeading4 = pentagon && leadingNonZeroDigit(h3, resolution) == 4;
+    int adjusted = adjustOverageClassII(face, ijk, classIIResolution, pentagonLeading4);
+    if (adjusted != face) {
+      face = adjusted;
+      // A pentagon's hierarchy may need a second move.
+      if (pentagon) {
+        while ((adjusted = adjustOverageClassII(face, ijk, classIIResolution, false)) != face) {
+          face = adjusted;
+        }
+      }
+      if (classIIResolution != resolution) {
+        upAp7r(ijk);
+      }
+    } else if (classIIResolution != resolution) {
+      ijk[0] = i;
+      ijk[1] = j;
+      ijk[2] = k;
+    }
+    return face;
+  }
+
+  /**
+   * Moves Class II coordinates that lie beyond the edge of the face onto the neighboring face.
+   *
+   * @return the face the coordinates are now on, which is the same face if there was no overage.
+   */
+  private static int adjustOverageClassII(int face, int[] ijk, int resolution, boolean pentagonLeading4) {
+    int unitScale = unitScale(resolution);
+    if (ijk[0] + ijk[1] + ijk[2] <= 2 * unitScale) {
+      return face;
+    }
+    return moveOverage(face, ijk, unitScale, pentagonLeading4);
+  }
+
+  /**
+   * Moves vertex coordinates on the substrate grid of a Class II resolution onto the neighboring face if they lie
+   * beyond the edge of their face, which is ijk[3].
+   *
+   * @return {@link #NEW_FACE} if the vertex was moved and is not on the new face's edge, {@link #FACE_EDGE} if it is
+   * on the edge of its face and {@link #NO_OVERAGE} otherwise.
+   */
+  private static int adjustSubstrateOverage(int[] fijk, int resolution) {
+    // The substrate grid is three times as fine as the cell grid.
+    int unitScale = 3 * unitScale(resolution);
+    int maxDim = 2 * unitScale;
+    int sum = fijk[0] + fijk[1] + fijk[2];
+    if (sum == maxDim) {
+      return FACE_EDGE;
+    }
+    if (sum < maxDim) {
+      return NO_OVERAGE;
+    }
+    fijk[3] = moveOverage(fijk[3], fijk, unitScale, false);
+    // Overages on pentagon boundaries can end up on edges.
+    return fijk[0] + fijk[1] + fijk[2] == maxDim ? FACE_EDGE : NEW_FACE;
+  }
+
+  /**
+   * @return 7^(resolution / 2), the unit length of the face's coordinates at a Class II resolution.  The largest
+   * coordinate sum on the face is twice that.
+   */
+  private static int unitScale(int resolution) {
+    int unitScale = 1;
+    for (int r = 0; r < resolution; r += 2) {
+      unitScale *= 7;
+    }
+    return unitScale;
+  }
+
+  /**
+   * Moves coordinates that lie beyond the edge of the face onto the neighbor across that edge.
+   *
+   * @return the neighboring face.
+   */
+  private static int moveOverage(int face, int[] ijk, int unitScale, boolean pentagonLeading4) {
+    int maxDim = 2 * unitScale;
+    int[] orientation;
+    if (ijk[2] > 0) {
+      if (ijk[1] > 0) {
+        orientation = FACE_NEIGHBORS[face][JK_QUADRANT];
+      } else {
+        orientation = FACE_NEIGHBORS[face][KI_QUADRANT];
+        if (pentagonLeading4) {
+          // Rotate about the pentagon at the face vertex to skip its missing sequence.
+          ijk[0] -= maxDim;
+          rotate60cw(ijk);
+          ijk[0] += maxDim;
+        }
+      }
+    } else {
+      orientation = FACE_NEIGHBORS[face][IJ_QUADRANT];
+    }
+
+    for (int r = 0; r < orientation[4]; r++) {
+      rotate60ccw(ijk);
+    }
+    ijk[0] += orientation[1] * unitScale;
+    ijk[1] += orientation[2] * unitScale;
+    ijk[2] += orientation[3] * unitScale;
+    normalize(ijk);
+    return orientation[0];
+  }
+
+  /**
+   * Finds the IJK+ coordinates of the hex containing a point in the face's 2D hex coordinate system.
+   */
+  private static void hex2dToCoordIjk(double x, double y, int[] ijk) {
+    double a1 = Math.abs(x);
+    double a2 = Math.abs(y);
+
+    // Reverse conversion, then round to the containing hex.
+    double x2 = a2 / M_SIN60;
+    double x1 = a1 + x2 / 2.0;
+    int m1 = (int) x1;
+    int m2 = (int) x2;
+    double r1 = x1 - m1;
+    double r2 = x2 - m2;
+
+    int i;
+    int j;
+    if (r1 < 0.5) {
+      if (r1 < 1.0 / 3.0) {
+        i = m1;
+        j = r2 < (1.0 + r1) / 2.0 ? m2 : m2 + 1;
+      } else {
+        j = r2 < 1.0 - r1 ? m2 : m2 + 1;
+        i = (1.0 - r1) <= r2 && r2 < 2.0 * r1 ? m1 + 1 : m1;
+      }
+    } else {
+      if (r1 < 2.0 / 3.0) {
+        j = r2 < 1.0 - r1 ? m2 : m2 + 1;
+        i = (2.0 * r1 - 1.0) < r2 && r2 < (1.0 - r1) ? m1 : m1 + 1;
+      } else {
+        i = m1 + 1;
+        j = r2 < r1 / 2.0 ? m2 : m2 + 1;
+      }
+    }
+
+    // Fold across the axes if necessary.
+    if (x < 0.0) {
+      if (j % 2 == 0) {
+        int diff = i - j / 2;
+        i = i - 2 * diff;
+      } else {
+        int diff = i - (j + 1) / 2;
+        i = i - (2 * diff + 1);
+      }
+    }
+    if (y < 0.0) {
+      i = i - (2 * j + 1) / 2;
+      j = -j;
+    }
+
+    ijk[0] = i;
+    ijk[1] = j;
+    ijk[2] = 0;
+    normalize(ijk);
+  }
+
+  /**
+   * Builds the index of the cell at the IJK+ coordinates on the face, walking up to the base cell one aperture 7
+   * step at a time.
+   *
+   * @return the index, or 0 if the coordinates are outside of the face.
+   */
+  private static long faceIjkToH3(int face, int[] ijk, int resolution) {
+    long h3 = H3_INIT | (HEXAGON_MODE << MODE_OFFSET) | ((long) resolution << RESOLUTION_OFFSET);
+
+    int[] lastIjk = new int[3];
+    int[] center = new int[3];
+    for (int r = resolution - 1; r >= 0; r--) {
+      System.arraycopy(ijk, 0, lastIjk, 0, 3);
+      if ((r + 1) % 2 == 1) {
+        upAp7(ijk);
+        System.arraycopy(ijk, 0, center, 0, 3);
+        downAp7(center);
+      } else {
+        upAp7r(ijk);
+        System.arraycopy(ijk, 0, center, 0, 3);
+        downAp7r(center);
+      }
+      lastIjk[0] -= center[0];
+      lastIjk[1] -= center[1];
+      lastIjk[2] -= center[2];
+      normalize(lastIjk);
+      h3 = setDigit(h3, r + 1, unitIjkToDigit(lastIjk));
+    }
+
+    if (ijk[0] > MAX_FACE_COORD || ijk[1] > MAX_FACE_COORD || ijk[2] > MAX_FACE_COORD) {
+      return 0L;
+    }
+
+    int slot = face * 27 + ijk[0] * 9 + ijk[1] * 3 + ijk[2];
+    int baseCell = FACE_IJK_BASE_CELLS[slot];
+    h3 |= (long) baseCell << BASE_CELL_OFFSET;
+    if (resolution == 0) {
+      return h3;
+    }
+
+    int rotations = FACE_IJK_BASE_CELL_ROTATIONS[slot];
+    if (IS_PENTAGON[baseCell]) {
+      // Force rotation out of the missing k-axes sub-sequence.
+      if (leadingNonZeroDigit(h3, resolution) == K_AXES_DIGIT) {
+        int[] cwOffsetFaces = CW_OFFSET_FACES[baseCell];
+        if (cwOffsetFaces[0] == face || cwOffsetFaces[1] == face) {
+          h3 = rotate(h3, resolution, ROTATE_60_CW);
+        } else {
+          h3 = rotate(h3, resolution, ROTATE_60_CCW);
+        }
+      }
+      for (int i = 0; i < rotations; i++) {
+        h3 = rotatePentagon60ccw(h3, resolution);
+      }
+    } else {
+      for (int i = 0; i < rotations; i++) {
+        h3 = rotate(h3, resolution, ROTATE_60_CCW);
+      }
+    }
+    return h3;
+  }
+
+  /**
+   * Finds the coordinates of the parent of a Class III cell in the Class II resolution above.
+   */
+  private static void upAp7(int[] ijk) {
+    int i = ijk[0] - ijk[2];
+    int j = ijk[1] - ijk[2];
+    ijk[0] = (int) Math.round((3 * i - j) / 7.0);
+    ijk[1] = (int) Math.round((i + 2 * j) / 7.0);
+    ijk[2] = 0;
+    normalize(ijk);
+  }
+
+  /**
+   * Finds the coordinates of the parent of a Class II cell in the Class III resolution above.
+   */
+  private static void upAp7r(int[] ijk) {
+    int i = ijk[0] - ijk[2];
+    int j = ijk[1] - ijk[2];
+    ijk[0] = (int) Math.round((2 * i + j) / 7.0);
+    ijk[1] = (int) Math.round((3 * j - i) / 7.0);
+    ijk[2] = 0;
+    normalize(ijk);
+  }
+
+  /**
+   * Finds the coordinates of the center child of a Class II cell in the Class III resolution below.
+   */
+  private static void downAp7(int[] ijk) {
+    int i = ijk[0];
+    int j = ijk[1];
+    int k = ijk[2];
+    ijk[0] = 3 * i + j;
+    ijk[1] = 3 * j + k;
+    ijk[2] = i + 3 * k;
+    normalize(ijk);
+  }
+
+  /**
+   * Finds the coordinates of the center child of a Class III cell in the Class II resolution below.
+   */
+  private static void downAp7r(int[] ijk) {
+    int i = ijk[0];
+    int j = ijk[1];
+    int k = ijk[2];
+    ijk[0] = 3 * i + k;
+    ijk[1] = i + 3 * j;
+    ijk[2] = j + 3 * k;
+    normalize(ijk);
+  }
+
+  /**
+   * Shifts the coordinates so that none is negative and at least one is 0.
+   */
+  private static void normalize(int[] ijk) {
+    if (ijk[0] < 0) {
+      ijk[1] -= ijk[0];
+      ijk[2] -= ijk[0];
+      ijk[0] = 0;
+    }
+    if (ijk[1] < 0) {
+      ijk[0] -= ijk[1];
+      ijk[2] -= ijk[1];
+      ijk[1] = 0;
+    }
+    if (ijk[2] < 0) {
+      ijk[0] -= ijk[2];
+      ijk[1] -= ijk[2];
+      ijk[2] = 0;
+    }
+    int min = Math.min(ijk[0], Math.min(ijk[1], ijk[2]));
+    if (min > 0) {
+      ijk[0] -= min;
+      ijk[1] -= min;
+      ijk[2] -= min;
+    }
+  }
+
+  /**
+   * Moves the coordinates to the neighboring cell in the direction of the digit.
+   */
+  private static void neighbor(int[] ijk, int digit) {
+    if (digit > CENTER_DIGIT && digit < INVALID_DIGIT) {
+      int[] unit = DIGIT_UNIT_VECTORS[digit];
+      ijk[0] += unit[0];
+      ijk[1] += unit[1];
+      ijk[2] += unit[2];
+      normalize(ijk);
+    }
+  }
+
+  private static void rotate60ccw(int[] ijk) {
+    // The i, j and k unit vectors become (1, 1, 0), (0, 1, 1) and (1, 0, 1).
+    int i = ijk[0];
+    int j = ijk[1];
+    int k = ijk[2];
+    ijk[0] = i + k;
+    ijk[1] = i + j;
+    ijk[2] = j + k;
+    normalize(ijk);
+  }
+
+  private static void rotate60cw(int[] ijk) {
+    // The i, j and k unit vectors become (1, 0, 1), (1, 1, 0) and (0, 1, 1).
+    int i = ijk[0];
+    int j = ijk[1];
+    int k = ijk[2];
+    ijk[0] = i + j;
+    ijk[1] = j + k;
+    ijk[2] = i + k;
+    normalize(ijk);
+  }
+
+  private static int unitIjkToDigit(int[] ijk) {
+    if (ijk[0] > 1 || ijk[1] > 1 || ijk[2] > 1) {
+      return INVALID_DIGIT;
+    }
+    return UNIT_DIGITS[ijk[0] * 4 + ijk[1] * 2 + ijk[2]];
+  }
+
+  static int getBaseCell(long h3) {
+    return (int) ((h3 >>> BASE_CELL_OFFSET) & 0x7F);
+  }
+
+  /**
+   * @return whether the cell is one of the twelve pentagons at its resolution.
+   */
+  static boolean isPentagon(long h3) {
+    return IS_PENTAGON[getBaseCell(h3)] && leadingNonZeroDigit(h3, H3IndexBits.getResolution(h3)) == CENTER_DIGIT;
+  }
+
+  static int getDigit(long h3, int r) {
+    return (int) ((h3 >>> ((H3IndexBits.MAX_RESOLUTION - r) * DIGIT_BITS)) & DIGIT_MASK);
+  }
+
+  static long setDigit(long h3, int r, int digit) {
+    int offset = (H3IndexBits.MAX_RESOLUTION - r) * DIGIT_BITS;
+    return (h3 & ~(DIGIT_MASK << offset)) | ((long) digit << offset);
+  }
+
+  static int leadingNonZeroDigit(long h3, int resolution) {
+    for (int r = 1; r <= resolution; r++) {
+      int digit = getDigit(h3, r);
+      if (digit != CENTER_DIGIT) {
+        return digit;
+      }
+    }
+    return CENTER_DIGIT;
+  }
+
+  static long rotate(long h3, int resolution, int[] rotation) {
+    for (int r = 1; r <= resolution; r++) {
+      h3 = setDigit(h3, r, rotation[getDigit(h3, r)]);
+    }
+    return h3;
+  }
+
+  /**
+   * Rotates a pentagon index 60 degrees counter-clockwise, skipping the deleted k-axes sub-sequence.
+   */
+  static long rotatePentagon60ccw(long h3, int resolution) {
+    boolean foundFirstNonZeroDigit = false;
+    for (int r = 1; r <= resolution; r++) {
+      h3 = setDigit(h3, r, ROTATE_60_CCW[getDigit(h3, r)]);
+      if (!foundFirstNonZeroDigit && getDigit(h3, r) != CENTER_DIGIT) {
+        foundFirstNonZeroDigit = true;
+        if (leadingNonZeroDigit(h3, resolution) == K_AXES_DIGIT) {
+          h3 = rotate(h3, resolution, ROTATE_60_CCW);
+        }
+      }
+    }
+    return h3;
+  }
+}
@@ -0,0 +1,219 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.datadistillr.udf;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.StreamReadFeature;
+import io.netty.buffer.DrillBuf;
+
+import java.io.IOException;
+
+/**
+ * Reads GeoJSON geometries from VARCHAR values with Jackson's streaming parser, keeping only the coordinates in
+ * primitive fields or an {@link H3Polygons} instead of building a tree of JSON nodes or geometry objects.  Members may
+ * come in any order, and members other than the ones a geometry needs are skipped.  A Feature is read as its geometry
+ * and a FeatureCollection as the geometries of all of its features.
+ * <p>
+ * A function keeps one in its workspace, and its buffers are reused from row to row.
+ */
+public final class H3GeoJson {
+
+  /**
+   * Parse errors leave out the text, which would show the stale bytes after the value in the reused buffer.
+   */
+  private static final JsonFactory FACTORY = JsonFactory.builder()
+    .disable(StreamReadFeature.INCLUDE_SOURCE_IN_LOCATION)
+    .build();
+
+  private byte[] bytes = new byte[256];
+
+  private double latitude;
+
+  private double longitude;
+
+  /**
+   * Reads a GeoJSON Point, or a Feature whose geometry is a Point, for {@link #latitude} and {@link #longitude}.
+   *
+   * @throws IllegalArgumentException if the text is not a GeoJSON Point.
+   */
+  void readPoint(DrillBuf buffer, int start, int end) {
+    try (JsonParser parser = parser(buffer, start, end)) {
+      String type = readGeometry(parser, null);
+      if (!"Point".equals(type)) {
+        throw new IllegalArgumentException("Not a GeoJSON Point: type " + type);
+      }
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Not GeoJSON: " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Replaces the polygons with those of a GeoJSON Polygon or MultiPolygon, a Feature with one of those as its
+   * geometry, or a FeatureCollection of such Features.  Features without a geometry are skipped.
+   *
+   * @throws IllegalArgumentException if the text is not GeoJSON or has a geometry that is not polygonal.
+   */
+  void readPolygons(DrillBuf buffer, int start, int end, H3Polygons polygons) {
+    polygons.clear();
+    try (JsonParser parser = parser(buffer, start, end)) {
+      checkPolygonal(readGeometry(parser, polygons));
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Not GeoJSON: " + e.getMessage(), e);
+    }
+  }
+
+  double latitude() {
+    return latitude;
+  }
+
+  double longitude() {
+    return longitude;
+  }
+
+  private JsonParser parser(DrillBuf buffer, int start, int end) throws IOException {
+    int length = end - start;
+    if (length > bytes.length) {
+      bytes = new byte[Math.max(length, bytes.length * 2)];
+    }
+    buffer.getBytes(start, bytes, 0, length);
+    JsonParser parser = FACTORY.createParser(bytes, 0, length);
+    if (parser.nextToken() != JsonToken.START_OBJECT) {
+      throw new IllegalArgumentException("Not a GeoJSON object");
+    }
+    return parser;
+  }
+
+  /**
+   * Reads the members of the object the parser is at, up to its end, adding any polygons to polygons if it is not
+   * null.
+   *
+   * @return the type of the geometry, which for a Feature is the type of its geometry or null if it has none.
+   */
+  private String readGeometry(JsonParser parser, H3Polygons polygons) throws IOException {
+    String type = null;
+    String geometryType = null;
+    int depth = 0;
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String name = parser.getCurrentName();
+      JsonToken token = parser.nextToken();
+      if ("type".equals(name) && token == JsonToken.VALUE_STRING) {
+        type = parser.getText();
+      } else if ("coordinates".equals(name) && token == JsonToken.START_ARRAY) {
+        depth = readCoordinates(parser, polygons);
+      } else if ("geometry".equals(name) && token == JsonToken.START_OBJECT) {
+        geometryType = readGeometry(parser, polygons);
+      } else if ("features".equals(name) && token == JsonToken.START_ARRAY && polygons != null) {
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+          String featureType = readGeometry(parser, polygons);
+          if (featureType != null) {
+            checkPolygonal(featureType);
+          }
+        }
+      } else {
+        parser.skipChildren();
+      }
+    }
+    if ("Feature".equals(type)) {
+      return geometryType;
+    }
+    int expected = depth(type);
+    if (depth != expected && (depth != 0 || expected == 1)) {
+      throw new IllegalArgumentException("GeoJSON " + type + " has coordinates nested " + depth + " deep");
+    }
+    return type;
+  }
+
+  /**
+   * Reads nested coordinate arrays from the array the parser is at, up to its end.  The position that was read last
+   * is kept for {@link #latitude} and {@link #longitude}.  If polygons is not null, positions are added to it, each
+   * array of positions ends a ring and each array of those ends a polygon.
+   *
+   * @return how deeply the positions are nested, counting the position itself: 1 for a Point, 3 for a Polygon and
+   * 4 for a MultiPolygon, or 0 if there are none.
+   */
+  private int readCoordinates(JsonParser parser, H3Polygons polygons) throws IOException {
+    int depth = 1;
+    int positionDepth = 0;
+    int count = 0;
+    while (depth > 0) {
+      JsonToken token = parser.nextToken();
+      if (token == JsonToken.START_ARRAY) {
+        if (positionDepth != 0 && depth >= positionDepth) {
+          throw new IllegalArgumentException("GeoJSON coordinates are nested unevenly");
+        }
+        depth++;
+        count = 0;
+      } else if (token == JsonToken.END_ARRAY) {
+        if (depth == positionDepth) {
+          if (count < 2) {
+            throw new IllegalArgumentException("GeoJSON position has " + count + " numbers");
+          }
+          if (polygons != null) {
+            polygons.addPoint(latitude, longitude);
+          }
+        } else if (polygons != null && depth == positionDepth - 1) {
+          polygons.endRing();
+        } else if (polygons != null && depth == positionDepth - 2) {
+          polygons.endPolygon();
+        }
+        depth--;
+      } else if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT) {
+        if (positionDepth == 0) {
+          positionDepth = depth;
+        } else if (depth != positionDepth) {
+          throw new IllegalArgumentException("GeoJSON coordinates are nested unevenly");
+        }
+        if (count == 0) {
+          longitude = parser.getDoubleValue();
+        } else if (count == 1) {
+          latitude = parser.getDoubleValue();
+        }
+        count++;
+      } else {
+        throw new IllegalArgumentException("GeoJSON coordinates hold " + token);
+      }
+    }
+    return positionDepth;
+  }
+
+  /**
+   * @return how deeply the positions of a geometry of the type are nested, or -1 if it is not a geometry type.
+   */
+  private static int depth(String type) {
+    if ("Point".equals(type)) {
+      return 1;
+    } else if ("MultiPoint".equals(type) || "LineString".equals(type)) {
+      return 2;
+    } else if ("Polygon".equals(type) || "MultiLineString".equals(type)) {
+      return 3;
+    } else if ("MultiPolygon".equals(type)) {
+      return 4;
+    }
+    return -1;
+  }
+
+  private static void checkPolygonal(String type) {
+    if (!"Polygon".equals(type) && !"MultiPolygon".equals(type) && !"FeatureCollection".equals(type)) {
+      throw new IllegalArgumentException("Not a GeoJSON Polygon or MultiPolygon: type " + type);
+    }
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.datadistillr.udf;
+
+/**
+ * Great circle distances on the sphere H3 uses for its own distance functions.
+ */
+public final class H3GreatCircle {
+
+  /**
+   * Mean radius of the Earth, as in H3's EARTH_RADIUS_KM.
+   */
+  public static final double EARTH_RADIUS_KM = 6371.007180918475;
+
+  private H3GreatCircle() {
+  }
+
+  /**
+   * Computes the haversine distance the same way H3's pointDistKm does.
+   *
+   * @return the distance between the points in kilometers, or NaN if a coordinate is not finite.
+   */
+  public static double distanceKm(double latitude1, double longitude1, double latitude2, double longitude2) {
+    return distanceRads(Math.toRadians(latitude1), Math.toRadians(longitude1), Math.toRadians(latitude2),
+      Math.toRadians(longitude2)) * EARTH_RADIUS_KM;
+  }
+
+  /**
+   * @return the angle between two points on the unit sphere in radians, accurate for close and antipodal points.
+   */
+  static double angle(double x1, double y1, double z1, double x2, double y2, double z2) {
+    // The cross product of the first point and the difference, which is the same vector without the cancellation
+    // between nearly equal terms that would limit its precision for close points.
+    double dx = x2 - x1;
+    double dy = y2 - y1;
+    double dz = z2 - z1;
+    double cx = y1 * dz - z1 * dy;
+    double cy = z1 * dx - x1 * dz;
+    double cz = x1 * dy - y1 * dx;
+    return Math.atan2(Math.sqrt(cx * cx + cy * cy + cz * cz), x1 * x2 + y1 * y2 + z1 * z2);
+  }
+
+  /**
+   * Computes the area of a spherical triangle with the formula of Van Oosterom and Strackee, which needs a single
+   * trigonometric call where H3's cellAreaRads2 uses l'Huilier's formula on the three side lengths.
+   *
+   * @param a the offset of the first vertex's x/y/z on the unit sphere in points.
+   * @return the area in steradians.
+   */
+  static double triangleArea(double[] points, int a, int b, int c) {
+    double ax = points[a];
+    double ay = points[a + 1];
+    double az = points[a + 2];
+    double bx = points[b];
+    double by = points[b + 1];
+    double bz = points[b + 2];
+    double cx = points[c];
+    double cy = points[c + 1];
+    double cz = points[c + 2];
+    // The triple product, taken relative to the third vertex so that it stays precise for small triangles.
+    double ux = ax - cx;
+    double uy = ay - cy;
+    double uz = az - cz;
+    double vx = bx - cx;
+    double vy = by - cy;
+    double vz = bz - cz;
+    double triple = cx * (uy * vz - uz * vy) + cy * (uz * vx - ux * vz) + cz * (ux * vy - uy * vx);
+    double dots = 1.0 + ax * bx + ay * by + az * bz + bx * cx + by * cy + bz * cz + cx * ax + cy * ay + cz * az;
+    return 2.0 * Math.atan2(Math.abs(triple), dots);
+  }
+
+  /**
+   * @return the central angle between the points, all in radians.
+   */
+  static double distanceRads(double lat1, double lng1, double lat2, double lng2) {
+    double sinLat = Math.sin((lat1 - lat2) / 2.0);
+    double sinLng = Math.sin((lng1 - lng2) / 2.0);
+    double a = sinLat * sinLat + Math.cos(lat1) * Math.cos(lat2) * sinLng * sinLng;
+    return 2.0 * Math.atan2(Math.sqrt(a), Math.sqrt(1.0 - a));
+  }
+}
@@ -50,8 +50,16 @@ public class H3HierarchicalGridFunctions {
     com.uber.h3core.H3Core h3;
 
 
+    @Workspace
+    com.datadistillr.udf.H3FunctionMetrics metrics;
+
+    @Workspace
+    com.datadistillr.udf.H3Memo memo;
+
     @Override
     public void setup() {
+      metrics = com.datadistillr.udf.H3Metrics.function("h3ToParent", true);
+      memo = com.datadistillr.udf.H3Memo.forFunction("h3ToParent");
       try {
         h3 = com.uber.h3core.H3Core.newInstance();
       } catch (java.io.IOException e) {
@@ -61,11 +69,8 @@ public class H3HierarchicalGridFunctions {
 
     @Override
     public void eval() {
-      if (h3 == null) {
-        result.value = 0;
-      } else {
-        result.value = h3.h3ToParent(h3Input.value, parentResolution.value);
-      }
+      result.value = com.datadistillr.udf.H3Hierarchy.toParent(h3, metrics, memo, h3Input.value,
+        parentResolution.value);
     }
   }
 
@@ -89,8 +94,16 @@ public class H3HierarchicalGridFunctions {
     @Inject
     DrillBuf buffer;
 
+    @Workspace
+    com.datadistillr.udf.H3FunctionMetrics metrics;
+
+    @Workspace
+    com.datadistillr.udf.H3Memo memo;
+
     @Override
     public void setup() {
+      metrics = com.datadistillr.udf.H3Metrics.function("h3ToParent", true);
+      memo = com.datadistillr.udf.H3Memo.forFunction("h3ToParent");
       try {
         h3 = com.uber.h3core.H3Core.newInstance();
       } catch (java.io.IOException e) {
@@ -100,19 +113,11 @@ public class H3HierarchicalGridFunctions {
 
     @Override
     public void eval() {
-      if (h3 != null) {
-        String h3InputString = org.apache.drill.exec.expr.fn.impl.StringFunctionHelpers.getStringFromVarCharHolder(h3Input);
-        String result = h3.h3ToParentAddress(h3InputString, parentResolution.value);
-
-        byte[] rowStringBytes = result.getBytes(java.nio.charset.StandardCharsets.UTF_8);
-        buffer = buffer.reallocIfNeeded(rowStringBytes.length);
-        buffer.setBytes(0, rowStringBytes);
-
-        out.start = 0;
-        out.end = rowStringBytes.length;
-        out.buffer = buffer;
-
-      }
+      buffer = com.datadistillr.udf.H3Hierarchy.toParentAddress(h3, metrics, memo, h3Input.buffer, h3Input.start,
+        h3Input.end, parentResolution.value, buffer);
+      out.buffer = buffer;
+      out.start = 0;
+      out.end = buffer.writerIndex();
     }
   }
 }
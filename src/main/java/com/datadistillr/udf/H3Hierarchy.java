@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.datadistillr.udf;
+
+import com.uber.h3core.H3Core;
+import io.netty.buffer.DrillBuf;
+
+/**
+ * Row-level implementations of the functions in {@link H3HierarchicalGridFunctions}.  Parents are kept in each
+ * function's {@link H3Memo}, so children that follow each other only call the H3 library once per parent.
+ */
+public final class H3Hierarchy {
+
+  private H3Hierarchy() {
+  }
+
+  public static long toParent(H3Core h3, H3FunctionMetrics metrics, H3Memo memo, long cell, int resolution) {
+    long started = metrics.start();
+    try {
+      if (h3 == null) {
+        metrics.fallback();
+        return 0L;
+      }
+      return parent(h3, metrics, memo, cell, resolution);
+    } catch (RuntimeException e) {
+      metrics.error();
+      throw e;
+    } finally {
+      metrics.stop(started);
+    }
+  }
+
+  public static DrillBuf toParentAddress(H3Core h3, H3FunctionMetrics metrics, H3Memo memo, DrillBuf input, int start,
+                                         int end, int resolution, DrillBuf buffer) {
+    long started = metrics.start();
+    try {
+      if (h3 == null) {
+        metrics.fallback();
+        return H3Strings.empty(buffer);
+      }
+      return H3Strings.writeCell(buffer, parent(h3, metrics, memo, H3Strings.readCell(input, start, end), resolution));
+    } catch (RuntimeException e) {
+      metrics.error();
+      throw e;
+    } finally {
+      metrics.stop(started);
+    }
+  }
+
+  private static long parent(H3Core h3, H3FunctionMetrics metrics, H3Memo memo, long cell, int resolution) {
+    if (memo.find(cell, resolution)) {
+      metrics.memoHit();
+      return memo.value();
+    }
+    long parent = h3.h3ToParent(cell, resolution);
+    memo.put(parent);
+    return parent;
+  }
+}
@@ -0,0 +1,268 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.datadistillr.udf;
+
+import io.netty.buffer.DrillBuf;
+import org.apache.drill.common.exceptions.UserException;
+import org.apache.drill.exec.vector.complex.writer.BaseWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+
+/**
+ * The VARBINARY format produced by the h3Histogram aggregates: a format byte, the number of entries and then
+ * (cell, count) pairs in ascending cell order, with each cell stored as the varint delta from the previous one.
+ */
+public final class H3Histogram {
+
+  private static final Logger logger = LoggerFactory.getLogger(H3Histogram.class);
+
+  static final byte FORMAT = 1;
+
+  private H3Histogram() {
+  }
+
+  /**
+   * @return the number of bytes {@link #encode(H3CellMap, long[], DrillBuf)} writes for the sorted cells.
+   */
+  public static int encodedSize(H3CellMap counts, long[] sortedCells) {
+    int size = 1 + H3Varint.length(sortedCells.length);
+    long previous = 0L;
+    for (long cell : sortedCells) {
+      size += H3Varint.length(cell - previous) + H3Varint.length(counts.get(cell, 0L));
+      previous = cell;
+    }
+    return size;
+  }
+
+  /**
+   * Writes the counts of the sorted cells at the start of the buffer, which must hold at least
+   * {@link #encodedSize(H3CellMap, long[])} bytes.
+   */
+  public static void encode(H3CellMap counts, long[] sortedCells, DrillBuf buffer) {
+    buffer.setByte(0, FORMAT);
+    int index = H3Varint.write(buffer, 1, sortedCells.length);
+    long previous = 0L;
+    for (long cell : sortedCells) {
+      index = H3Varint.write(buffer, index, cell - previous);
+      index = H3Varint.write(buffer, index, counts.get(cell, 0L));
+      previous = cell;
+    }
+  }
+
+  /**
+   * Adds every count in an encoded histogram to the map.
+   */
+  public static void mergeInto(H3CellMap counts, DrillBuf buffer, int start, int end) {
+    H3Varint.Reader reader = open(buffer, start, end);
+    long entries = reader.next();
+    long cell = 0L;
+    for (long i = 0; i < entries; i++) {
+      cell += reader.next();
+      counts.add(cell, reader.next());
+    }
+  }
+
+  /**
+   * Writes an encoded histogram as a list of {cell, count} maps.
+   */
+  public static void writeEntries(DrillBuf buffer, int start, int end, BaseWriter.ListWriter listWriter) {
+    writeEntries(buffer, start, end, listWriter, false);
+  }
+
+  /**
+   * Writes an encoded histogram as a list of {cell, count} maps, optionally preceded by a res field holding the
+   * resolution of the cell.
+   */
+  public static void writeEntries(DrillBuf buffer, int start, int end, BaseWriter.ListWriter listWriter,
+                                  boolean includeResolution) {
+    H3Varint.Reader reader = open(buffer, start, end);
+    long entries = reader.next();
+    long cell = 0L;
+    for (long i = 0; i < entries; i++) {
+      cell += reader.next();
+      BaseWriter.MapWriter mapWriter = listWriter.map();
+      mapWriter.start();
+      if (includeResolution) {
+        mapWriter.integer("res").writeInt(H3IndexBits.getResolution(cell));
+      }
+      mapWriter.bigInt("cell").writeBigInt(cell);
+      mapWriter.bigInt("count").writeBigInt(reader.next());
+      mapWriter.end();
+    }
+  }
+
+  /**
+   * Adds the count of every cell to each of its parents down to the minimum resolution, so that the map holds the
+   * count of every cell at every resolution from the finest input resolution to the minimum.  Each parent is
+   * visited once per level rather than once per input row.
+   */
+  public static void rollUp(H3CellMap counts, int minResolution) {
+    checkMinResolution(minResolution);
+
+    // Bucket the cells by resolution, then push each level into the next coarser one.
+    long[][] levels = new long[H3IndexBits.MAX_RESOLUTION + 1][];
+    int[] sizes = new int[H3IndexBits.MAX_RESOLUTION + 1];
+    bucketByResolution(counts, levels, sizes);
+    for (int resolution = H3IndexBits.MAX_RESOLUTION; resolution > minResolution; resolution--) {
+      for (int i = 0; i < sizes[resolution]; i++) {
+        long cell = levels[resolution][i];
+        long parent = H3IndexBits.toParent(cell, resolution - 1);
+        if (!counts.containsKey(parent)) {
+          levels[resolution - 1] = append(levels[resolution - 1], sizes[resolution - 1]++, parent);
+        }
+        counts.add(parent, counts.get(cell, 0L));
+      }
+    }
+  }
+
+  /**
+   * Builds a mixed-resolution partition of the counted cells: starting from the finest cells, each group of siblings
+   * is replaced by its parent while the parent's total count stays at or below the maximum and none of the parent's
+   * descendants had to be kept.  Groups are never merged past the minimum resolution.
+   * <p>
+   * An input cell can also be the parent or ancestor of other input cells.  If none of its descendants had to be kept,
+   * its own count is merged with theirs.  Otherwise it cannot be a bin without overlapping them, so its own count
+   * goes to its center child, or to the first descendant down the line of center children that does not itself have
+   * kept descendants.
+   *
+   * @return the cells of the partition and their counts.
+   */
+  public static H3CellMap adaptiveBins(H3CellMap counts, long maxCount, int minResolution) {
+    checkMinResolution(minResolution);
+
+    long[][] levels = new long[H3IndexBits.MAX_RESOLUTION + 1][];
+    int[] sizes = new int[H3IndexBits.MAX_RESOLUTION + 1];
+    bucketByResolution(counts, levels, sizes);
+
+    H3CellMap bins = new H3CellMap(counts.size());
+    // Cells that can no longer be bins because some of their descendants were kept as bins.
+    H3CellMap blocked = new H3CellMap();
+    H3CellMap groupTotals = new H3CellMap();
+    for (int resolution = H3IndexBits.MAX_RESOLUTION; resolution > minResolution; resolution--) {
+      groupTotals.clear();
+      for (int i = 0; i < sizes[resolution]; i++) {
+        long cell = levels[resolution][i];
+        if (blocked.containsKey(cell)) {
+          continue;
+        }
+        long parent = H3IndexBits.toParent(cell, resolution - 1);
+        if (!groupTotals.containsKey(parent)) {
+          // A parent can also be an input cell in its own right.
+          groupTotals.put(parent, counts.get(parent, 0L));
+        }
+        groupTotals.add(parent, counts.get(cell, 0L));
+      }
+
+      for (int i = 0; i < sizes[resolution]; i++) {
+        long cell = levels[resolution][i];
+        if (blocked.containsKey(cell)) {
+          pushDown(bins, blocked, cell, counts.get(cell, 0L));
+          continue;
+        }
+        long parent = H3IndexBits.toParent(cell, resolution - 1);
+        long total = groupTotals.get(parent, 0L);
+        if (blocked.containsKey(parent) || total > maxCount) {
+          keep(bins, blocked, cell, resolution, counts.get(cell, 0L));
+        } else {
+          if (!counts.containsKey(parent)) {
+            levels[resolution - 1] = append(levels[resolution - 1], sizes[resolution - 1]++, parent);
+          }
+          counts.put(parent, total);
+        }
+      }
+    }
+
+    // Every cell left is a bin, unless it is an input cell coarser than the minimum resolution that holds some.
+    for (int resolution = minResolution; resolution >= 0; resolution--) {
+      for (int i = 0; i < sizes[resolution]; i++) {
+        long cell = levels[resolution][i];
+        if (blocked.containsKey(cell)) {
+          pushDown(bins, blocked, cell, counts.get(cell, 0L));
+        } else {
+          keep(bins, blocked, cell, resolution, counts.get(cell, 0L));
+        }
+      }
+    }
+    return bins;
+  }
+
+  /**
+   * Keeps the cell as a bin and blocks all of its ancestors.
+   */
+  private static void keep(H3CellMap bins, H3CellMap blocked, long cell, int resolution, long count) {
+    bins.put(cell, count);
+    for (int ancestorResolution = resolution - 1; ancestorResolution >= 0; ancestorResolution--) {
+      long ancestor = H3IndexBits.toParent(cell, ancestorResolution);
+      if (blocked.containsKey(ancestor)) {
+        // Blocking always covers every coarser ancestor as well.
+        break;
+      }
+      blocked.put(ancestor, 1L);
+    }
+  }
+
+  /**
+   * Adds the own count of a blocked cell to the first cell down its line of center children that is not blocked.
+   * That cell is either a bin already or lies where no bin is, since every descendant of a blocked cell that was
+   * counted has been kept as a bin or is blocked itself.
+   */
+  private static void pushDown(H3CellMap bins, H3CellMap blocked, long cell, long count) {
+    long child = H3IndexBits.toCenterChild(cell);
+    while (blocked.containsKey(child)) {
+      child = H3IndexBits.toCenterChild(child);
+    }
+    bins.add(child, count);
+  }
+
+  private static void checkMinResolution(int minResolution) {
+    if (minResolution < 0 || minResolution > H3IndexBits.MAX_RESOLUTION) {
+      throw UserException.functionError()
+        .message("Minimum resolution must be between 0 and %d, got %d", H3IndexBits.MAX_RESOLUTION, minResolution)
+        .build(logger);
+    }
+  }
+
+  private static void bucketByResolution(H3CellMap counts, long[][] levels, int[] sizes) {
+    for (long cell : counts.sortedKeys()) {
+      int resolution = H3IndexBits.getResolution(cell);
+      levels[resolution] = append(levels[resolution], sizes[resolution]++, cell);
+    }
+  }
+
+  private static long[] append(long[] cells, int index, long cell) {
+    if (cells == null) {
+      cells = new long[16];
+    } else if (index == cells.length) {
+      cells = Arrays.copyOf(cells, index * 2);
+    }
+    cells[index] = cell;
+    return cells;
+  }
+
+  private static H3Varint.Reader open(DrillBuf buffer, int start, int end) {
+    if (end <= start || buffer.getByte(start) != FORMAT) {
+      throw UserException.functionError()
+        .message("Value is not an H3 histogram")
+        .build(logger);
+    }
+    return new H3Varint.Reader().reset(buffer, start + 1, end);
+  }
+}
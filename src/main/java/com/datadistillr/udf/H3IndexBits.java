@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.datadistillr.udf;
+
+/**
+ * Bit-level helpers for H3 cell indexes.  The layout is described here: https://h3geo.org/docs/core-library/h3Indexing.
+ * None of these methods cross into the native library, so they are safe to call per row from UDFs and aggregates.
+ */
+public final class H3IndexBits {
+
+  public static final int MAX_RESOLUTION = 15;
+
+  private static final int RESOLUTION_OFFSET = 52;
+
+  private static final long RESOLUTION_MASK = 0xFL << RESOLUTION_OFFSET;
+
+  private H3IndexBits() {
+  }
+
+  /**
+   * @return the resolution encoded in the index, 0 through 15.
+   */
+  public static int getResolution(long h3) {
+    return (int) ((h3 >>> RESOLUTION_OFFSET) & 0xF);
+  }
+
+  /**
+   * Truncates the index to the given coarser resolution, the same way h3ToParent does.
+   *
+   * @return the parent index, or 0 if the parent resolution is finer than the index resolution.
+   */
+  public static long toParent(long h3, int parentResolution) {
+    int resolution = getResolution(h3);
+    if (parentResolution < 0 || parentResolution > resolution) {
+      return 0L;
+    }
+    long parent = (h3 & ~RESOLUTION_MASK) | ((long) parentResolution << RESOLUTION_OFFSET);
+    // Digits past the resolution are always 7, so set every digit below the parent resolution at once.
+    return parent | ((1L << ((MAX_RESOLUTION - parentResolution) * 3)) - 1);
+  }
+
+  /**
+   * @return the child at the next finer resolution that shares the index's center, or 0 if the index is already at
+   * the finest resolution.
+   */
+  public static long toCenterChild(long h3) {
+    int resolution = getResolution(h3);
+    if (resolution == MAX_RESOLUTION) {
+      return 0L;
+    }
+    long child = (h3 & ~RESOLUTION_MASK) | ((long) (resolution + 1) << RESOLUTION_OFFSET);
+    return child & ~(7L << ((MAX_RESOLUTION - resolution - 1) * 3));
+  }
+
+  /**
+   * Parses a hexadecimal H3 address such as 8928308280fffff without creating any intermediate objects.
+   *
+   * @return the index, or 0 if the text is not a hexadecimal number of at most 16 digits.
+   */
+  public static long parseAddress(CharSequence address) {
+    int length = address.length();
+    if (length == 0 || length > 16) {
+      return 0L;
+    }
+    long value = 0L;
+    for (int i = 0; i < length; i++) {
+      int digit = Character.digit(address.charAt(i), 16);
+      if (digit < 0) {
+        return 0L;
+      }
+      value = (value << 4) | digit;
+    }
+    return value;
+  }
+}
@@ -0,0 +1,213 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.datadistillr.udf;
+
+import com.uber.h3core.H3Core;
+import com.uber.h3core.util.GeoCoord;
+import io.netty.buffer.DrillBuf;
+import org.apache.drill.exec.vector.complex.writer.BaseWriter;
+
+/**
+ * Row-level implementations of the functions in {@link H3IndexingUDFs}.  They are compiled with the plugin rather
+ * than copied into every query's generated code, so each UDF body is a single call.
+ */
+public final class H3Indexing {
+
+  /**
+   * Size of a little-endian WKB point: byte order, geometry type and two doubles.
+   */
+  private static final int WKB_POINT_SIZE = 21;
+
+  private static final int WKB_POINT = 1;
+
+  private H3Indexing() {
+  }
+
+  /**
+   * Indexes the point with {@link H3GeoIndexer}, which does not need the native library.
+   */
+  public static long geoToH3(H3FunctionMetrics metrics, H3Memo memo, double latitude, double longitude,
+                             int resolution) {
+    long started = metrics.start();
+    try {
+      return index(metrics, memo, latitude, longitude, resolution);
+    } catch (RuntimeException e) {
+      metrics.error();
+      throw e;
+    } finally {
+      metrics.stop(started);
+    }
+  }
+
+  /**
+   * Indexes a WKB Point, reading its coordinates straight from the buffer into the point, a reusable array of two.
+   */
+  public static long geoToH3(H3FunctionMetrics metrics, H3Memo memo, double[] point, DrillBuf input, int start,
+                             int end, int resolution) {
+    long started = metrics.start();
+    try {
+      H3Wkb.readPoint(input, start, end, point);
+      return index(metrics, memo, point[0], point[1], resolution);
+    } catch (RuntimeException e) {
+      metrics.error();
+      throw e;
+    } finally {
+      metrics.stop(started);
+    }
+  }
+
+  /**
+   * Indexes a GeoJSON Point, or a Feature whose geometry is a Point.
+   */
+  public static long geoToH3(H3FunctionMetrics metrics, H3Memo memo, H3GeoJson geoJson, DrillBuf input, int start,
+                             int end, int resolution) {
+    long started = metrics.start();
+    try {
+      geoJson.readPoint(input, start, end);
+      return index(metrics, memo, geoJson.latitude(), geoJson.longitude(), resolution);
+    } catch (RuntimeException e) {
+      metrics.error();
+      throw e;
+    } finally {
+      metrics.stop(started);
+    }
+  }
+
+  public static DrillBuf geoToH3Address(H3FunctionMetrics metrics, H3Memo memo, double latitude, double longitude,
+                                        int resolution, DrillBuf buffer) {
+    long started = metrics.start();
+    try {
+      return H3Strings.writeCell(buffer, index(metrics, memo, latitude, longitude, resolution));
+    } catch (RuntimeException e) {
+      metrics.error();
+      throw e;
+    } finally {
+      metrics.stop(started);
+    }
+  }
+
+  /**
+   * Indexes the point through the memo, which is keyed by the coordinates alone.  An index records its resolution, so
+   * a remembered index at another resolution is simply indexed again.
+   */
+  private static long index(H3FunctionMetrics metrics, H3Memo memo, double latitude, double longitude,
+                            int resolution) {
+    if (memo.find(Double.doubleToRawLongBits(latitude), Double.doubleToRawLongBits(longitude))
+        && H3IndexBits.getResolution(memo.value()) == resolution) {
+      metrics.memoHit();
+      return memo.value();
+    }
+    long cell = H3GeoIndexer.geoToH3(latitude, longitude, resolution);
+    memo.put(cell);
+    return cell;
+  }
+
+  /**
+   * Writes the center of the cell as a WKB point with longitude as x and latitude as y.
+   */
+  public static DrillBuf h3ToGeoPoint(H3Core h3, H3FunctionMetrics metrics, long cell, DrillBuf buffer) {
+    long started = metrics.start();
+    try {
+      if (h3 == null) {
+        metrics.fallback();
+        return H3Strings.empty(buffer);
+      }
+      return writePoint(h3.h3ToGeo(cell), buffer);
+    } catch (RuntimeException e) {
+      metrics.error();
+      throw e;
+    } finally {
+      metrics.stop(started);
+    }
+  }
+
+  public static DrillBuf h3ToGeoPoint(H3Core h3, H3FunctionMetrics metrics, DrillBuf input, int start, int end,
+                                      DrillBuf buffer) {
+    long started = metrics.start();
+    try {
+      if (h3 == null) {
+        metrics.fallback();
+        return H3Strings.empty(buffer);
+      }
+      return writePoint(h3.h3ToGeo(H3Strings.readCell(input, start, end)), buffer);
+    } catch (RuntimeException e) {
+      metrics.error();
+      throw e;
+    } finally {
+      metrics.stop(started);
+    }
+  }
+
+  /**
+   * Writes the center of the cell as a {latitude, longitude} map.
+   */
+  public static void h3ToGeo(H3Core h3, H3FunctionMetrics metrics, long cell, BaseWriter.ComplexWriter outWriter) {
+    long started = metrics.start();
+    try {
+      if (h3 == null) {
+        metrics.fallback();
+        return;
+      }
+      writeCoordinates(h3.h3ToGeo(cell), outWriter);
+    } catch (RuntimeException e) {
+      metrics.error();
+      throw e;
+    } finally {
+      metrics.stop(started);
+    }
+  }
+
+  public static void h3ToGeo(H3Core h3, H3FunctionMetrics metrics, DrillBuf input, int start, int end,
+                             BaseWriter.ComplexWriter outWriter) {
+    long started = metrics.start();
+    try {
+      if (h3 == null) {
+        metrics.fallback();
+        return;
+      }
+      writeCoordinates(h3.h3ToGeo(H3Strings.readCell(input, start, end)), outWriter);
+    } catch (RuntimeException e) {
+      metrics.error();
+      throw e;
+    } finally {
+      metrics.stop(started);
+    }
+  }
+
+  /**
+   * Writes the WKB for the point directly, producing the same bytes as ESRI's OGCPoint.asBinary() without building
+   * the geometry and its spatial reference for every row.
+   */
+  static DrillBuf writePoint(GeoCoord coord, DrillBuf buffer) {
+    buffer = buffer.reallocIfNeeded(WKB_POINT_SIZE);
+    buffer.setByte(0, 1);
+    // DrillBuf is little-endian, matching the byte order flag.
+    buffer.setInt(1, WKB_POINT);
+    buffer.setDouble(5, coord.lng);
+    buffer.setDouble(13, coord.lat);
+    buffer.writerIndex(WKB_POINT_SIZE);
+    return buffer;
+  }
+
+  private static void writeCoordinates(GeoCoord coord, BaseWriter.ComplexWriter outWriter) {
+    BaseWriter.MapWriter mapWriter = outWriter.rootAsMap();
+    mapWriter.float8("latitude").writeFloat8(coord.lat);
+    mapWriter.float8("longitude").writeFloat8(coord.lng);
+  }
+}
@@ -57,28 +57,95 @@ public class H3IndexingUDFs {
     BigIntHolder result;
 
     @Workspace
-    com.uber.h3core.H3Core h3;
+    com.datadistillr.udf.H3FunctionMetrics metrics;
 
+    @Workspace
+    com.datadistillr.udf.H3Memo memo;
 
     @Override
     public void setup() {
-      try {
-        h3 = com.uber.h3core.H3Core.newInstance();
-      } catch (java.io.IOException e) {
-        h3 = null;
-      }
+      metrics = com.datadistillr.udf.H3Metrics.function("geoToH3", false);
+      memo = com.datadistillr.udf.H3Memo.forFunction("geoToH3");
     }
 
     @Override
     public void eval() {
-      double latitude = latitudeHolder.value;
-      double longitude = longitudeHolder.value;
-      int resolution = resolutionHolder.value;
-      if (h3 == null) {
-        result.value = 0L;
-      } else {
-        result.value = h3.geoToH3(latitude, longitude, resolution);
-      }
+      result.value = com.datadistillr.udf.H3Indexing.geoToH3(metrics, memo, latitudeHolder.value, longitudeHolder.value,
+        resolutionHolder.value);
+    }
+  }
+
+  @FunctionTemplate(names = {"geoToH3", "geo_to_h3"},
+    scope = FunctionTemplate.FunctionScope.SIMPLE,
+    nulls = FunctionTemplate.NullHandling.NULL_IF_NULL)
+  public static class GeoToH3FromWkbFunction implements DrillSimpleFunc {
+
+    @Param
+    VarBinaryHolder geometryHolder;
+
+    @Param
+    IntHolder resolutionHolder;
+
+    @Output
+    BigIntHolder result;
+
+    @Workspace
+    com.datadistillr.udf.H3FunctionMetrics metrics;
+
+    @Workspace
+    com.datadistillr.udf.H3Memo memo;
+
+    @Workspace
+    double[] point;
+
+    @Override
+    public void setup() {
+      metrics = com.datadistillr.udf.H3Metrics.function("geoToH3", false);
+      memo = com.datadistillr.udf.H3Memo.forFunction("geoToH3");
+      point = new double[2];
+    }
+
+    @Override
+    public void eval() {
+      result.value = com.datadistillr.udf.H3Indexing.geoToH3(metrics, memo, point, geometryHolder.buffer,
+        geometryHolder.start, geometryHolder.end, resolutionHolder.value);
+    }
+  }
+
+  @FunctionTemplate(names = {"geoToH3", "geo_to_h3"},
+    scope = FunctionTemplate.FunctionScope.SIMPLE,
+    nulls = FunctionTemplate.NullHandling.NULL_IF_NULL)
+  public static class GeoToH3FromGeoJsonFunction implements DrillSimpleFunc {
+
+    @Param
+    VarCharHolder geometryHolder;
+
+    @Param
+    IntHolder resolutionHolder;
+
+    @Output
+    BigIntHolder result;
+
+    @Workspace
+    com.datadistillr.udf.H3FunctionMetrics metrics;
+
+    @Workspace
+    com.datadistillr.udf.H3Memo memo;
+
+    @Workspace
+    com.datadistillr.udf.H3GeoJson geoJson;
+
+    @Override
+    public void setup() {
+      metrics = com.datadistillr.udf.H3Metrics.function("geoToH3", false);
+      memo = com.datadistillr.udf.H3Memo.forFunction("geoToH3");
+      geoJson = new com.datadistillr.udf.H3GeoJson();
+    }
+
+    @Override
+    public void eval() {
+      result.value = com.datadistillr.udf.H3Indexing.geoToH3(metrics, memo, geoJson, geometryHolder.buffer,
+        geometryHolder.start, geometryHolder.end, resolutionHolder.value);
     }
   }
 
@@ -103,35 +170,24 @@ public class H3IndexingUDFs {
     DrillBuf buffer;
 
     @Workspace
-    com.uber.h3core.H3Core h3;
+    com.datadistillr.udf.H3FunctionMetrics metrics;
 
+    @Workspace
+    com.datadistillr.udf.H3Memo memo;
 
     @Override
     public void setup() {
-      try {
-        h3 = com.uber.h3core.H3Core.newInstance();
-      } catch (java.io.IOException e) {
-        h3 = null;
-      }
+      metrics = com.datadistillr.udf.H3Metrics.function("geoToH3Address", false);
+      memo = com.datadistillr.udf.H3Memo.forFunction("geoToH3Address");
     }
 
     @Override
     public void eval() {
-      double latitude = latitudeHolder.value;
-      double longitude = longitudeHolder.value;
-      int resolution = resolutionHolder.value;
-
-      if (h3 != null) {
-        String result = h3.geoToH3Address(latitude, longitude, resolution);
-
-        byte[] rowStringBytes = result.getBytes(java.nio.charset.StandardCharsets.UTF_8);
-        buffer = buffer.reallocIfNeeded(rowStringBytes.length);
-        buffer.setBytes(0, rowStringBytes);
-
-        out.start = 0;
-        out.end = rowStringBytes.length;
-        out.buffer = buffer;
-      }
+      buffer = com.datadistillr.udf.H3Indexing.geoToH3Address(metrics, memo, latitudeHolder.value,
+        longitudeHolder.value, resolutionHolder.value, buffer);
+      out.buffer = buffer;
+      out.start = 0;
+      out.end = buffer.writerIndex();
     }
   }
 
@@ -152,8 +208,12 @@ public class H3IndexingUDFs {
     @Workspace
     com.uber.h3core.H3Core h3;
 
+    @Workspace
+    com.datadistillr.udf.H3FunctionMetrics metrics;
+
     @Override
     public void setup() {
+      metrics = com.datadistillr.udf.H3Metrics.function("h3ToGeoPoint", true);
       try {
         h3 = com.uber.h3core.H3Core.newInstance();
       } catch (java.io.IOException e) {
@@ -163,23 +223,10 @@ public class H3IndexingUDFs {
 
     @Override
     public void eval() {
-      if (h3 == null) {
-        return;
-      }
-
-      com.uber.h3core.util.GeoCoord coord = h3.h3ToGeo(h3Input.value);
-
-      double lon = coord.lng;
-      double lat = coord.lat;
-
-      com.esri.core.geometry.ogc.OGCPoint point = new com.esri.core.geometry.ogc.OGCPoint(
-        new com.esri.core.geometry.Point(lon, lat), com.esri.core.geometry.SpatialReference.create(4326));
-
-      java.nio.ByteBuffer pointBytes = point.asBinary();
+      buffer = com.datadistillr.udf.H3Indexing.h3ToGeoPoint(h3, metrics, h3Input.value, buffer);
       out.buffer = buffer;
       out.start = 0;
-      out.end = pointBytes.remaining();
-      buffer.setBytes(0, pointBytes);
+      out.end = buffer.writerIndex();
     }
   }
 
@@ -200,8 +247,12 @@ public class H3IndexingUDFs {
     @Workspace
     com.uber.h3core.H3Core h3;
 
+    @Workspace
+    com.datadistillr.udf.H3FunctionMetrics metrics;
+
     @Override
     public void setup() {
+      metrics = com.datadistillr.udf.H3Metrics.function("h3ToGeoPoint", true);
       try {
         h3 = com.uber.h3core.H3Core.newInstance();
       } catch (java.io.IOException e) {
@@ -211,23 +262,11 @@ public class H3IndexingUDFs {
 
     @Override
     public void eval() {
-      if (h3 == null) {
-        return;
-      }
-      String h3InputString = org.apache.drill.exec.expr.fn.impl.StringFunctionHelpers.getStringFromVarCharHolder(h3Input);
-      com.uber.h3core.util.GeoCoord coord = h3.h3ToGeo(h3InputString);
-
-      double lon = coord.lng;
-      double lat = coord.lat;
-
-      com.esri.core.geometry.ogc.OGCPoint point = new com.esri.core.geometry.ogc.OGCPoint(
-        new com.esri.core.geometry.Point(lon, lat), com.esri.core.geometry.SpatialReference.create(4326));
-
-      java.nio.ByteBuffer pointBytes = point.asBinary();
+      buffer = com.datadistillr.udf.H3Indexing.h3ToGeoPoint(h3, metrics, h3Input.buffer, h3Input.start, h3Input.end,
+        buffer);
       out.buffer = buffer;
       out.start = 0;
-      out.end = pointBytes.remaining();
-      buffer.setBytes(0, pointBytes);
+      out.end = buffer.writerIndex();
     }
   }
 
@@ -245,8 +284,12 @@ public class H3IndexingUDFs {
     @Workspace
     com.uber.h3core.H3Core h3;
 
+    @Workspace
+    com.datadistillr.udf.H3FunctionMetrics metrics;
+
     @Override
     public void setup() {
+      metrics = com.datadistillr.udf.H3Metrics.function("h3ToGeo", true);
       try {
         h3 = com.uber.h3core.H3Core.newInstance();
       } catch (java.io.IOException e) {
@@ -256,17 +299,7 @@ public class H3IndexingUDFs {
 
     @Override
     public void eval() {
-      if (h3 == null) {
-        return;
-      }
-
-      com.uber.h3core.util.GeoCoord coord = h3.h3ToGeo(h3Input.value);
-      org.apache.drill.exec.vector.complex.writer.BaseWriter.MapWriter queryMapWriter = outWriter.rootAsMap();
-      double lon = coord.lng;
-      double lat = coord.lat;
-
-      queryMapWriter.float8("latitude").writeFloat8(lat);
-      queryMapWriter.float8("longitude").writeFloat8(lon);
+      com.datadistillr.udf.H3Indexing.h3ToGeo(h3, metrics, h3Input.value, outWriter);
     }
   }
 
@@ -284,8 +317,12 @@ public class H3IndexingUDFs {
     @Workspace
     com.uber.h3core.H3Core h3;
 
+    @Workspace
+    com.datadistillr.udf.H3FunctionMetrics metrics;
+
     @Override
     public void setup() {
+      metrics = com.datadistillr.udf.H3Metrics.function("h3ToGeo", true);
       try {
         h3 = com.uber.h3core.H3Core.newInstance();
       } catch (java.io.IOException e) {
@@ -295,19 +332,7 @@ public class H3IndexingUDFs {
 
     @Override
     public void eval() {
-      if (h3 == null) {
-        return;
-      }
-
-      String h3InputString = org.apache.drill.exec.expr.fn.impl.StringFunctionHelpers.getStringFromVarCharHolder(h3Input);
-
-      com.uber.h3core.util.GeoCoord coord = h3.h3ToGeo(h3InputString);
-      org.apache.drill.exec.vector.complex.writer.BaseWriter.MapWriter queryMapWriter = outWriter.rootAsMap();
-      double lon = coord.lng;
-      double lat = coord.lat;
-
-      queryMapWriter.float8("latitude").writeFloat8(lat);
-      queryMapWriter.float8("longitude").writeFloat8(lon);
+      com.datadistillr.udf.H3Indexing.h3ToGeo(h3, metrics, h3Input.buffer, h3Input.start, h3Input.end, outWriter);
     }
   }
 }
@@ -0,0 +1,354 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.datadistillr.udf;
+
+import com.uber.h3core.H3Core;
+import io.netty.buffer.DrillBuf;
+import org.apache.drill.exec.vector.complex.writer.BaseWriter;
+
+/**
+ * Row-level implementations of the functions in {@link H3InspectionFunctions}.  Address arguments are parsed straight
+ * from the VARCHAR buffer, so the String variants make the same native call as the BIGINT ones.  Results are kept in
+ * each function's {@link H3Memo}, so a cell that repeats on nearby rows only calls the H3 library once.
+ */
+public final class H3Inspection {
+
+  private H3Inspection() {
+  }
+
+  public static int getResolution(H3Core h3, H3FunctionMetrics metrics, H3Memo memo, long cell) {
+    long started = metrics.start();
+    try {
+      if (h3 == null) {
+        metrics.fallback();
+        return 0;
+      }
+      return resolution(h3, metrics, memo, cell);
+    } catch (RuntimeException e) {
+      metrics.error();
+      throw e;
+    } finally {
+      metrics.stop(started);
+    }
+  }
+
+  public static int getResolution(H3Core h3, H3FunctionMetrics metrics, H3Memo memo, DrillBuf input, int start,
+                                  int end) {
+    long started = metrics.start();
+    try {
+      if (h3 == null) {
+        metrics.fallback();
+        return 0;
+      }
+      return resolution(h3, metrics, memo, H3Strings.readCell(input, start, end));
+    } catch (RuntimeException e) {
+      metrics.error();
+      throw e;
+    } finally {
+      metrics.stop(started);
+    }
+  }
+
+  public static int getBaseCell(H3Core h3, H3FunctionMetrics metrics, H3Memo memo, long cell) {
+    long started = metrics.start();
+    try {
+      if (h3 == null) {
+        metrics.fallback();
+        return 0;
+      }
+      return baseCell(h3, metrics, memo, cell);
+    } catch (RuntimeException e) {
+      metrics.error();
+      throw e;
+    } finally {
+      metrics.stop(started);
+    }
+  }
+
+  public static int getBaseCell(H3Core h3, H3FunctionMetrics metrics, H3Memo memo, DrillBuf input, int start,
+                                int end) {
+    long started = metrics.start();
+    try {
+      if (h3 == null) {
+        metrics.fallback();
+        return 0;
+      }
+      return baseCell(h3, metrics, memo, H3Strings.readCell(input, start, end));
+    } catch (RuntimeException e) {
+      metrics.error();
+      throw e;
+    } finally {
+      metrics.stop(started);
+    }
+  }
+
+  public static long stringToH3(H3Core h3, H3FunctionMetrics metrics, H3AddressCache addresses, DrillBuf input,
+                                int start, int end) {
+    long started = metrics.start();
+    try {
+      if (h3 == null) {
+        metrics.fallback();
+        return 0L;
+      }
+      return addresses.readCell(input, start, end);
+    } catch (RuntimeException e) {
+      metrics.error();
+      throw e;
+    } finally {
+      metrics.stop(started);
+    }
+  }
+
+  public static DrillBuf h3ToString(H3Core h3, H3FunctionMetrics metrics, long cell, DrillBuf buffer) {
+    long started = metrics.start();
+    try {
+      if (h3 == null) {
+        metrics.fallback();
+        return H3Strings.empty(buffer);
+      }
+      return H3Strings.writeCell(buffer, cell);
+    } catch (RuntimeException e) {
+      metrics.error();
+      throw e;
+    } finally {
+      metrics.stop(started);
+    }
+  }
+
+  /**
+   * @return 1 if the cell is valid, otherwise 0.
+   */
+  public static int isValid(H3Core h3, H3FunctionMetrics metrics, H3Memo memo, long cell) {
+    long started = metrics.start();
+    try {
+      if (h3 == null) {
+        metrics.fallback();
+        return 0;
+      }
+      return valid(h3, metrics, memo, cell);
+    } catch (RuntimeException e) {
+      metrics.error();
+      throw e;
+    } finally {
+      metrics.stop(started);
+    }
+  }
+
+  public static int isValid(H3Core h3, H3FunctionMetrics metrics, H3Memo memo, H3AddressCache addresses,
+                            DrillBuf input, int start, int end) {
+    long started = metrics.start();
+    try {
+      if (h3 == null) {
+        metrics.fallback();
+        return 0;
+      }
+      return valid(h3, metrics, memo, addresses.readCell(input, start, end));
+    } catch (RuntimeException e) {
+      metrics.error();
+      throw e;
+    } finally {
+      metrics.stop(started);
+    }
+  }
+
+  /**
+   * @return 1 if the cell has a Class III resolution, otherwise 0.
+   */
+  public static int isResClassIII(H3Core h3, H3FunctionMetrics metrics, H3Memo memo, long cell) {
+    long started = metrics.start();
+    try {
+      if (h3 == null) {
+        metrics.fallback();
+        return 0;
+      }
+      return classIII(h3, metrics, memo, cell);
+    } catch (RuntimeException e) {
+      metrics.error();
+      throw e;
+    } finally {
+      metrics.stop(started);
+    }
+  }
+
+  public static int isResClassIII(H3Core h3, H3FunctionMetrics metrics, H3Memo memo, DrillBuf input, int start,
+                                  int end) {
+    long started = metrics.start();
+    try {
+      if (h3 == null) {
+        metrics.fallback();
+        return 0;
+      }
+      return classIII(h3, metrics, memo, H3Strings.readCell(input, start, end));
+    } catch (RuntimeException e) {
+      metrics.error();
+      throw e;
+    } finally {
+      metrics.stop(started);
+    }
+  }
+
+  /**
+   * @return 1 if the cell is a pentagon, otherwise 0.
+   */
+  public static int isPentagon(H3Core h3, H3FunctionMetrics metrics, H3Memo memo, long cell) {
+    long started = metrics.start();
+    try {
+      if (h3 == null) {
+        metrics.fallback();
+        return 0;
+      }
+      return pentagon(h3, metrics, memo, cell);
+    } catch (RuntimeException e) {
+      metrics.error();
+      throw e;
+    } finally {
+      metrics.stop(started);
+    }
+  }
+
+  public static int isPentagon(H3Core h3, H3FunctionMetrics metrics, H3Memo memo, DrillBuf input, int start,
+                               int end) {
+    long started = metrics.start();
+    try {
+      if (h3 == null) {
+        metrics.fallback();
+        return 0;
+      }
+      return pentagon(h3, metrics, memo, H3Strings.readCell(input, start, end));
+    } catch (RuntimeException e) {
+      metrics.error();
+      throw e;
+    } finally {
+      metrics.stop(started);
+    }
+  }
+
+  /**
+   * Writes the icosahedron faces the cell intersects as a list of INTs.
+   */
+  public static void getFaces(H3Core h3, H3FunctionMetrics metrics, H3Memo memo, long cell,
+                              BaseWriter.ComplexWriter outWriter) {
+    long started = metrics.start();
+    try {
+      if (h3 == null) {
+        metrics.fallback();
+        return;
+      }
+      writeFaces(h3, metrics, memo, cell, outWriter);
+    } catch (RuntimeException e) {
+      metrics.error();
+      throw e;
+    } finally {
+      metrics.stop(started);
+    }
+  }
+
+  public static void getFaces(H3Core h3, H3FunctionMetrics metrics, H3Memo memo, DrillBuf input, int start,
+                              int end, BaseWriter.ComplexWriter outWriter) {
+    long started = metrics.start();
+    try {
+      if (h3 == null) {
+        metrics.fallback();
+        return;
+      }
+      writeFaces(h3, metrics, memo, H3Strings.readCell(input, start, end), outWriter);
+    } catch (RuntimeException e) {
+      metrics.error();
+      throw e;
+    } finally {
+      metrics.stop(started);
+    }
+  }
+
+  private static int resolution(H3Core h3, H3FunctionMetrics metrics, H3Memo memo, long cell) {
+    if (memo.find(cell)) {
+      metrics.memoHit();
+      return (int) memo.value();
+    }
+    int resolution = h3.h3GetResolution(cell);
+    memo.put(resolution);
+    return resolution;
+  }
+
+  private static int baseCell(H3Core h3, H3FunctionMetrics metrics, H3Memo memo, long cell) {
+    if (memo.find(cell)) {
+      metrics.memoHit();
+      return (int) memo.value();
+    }
+    int baseCell = h3.h3GetBaseCell(cell);
+    memo.put(baseCell);
+    return baseCell;
+  }
+
+  private static int valid(H3Core h3, H3FunctionMetrics metrics, H3Memo memo, long cell) {
+    if (memo.find(cell)) {
+      metrics.memoHit();
+      return (int) memo.value();
+    }
+    int valid = h3.h3IsValid(cell) ? 1 : 0;
+    memo.put(valid);
+    return valid;
+  }
+
+  private static int classIII(H3Core h3, H3FunctionMetrics metrics, H3Memo memo, long cell) {
+    if (memo.find(cell)) {
+      metrics.memoHit();
+      return (int) memo.value();
+    }
+    int classIII = h3.h3IsResClassIII(cell) ? 1 : 0;
+    memo.put(classIII);
+    return classIII;
+  }
+
+  private static int pentagon(H3Core h3, H3FunctionMetrics metrics, H3Memo memo, long cell) {
+    if (memo.find(cell)) {
+      metrics.memoHit();
+      return (int) memo.value();
+    }
+    int pentagon = h3.h3IsPentagon(cell) ? 1 : 0;
+    memo.put(pentagon);
+    return pentagon;
+  }
+
+  /**
+   * Writes the faces in the order H3Core returns them.  A cell intersects at most five faces, so the memo holds them
+   * packed five bits each above a three bit count.
+   */
+  private static void writeFaces(H3Core h3, H3FunctionMetrics metrics, H3Memo memo, long cell,
+                                 BaseWriter.ComplexWriter outWriter) {
+    long faces;
+    if (memo.find(cell)) {
+      metrics.memoHit();
+      faces = memo.value();
+    } else {
+      faces = 0L;
+      int count = 0;
+      for (Integer face : h3.h3GetFaces(cell)) {
+        faces |= (long) face << (3 + 5 * count++);
+      }
+      faces |= count;
+      memo.put(faces);
+    }
+    BaseWriter.ListWriter listWriter = outWriter.rootAsList();
+    int count = (int) (faces & 7L);
+    for (int i = 0; i < count; i++) {
+      listWriter.integer().writeInt((int) ((faces >>> (3 + 5 * i)) & 31L));
+    }
+  }
+}
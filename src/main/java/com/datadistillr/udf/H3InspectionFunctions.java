@@ -53,8 +53,16 @@ public class H3InspectionFunctions {
     com.uber.h3core.H3Core h3;
 
 
+    @Workspace
+    com.datadistillr.udf.H3FunctionMetrics metrics;
+
+    @Workspace
+    com.datadistillr.udf.H3Memo memo;
+
     @Override
     public void setup() {
+      metrics = com.datadistillr.udf.H3Metrics.function("getResolution", true);
+      memo = com.datadistillr.udf.H3Memo.forFunction("getResolution");
       try {
         h3 = com.uber.h3core.H3Core.newInstance();
       } catch (java.io.IOException e) {
@@ -64,11 +72,7 @@ public class H3InspectionFunctions {
 
     @Override
     public void eval() {
-      if (h3 == null) {
-        result.value = 0;
-      } else {
-        result.value = h3.h3GetResolution(h3Input.value);
-      }
+      result.value = com.datadistillr.udf.H3Inspection.getResolution(h3, metrics, memo, h3Input.value);
     }
   }
 
@@ -87,8 +91,16 @@ public class H3InspectionFunctions {
     com.uber.h3core.H3Core h3;
 
 
+    @Workspace
+    com.datadistillr.udf.H3FunctionMetrics metrics;
+
+    @Workspace
+    com.datadistillr.udf.H3Memo memo;
+
     @Override
     public void setup() {
+      metrics = com.datadistillr.udf.H3Metrics.function("getResolution", true);
+      memo = com.datadistillr.udf.H3Memo.forFunction("getResolution");
       try {
         h3 = com.uber.h3core.H3Core.newInstance();
       } catch (java.io.IOException e) {
@@ -98,10 +110,8 @@ public class H3InspectionFunctions {
 
     @Override
     public void eval() {
-      if (h3 != null) {
-        String h3InputString = org.apache.drill.exec.expr.fn.impl.StringFunctionHelpers.getStringFromVarCharHolder(h3Input);
-        result.value = h3.h3GetResolution(h3InputString);
-      }
+      result.value = com.datadistillr.udf.H3Inspection.getResolution(h3, metrics, memo, h3Input.buffer, h3Input.start,
+        h3Input.end);
     }
   }
 
@@ -119,8 +129,16 @@ public class H3InspectionFunctions {
     @Workspace
     com.uber.h3core.H3Core h3;
 
+    @Workspace
+    com.datadistillr.udf.H3FunctionMetrics metrics;
+
+    @Workspace
+    com.datadistillr.udf.H3Memo memo;
+
     @Override
     public void setup() {
+      metrics = com.datadistillr.udf.H3Metrics.function("getBaseCell", true);
+      memo = com.datadistillr.udf.H3Memo.forFunction("getBaseCell");
       try {
         h3 = com.uber.h3core.H3Core.newInstance();
       } catch (java.io.IOException e) {
@@ -130,11 +148,7 @@ public class H3InspectionFunctions {
 
     @Override
     public void eval() {
-      if (h3 == null) {
-        result.value = 0;
-      } else {
-        result.value = h3.h3GetBaseCell(h3Input.value);
-      }
+      result.value = com.datadistillr.udf.H3Inspection.getBaseCell(h3, metrics, memo, h3Input.value);
     }
   }
 
@@ -152,8 +166,16 @@ public class H3InspectionFunctions {
     @Workspace
     com.uber.h3core.H3Core h3;
 
+    @Workspace
+    com.datadistillr.udf.H3FunctionMetrics metrics;
+
+    @Workspace
+    com.datadistillr.udf.H3Memo memo;
+
     @Override
     public void setup() {
+      metrics = com.datadistillr.udf.H3Metrics.function("getBaseCell", true);
+      memo = com.datadistillr.udf.H3Memo.forFunction("getBaseCell");
       try {
         h3 = com.uber.h3core.H3Core.newInstance();
       } catch (java.io.IOException e) {
@@ -163,10 +185,8 @@ public class H3InspectionFunctions {
 
     @Override
     public void eval() {
-      if (h3 != null) {
-        String h3InputString = org.apache.drill.exec.expr.fn.impl.StringFunctionHelpers.getStringFromVarCharHolder(h3Input);
-        result.value = h3.h3GetBaseCell(h3InputString);
-      }
+      result.value = com.datadistillr.udf.H3Inspection.getBaseCell(h3, metrics, memo, h3Input.buffer, h3Input.start,
+        h3Input.end);
     }
   }
 
@@ -184,8 +204,16 @@ public class H3InspectionFunctions {
     @Workspace
     com.uber.h3core.H3Core h3;
 
+    @Workspace
+    com.datadistillr.udf.H3FunctionMetrics metrics;
+
+    @Workspace
+    com.datadistillr.udf.H3AddressCache addresses;
+
     @Override
     public void setup() {
+      metrics = com.datadistillr.udf.H3Metrics.function("stringToH3", true);
+      addresses = com.datadistillr.udf.H3AddressCache.create();
       try {
         h3 = com.uber.h3core.H3Core.newInstance();
       } catch (java.io.IOException e) {
@@ -195,12 +223,8 @@ public class H3InspectionFunctions {
 
     @Override
     public void eval() {
-      if (h3 != null) {
-        String h3InputString = org.apache.drill.exec.expr.fn.impl.StringFunctionHelpers.getStringFromVarCharHolder(h3Address);
-        result.value = h3.stringToH3(h3InputString);
-      } else {
-        result.value = 0L;
-      }
+      result.value = com.datadistillr.udf.H3Inspection.stringToH3(h3, metrics, addresses, h3Address.buffer,
+        h3Address.start, h3Address.end);
     }
   }
 
@@ -222,8 +246,12 @@ public class H3InspectionFunctions {
     @Workspace
     com.uber.h3core.H3Core h3;
 
+    @Workspace
+    com.datadistillr.udf.H3FunctionMetrics metrics;
+
     @Override
     public void setup() {
+      metrics = com.datadistillr.udf.H3Metrics.function("h3ToString", true);
       try {
         h3 = com.uber.h3core.H3Core.newInstance();
       } catch (java.io.IOException e) {
@@ -233,13 +261,10 @@ public class H3InspectionFunctions {
 
     @Override
     public void eval() {
-      if (h3 != null) {
-        String h3AddressString = h3.h3ToString(h3Address.value);
-        out.buffer = buffer;
-        out.start = 0;
-        out.end = h3AddressString.getBytes().length;
-        buffer.setBytes(0, h3AddressString.getBytes());
-      }
+      buffer = com.datadistillr.udf.H3Inspection.h3ToString(h3, metrics, h3Address.value, buffer);
+      out.buffer = buffer;
+      out.start = 0;
+      out.end = buffer.writerIndex();
     }
   }
 
@@ -257,8 +282,16 @@ public class H3InspectionFunctions {
     @Workspace
     com.uber.h3core.H3Core h3;
 
+    @Workspace
+    com.datadistillr.udf.H3FunctionMetrics metrics;
+
+    @Workspace
+    com.datadistillr.udf.H3Memo memo;
+
     @Override
     public void setup() {
+      metrics = com.datadistillr.udf.H3Metrics.function("h3IsValid", true);
+      memo = com.datadistillr.udf.H3Memo.forFunction("h3IsValid");
       try {
         h3 = com.uber.h3core.H3Core.newInstance();
       } catch (java.io.IOException e) {
@@ -268,11 +301,7 @@ public class H3InspectionFunctions {
 
     @Override
     public void eval() {
-      if (h3 == null) {
-        result.value = 0;
-      } else {
-        result.value = h3.h3IsValid(h3Address.value) ? 1 : 0;
-      }
+      result.value = com.datadistillr.udf.H3Inspection.isValid(h3, metrics, memo, h3Address.value);
     }
   }
 
@@ -290,8 +319,20 @@ public class H3InspectionFunctions {
     @Workspace
     com.uber.h3core.H3Core h3;
 
+    @Workspace
+    com.datadistillr.udf.H3FunctionMetrics metrics;
+
+    @Workspace
+    com.datadistillr.udf.H3AddressCache addresses;
+
+    @Workspace
+    com.datadistillr.udf.H3Memo memo;
+
     @Override
     public void setup() {
+      metrics = com.datadistillr.udf.H3Metrics.function("h3IsValid", true);
+      addresses = com.datadistillr.udf.H3AddressCache.create();
+      memo = com.datadistillr.udf.H3Memo.forFunction("h3IsValid");
       try {
         h3 = com.uber.h3core.H3Core.newInstance();
       } catch (java.io.IOException e) {
@@ -301,12 +342,8 @@ public class H3InspectionFunctions {
 
     @Override
     public void eval() {
-      if (h3 == null) {
-        result.value = 0;
-      } else {
-        String h3Address = org.apache.drill.exec.expr.fn.impl.StringFunctionHelpers.getStringFromVarCharHolder(h3AddressString);
-        result.value = h3.h3IsValid(h3Address) ? 1 : 0;
-      }
+      result.value = com.datadistillr.udf.H3Inspection.isValid(h3, metrics, memo, addresses,
+        h3AddressString.buffer, h3AddressString.start, h3AddressString.end);
     }
   }
 
@@ -324,8 +361,16 @@ public class H3InspectionFunctions {
     @Workspace
     com.uber.h3core.H3Core h3;
 
+    @Workspace
+    com.datadistillr.udf.H3FunctionMetrics metrics;
+
+    @Workspace
+    com.datadistillr.udf.H3Memo memo;
+
     @Override
     public void setup() {
+      metrics = com.datadistillr.udf.H3Metrics.function("h3IsResClassIII", true);
+      memo = com.datadistillr.udf.H3Memo.forFunction("h3IsResClassIII");
       try {
         h3 = com.uber.h3core.H3Core.newInstance();
       } catch (java.io.IOException e) {
@@ -335,11 +380,7 @@ public class H3InspectionFunctions {
 
     @Override
     public void eval() {
-      if (h3 == null) {
-        result.value = 0;
-      } else {
-        result.value = h3.h3IsResClassIII(h3Address.value) ? 1 : 0;
-      }
+      result.value = com.datadistillr.udf.H3Inspection.isResClassIII(h3, metrics, memo, h3Address.value);
     }
   }
 
@@ -357,8 +398,16 @@ public class H3InspectionFunctions {
     @Workspace
     com.uber.h3core.H3Core h3;
 
+    @Workspace
+    com.datadistillr.udf.H3FunctionMetrics metrics;
+
+    @Workspace
+    com.datadistillr.udf.H3Memo memo;
+
     @Override
     public void setup() {
+      metrics = com.datadistillr.udf.H3Metrics.function("h3IsResClassIII", true);
+      memo = com.datadistillr.udf.H3Memo.forFunction("h3IsResClassIII");
       try {
         h3 = com.uber.h3core.H3Core.newInstance();
       } catch (java.io.IOException e) {
@@ -368,12 +417,8 @@ public class H3InspectionFunctions {
 
     @Override
     public void eval() {
-      if (h3 == null) {
-        result.value = 0;
-      } else {
-        String h3Address = org.apache.drill.exec.expr.fn.impl.StringFunctionHelpers.getStringFromVarCharHolder(h3AddressString);
-        result.value = h3.h3IsResClassIII(h3Address) ? 1 : 0;
-      }
+      result.value = com.datadistillr.udf.H3Inspection.isResClassIII(h3, metrics, memo, h3AddressString.buffer,
+        h3AddressString.start, h3AddressString.end);
     }
   }
 
@@ -392,8 +437,16 @@ public class H3InspectionFunctions {
     @Workspace
     com.uber.h3core.H3Core h3;
 
+    @Workspace
+    com.datadistillr.udf.H3FunctionMetrics metrics;
+
+    @Workspace
+    com.datadistillr.udf.H3Memo memo;
+
     @Override
     public void setup() {
+      metrics = com.datadistillr.udf.H3Metrics.function("h3IsPentagon", true);
+      memo = com.datadistillr.udf.H3Memo.forFunction("h3IsPentagon");
       try {
         h3 = com.uber.h3core.H3Core.newInstance();
       } catch (java.io.IOException e) {
@@ -403,11 +456,7 @@ public class H3InspectionFunctions {
 
     @Override
     public void eval() {
-      if (h3 == null) {
-        result.value = 0;
-      } else {
-        result.value = h3.h3IsPentagon(h3Address.value) ? 1 : 0;
-      }
+      result.value = com.datadistillr.udf.H3Inspection.isPentagon(h3, metrics, memo, h3Address.value);
     }
   }
 
@@ -425,8 +474,16 @@ public class H3InspectionFunctions {
     @Workspace
     com.uber.h3core.H3Core h3;
 
+    @Workspace
+    com.datadistillr.udf.H3FunctionMetrics metrics;
+
+    @Workspace
+    com.datadistillr.udf.H3Memo memo;
+
     @Override
     public void setup() {
+      metrics = com.datadistillr.udf.H3Metrics.function("h3IsPentagon", true);
+      memo = com.datadistillr.udf.H3Memo.forFunction("h3IsPentagon");
       try {
         h3 = com.uber.h3core.H3Core.newInstance();
       } catch (java.io.IOException e) {
@@ -436,12 +493,8 @@ public class H3InspectionFunctions {
 
     @Override
     public void eval() {
-      if (h3 == null) {
-        result.value = 0;
-      } else {
-        String h3Address = org.apache.drill.exec.expr.fn.impl.StringFunctionHelpers.getStringFromVarCharHolder(h3AddressString);
-        result.value = h3.h3IsPentagon(h3Address) ? 1 : 0;
-      }
+      result.value = com.datadistillr.udf.H3Inspection.isPentagon(h3, metrics, memo, h3AddressString.buffer,
+        h3AddressString.start, h3AddressString.end);
     }
   }
 
@@ -458,8 +511,16 @@ public class H3InspectionFunctions {
     @Workspace
     com.uber.h3core.H3Core h3;
 
+    @Workspace
+    com.datadistillr.udf.H3FunctionMetrics metrics;
+
+    @Workspace
+    com.datadistillr.udf.H3Memo memo;
+
     @Override
     public void setup() {
+      metrics = com.datadistillr.udf.H3Metrics.function("h3GetFaces", true);
+      memo = com.datadistillr.udf.H3Memo.forFunction("h3GetFaces");
       try {
         h3 = com.uber.h3core.H3Core.newInstance();
       } catch (java.io.IOException e) {
@@ -469,18 +530,7 @@ public class H3InspectionFunctions {
 
     @Override
     public void eval() {
-      if (h3 == null) {
-        return;
-      }
-
-      long origin = originInput.value;
-
-      java.util.Collection<Integer> results = h3.h3GetFaces(origin);
-      org.apache.drill.exec.vector.complex.writer.BaseWriter.ListWriter queryListWriter = outWriter.rootAsList();
-
-      for (Integer result : results) {
-        queryListWriter.integer().writeInt(result);
-      }
+      com.datadistillr.udf.H3Inspection.getFaces(h3, metrics, memo, originInput.value, outWriter);
     }
   }
 
@@ -497,8 +547,16 @@ public class H3InspectionFunctions {
     @Workspace
     com.uber.h3core.H3Core h3;
 
+    @Workspace
+    com.datadistillr.udf.H3FunctionMetrics metrics;
+
+    @Workspace
+    com.datadistillr.udf.H3Memo memo;
+
     @Override
     public void setup() {
+      metrics = com.datadistillr.udf.H3Metrics.function("h3GetFaces", true);
+      memo = com.datadistillr.udf.H3Memo.forFunction("h3GetFaces");
       try {
         h3 = com.uber.h3core.H3Core.newInstance();
       } catch (java.io.IOException e) {
@@ -508,17 +566,8 @@ public class H3InspectionFunctions {
 
     @Override
     public void eval() {
-      if (h3 == null) {
-        return;
-      }
-
-      String h3Address = org.apache.drill.exec.expr.fn.impl.StringFunctionHelpers.getStringFromVarCharHolder(originInput);
-
-      java.util.Collection<Integer> results = h3.h3GetFaces(h3Address);
-      org.apache.drill.exec.vector.complex.writer.BaseWriter.ListWriter queryListWriter = outWriter.rootAsList();
-      for (Integer result : results) {
-        queryListWriter.integer().writeInt(result);
-      }
+      com.datadistillr.udf.H3Inspection.getFaces(h3, metrics, memo, originInput.buffer, originInput.start,
+        originInput.end, outWriter);
     }
   }
 }
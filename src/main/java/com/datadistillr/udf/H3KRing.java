@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.datadistillr.udf;
+
+import com.uber.h3core.H3Core;
+
+/**
+ * Expands k-rings into primitive buffers that grow to the largest k-ring seen and are then reused, so a UDF that holds
+ * one instance in its workspace allocates nothing per row once it has seen its largest k.  The cells, their distances
+ * and, for k-rings near a pentagon grouped by distance, a second array of cells take at most 20 bytes per cell, and
+ * the number of cells is bounded by the traversal limit.  Instances are not thread-safe.
+ * <p>
+ * The cells come in the order H3Core.kRing returns them.  Away from pentagons that is the spiral H3's kRing walks,
+ * which {@link H3Neighbors} walks the same way, already grouped by distance.  Once the spiral meets a pentagon, H3
+ * finds the ring by a different search whose order only the native library gives, so the cells come from
+ * {@link H3Native#kRingDistances} instead.
+ */
+public final class H3KRing {
+
+  private long[] cells = new long[1];
+
+  private int[] distances = new int[1];
+
+  private long[] sorted;
+
+  private int[] ringEnds = new int[1];
+
+  private boolean grouped;
+
+  /**
+   * Finds the k-ring of the origin.  The caller checks k against the traversal limit first.
+   *
+   * @param byDistance whether the cells must be grouped by distance, nearest first, for {@link #ringEnd}.
+   * @return the number of cells found, which are at the start of {@link #cells()}.
+   */
+  public int find(H3Core h3, long origin, int k, boolean byDistance) {
+    int size = H3Neighbors.kRingSize(k);
+    if (cells.length < size || distances.length < size) {
+      cells = new long[size];
+      distances = new int[size];
+    }
+    if (ringEnds.length < k + 1) {
+      ringEnds = new int[k + 1];
+    }
+    if (H3Neighbors.spiral(origin, k, cells) >= 0) {
+      for (int distance = 0; distance <= k; distance++) {
+        ringEnds[distance] = H3Neighbors.kRingSize(distance);
+        for (int i = distance == 0 ? 0 : ringEnds[distance - 1]; i < ringEnds[distance]; i++) {
+          distances[i] = distance;
+        }
+      }
+      grouped = true;
+      return size;
+    }
+    int count = H3Native.kRingDistances(h3, origin, k, cells, distances);
+    grouped = byDistance;
+    if (byDistance) {
+      groupByDistance(count, k);
+    }
+    return count;
+  }
+
+  public long[] cells() {
+    return cells;
+  }
+
+  public int[] distances() {
+    return distances;
+  }
+
+  /**
+   * @return the index after the last cell at the distance, which is also where the next distance starts.  Only
+   * defined after a {@link #find} that grouped the cells by distance.
+   */
+  public int ringEnd(int distance) {
+    if (!grouped) {
+      throw new IllegalStateException("The cells are not grouped by distance");
+    }
+    return ringEnds[distance];
+  }
+
+  /**
+   * Sorts the cells by distance with a counting sort, keeping their order within each distance as H3Core's
+   * kRingDistances does.
+   */
+  private void groupByDistance(int count, int k) {
+    if (sorted == null || sorted.length < cells.length) {
+      sorted = new long[cells.length];
+    }
+    for (int distance = 0; distance <= k; distance++) {
+      ringEnds[distance] = 0;
+    }
+    for (int i = 0; i < count; i++) {
+      ringEnds[distances[i]]++;
+    }
+    int end = 0;
+    for (int distance = 0; distance <= k; distance++) {
+      end += ringEnds[distance];
+      ringEnds[distance] = end;
+    }
+    // Fill each distance from its end backwards, which keeps the cells in order when walked from the last one.
+    for (int i = count - 1; i >= 0; i--) {
+      sorted[--ringEnds[distances[i]]] = cells[i];
+    }
+    // Each ring end now holds its start, so shift them down by one distance.
+    for (int distance = 0; distance < k; distance++) {
+      ringEnds[distance] = ringEnds[distance + 1];
+    }
+    ringEnds[k] = count;
+    long[] swap = cells;
+    cells = sorted;
+    sorted = swap;
+    int distance = 0;
+    for (int i = 0; i < count; i++) {
+      while (i >= ringEnds[distance]) {
+        distance++;
+      }
+      distances[i] = distance;
+    }
+  }
+}
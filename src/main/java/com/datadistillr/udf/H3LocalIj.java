@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.datadistillr.udf;
+
+import com.uber.h3core.H3Core;
+
+/**
+ * Grid distances through local IJ coordinates with the origin's coordinates cached.  H3's own distance projects
+ * both the origin and the target into the origin's frame on every call; when the origin repeats from row to row,
+ * as it does when every row is compared with one store, only the target needs to be projected.
+ * <p>
+ * An instance is not thread safe and is meant to live in a UDF workspace.
+ */
+public final class H3LocalIj {
+
+  private final int[] ij = new int[2];
+
+  private long origin;
+
+  private boolean originValid;
+
+  private int originI;
+
+  private int originJ;
+
+  /**
+   * @return the grid distance between the cells, or -1 if it is undefined, as for H3's h3Distance.
+   */
+  public int distance(H3Core h3, long origin, long cell) {
+    if (origin != this.origin) {
+      this.origin = origin;
+      originValid = H3Native.toLocalIj(h3, origin, origin, ij) == 0;
+      originI = ij[0];
+      originJ = ij[1];
+    }
+    if (!originValid || H3Native.toLocalIj(h3, origin, cell, ij) != 0) {
+      H3Metrics.DISTANCE_FAILURES.inc();
+      return -1;
+    }
+    return ijDistance(originI, originJ, ij[0], ij[1]);
+  }
+
+  /**
+   * @return the grid distance between two cells given as local IJ coordinates in the same frame.
+   */
+  public static int ijDistance(int i1, int j1, int i2, int j2) {
+    // Convert the difference to IJK coordinates and normalize them, as H3's ijkDistance does.
+    int i = i2 - i1;
+    int j = j2 - j1;
+    int k = 0;
+    if (i < 0) {
+      j -= i;
+      k -= i;
+      i = 0;
+    }
+    if (j < 0) {
+      i -= j;
+      k -= j;
+      j = 0;
+    }
+    if (k < 0) {
+      i -= k;
+      j -= k;
+      k = 0;
+    }
+    int min = Math.min(i, Math.min(j, k));
+    return Math.max(i, Math.max(j, k)) - min;
+  }
+}
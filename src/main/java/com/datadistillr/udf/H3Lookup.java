@@ -0,0 +1,59 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.datadistillr.udf;
+
+import io.netty.buffer.DrillBuf;
+
+/**
+ * Row-level implementations of the functions in {@link H3LookupFunctions}.
+ */
+public final class H3Lookup {
+
+  private H3Lookup() {
+  }
+
+  /**
+   * @return the index of the table entry for the cell or its nearest ancestor, or -1 if there is none or the cell is
+   * not set.
+   */
+  public static long find(H3FunctionMetrics metrics, H3LookupTable table, int isSet, long cell) {
+    long started = metrics.start();
+    try {
+      return isSet == 0 ? -1L : table.findWithFallback(cell);
+    } catch (RuntimeException e) {
+      metrics.error();
+      throw e;
+    } finally {
+      metrics.stop(started);
+    }
+  }
+
+  public static long find(H3FunctionMetrics metrics, H3LookupTable table, int isSet, DrillBuf input, int start,
+                          int end) {
+    long started = metrics.start();
+    try {
+      return isSet == 0 ? -1L : table.findWithFallback(H3Strings.parseCell(input, start, end));
+    } catch (RuntimeException e) {
+      metrics.error();
+      throw e;
+    } finally {
+      metrics.stop(started);
+    }
+  }
+}
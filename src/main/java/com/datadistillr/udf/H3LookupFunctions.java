@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.datadistillr.udf;
+
+import org.apache.drill.exec.expr.DrillSimpleFunc;
+import org.apache.drill.exec.expr.annotations.FunctionTemplate;
+import org.apache.drill.exec.expr.annotations.Output;
+import org.apache.drill.exec.expr.annotations.Param;
+import org.apache.drill.exec.expr.annotations.Workspace;
+import org.apache.drill.exec.expr.holders.NullableBigIntHolder;
+import org.apache.drill.exec.expr.holders.NullableIntHolder;
+import org.apache.drill.exec.expr.holders.NullableVarCharHolder;
+import org.apache.drill.exec.expr.holders.VarCharHolder;
+
+/**
+ * Reverse geocoding against memory-mapped lookup tables built with {@link H3LookupTableBuilder}.
+ */
+public class H3LookupFunctions {
+
+  @FunctionTemplate(names = {"h3Lookup", "h3_lookup"},
+    scope = FunctionTemplate.FunctionScope.SIMPLE,
+    nulls = FunctionTemplate.NullHandling.INTERNAL)
+  public static class h3Lookup implements DrillSimpleFunc {
+
+    @Param
+    NullableBigIntHolder cellInput;
+
+    @Param(constant = true)
+    VarCharHolder tableFile;
+
+    @Output
+    NullableIntHolder out;
+
+    @Workspace
+    com.datadistillr.udf.H3LookupTable table;
+
+    @Workspace
+    com.datadistillr.udf.H3FunctionMetrics metrics;
+
+    @Override
+    public void setup() {
+      metrics = com.datadistillr.udf.H3Metrics.function("h3Lookup", false);
+      String path = org.apache.drill.exec.expr.fn.impl.StringFunctionHelpers.getStringFromVarCharHolder(tableFile);
+      table = com.datadistillr.udf.H3LookupTable.open(path);
+    }
+
+    @Override
+    public void eval() {
+      long index = com.datadistillr.udf.H3Lookup.find(metrics, table, cellInput.isSet, cellInput.value);
+      out.isSet = index < 0 ? 0 : 1;
+      out.value = index < 0 ? 0 : table.valueAt(index);
+    }
+  }
+
+  @FunctionTemplate(names = {"h3Lookup", "h3_lookup"},
+    scope = FunctionTemplate.FunctionScope.SIMPLE,
+    nulls = FunctionTemplate.NullHandling.INTERNAL)
+  public static class h3LookupFromString implements DrillSimpleFunc {
+
+    @Param
+    NullableVarCharHolder cellInput;
+
+    @Param(constant = true)
+    VarCharHolder tableFile;
+
+    @Output
+    NullableIntHolder out;
+
+    @Workspace
+    com.datadistillr.udf.H3LookupTable table;
+
+    @Workspace
+    com.datadistillr.udf.H3FunctionMetrics metrics;
+
+    @Override
+    public void setup() {
+      metrics = com.datadistillr.udf.H3Metrics.function("h3Lookup", false);
+      String path = org.apache.drill.exec.expr.fn.impl.StringFunctionHelpers.getStringFromVarCharHolder(tableFile);
+      table = com.datadistillr.udf.H3LookupTable.open(path);
+    }
+
+    @Override
+    public void eval() {
+      long index = com.datadistillr.udf.H3Lookup.find(metrics, table, cellInput.isSet, cellInput.buffer,
+        cellInput.start,
+        cellInput.end);
+      out.isSet = index < 0 ? 0 : 1;
+      out.value = index < 0 ? 0 : table.valueAt(index);
+    }
+  }
+}
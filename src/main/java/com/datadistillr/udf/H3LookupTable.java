@@ -0,0 +1,311 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.datadistillr.udf;
+
+import io.netty.util.internal.PlatformDependent;
+import org.apache.drill.common.exceptions.UserException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A read-only, memory-mapped table of (cell, int value) pairs used by the h3Lookup UDF.
+ * <p>
+ * The file layout is a 16 byte little-endian header (magic, version, entry count) followed by all cells in ascending
+ * order and then all values in the same order.  Files are written by {@link H3LookupTableBuilder}.
+ * <p>
+ * Every fragment that uses a table gets its own instance of this class, but the mapping behind it is shared by all
+ * fragments and queries on the Drillbit.  UDFs have no close hook, so an instance is counted as released once it
+ * has been garbage collected.  A mapping is unmapped after it has had no users for {@link #IDLE_MILLIS}, which is
+ * also how a table file that has been replaced gets swapped out.  Tables must be replaced by renaming a new file
+ * over the old one, as {@link H3LookupTableBuilder} does, and never rewritten in place.
+ */
+public final class H3LookupTable {
+
+  private static final Logger logger = LoggerFactory.getLogger(H3LookupTable.class);
+
+  static final int MAGIC = 0x544C3348;
+
+  static final int VERSION = 1;
+
+  static final int HEADER_BYTES = 16;
+
+  static final int KEY_BYTES = 8;
+
+  static final int VALUE_BYTES = 4;
+
+  static final long IDLE_MILLIS = 10 * 60 * 1000L;
+
+  // Each mapping covers at most 1 GiB, well under the 2 GiB limit of a single MappedByteBuffer.
+  private static final int KEY_SEGMENT_SHIFT = 27;
+
+  private static final int VALUE_SEGMENT_SHIFT = 28;
+
+  private static final Map<String, Mapping> CURRENT = new HashMap<>();
+
+  private static final List<Mapping> OPEN = new ArrayList<>();
+
+  private static final ReferenceQueue<H3LookupTable> RELEASED = new ReferenceQueue<>();
+
+  private static final Set<Release> PENDING = new HashSet<>();
+
+  private final Mapping mapping;
+
+  private H3LookupTable(Mapping mapping) {
+    this.mapping = mapping;
+  }
+
+  /**
+   * Opens the table stored at the given path, reusing an existing mapping when the file has not changed.
+   *
+   * @throws UserException if the file cannot be read or is not a lookup table.
+   */
+  public static H3LookupTable open(String path) {
+    try {
+      return acquire(path);
+    } catch (IOException e) {
+      throw UserException.dataReadError(e)
+        .message("Unable to open H3 lookup table %s", path)
+        .addContext(e.getMessage())
+        .build(logger);
+    }
+  }
+
+  static synchronized H3LookupTable acquire(String path) throws IOException {
+    drainReleased();
+
+    File file = new File(path).getAbsoluteFile();
+    String key = file.getPath();
+    Mapping mapping = CURRENT.get(key);
+    if (mapping != null && !mapping.matches(file)) {
+      CURRENT.remove(key);
+      mapping = null;
+    }
+    if (mapping == null) {
+      mapping = Mapping.map(file);
+      CURRENT.put(key, mapping);
+      OPEN.add(mapping);
+    }
+
+    H3LookupTable table = new H3LookupTable(mapping);
+    mapping.references++;
+    PENDING.add(new Release(table, mapping));
+    return table;
+  }
+
+  private static void drainReleased() {
+    Reference<? extends H3LookupTable> reference;
+    long now = System.currentTimeMillis();
+    while ((reference = RELEASED.poll()) != null) {
+      Release release = (Release) reference;
+      PENDING.remove(release);
+      if (--release.mapping.references == 0) {
+        release.mapping.idleSince = now;
+      }
+    }
+
+    Iterator<Mapping> iterator = OPEN.iterator();
+    while (iterator.hasNext()) {
+      Mapping mapping = iterator.next();
+      if (mapping.references == 0 && now - mapping.idleSince >= IDLE_MILLIS) {
+        iterator.remove();
+        if (CURRENT.get(mapping.path) == mapping) {
+          CURRENT.remove(mapping.path);
+        }
+        mapping.unmap();
+      }
+    }
+  }
+
+  /**
+   * @return the number of cells in the table.
+   */
+  public long size() {
+    return mapping.count;
+  }
+
+  /**
+   * @return the position of the cell in the table, or -1 if the cell is not present.
+   */
+  public long find(long cell) {
+    long low = 0;
+    long high = mapping.count - 1;
+    while (low <= high) {
+      long middle = (low + high) >>> 1;
+      long candidate = mapping.keyAt(middle);
+      if (candidate < cell) {
+        low = middle + 1;
+      } else if (candidate > cell) {
+        high = middle - 1;
+      } else {
+        return middle;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Looks up the cell, falling back to its parents one resolution at a time until a match is found.
+   *
+   * @return the position of the finest matching cell, or -1 if neither the cell nor any of its parents is present.
+   */
+  public long findWithFallback(long cell) {
+    for (int resolution = H3IndexBits.getResolution(cell); resolution >= 0; resolution--) {
+      long index = find(H3IndexBits.toParent(cell, resolution));
+      if (index >= 0) {
+        return index;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * @return the value stored at a position returned by {@link #find(long)}.
+   */
+  public int valueAt(long index) {
+    return mapping.valueAt(index);
+  }
+
+  /**
+   * Tracks one outstanding user of a mapping so the mapping can be released once that user is collected.
+   */
+  private static final class Release extends PhantomReference<H3LookupTable> {
+
+    private final Mapping mapping;
+
+    Release(H3LookupTable table, Mapping mapping) {
+      super(table, RELEASED);
+      this.mapping = mapping;
+    }
+  }
+
+  private static final class Mapping {
+
+    private final String path;
+
+    private final long lastModified;
+
+    private final long length;
+
+    private final long count;
+
+    private final ByteBuffer[] keys;
+
+    private final ByteBuffer[] values;
+
+    private int references;
+
+    private long idleSince;
+
+    private Mapping(String path, long lastModified, long length, long count, ByteBuffer[] keys, ByteBuffer[] values) {
+      this.path = path;
+      this.lastModified = lastModified;
+      this.length = length;
+      this.count = count;
+      this.keys = keys;
+      this.values = values;
+    }
+
+    static Mapping map(File file) throws IOException {
+      long lastModified = file.lastModified();
+      try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+        FileChannel channel = raf.getChannel();
+        long length = channel.size();
+        if (length < HEADER_BYTES) {
+          throw new IOException("File is too short to be an H3 lookup table");
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        while (header.hasRemaining()) {
+          if (channel.read(header, header.position()) < 0) {
+            throw new IOException("Unexpected end of file while reading the H3 lookup table header");
+          }
+        }
+        header.flip();
+        int magic = header.getInt();
+        int version = header.getInt();
+        long count = header.getLong();
+        if (magic != MAGIC || version != VERSION) {
+          throw new IOException("File is not a version " + VERSION + " H3 lookup table");
+        }
+        if (count < 0 || length != HEADER_BYTES + count * (KEY_BYTES + VALUE_BYTES)) {
+          throw new IOException("H3 lookup table header does not match the file length");
+        }
+
+        ByteBuffer[] keys = mapSegments(channel, HEADER_BYTES, count, KEY_BYTES, KEY_SEGMENT_SHIFT);
+        ByteBuffer[] values = mapSegments(channel, HEADER_BYTES + count * KEY_BYTES, count, VALUE_BYTES,
+          VALUE_SEGMENT_SHIFT);
+        logger.debug("Mapped H3 lookup table {} with {} cells", file, count);
+        return new Mapping(file.getPath(), lastModified, length, count, keys, values);
+      }
+    }
+
+    private static ByteBuffer[] mapSegments(FileChannel channel, long offset, long count, int width, int shift)
+      throws IOException {
+      long perSegment = 1L << shift;
+      int segments = (int) ((count + perSegment - 1) >>> shift);
+      ByteBuffer[] buffers = new ByteBuffer[segments];
+      for (int i = 0; i < segments; i++) {
+        long entries = Math.min(perSegment, count - ((long) i << shift));
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset + ((long) i << shift) * width, entries * width);
+        buffers[i] = buffer.order(ByteOrder.LITTLE_ENDIAN);
+      }
+      return buffers;
+    }
+
+    boolean matches(File file) {
+      return file.lastModified() == lastModified && file.length() == length;
+    }
+
+    long keyAt(long index) {
+      return keys[(int) (index >>> KEY_SEGMENT_SHIFT)].getLong((int) (index & ((1L << KEY_SEGMENT_SHIFT) - 1)) << 3);
+    }
+
+    int valueAt(long index) {
+      return values[(int) (index >>> VALUE_SEGMENT_SHIFT)].getInt((int) (index & ((1L << VALUE_SEGMENT_SHIFT) - 1)) << 2);
+    }
+
+    void unmap() {
+      logger.debug("Unmapping H3 lookup table {}", path);
+      for (ByteBuffer buffer : keys) {
+        PlatformDependent.freeDirectBuffer(buffer);
+      }
+      for (ByteBuffer buffer : values) {
+        PlatformDependent.freeDirectBuffer(buffer);
+      }
+    }
+  }
+}
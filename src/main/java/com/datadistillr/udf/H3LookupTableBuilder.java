@@ -0,0 +1,246 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.datadistillr.udf;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+/**
+ * Writes the files read by {@link H3LookupTable}.
+ * <p>
+ * The command line form converts the CSV output of a query such as
+ * <code>CREATE TABLE dfs.tmp.zips AS SELECT geoToH3(lat, lon, 9) AS cell, zip FROM ...</code>
+ * (with <code>store.format</code> set to <code>csv</code>) into a lookup table:
+ * <pre>
+ *   java -cp drill-h3-functions-1.0.jar com.datadistillr.udf.H3LookupTableBuilder zips.csv zips.h3lt
+ * </pre>
+ * The first column must be the cell, either as a BIGINT or as a hexadecimal address, and the second column the value.
+ * A header row is skipped automatically.
+ * <p>
+ * A table is written to a temporary file next to the output file and then renamed over it, so a Drillbit that still
+ * has the old table mapped keeps reading the old file until it notices the new one.  A table file must never be
+ * truncated or rewritten in place, which would pull the pages out from under the mapping.
+ */
+public final class H3LookupTableBuilder {
+
+  private static final int INSERTION_SORT_THRESHOLD = 16;
+
+  /**
+   * The most entries the arrays of the command line form can grow to, which is about the largest array a JVM allows.
+   */
+  private static final int MAX_ENTRIES = Integer.MAX_VALUE - 8;
+
+  private H3LookupTableBuilder() {
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length != 2) {
+      System.err.println("Usage: H3LookupTableBuilder <input csv, or - for stdin> <output file>");
+      System.exit(1);
+    }
+
+    InputStream input = "-".equals(args[0]) ? System.in : new FileInputStream(args[0]);
+    long[] cells = new long[1024];
+    int[] values = new int[1024];
+    int count = 0;
+    try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+      String line;
+      int lineNumber = 0;
+      while ((line = reader.readLine()) != null) {
+        lineNumber++;
+        if (line.trim().isEmpty()) {
+          continue;
+        }
+        String[] fields = line.split(",");
+        long cell = fields.length < 2 ? 0L : parseCell(fields[0].trim());
+        if (cell == 0L) {
+          if (lineNumber == 1) {
+            continue;
+          }
+          throw new IOException("Line " + lineNumber + " does not start with an H3 cell: " + line);
+        }
+        if (count == cells.length) {
+          if (count == MAX_ENTRIES) {
+            throw new IOException("More than " + MAX_ENTRIES + " rows at line " + lineNumber);
+          }
+          int capacity = (int) Math.min(count * 2L, MAX_ENTRIES);
+          cells = Arrays.copyOf(cells, capacity);
+          values = Arrays.copyOf(values, capacity);
+        }
+        cells[count] = cell;
+        values[count] = Integer.parseInt(fields[1].trim());
+        count++;
+      }
+    }
+
+    write(new File(args[1]), cells, values, count);
+    System.out.println("Wrote " + count + " cells to " + args[1]);
+  }
+
+  /**
+   * Writes the first <code>count</code> entries to the file, sorting them by cell.  The arrays are sorted in place.
+   * The file is replaced atomically by renaming a temporary file in the same directory over it.
+   *
+   * @throws IllegalArgumentException if a cell appears more than once with different values.
+   */
+  public static void write(File file, long[] cells, int[] values, int count) throws IOException {
+    sort(cells, values, 0, count - 1);
+    int unique = 0;
+    for (int i = 0; i < count; i++) {
+      if (unique > 0 && cells[unique - 1] == cells[i]) {
+        if (values[unique - 1] != values[i]) {
+          throw new IllegalArgumentException("Cell " + Long.toHexString(cells[i]) + " has more than one value");
+        }
+        continue;
+      }
+      cells[unique] = cells[i];
+      values[unique] = values[i];
+      unique++;
+    }
+
+    File directory = file.getAbsoluteFile().getParentFile();
+    File temporary = File.createTempFile(file.getName() + ".", ".tmp", directory);
+    boolean moved = false;
+    try {
+      try (FileOutputStream output = new FileOutputStream(temporary)) {
+        FileChannel channel = output.getChannel();
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(H3LookupTable.MAGIC);
+        buffer.putInt(H3LookupTable.VERSION);
+        buffer.putLong(unique);
+        for (int i = 0; i < unique; i++) {
+          if (buffer.remaining() < H3LookupTable.KEY_BYTES) {
+            flush(channel, buffer);
+          }
+          buffer.putLong(cells[i]);
+        }
+        for (int i = 0; i < unique; i++) {
+          if (buffer.remaining() < H3LookupTable.VALUE_BYTES) {
+            flush(channel, buffer);
+          }
+          buffer.putInt(values[i]);
+        }
+        flush(channel, buffer);
+        channel.force(true);
+      }
+      Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+      moved = true;
+    } finally {
+      if (!moved) {
+        Files.deleteIfExists(temporary.toPath());
+      }
+    }
+  }
+
+  /**
+   * H3 indexes written as numbers are always 18 or 19 digits long, while addresses are at most 16 hex digits.
+   */
+  static long parseCell(String text) {
+    if (text.length() > 16) {
+      try {
+        return Long.parseLong(text);
+      } catch (NumberFormatException e) {
+        return 0L;
+      }
+    }
+    return H3IndexBits.parseAddress(text);
+  }
+
+  private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    buffer.clear();
+  }
+
+  /**
+   * Sorts both arrays by cell without boxing them into pairs.
+   */
+  private static void sort(long[] cells, int[] values, int low, int high) {
+    while (high - low > INSERTION_SORT_THRESHOLD) {
+      int middle = (low + high) >>> 1;
+      if (cells[middle] < cells[low]) {
+        swap(cells, values, middle, low);
+      }
+      if (cells[high] < cells[low]) {
+        swap(cells, values, high, low);
+      }
+      if (cells[high] < cells[middle]) {
+        swap(cells, values, high, middle);
+      }
+      long pivot = cells[middle];
+      int i = low;
+      int j = high;
+      while (i <= j) {
+        while (cells[i] < pivot) {
+          i++;
+        }
+        while (cells[j] > pivot) {
+          j--;
+        }
+        if (i <= j) {
+          swap(cells, values, i++, j--);
+        }
+      }
+      // Recurse into the smaller half to bound the stack depth.
+      if (j - low < high - i) {
+        sort(cells, values, low, j);
+        low = i;
+      } else {
+        sort(cells, values, i, high);
+        high = j;
+      }
+    }
+
+    for (int i = low + 1; i <= high; i++) {
+      long cell = cells[i];
+      int value = values[i];
+      int j = i - 1;
+      while (j >= low && cells[j] > cell) {
+        cells[j + 1] = cells[j];
+        values[j + 1] = values[j];
+        j--;
+      }
+      cells[j + 1] = cell;
+      values[j + 1] = value;
+    }
+  }
+
+  private static void swap(long[] cells, int[] values, int a, int b) {
+    long cell = cells[a];
+    cells[a] = cells[b];
+    cells[b] = cell;
+    int value = values[a];
+    values[a] = values[b];
+    values[b] = value;
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.datadistillr.udf;
+
+/**
+ * A fixed-size cache of measurements by index, shared by every fragment on the Drillbit.  It is direct-mapped: an
+ * index is only ever stored in the slot it hashes to, replacing whatever was there, so the cache cannot grow past its
+ * size and a lookup or an update is a single array access without locks.
+ * <p>
+ * Slots are read and written without synchronization.  Entries are immutable and their fields are final, so a reader
+ * sees either no entry, the old one or the new one, each complete.  Updates that race simply overwrite each other.
+ */
+final class H3MeasureCache {
+
+  private static final int MAX_CAPACITY = 1 << 24;
+
+  private final Entry[] entries;
+
+  private final int mask;
+
+  /**
+   * @param size the number of entries, rounded up to a power of two.
+   */
+  H3MeasureCache(long size) {
+    int capacity = 1;
+    while (capacity < size && capacity < MAX_CAPACITY) {
+      capacity <<= 1;
+    }
+    entries = new Entry[capacity];
+    mask = capacity - 1;
+  }
+
+  /**
+   * @return the value stored for the index, or NaN if it is not in the cache.
+   */
+  double get(long index) {
+    Entry entry = entries[H3CellMap.hash(index) & mask];
+    if (entry != null && entry.index == index) {
+      H3Metrics.MEASURE_CACHE_HITS.inc();
+      return entry.value;
+    }
+    H3Metrics.MEASURE_CACHE_MISSES.inc();
+    return Double.NaN;
+  }
+
+  void put(long index, double value) {
+    entries[H3CellMap.hash(index) & mask] = new Entry(index, value);
+  }
+
+  private static final class Entry {
+
+    final long index;
+
+    final double value;
+
+    Entry(long index, double value) {
+      this.index = index;
+      this.value = value;
+    }
+  }
+}
@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.datadistillr.udf;
+
+/**
+ * A small direct-mapped memo of a function's recent results, for data where the same inputs repeat on nearby rows,
+ * as they do in clustered or sorted data.  Each input hashes to one of a fixed number of slots and replaces whatever
+ * was there, so the memo remembers up to that many recent inputs in primitive arrays without allocating per row.
+ * <p>
+ * A UDF keeps one in its workspace, so each fragment has its own and uses it from a single thread:
+ * <pre>
+ *   if (memo.find(cell)) {
+ *     metrics.memoHit();
+ *     return memo.value();
+ *   }
+ *   long value = ...;
+ *   memo.put(value);
+ * </pre>
+ * The number of slots is datadistillr.h3.memo.functions.&lt;function&gt; for the function, or datadistillr.h3.memo.size
+ * if that is not set, rounded up to a power of two.  A size of 0 disables the memo.
+ */
+public final class H3Memo {
+
+  static final String FUNCTIONS = "datadistillr.h3.memo.functions.";
+
+  private static final int MAX_SIZE = 1 << 20;
+
+  private final long[] keys1;
+
+  private final long[] keys2;
+
+  private final long[] values;
+
+  private final boolean[] used;
+
+  private final int mask;
+
+  private int slot;
+
+  private long key1;
+
+  private long key2;
+
+  H3Memo(long size) {
+    int capacity = 0;
+    if (size > 0) {
+      capacity = 1;
+      while (capacity < size && capacity < MAX_SIZE) {
+        capacity <<= 1;
+      }
+    }
+    keys1 = new long[capacity];
+    keys2 = new long[capacity];
+    values = new long[capacity];
+    used = new boolean[capacity];
+    mask = capacity - 1;
+  }
+
+  /**
+   * @param function the first SQL name of the function, as given to {@link H3Metrics#function}.
+   */
+  public static H3Memo forFunction(String function) {
+    return new H3Memo(H3Config.getLong(FUNCTIONS + function, H3Config.getLong(H3Config.MEMO_SIZE, 64)));
+  }
+
+  public boolean find(long key) {
+    return find(key, 0L);
+  }
+
+  /**
+   * Looks up a pair of keys and remembers them for a following {@link #put}.
+   *
+   * @return whether the memo holds a value for the keys, which {@link #value} then returns.
+   */
+  public boolean find(long key1, long key2) {
+    if (mask < 0) {
+      return false;
+    }
+    this.key1 = key1;
+    this.key2 = key2;
+    slot = H3CellMap.hash(key1 ^ Long.rotateLeft(key2 * 0x9e3779b97f4a7c15L, 32)) & mask;
+    return used[slot] && keys1[slot] == key1 && keys2[slot] == key2;
+  }
+
+  /**
+   * @return the value found by the last successful {@link #find}.
+   */
+  public long value() {
+    return values[slot];
+  }
+
+  /**
+   * Stores the value for the keys of the last {@link #find}.
+   */
+  public void put(long value) {
+    if (mask < 0) {
+      return;
+    }
+    keys1[slot] = key1;
+    keys2[slot] = key2;
+    values[slot] = value;
+    used[slot] = true;
+  }
+}
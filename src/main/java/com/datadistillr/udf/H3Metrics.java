@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.datadistillr.udf;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.RatioGauge;
+import org.apache.drill.exec.metrics.DrillMetrics;
+
+/**
+ * Counters for the H3 functions, registered with Drill's metrics registry so that they are reported over JMX and
+ * the Drillbit's metrics page along with Drill's own metrics.
+ */
+public final class H3Metrics {
+
+  static final String PREFIX = "drill.h3.";
+
+  /**
+   * Grid distances that were undefined: different resolutions, too far apart or separated by a pentagon.
+   */
+  public static final Counter DISTANCE_FAILURES = DrillMetrics.getRegistry().counter(PREFIX + "distance.failures");
+
+  /**
+   * Local IJ projections that were undefined.
+   */
+  public static final Counter LOCAL_IJ_FAILURES = DrillMetrics.getRegistry().counter(PREFIX + "local_ij.failures");
+
+  /**
+   * Lines that were undefined.
+   */
+  public static final Counter LINE_FAILURES = DrillMetrics.getRegistry().counter(PREFIX + "line.failures");
+
+  /**
+   * Cell areas and edge lengths found in the measure cache.
+   */
+  public static final Counter MEASURE_CACHE_HITS = DrillMetrics.getRegistry().counter(PREFIX + "measure_cache.hits");
+
+  /**
+   * Cell areas and edge lengths that were not in the measure cache.
+   */
+  public static final Counter MEASURE_CACHE_MISSES =
+    DrillMetrics.getRegistry().counter(PREFIX + "measure_cache.misses");
+
+  /**
+   * VARCHAR addresses found in a fragment's address cache.
+   */
+  public static final Counter ADDRESS_CACHE_HITS = DrillMetrics.getRegistry().counter(PREFIX + "address_cache.hits");
+
+  /**
+   * VARCHAR addresses that were not in the fragment's address cache and were parsed.
+   */
+  public static final Counter ADDRESS_CACHE_MISSES =
+    DrillMetrics.getRegistry().counter(PREFIX + "address_cache.misses");
+
+  /**
+   * Polyfills found in the Drillbit's polyfill cache.
+   */
+  public static final Counter POLYFILL_CACHE_HITS = DrillMetrics.getRegistry().counter(PREFIX + "polyfill_cache.hits");
+
+  /**
+   * Polyfills that were not in the polyfill cache and were computed.
+   */
+  public static final Counter POLYFILL_CACHE_MISSES =
+    DrillMetrics.getRegistry().counter(PREFIX + "polyfill_cache.misses");
+
+  private H3Metrics() {
+  }
+
+  /**
+   * Returns the instrumentation for one instance of a function.  The function's metrics are named
+   * drill.h3.&lt;function&gt;.rows, .native_calls, .fallbacks, .errors, .memo_hits, .memo_hit_rate and .latency_ns,
+   * and are shared by all of its instances.
+   *
+   * @param usesNative whether the function calls into the H3 library, in which case rows that do not fall back are
+   * counted as native calls.
+   */
+  public static H3FunctionMetrics function(String function, boolean usesNative) {
+    MetricRegistry registry = DrillMetrics.getRegistry();
+    String name = PREFIX + function;
+    final Counter rows = registry.counter(name + ".rows");
+    final Counter memoHits = registry.counter(name + ".memo_hits");
+    String memoHitRate = name + ".memo_hit_rate";
+    synchronized (H3Metrics.class) {
+      if (!registry.getGauges().containsKey(memoHitRate)) {
+        registry.register(memoHitRate, new RatioGauge() {
+          @Override
+          protected Ratio getRatio() {
+            return Ratio.of(memoHits.getCount(), rows.getCount());
+          }
+        });
+      }
+    }
+    return new H3FunctionMetrics(
+      rows,
+      registry.counter(name + ".native_calls"),
+      registry.counter(name + ".fallbacks"),
+      registry.counter(name + ".errors"),
+      memoHits,
+      registry.histogram(name + ".latency_ns"),
+      usesNative);
+  }
+}
@@ -0,0 +1,256 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.datadistillr.udf;
+
+import io.netty.buffer.DrillBuf;
+
+/**
+ * Row-level implementations of the functions in {@link H3MiscellaneousFunctions}.  The per-resolution values come
+ * from the static tables in {@link H3Resolutions}, and the per-cell ones from {@link H3CellMeasures}.
+ */
+public final class H3Miscellaneous {
+
+  private H3Miscellaneous() {
+  }
+
+  public static double degreesToRadians(H3FunctionMetrics metrics, double degrees) {
+    long started = metrics.start();
+    try {
+      return Math.toRadians(degrees);
+    } finally {
+      metrics.stop(started);
+    }
+  }
+
+  public static double radiansToDegrees(H3FunctionMetrics metrics, double radians) {
+    long started = metrics.start();
+    try {
+      return Math.toDegrees(radians);
+    } finally {
+      metrics.stop(started);
+    }
+  }
+
+  public static double hexAreaKm2(H3FunctionMetrics metrics, int resolution) {
+    long started = metrics.start();
+    try {
+      return H3Resolutions.hexAreaKm2(resolution);
+    } catch (RuntimeException e) {
+      metrics.error();
+      throw e;
+    } finally {
+      metrics.stop(started);
+    }
+  }
+
+  public static double hexAreaM2(H3FunctionMetrics metrics, int resolution) {
+    long started = metrics.start();
+    try {
+      return H3Resolutions.hexAreaM2(resolution);
+    } catch (RuntimeException e) {
+      metrics.error();
+      throw e;
+    } finally {
+      metrics.stop(started);
+    }
+  }
+
+  public static double edgeLengthKm(H3FunctionMetrics metrics, int resolution) {
+    long started = metrics.start();
+    try {
+      return H3Resolutions.edgeLengthKm(resolution);
+    } catch (RuntimeException e) {
+      metrics.error();
+      throw e;
+    } finally {
+      metrics.stop(started);
+    }
+  }
+
+  public static double edgeLengthM(H3FunctionMetrics metrics, int resolution) {
+    long started = metrics.start();
+    try {
+      return H3Resolutions.edgeLengthM(resolution);
+    } catch (RuntimeException e) {
+      metrics.error();
+      throw e;
+    } finally {
+      metrics.stop(started);
+    }
+  }
+
+  public static long numHexagons(H3FunctionMetrics metrics, int resolution) {
+    long started = metrics.start();
+    try {
+      return H3Resolutions.numHexagons(resolution);
+    } catch (RuntimeException e) {
+      metrics.error();
+      throw e;
+    } finally {
+      metrics.stop(started);
+    }
+  }
+
+  public static long maxKringSize(H3FunctionMetrics metrics, int k) {
+    long started = metrics.start();
+    try {
+      return H3Resolutions.maxKringSize(k);
+    } catch (RuntimeException e) {
+      metrics.error();
+      throw e;
+    } finally {
+      metrics.stop(started);
+    }
+  }
+
+  public static double pointDistanceKm(H3FunctionMetrics metrics, double latitude1, double longitude1,
+                                       double latitude2, double longitude2) {
+    long started = metrics.start();
+    try {
+      return H3GreatCircle.distanceKm(latitude1, longitude1, latitude2, longitude2);
+    } finally {
+      metrics.stop(started);
+    }
+  }
+
+  /**
+   * @return the distance between the cell centers in kilometers, or NaN if either index is not a cell.
+   */
+  public static double cellDistanceKm(H3FunctionMetrics metrics, H3CellDistance distance, long cell1, long cell2) {
+    long started = metrics.start();
+    try {
+      return distance.km(cell1, cell2);
+    } finally {
+      metrics.stop(started);
+    }
+  }
+
+  public static double cellDistanceKm(H3FunctionMetrics metrics, H3CellDistance distance, DrillBuf input1,
+                                      int start1, int end1, DrillBuf input2, int start2, int end2) {
+    long started = metrics.start();
+    try {
+      return distance.km(H3Strings.readCell(input1, start1, end1), H3Strings.readCell(input2, start2, end2));
+    } catch (RuntimeException e) {
+      metrics.error();
+      throw e;
+    } finally {
+      metrics.stop(started);
+    }
+  }
+
+  /**
+   * @return the area of the cell in square kilometers, or NaN if the index is not a cell.
+   */
+  public static double cellAreaKm2(H3FunctionMetrics metrics, H3CellMeasures measures, long cell) {
+    long started = metrics.start();
+    try {
+      return measures.areaKm2(cell);
+    } finally {
+      metrics.stop(started);
+    }
+  }
+
+  public static double cellAreaKm2(H3FunctionMetrics metrics, H3CellMeasures measures, DrillBuf input, int start,
+                                   int end) {
+    long started = metrics.start();
+    try {
+      return measures.areaKm2(H3Strings.readCell(input, start, end));
+    } catch (RuntimeException e) {
+      metrics.error();
+      throw e;
+    } finally {
+      metrics.stop(started);
+    }
+  }
+
+  /**
+   * @return the area of the cell in square meters, or NaN if the index is not a cell.
+   */
+  public static double cellAreaM2(H3FunctionMetrics metrics, H3CellMeasures measures, long cell) {
+    long started = metrics.start();
+    try {
+      return measures.areaM2(cell);
+    } finally {
+      metrics.stop(started);
+    }
+  }
+
+  public static double cellAreaM2(H3FunctionMetrics metrics, H3CellMeasures measures, DrillBuf input, int start,
+                                  int end) {
+    long started = metrics.start();
+    try {
+      return measures.areaM2(H3Strings.readCell(input, start, end));
+    } catch (RuntimeException e) {
+      metrics.error();
+      throw e;
+    } finally {
+      metrics.stop(started);
+    }
+  }
+
+  /**
+   * @return the length of the edge in kilometers, or NaN if the index is not a unidirectional edge.
+   */
+  public static double exactEdgeLengthKm(H3FunctionMetrics metrics, H3CellMeasures measures, long edge) {
+    long started = metrics.start();
+    try {
+      return measures.edgeLengthKm(edge);
+    } finally {
+      metrics.stop(started);
+    }
+  }
+
+  public static double exactEdgeLengthKm(H3FunctionMetrics metrics, H3CellMeasures measures, DrillBuf input, int start,
+                                         int end) {
+    long started = metrics.start();
+    try {
+      return measures.edgeLengthKm(H3Strings.readCell(input, start, end));
+    } catch (RuntimeException e) {
+      metrics.error();
+      throw e;
+    } finally {
+      metrics.stop(started);
+    }
+  }
+
+  /**
+   * @return the length of the edge in meters, or NaN if the index is not a unidirectional edge.
+   */
+  public static double exactEdgeLengthM(H3FunctionMetrics metrics, H3CellMeasures measures, long edge) {
+    long started = metrics.start();
+    try {
+      return measures.edgeLengthM(edge);
+    } finally {
+      metrics.stop(started);
+    }
+  }
+
+  public static double exactEdgeLengthM(H3FunctionMetrics metrics, H3CellMeasures measures, DrillBuf input, int start,
+                                        int end) {
+    long started = metrics.start();
+    try {
+      return measures.edgeLengthM(H3Strings.readCell(input, start, end));
+    } catch (RuntimeException e) {
+      metrics.error();
+      throw e;
+    } finally {
+      metrics.stop(started);
+    }
+  }
+}
@@ -23,8 +23,10 @@ import org.apache.drill.exec.expr.annotations.FunctionTemplate;
 import org.apache.drill.exec.expr.annotations.Output;
 import org.apache.drill.exec.expr.annotations.Param;
 import org.apache.drill.exec.expr.annotations.Workspace;
+import org.apache.drill.exec.expr.holders.BigIntHolder;
 import org.apache.drill.exec.expr.holders.Float8Holder;
 import org.apache.drill.exec.expr.holders.IntHolder;
+import org.apache.drill.exec.expr.holders.VarCharHolder;
 
 
 public class H3MiscellaneousFunctions {
@@ -40,13 +42,17 @@ public class H3MiscellaneousFunctions {
     @Output
     Float8Holder radians;
 
+    @Workspace
+    com.datadistillr.udf.H3FunctionMetrics metrics;
+
     @Override
     public void setup() {
+      metrics = com.datadistillr.udf.H3Metrics.function("degreesToRads", false);
     }
 
     @Override
     public void eval() {
-      radians.value = java.lang.Math.toRadians(degrees.value);
+      radians.value = com.datadistillr.udf.H3Miscellaneous.degreesToRadians(metrics, degrees.value);
     }
   }
 
@@ -61,13 +67,17 @@ public class H3MiscellaneousFunctions {
     @Output
     Float8Holder degrees;
 
+    @Workspace
+    com.datadistillr.udf.H3FunctionMetrics metrics;
+
     @Override
     public void setup() {
+      metrics = com.datadistillr.udf.H3Metrics.function("radsToDegrees", false);
     }
 
     @Override
     public void eval() {
-      degrees.value = java.lang.Math.toDegrees(radians.value);
+      degrees.value = com.datadistillr.udf.H3Miscellaneous.radiansToDegrees(metrics, radians.value);
     }
   }
 
@@ -84,24 +94,16 @@ public class H3MiscellaneousFunctions {
     Float8Holder result;
 
     @Workspace
-    com.uber.h3core.H3Core h3;
+    com.datadistillr.udf.H3FunctionMetrics metrics;
 
     @Override
     public void setup() {
-      try {
-        h3 = com.uber.h3core.H3Core.newInstance();
-      } catch (java.io.IOException e) {
-        h3 = null;
-      }
+      metrics = com.datadistillr.udf.H3Metrics.function("hexAreaKm2", false);
     }
 
     @Override
     public void eval() {
-      if (h3 == null) {
-        result.value = 0;
-      } else {
-        result.value = h3.hexArea(resolution.value, com.uber.h3core.AreaUnit.km2);
-      }
+      result.value = com.datadistillr.udf.H3Miscellaneous.hexAreaKm2(metrics, resolution.value);
     }
   }
 
@@ -117,26 +119,454 @@ public class H3MiscellaneousFunctions {
     Float8Holder result;
 
     @Workspace
-    com.uber.h3core.H3Core h3;
+    com.datadistillr.udf.H3FunctionMetrics metrics;
+
+    @Override
+    public void setup() {
+      metrics = com.datadistillr.udf.H3Metrics.function("hexAreaM2", false);
+    }
+
+    @Override
+    public void eval() {
+      result.value = com.datadistillr.udf.H3Miscellaneous.hexAreaM2(metrics, resolution.value);
+    }
+  }
+
+  @FunctionTemplate(names = {"edgeLengthKm", "edge_length_km"},
+    scope = FunctionTemplate.FunctionScope.SIMPLE,
+    nulls = FunctionTemplate.NullHandling.NULL_IF_NULL)
+  public static class edgeLengthKm implements DrillSimpleFunc {
+
+    @Param
+    IntHolder resolution;
+
+    @Output
+    Float8Holder result;
+
+    @Workspace
+    com.datadistillr.udf.H3FunctionMetrics metrics;
+
+    @Override
+    public void setup() {
+      metrics = com.datadistillr.udf.H3Metrics.function("edgeLengthKm", false);
+    }
+
+    @Override
+    public void eval() {
+      result.value = com.datadistillr.udf.H3Miscellaneous.edgeLengthKm(metrics, resolution.value);
+    }
+  }
+
+  @FunctionTemplate(names = {"edgeLengthM", "edge_length_m"},
+    scope = FunctionTemplate.FunctionScope.SIMPLE,
+    nulls = FunctionTemplate.NullHandling.NULL_IF_NULL)
+  public static class edgeLengthM implements DrillSimpleFunc {
+
+    @Param
+    IntHolder resolution;
+
+    @Output
+    Float8Holder result;
+
+    @Workspace
+    com.datadistillr.udf.H3FunctionMetrics metrics;
+
+    @Override
+    public void setup() {
+      metrics = com.datadistillr.udf.H3Metrics.function("edgeLengthM", false);
+    }
+
+    @Override
+    public void eval() {
+      result.value = com.datadistillr.udf.H3Miscellaneous.edgeLengthM(metrics, resolution.value);
+    }
+  }
+
+  @FunctionTemplate(names = {"numHexagons", "num_hexagons"},
+    scope = FunctionTemplate.FunctionScope.SIMPLE,
+    nulls = FunctionTemplate.NullHandling.NULL_IF_NULL)
+  public static class numHexagons implements DrillSimpleFunc {
+
+    @Param
+    IntHolder resolution;
+
+    @Output
+    BigIntHolder result;
+
+    @Workspace
+    com.datadistillr.udf.H3FunctionMetrics metrics;
+
+    @Override
+    public void setup() {
+      metrics = com.datadistillr.udf.H3Metrics.function("numHexagons", false);
+    }
+
+    @Override
+    public void eval() {
+      result.value = com.datadistillr.udf.H3Miscellaneous.numHexagons(metrics, resolution.value);
+    }
+  }
+
+  @FunctionTemplate(names = {"maxKringSize", "max_kring_size"},
+    scope = FunctionTemplate.FunctionScope.SIMPLE,
+    nulls = FunctionTemplate.NullHandling.NULL_IF_NULL)
+  public static class maxKringSize implements DrillSimpleFunc {
+
+    @Param
+    IntHolder k;
+
+    @Output
+    BigIntHolder result;
+
+    @Workspace
+    com.datadistillr.udf.H3FunctionMetrics metrics;
+
+    @Override
+    public void setup() {
+      metrics = com.datadistillr.udf.H3Metrics.function("maxKringSize", false);
+    }
+
+    @Override
+    public void eval() {
+      result.value = com.datadistillr.udf.H3Miscellaneous.maxKringSize(metrics, k.value);
+    }
+  }
+
+
+  @FunctionTemplate(names = {"h3PointDistKm", "h3_point_dist_km"},
+    scope = FunctionTemplate.FunctionScope.SIMPLE,
+    nulls = FunctionTemplate.NullHandling.NULL_IF_NULL)
+  public static class h3PointDistKm implements DrillSimpleFunc {
+
+    @Param
+    Float8Holder latitude1;
+
+    @Param
+    Float8Holder longitude1;
+
+    @Param
+    Float8Holder latitude2;
+
+    @Param
+    Float8Holder longitude2;
+
+    @Output
+    Float8Holder result;
+
+    @Workspace
+    com.datadistillr.udf.H3FunctionMetrics metrics;
+
+    @Override
+    public void setup() {
+      metrics = com.datadistillr.udf.H3Metrics.function("h3PointDistKm", false);
+    }
+
+    @Override
+    public void eval() {
+      result.value = com.datadistillr.udf.H3Miscellaneous.pointDistanceKm(metrics, latitude1.value, longitude1.value,
+        latitude2.value, longitude2.value);
+    }
+  }
+
+  @FunctionTemplate(names = {"h3CellDistKm", "h3_cell_dist_km"},
+    scope = FunctionTemplate.FunctionScope.SIMPLE,
+    nulls = FunctionTemplate.NullHandling.NULL_IF_NULL)
+  public static class h3CellDistKm implements DrillSimpleFunc {
+
+    @Param
+    BigIntHolder cell1;
+
+    @Param
+    BigIntHolder cell2;
+
+    @Output
+    Float8Holder result;
+
+    @Workspace
+    com.datadistillr.udf.H3CellDistance distance;
+
+    @Workspace
+    com.datadistillr.udf.H3FunctionMetrics metrics;
+
+    @Override
+    public void setup() {
+      metrics = com.datadistillr.udf.H3Metrics.function("h3CellDistKm", false);
+      distance = new com.datadistillr.udf.H3CellDistance();
+    }
+
+    @Override
+    public void eval() {
+      result.value = com.datadistillr.udf.H3Miscellaneous.cellDistanceKm(metrics, distance, cell1.value,
+        cell2.value);
+    }
+  }
+
+  @FunctionTemplate(names = {"h3CellDistKm", "h3_cell_dist_km"},
+    scope = FunctionTemplate.FunctionScope.SIMPLE,
+    nulls = FunctionTemplate.NullHandling.NULL_IF_NULL)
+  public static class h3CellDistKmFromString implements DrillSimpleFunc {
+
+    @Param
+    VarCharHolder cell1;
+
+    @Param
+    VarCharHolder cell2;
+
+    @Output
+    Float8Holder result;
+
+    @Workspace
+    com.datadistillr.udf.H3CellDistance distance;
+
+    @Workspace
+    com.datadistillr.udf.H3FunctionMetrics metrics;
 
     @Override
     public void setup() {
-      try {
-        h3 = com.uber.h3core.H3Core.newInstance();
-      } catch (java.io.IOException e) {
-        h3 = null;
-      }
+      metrics = com.datadistillr.udf.H3Metrics.function("h3CellDistKm", false);
+      distance = new com.datadistillr.udf.H3CellDistance();
     }
 
     @Override
     public void eval() {
-      if (h3 == null) {
-        result.value = 0;
-      } else {
-        result.value = h3.hexArea(resolution.value, com.uber.h3core.AreaUnit.m2);
-      }
+      result.value = com.datadistillr.udf.H3Miscellaneous.cellDistanceKm(metrics, distance, cell1.buffer,
+        cell1.start, cell1.end, cell2.buffer, cell2.start, cell2.end);
     }
   }
 
+  @FunctionTemplate(names = {"h3CellAreaKm2", "h3_cell_area_km2"},
+    scope = FunctionTemplate.FunctionScope.SIMPLE,
+    nulls = FunctionTemplate.NullHandling.NULL_IF_NULL)
+  public static class h3CellAreaKm2 implements DrillSimpleFunc {
+
+    @Param
+    BigIntHolder cell;
+
+    @Output
+    Float8Holder result;
 
+    @Workspace
+    com.datadistillr.udf.H3CellMeasures measures;
+
+    @Workspace
+    com.datadistillr.udf.H3FunctionMetrics metrics;
+
+    @Override
+    public void setup() {
+      metrics = com.datadistillr.udf.H3Metrics.function("h3CellAreaKm2", false);
+      measures = new com.datadistillr.udf.H3CellMeasures();
+    }
+
+    @Override
+    public void eval() {
+      result.value = com.datadistillr.udf.H3Miscellaneous.cellAreaKm2(metrics, measures, cell.value);
+    }
+  }
+
+  @FunctionTemplate(names = {"h3CellAreaKm2", "h3_cell_area_km2"},
+    scope = FunctionTemplate.FunctionScope.SIMPLE,
+    nulls = FunctionTemplate.NullHandling.NULL_IF_NULL)
+  public static class h3CellAreaKm2FromString implements DrillSimpleFunc {
+
+    @Param
+    VarCharHolder cell;
+
+    @Output
+    Float8Holder result;
+
+    @Workspace
+    com.datadistillr.udf.H3CellMeasures measures;
+
+    @Workspace
+    com.datadistillr.udf.H3FunctionMetrics metrics;
+
+    @Override
+    public void setup() {
+      metrics = com.datadistillr.udf.H3Metrics.function("h3CellAreaKm2", false);
+      measures = new com.datadistillr.udf.H3CellMeasures();
+    }
+
+    @Override
+    public void eval() {
+      result.value = com.datadistillr.udf.H3Miscellaneous.cellAreaKm2(metrics, measures, cell.buffer, cell.start,
+        cell.end);
+    }
+  }
+
+  @FunctionTemplate(names = {"h3CellAreaM2", "h3_cell_area_m2"},
+    scope = FunctionTemplate.FunctionScope.SIMPLE,
+    nulls = FunctionTemplate.NullHandling.NULL_IF_NULL)
+  public static class h3CellAreaM2 implements DrillSimpleFunc {
+
+    @Param
+    BigIntHolder cell;
+
+    @Output
+    Float8Holder result;
+
+    @Workspace
+    com.datadistillr.udf.H3CellMeasures measures;
+
+    @Workspace
+    com.datadistillr.udf.H3FunctionMetrics metrics;
+
+    @Override
+    public void setup() {
+      metrics = com.datadistillr.udf.H3Metrics.function("h3CellAreaM2", false);
+      measures = new com.datadistillr.udf.H3CellMeasures();
+    }
+
+    @Override
+    public void eval() {
+      result.value = com.datadistillr.udf.H3Miscellaneous.cellAreaM2(metrics, measures, cell.value);
+    }
+  }
+
+  @FunctionTemplate(names = {"h3CellAreaM2", "h3_cell_area_m2"},
+    scope = FunctionTemplate.FunctionScope.SIMPLE,
+    nulls = FunctionTemplate.NullHandling.NULL_IF_NULL)
+  public static class h3CellAreaM2FromString implements DrillSimpleFunc {
+
+    @Param
+    VarCharHolder cell;
+
+    @Output
+    Float8Holder result;
+
+    @Workspace
+    com.datadistillr.udf.H3CellMeasures measures;
+
+    @Workspace
+    com.datadistillr.udf.H3FunctionMetrics metrics;
+
+    @Override
+    public void setup() {
+      metrics = com.datadistillr.udf.H3Metrics.function("h3CellAreaM2", false);
+      measures = new com.datadistillr.udf.H3CellMeasures();
+    }
+
+    @Override
+    public void eval() {
+      result.value = com.datadistillr.udf.H3Miscellaneous.cellAreaM2(metrics, measures, cell.buffer, cell.start,
+        cell.end);
+    }
+  }
+
+  @FunctionTemplate(names = {"h3ExactEdgeLengthKm", "h3_exact_edge_length_km", "h3ExactEdgeLength"},
+    scope = FunctionTemplate.FunctionScope.SIMPLE,
+    nulls = FunctionTemplate.NullHandling.NULL_IF_NULL)
+  public static class h3ExactEdgeLengthKm implements DrillSimpleFunc {
+
+    @Param
+    BigIntHolder edge;
+
+    @Output
+    Float8Holder result;
+
+    @Workspace
+    com.datadistillr.udf.H3CellMeasures measures;
+
+    @Workspace
+    com.datadistillr.udf.H3FunctionMetrics metrics;
+
+    @Override
+    public void setup() {
+      metrics = com.datadistillr.udf.H3Metrics.function("h3ExactEdgeLengthKm", false);
+      measures = new com.datadistillr.udf.H3CellMeasures();
+    }
+
+    @Override
+    public void eval() {
+      result.value = com.datadistillr.udf.H3Miscellaneous.exactEdgeLengthKm(metrics, measures, edge.value);
+    }
+  }
+
+  @FunctionTemplate(names = {"h3ExactEdgeLengthKm", "h3_exact_edge_length_km", "h3ExactEdgeLength"},
+    scope = FunctionTemplate.FunctionScope.SIMPLE,
+    nulls = FunctionTemplate.NullHandling.NULL_IF_NULL)
+  public static class h3ExactEdgeLengthKmFromString implements DrillSimpleFunc {
+
+    @Param
+    VarCharHolder edge;
+
+    @Output
+    Float8Holder result;
+
+    @Workspace
+    com.datadistillr.udf.H3CellMeasures measures;
+
+    @Workspace
+    com.datadistillr.udf.H3FunctionMetrics metrics;
+
+    @Override
+    public void setup() {
+      metrics = com.datadistillr.udf.H3Metrics.function("h3ExactEdgeLengthKm", false);
+      measures = new com.datadistillr.udf.H3CellMeasures();
+    }
+
+    @Override
+    public void eval() {
+      result.value = com.datadistillr.udf.H3Miscellaneous.exactEdgeLengthKm(metrics, measures, edge.buffer, edge.start,
+        edge.end);
+    }
+  }
+
+  @FunctionTemplate(names = {"h3ExactEdgeLengthM", "h3_exact_edge_length_m"},
+    scope = FunctionTemplate.FunctionScope.SIMPLE,
+    nulls = FunctionTemplate.NullHandling.NULL_IF_NULL)
+  public static class h3ExactEdgeLengthM implements DrillSimpleFunc {
+
+    @Param
+    BigIntHolder edge;
+
+    @Output
+    Float8Holder result;
+
+    @Workspace
+    com.datadistillr.udf.H3CellMeasures measures;
+
+    @Workspace
+    com.datadistillr.udf.H3FunctionMetrics metrics;
+
+    @Override
+    public void setup() {
+      metrics = com.datadistillr.udf.H3Metrics.function("h3ExactEdgeLengthM", false);
+      measures = new com.datadistillr.udf.H3CellMeasures();
+    }
+
+    @Override
+    public void eval() {
+      result.value = com.datadistillr.udf.H3Miscellaneous.exactEdgeLengthM(metrics, measures, edge.value);
+    }
+  }
+
+  @FunctionTemplate(names = {"h3ExactEdgeLengthM", "h3_exact_edge_length_m"},
+    scope = FunctionTemplate.FunctionScope.SIMPLE,
+    nulls = FunctionTemplate.NullHandling.NULL_IF_NULL)
+  public static class h3ExactEdgeLengthMFromString implements DrillSimpleFunc {
+
+    @Param
+    VarCharHolder edge;
+
+    @Output
+    Float8Holder result;
+
+    @Workspace
+    com.datadistillr.udf.H3CellMeasures measures;
+
+    @Workspace
+    com.datadistillr.udf.H3FunctionMetrics metrics;
+
+    @Override
+    public void setup() {
+      metrics = com.datadistillr.udf.H3Metrics.function("h3ExactEdgeLengthM", false);
+      measures = new com.datadistillr.udf.H3CellMeasures();
+    }
+
+    @Override
+    public void eval() {
+      result.value = com.datadistillr.udf.H3Miscellaneous.exactEdgeLengthM(metrics, measures, edge.buffer, edge.start,
+        edge.end);
+    }
+  }
 }
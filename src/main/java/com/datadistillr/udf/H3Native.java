@@ -0,0 +1,265 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.datadistillr.udf;
+
+import com.uber.h3core.H3Core;
+import com.uber.h3core.exceptions.DistanceUndefinedException;
+import com.uber.h3core.exceptions.LineUndefinedException;
+import com.uber.h3core.exceptions.LocalIjUndefinedException;
+import com.uber.h3core.exceptions.PentagonEncounteredException;
+import com.uber.h3core.util.CoordIJ;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.List;
+
+/**
+ * Status-returning access to the H3 calls that fail often on real data.  H3Core turns every failure of the native
+ * library into an exception, and near pentagons or across icosahedron faces building those exceptions costs far more
+ * than the successful call.  These methods call the native library's status-returning functions directly, and only
+ * fall back to H3Core and its exceptions if those functions cannot be reached.
+ * <p>
+ * Failed distances and lines are counted in {@link H3Metrics}.
+ */
+public final class H3Native {
+
+  private static final Logger logger = LoggerFactory.getLogger(H3Native.class);
+
+  private static final Object API;
+
+  private static final MethodHandle DISTANCE;
+
+  private static final MethodHandle LOCAL_IJ;
+
+  private static final MethodHandle LINE_SIZE;
+
+  private static final MethodHandle LINE;
+
+  private static final MethodHandle K_RING_DISTANCES;
+
+  static {
+    Object api = null;
+    MethodHandle distance = null;
+    MethodHandle localIj = null;
+    MethodHandle lineSize = null;
+    MethodHandle line = null;
+    MethodHandle kRingDistances = null;
+    try {
+      Field field = H3Core.class.getDeclaredField("h3Api");
+      field.setAccessible(true);
+      api = field.get(H3Core.newInstance());
+      Class<?> type = api.getClass();
+      distance = handle(type, "h3Distance", int.class, long.class, long.class);
+      localIj = handle(type, "experimentalH3ToLocalIj", int.class, long.class, long.class, int[].class);
+      lineSize = handle(type, "h3LineSize", int.class, long.class, long.class);
+      line = handle(type, "h3Line", int.class, long.class, long.class, long[].class);
+      kRingDistances = handle(type, "kRingDistances", void.class, long.class, int.class, long[].class, int[].class);
+    } catch (ReflectiveOperationException | IOException | RuntimeException e) {
+      logger.warn("Unable to reach the H3 native methods directly, failed calls will go through exceptions", e);
+      api = null;
+    }
+    API = api;
+    DISTANCE = distance;
+    LOCAL_IJ = localIj;
+    LINE_SIZE = lineSize;
+    LINE = line;
+    K_RING_DISTANCES = kRingDistances;
+  }
+
+  private H3Native() {
+  }
+
+  private static MethodHandle handle(Class<?> type, String name, Class<?> returnType, Class<?>... parameterTypes)
+    throws ReflectiveOperationException {
+    Method method = type.getDeclaredMethod(name, parameterTypes);
+    method.setAccessible(true);
+    // Erase the inaccessible receiver type so the handle can be invoked exactly from here.
+    Class<?>[] erased = new Class<?>[parameterTypes.length + 1];
+    erased[0] = Object.class;
+    System.arraycopy(parameterTypes, 0, erased, 1, parameterTypes.length);
+    return MethodHandles.lookup().unreflect(method).asType(MethodType.methodType(returnType, erased));
+  }
+
+  /**
+   * @return the grid distance between the cells, or a negative number if it is undefined.
+   */
+  public static int distance(H3Core h3, long a, long b) {
+    int distance;
+    if (API != null) {
+      try {
+        distance = (int) DISTANCE.invokeExact(API, a, b);
+      } catch (Throwable t) {
+        throw propagate(t);
+      }
+    } else {
+      try {
+        distance = h3.h3Distance(a, b);
+      } catch (DistanceUndefinedException e) {
+        distance = -1;
+      }
+    }
+    if (distance < 0) {
+      H3Metrics.DISTANCE_FAILURES.inc();
+    }
+    return distance;
+  }
+
+  /**
+   * Writes the local IJ coordinates of the cell in the origin's frame to the first two entries of the array.  Failures
+   * are not counted here, since the callers count them against the function they serve.
+   *
+   * @return 0 on success, or a non-zero status if the coordinates are undefined.
+   */
+  public static int toLocalIj(H3Core h3, long origin, long cell, int[] ij) {
+    int status;
+    if (API != null) {
+      try {
+        status = (int) LOCAL_IJ.invokeExact(API, origin, cell, ij);
+      } catch (Throwable t) {
+        throw propagate(t);
+      }
+    } else {
+      try {
+        CoordIJ coordinates = h3.experimentalH3ToLocalIj(origin, cell);
+        ij[0] = coordinates.i;
+        ij[1] = coordinates.j;
+        status = 0;
+      } catch (PentagonEncounteredException | LocalIjUndefinedException | IllegalArgumentException e) {
+        status = 1;
+      }
+    }
+    return status;
+  }
+
+  /**
+   * @return the number of cells in the line between the two cells, which is one more than their grid distance, or a
+   * negative number if it is undefined.  Failures are not counted here, since the line is expected to be drawn next.
+   */
+  public static int lineSize(H3Core h3, long start, long end) {
+    if (API != null) {
+      try {
+        return (int) LINE_SIZE.invokeExact(API, start, end);
+      } catch (Throwable t) {
+        throw propagate(t);
+      }
+    }
+    try {
+      return h3.h3Distance(start, end) + 1;
+    } catch (DistanceUndefinedException e) {
+      return -1;
+    }
+  }
+
+  /**
+   * @return the cells of the line between the two cells, inclusive, or null if the line is undefined.
+   */
+  public static long[] line(H3Core h3, long start, long end) {
+    return line(h3, start, end, lineSize(h3, start, end));
+  }
+
+  /**
+   * @param size the size of the line, as {@link #lineSize} returns it.
+   * @return the cells of the line between the two cells, inclusive, or null if the line is undefined.
+   */
+  public static long[] line(H3Core h3, long start, long end, int size) {
+    long[] line = null;
+    if (size < 0) {
+      // Undefined, and counted below.
+    } else if (API != null) {
+      try {
+        line = new long[size];
+        if ((int) LINE.invokeExact(API, start, end, line) != 0) {
+          line = null;
+        }
+      } catch (Throwable t) {
+        throw propagate(t);
+      }
+    } else {
+      try {
+        List<Long> cells = h3.h3Line(start, end);
+        line = new long[cells.size()];
+        for (int i = 0; i < line.length; i++) {
+          line[i] = cells.get(i);
+        }
+      } catch (LineUndefinedException e) {
+        line = null;
+      }
+    }
+    if (line == null) {
+      H3Metrics.LINE_FAILURES.inc();
+    }
+    return line;
+  }
+
+  /**
+   * Finds the k-ring of the origin in the order H3Core.kRing returns it, with the grid distance of each cell, into
+   * the start of the arrays.  Both must hold at least {@link H3Neighbors#kRingSize} entries.
+   *
+   * @return the number of cells found.
+   */
+  public static int kRingDistances(H3Core h3, long origin, int k, long[] cells, int[] distances) {
+    int count = 0;
+    if (API != null) {
+      try {
+        K_RING_DISTANCES.invokeExact(API, origin, k, cells, distances);
+      } catch (Throwable t) {
+        throw propagate(t);
+      }
+      // Near pentagons the native search leaves holes in its output, which H3Core drops in the same way.
+      int size = H3Neighbors.kRingSize(k);
+      for (int i = 0; i < size; i++) {
+        if (cells[i] != 0L) {
+          cells[count] = cells[i];
+          distances[count] = distances[i];
+          count++;
+        }
+      }
+    } else {
+      List<List<Long>> rings = h3.kRingDistances(origin, k);
+      H3CellMap ringOf = new H3CellMap(H3Neighbors.kRingSize(k));
+      for (int distance = 0; distance < rings.size(); distance++) {
+        for (Long cell : rings.get(distance)) {
+          ringOf.put(cell, distance);
+        }
+      }
+      for (Long cell : h3.kRing(origin, k)) {
+        cells[count] = cell;
+        distances[count] = (int) ringOf.get(cell, 0L);
+        count++;
+      }
+    }
+    return count;
+  }
+
+  private static RuntimeException propagate(Throwable t) {
+    if (t instanceof RuntimeException) {
+      return (RuntimeException) t;
+    }
+    if (t instanceof Error) {
+      throw (Error) t;
+    }
+    return new IllegalStateException(t);
+  }
+}
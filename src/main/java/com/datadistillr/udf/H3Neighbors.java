@@ -0,0 +1,397 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.datadistillr.udf;
+
+/**
+ * A Java implementation of H3's neighbor traversal and kRing, ported from the C library that ships with h3-java
+ * 3.7.1.  Rings are written into primitive arrays instead of the boxed lists H3Core returns, and no JNI transition is
+ * made per cell.
+ * <p>
+ * As in the C library, a k-ring is first walked as a spiral, one neighbor step per cell.  The spiral cannot cross the
+ * distortion around a pentagon, so if it meets one the ring is found again with a breadth-first search.
+ */
+public final class H3Neighbors {
+
+  private static final int CENTER_DIGIT = 0;
+
+  private static final int K_AXES_DIGIT = 1;
+
+  private static final int JK_AXES_DIGIT = 3;
+
+  private static final int I_AXES_DIGIT = 4;
+
+  private static final int IK_AXES_DIGIT = 5;
+
+  private static final int INVALID_BASE_CELL = 127;
+
+  /**
+   * The directions the spiral takes along the six sides of each ring.
+   */
+  private static final int[] RING_DIRECTIONS = {2, 3, 1, 5, 4, 6};
+
+  /**
+   * The direction that steps from the last cell of a ring to the first cell of the next.
+   */
+  private static final int NEXT_RING_DIRECTION = I_AXES_DIGIT;
+
+  /**
+   * The new digit when moving along a Class II grid, indexed by the current digit, then the direction.
+   */
+  private static final int[][] NEW_DIGIT_II = {
+    {0, 1, 2, 3, 4, 5, 6},
+    {1, 4, 3, 6, 5, 2, 0},
+    {2, 3, 1, 4, 6, 0, 5},
+    {3, 6, 4, 5, 0, 1, 2},
+    {4, 5, 6, 0, 2, 3, 1},
+    {5, 2, 0, 1, 3, 6, 4},
+    {6, 0, 5, 2, 1, 4, 3}
+  };
+
+  /**
+   * The direction to carry into the next coarser resolution when moving along a Class II grid.
+   */
+  private static final int[][] NEW_ADJUSTMENT_II = {
+    {0, 0, 0, 0, 0, 0, 0},
+    {0, 1, 0, 1, 0, 5, 0},
+    {0, 0, 2, 3, 0, 0, 2},
+    {0, 1, 3, 3, 0, 0, 0},
+    {0, 0, 0, 0, 4, 4, 6},
+    {0, 5, 0, 0, 4, 5, 0},
+    {0, 0, 2, 0, 6, 0, 6}
+  };
+
+  /**
+   * The new digit when moving along a Class III grid.
+   */
+  private static final int[][] NEW_DIGIT_III = {
+    {0, 1, 2, 3, 4, 5, 6},
+    {1, 2, 3, 4, 5, 6, 0},
+    {2, 3, 4, 5, 6, 0, 1},
+    {3, 4, 5, 6, 0, 1, 2},
+    {4, 5, 6, 0, 1, 2, 3},
+    {5, 6, 0, 1, 2, 3, 4},
+    {6, 0, 1, 2, 3, 4, 5}
+  };
+
+  /**
+   * The direction to carry into the next coarser resolution when moving along a Class III grid.
+   */
+  private static final int[][] NEW_ADJUSTMENT_III = {
+    {0, 0, 0, 0, 0, 0, 0},
+    {0, 1, 0, 3, 0, 1, 0},
+    {0, 0, 2, 2, 0, 0, 6},
+    {0, 3, 2, 3, 0, 0, 0},
+    {0, 0, 0, 0, 4, 5, 4},
+    {0, 1, 0, 0, 5, 5, 0},
+    {0, 0, 6, 0, 4, 0, 6}
+  };
+
+  /**
+   * The neighboring base cell in each direction, or 127 for the deleted direction of a pentagon.
+   */
+  private static final int[][] BASE_CELL_NEIGHBORS = {
+    {0, 1, 5, 2, 4, 3, 8}, {1, 7, 6, 9, 0, 3, 2}, {2, 6, 10, 11, 0, 1, 5},
+    {3, 13, 1, 7, 4, 12, 0}, {4, 127, 15, 8, 3, 0, 12}, {5, 2, 18, 10, 8, 0, 16},
+    {6, 14, 11, 17, 1, 9, 2}, {7, 21, 9, 19, 3, 13, 1}, {8, 5, 22, 16, 4, 0, 15},
+    {9, 19, 14, 20, 1, 7, 6}, {10, 11, 24, 23, 5, 2, 18}, {11, 17, 23, 25, 2, 6, 10},
+    {12, 28, 13, 26, 4, 15, 3}, {13, 26, 21, 29, 3, 12, 7}, {14, 127, 17, 27, 9, 20, 6},
+    {15, 22, 28, 31, 4, 8, 12}, {16, 18, 33, 30, 8, 5, 22}, {17, 11, 14, 6, 35, 25, 27},
+    {18, 24, 30, 32, 5, 10, 16}, {19, 34, 20, 36, 7, 21, 9}, {20, 14, 19, 9, 40, 27, 36},
+    {21, 38, 19, 34, 13, 29, 7}, {22, 16, 41, 33, 15, 8, 31}, {23, 24, 11, 10, 39, 37, 25},
+    {24, 127, 32, 37, 10, 23, 18}, {25, 23, 17, 11, 45, 39, 35}, {26, 42, 29, 43, 12, 28, 13},
+    {27, 40, 35, 46, 14, 20, 17}, {28, 31, 42, 44, 12, 15, 26}, {29, 43, 38, 47, 13, 26, 21},
+    {30, 32, 48, 50, 16, 18, 33}, {31, 41, 44, 53, 15, 22, 28}, {32, 30, 24, 18, 52, 50, 37},
+    {33, 30, 49, 48, 22, 16, 41}, {34, 19, 38, 21, 54, 36, 51}, {35, 46, 45, 56, 17, 27, 25},
+    {36, 20, 34, 19, 55, 40, 54}, {37, 39, 52, 57, 24, 23, 32}, {38, 127, 34, 51, 29, 47, 21},
+    {39, 37, 25, 23, 59, 57, 45}, {40, 27, 36, 20, 60, 46, 55}, {41, 49, 53, 61, 22, 33, 31},
+    {42, 58, 43, 62, 28, 44, 26}, {43, 62, 47, 64, 26, 42, 29}, {44, 53, 58, 65, 28, 31, 42},
+    {45, 39, 35, 25, 63, 59, 56}, {46, 60, 56, 68, 27, 40, 35}, {47, 38, 43, 29, 69, 51, 64},
+    {48, 49, 30, 33, 67, 66, 50}, {49, 127, 61, 66, 33, 48, 41}, {50, 48, 32, 30, 70, 67, 52},
+    {51, 69, 54, 71, 38, 47, 34}, {52, 57, 70, 74, 32, 37, 50}, {53, 61, 65, 75, 31, 41, 44},
+    {54, 71, 55, 73, 34, 51, 36}, {55, 40, 54, 36, 72, 60, 73}, {56, 68, 63, 77, 35, 46, 45},
+    {57, 59, 74, 78, 37, 39, 52}, {58, 127, 62, 76, 44, 65, 42}, {59, 63, 78, 79, 39, 45, 57},
+    {60, 72, 68, 80, 40, 55, 46}, {61, 53, 49, 41, 81, 75, 66}, {62, 43, 58, 42, 82, 64, 76},
+    {63, 127, 56, 45, 79, 59, 77}, {64, 47, 62, 43, 84, 69, 82}, {65, 58, 53, 44, 86, 76, 75},
+    {66, 67, 81, 85, 49, 48, 61}, {67, 66, 50, 48, 87, 85, 70}, {68, 56, 60, 46, 90, 77, 80},
+    {69, 51, 64, 47, 89, 71, 84}, {70, 67, 52, 50, 83, 87, 74}, {71, 89, 73, 91, 51, 69, 54},
+    {72, 127, 73, 55, 80, 60, 88}, {73, 91, 72, 88, 54, 71, 55}, {74, 78, 83, 92, 52, 57, 70},
+    {75, 65, 61, 53, 94, 86, 81}, {76, 86, 82, 96, 58, 65, 62}, {77, 63, 68, 56, 93, 79, 90},
+    {78, 74, 59, 57, 95, 92, 79}, {79, 78, 63, 59, 93, 95, 77}, {80, 68, 72, 60, 99, 90, 88},
+    {81, 85, 94, 101, 61, 66, 75}, {82, 96, 84, 98, 62, 76, 64}, {83, 127, 74, 70, 100, 87, 92},
+    {84, 69, 82, 64, 97, 89, 98}, {85, 87, 101, 102, 66, 67, 81}, {86, 76, 75, 65, 104, 96, 94},
+    {87, 83, 102, 100, 67, 70, 85}, {88, 72, 91, 73, 99, 80, 105}, {89, 97, 91, 103, 69, 84, 71},
+    {90, 77, 80, 68, 106, 93, 99}, {91, 73, 89, 71, 105, 88, 103}, {92, 83, 78, 74, 108, 100, 95},
+    {93, 79, 90, 77, 109, 95, 106}, {94, 86, 81, 75, 107, 104, 101}, {95, 92, 79, 78, 109, 108, 93},
+    {96, 104, 98, 110, 76, 86, 82}, {97, 127, 98, 84, 103, 89, 111}, {98, 110, 97, 111, 82, 96, 84},
+    {99, 80, 105, 88, 106, 90, 113}, {100, 102, 83, 87, 108, 114, 92}, {101, 102, 107, 112, 81, 85, 94},
+    {102, 101, 87, 85, 114, 112, 100}, {103, 91, 97, 89, 116, 105, 111}, {104, 107, 110, 115, 86, 94, 96},
+    {105, 88, 103, 91, 113, 99, 116}, {106, 93, 99, 90, 117, 109, 113}, {107, 127, 101, 94, 115, 104, 112},
+    {108, 100, 95, 92, 118, 114, 109}, {109, 108, 93, 95, 117, 118, 106}, {110, 98, 104, 96, 119, 111, 115},
+    {111, 97, 110, 98, 116, 103, 119}, {112, 107, 102, 101, 120, 115, 114}, {113, 99, 116, 105, 117, 106, 121},
+    {114, 112, 100, 102, 118, 120, 108}, {115, 110, 107, 104, 120, 119, 112}, {116, 103, 119, 111, 113, 105, 121},
+    {117, 127, 109, 118, 113, 121, 106}, {118, 120, 108, 114, 117, 121, 109}, {119, 111, 115, 110, 121, 116, 120},
+    {120, 115, 114, 112, 121, 119, 118}, {121, 116, 120, 119, 117, 113, 118}
+  };
+
+  /**
+   * The number of 60 degree counter-clockwise rotations into each neighboring base cell's coordinate system.
+   */
+  private static final int[][] BASE_CELL_NEIGHBOR_ROTATIONS = {
+    {0, 5, 0, 0, 1, 5, 1}, {0, 0, 1, 0, 1, 0, 1}, {0, 0, 0, 0, 0, 5, 0},
+    {0, 5, 0, 0, 2, 5, 1}, {0, -1, 1, 0, 3, 4, 2}, {0, 0, 1, 0, 1, 0, 1},
+    {0, 0, 0, 3, 5, 5, 0}, {0, 0, 0, 0, 0, 5, 0}, {0, 5, 0, 0, 0, 5, 1},
+    {0, 0, 1, 3, 0, 0, 1}, {0, 0, 1, 3, 0, 0, 1}, {0, 3, 3, 3, 0, 0, 0},
+    {0, 5, 0, 0, 3, 5, 1}, {0, 0, 1, 0, 1, 0, 1}, {0, -1, 3, 0, 5, 2, 0},
+    {0, 5, 0, 0, 4, 5, 1}, {0, 0, 0, 0, 0, 5, 0}, {0, 3, 3, 3, 3, 0, 3},
+    {0, 0, 0, 3, 5, 5, 0}, {0, 3, 3, 3, 0, 0, 0}, {0, 3, 3, 3, 0, 3, 0},
+    {0, 0, 0, 3, 5, 5, 0}, {0, 0, 1, 0, 1, 0, 1}, {0, 3, 3, 3, 0, 3, 0},
+    {0, -1, 3, 0, 5, 2, 0}, {0, 0, 0, 3, 0, 0, 3}, {0, 0, 0, 0, 0, 5, 0},
+    {0, 3, 0, 0, 0, 3, 3}, {0, 0, 1, 0, 1, 0, 1}, {0, 0, 1, 3, 0, 0, 1},
+    {0, 3, 3, 3, 0, 0, 0}, {0, 0, 0, 0, 0, 5, 0}, {0, 3, 3, 3, 3, 0, 3},
+    {0, 0, 1, 3, 0, 0, 1}, {0, 3, 3, 3, 3, 0, 3}, {0, 0, 3, 0, 3, 0, 3},
+    {0, 0, 0, 3, 0, 0, 3}, {0, 3, 0, 0, 0, 3, 3}, {0, -1, 3, 0, 5, 2, 0},
+    {0, 3, 0, 0, 3, 3, 0}, {0, 3, 0, 0, 3, 3, 0}, {0, 0, 0, 3, 5, 5, 0},
+    {0, 0, 0, 3, 5, 5, 0}, {0, 3, 3, 3, 0, 0, 0}, {0, 0, 1, 3, 0, 0, 1},
+    {0, 0, 3, 0, 0, 3, 3}, {0, 0, 0, 3, 0, 3, 0}, {0, 3, 3, 3, 0, 3, 0},
+    {0, 3, 3, 3, 0, 3, 0}, {0, -1, 3, 0, 5, 2, 0}, {0, 0, 0, 3, 0, 0, 3},
+    {0, 3, 0, 0, 0, 3, 3}, {0, 0, 3, 0, 3, 0, 3}, {0, 3, 3, 3, 0, 0, 0},
+    {0, 0, 3, 0, 3, 0, 3}, {0, 0, 3, 0, 0, 3, 3}, {0, 3, 3, 3, 0, 0, 3},
+    {0, 0, 0, 3, 0, 3, 0}, {0, -1, 3, 0, 5, 2, 0}, {0, 3, 3, 3, 3, 3, 0},
+    {0, 3, 3, 3, 3, 3, 0}, {0, 3, 3, 3, 3, 0, 3}, {0, 3, 3, 3, 3, 0, 3},
+    {0, -1, 3, 0, 5, 2, 0}, {0, 0, 0, 3, 0, 0, 3}, {0, 3, 3, 3, 0, 3, 0},
+    {0, 3, 0, 0, 0, 3, 3}, {0, 3, 0, 0, 3, 3, 0}, {0, 3, 3, 3, 0, 0, 0},
+    {0, 3, 0, 0, 3, 3, 0}, {0, 0, 3, 0, 0, 3, 3}, {0, 0, 0, 3, 0, 3, 0},
+    {0, -1, 3, 0, 5, 2, 0}, {0, 3, 3, 3, 0, 0, 3}, {0, 3, 3, 3, 0, 0, 3},
+    {0, 0, 0, 3, 0, 0, 3}, {0, 3, 0, 0, 0, 3, 3}, {0, 0, 0, 3, 0, 5, 0},
+    {0, 3, 3, 3, 0, 0, 0}, {0, 0, 1, 3, 1, 0, 1}, {0, 0, 1, 3, 1, 0, 1},
+    {0, 0, 3, 0, 3, 0, 3}, {0, 0, 3, 0, 3, 0, 3}, {0, -1, 3, 0, 5, 2, 0},
+    {0, 0, 3, 0, 0, 3, 3}, {0, 0, 0, 3, 0, 3, 0}, {0, 3, 0, 0, 3, 3, 0},
+    {0, 3, 3, 3, 3, 3, 0}, {0, 0, 0, 3, 0, 5, 0}, {0, 3, 3, 3, 3, 3, 0},
+    {0, 0, 0, 0, 0, 0, 1}, {0, 3, 3, 3, 0, 0, 0}, {0, 0, 0, 3, 0, 5, 0},
+    {0, 5, 0, 0, 5, 5, 0}, {0, 0, 3, 0, 0, 3, 3}, {0, 0, 0, 0, 0, 0, 1},
+    {0, 0, 0, 3, 0, 3, 0}, {0, -1, 3, 0, 5, 2, 0}, {0, 3, 3, 3, 0, 0, 3},
+    {0, 5, 0, 0, 5, 5, 0}, {0, 0, 1, 3, 1, 0, 1}, {0, 3, 3, 3, 0, 0, 3},
+    {0, 3, 3, 3, 0, 0, 0}, {0, 0, 1, 3, 1, 0, 1}, {0, 3, 3, 3, 3, 3, 0},
+    {0, 0, 0, 0, 0, 0, 1}, {0, 0, 1, 0, 3, 5, 1}, {0, -1, 3, 0, 5, 2, 0},
+    {0, 5, 0, 0, 5, 5, 0}, {0, 0, 1, 0, 4, 5, 1}, {0, 3, 3, 3, 0, 0, 0},
+    {0, 0, 0, 3, 0, 5, 0}, {0, 0, 0, 3, 0, 5, 0}, {0, 0, 1, 0, 2, 5, 1},
+    {0, 0, 0, 0, 0, 0, 1}, {0, 0, 1, 3, 1, 0, 1}, {0, 5, 0, 0, 5, 5, 0},
+    {0, -1, 1, 0, 3, 4, 2}, {0, 0, 1, 0, 0, 5, 1}, {0, 0, 0, 0, 0, 0, 1},
+    {0, 5, 0, 0, 5, 5, 0}, {0, 0, 1, 0, 1, 5, 1}
+  };
+
+  private H3Neighbors() {
+  }
+
+  /**
+   * @return the number of cells in a k-ring without pentagon distortion, 3k(k + 1) + 1.
+   */
+  public static int kRingSize(int k) {
+    return 3 * k * (k + 1) + 1;
+  }
+
+  /**
+   * Finds the cells within k grid steps of the origin, like H3Core.kRing, in no particular order.
+   *
+   * @param out receives the cells; it must hold at least {@link #kRingSize} cells.
+   * @return the number of cells written.
+   */
+  public static int kRing(long origin, int k, long[] out) {
+    int count = spiral(origin, k, out);
+    return count >= 0 ? count : breadthFirst(origin, k, out);
+  }
+
+  /**
+   * Walks the k-ring as a spiral outwards from the origin, in the same order as H3Core.kRing.
+   *
+   * @return the number of cells written, or -1 if a pentagon was met.
+   */
+  static int spiral(long origin, int k, long[] out) {
+    int count = 0;
+    out[count++] = origin;
+    if (H3GeoIndexer.isPentagon(origin)) {
+      return -1;
+    }
+    int[] rotations = new int[1];
+    long cell = origin;
+    int ring = 0;
+    int direction = 0;
+    int step = 0;
+    while (ring < k) {
+      if (direction == 0 && step == 0) {
+        cell = neighbor(cell, NEXT_RING_DIRECTION, rotations);
+        if (cell == 0L || H3GeoIndexer.isPentagon(cell)) {
+          return -1;
+        }
+      }
+      cell = neighbor(cell, RING_DIRECTIONS[direction], rotations);
+      if (cell == 0L) {
+        return -1;
+      }
+      out[count++] = cell;
+      if (++step == ring + 1) {
+        step = 0;
+        if (++direction == 6) {
+          direction = 0;
+          ring++;
+        }
+      }
+      if (H3GeoIndexer.isPentagon(cell)) {
+        return -1;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Finds the k-ring one ring at a time from the neighbors of the previous ring, which handles pentagons.
+   */
+  private static int breadthFirst(long origin, int k, long[] out) {
+    H3CellMap seen = new H3CellMap(kRingSize(k));
+    int[] rotations = new int[1];
+    out[0] = origin;
+    seen.put(origin, 0L);
+    int count = 1;
+    int ringStart = 0;
+    for (int ring = 0; ring < k; ring++) {
+      int ringEnd = count;
+      for (int i = ringStart; i < ringEnd; i++) {
+        for (int direction = K_AXES_DIGIT; direction <= 6; direction++) {
+          rotations[0] = 0;
+          long cell = neighbor(out[i], direction, rotations);
+          if (cell != 0L && !seen.containsKey(cell)) {
+            seen.put(cell, ring + 1L);
+            out[count++] = cell;
+          }
+        }
+      }
+      ringStart = ringEnd;
+    }
+    return count;
+  }
+
+  /**
+   * Finds the neighbor of a cell in a direction, the same way H3's h3NeighborRotations does.
+   *
+   * @param rotations the number of 60 degree counter-clockwise rotations to apply to the direction, in its first
+   *                  element; it is updated with the rotations picked up by crossing base cells.
+   * @return the neighbor, or 0 if the direction is the deleted one of a pentagon.
+   */
+  static long neighbor(long origin, int direction, int[] rotations) {
+    int resolution = H3IndexBits.getResolution(origin);
+    for (int i = 0; i < rotations[0]; i++) {
+      direction = H3GeoIndexer.ROTATE_60_CCW[direction];
+    }
+
+    long out = origin;
+    int newRotations = 0;
+    int oldBaseCell = H3GeoIndexer.getBaseCell(origin);
+    int oldLeadingDigit = H3GeoIndexer.leadingNonZeroDigit(origin, resolution);
+
+    // Adjust the digits from the finest resolution up, and the base cell if the move carries that far.
+    int r = resolution - 1;
+    while (true) {
+      if (r == -1) {
+        int baseCell = BASE_CELL_NEIGHBORS[oldBaseCell][direction];
+        newRotations = BASE_CELL_NEIGHBOR_ROTATIONS[oldBaseCell][direction];
+        if (baseCell == INVALID_BASE_CELL) {
+          // The deleted k direction of a pentagon base cell borders its i-k neighbor instead.
+          baseCell = BASE_CELL_NEIGHBORS[oldBaseCell][IK_AXES_DIGIT];
+          newRotations = BASE_CELL_NEIGHBOR_ROTATIONS[oldBaseCell][IK_AXES_DIGIT];
+          out = H3GeoIndexer.rotate(out, resolution, H3GeoIndexer.ROTATE_60_CCW);
+          rotations[0]++;
+        }
+        out = setBaseCell(out, baseCell);
+        break;
+      }
+      int oldDigit = H3GeoIndexer.getDigit(out, r + 1);
+      int nextDirection;
+      if ((r + 1) % 2 == 1) {
+        out = H3GeoIndexer.setDigit(out, r + 1, NEW_DIGIT_II[oldDigit][direction]);
+        nextDirection = NEW_ADJUSTMENT_II[oldDigit][direction];
+      } else {
+        out = H3GeoIndexer.setDigit(out, r + 1, NEW_DIGIT_III[oldDigit][direction]);
+        nextDirection = NEW_ADJUSTMENT_III[oldDigit][direction];
+      }
+      if (nextDirection == CENTER_DIGIT) {
+        break;
+      }
+      direction = nextDirection;
+      r--;
+    }
+
+    int newBaseCell = H3GeoIndexer.getBaseCell(out);
+    if (H3GeoIndexer.IS_PENTAGON[newBaseCell]) {
+      boolean alreadyAdjustedKSubsequence = false;
+      // Force rotation out of the missing k-axes sub-sequence.
+      if (H3GeoIndexer.leadingNonZeroDigit(out, resolution) == K_AXES_DIGIT) {
+        if (oldBaseCell != newBaseCell) {
+          // Traversed into the deleted k sub-sequence from another base cell.
+          int[] cwOffsetFaces = H3GeoIndexer.CW_OFFSET_FACES[newBaseCell];
+          int oldFace = H3GeoIndexer.BASE_CELL_HOMES[oldBaseCell][0];
+          if (cwOffsetFaces[0] == oldFace || cwOffsetFaces[1] == oldFace) {
+            out = H3GeoIndexer.rotate(out, resolution, H3GeoIndexer.ROTATE_60_CW);
+          } else {
+            out = H3GeoIndexer.rotate(out, resolution, H3GeoIndexer.ROTATE_60_CCW);
+          }
+          alreadyAdjustedKSubsequence = true;
+        } else if (oldLeadingDigit == CENTER_DIGIT) {
+          // The k direction is deleted from the pentagon itself.
+          return 0L;
+        } else if (oldLeadingDigit == JK_AXES_DIGIT) {
+          out = H3GeoIndexer.rotate(out, resolution, H3GeoIndexer.ROTATE_60_CCW);
+          rotations[0]++;
+        } else if (oldLeadingDigit == IK_AXES_DIGIT) {
+          out = H3GeoIndexer.rotate(out, resolution, H3GeoIndexer.ROTATE_60_CW);
+          rotations[0] += 5;
+        } else {
+          return 0L;
+        }
+      }
+      for (int i = 0; i < newRotations; i++) {
+        out = H3GeoIndexer.rotatePentagon60ccw(out, resolution);
+      }
+      // Account for the differing orientation of the base cells.
+      if (oldBaseCell != newBaseCell) {
+        if (newBaseCell == 4 || newBaseCell == 117) {
+          // The polar pentagons have all i neighbors.
+          if (oldBaseCell != 118 && oldBaseCell != 8
+            && H3GeoIndexer.leadingNonZeroDigit(out, resolution) != JK_AXES_DIGIT) {
+            rotations[0]++;
+          }
+        } else if (H3GeoIndexer.leadingNonZeroDigit(out, resolution) == IK_AXES_DIGIT
+          && !alreadyAdjustedKSubsequence) {
+          // Account for the distortion the deleted k sub-sequence introduces to the 5 neighbor.
+          rotations[0]++;
+        }
+      }
+    } else {
+      for (int i = 0; i < newRotations; i++) {
+        out = H3GeoIndexer.rotate(out, resolution, H3GeoIndexer.ROTATE_60_CCW);
+      }
+    }
+    rotations[0] = (rotations[0] + newRotations) % 6;
+    return out;
+  }
+
+  private static long setBaseCell(long h3, int baseCell) {
+    return (h3 & ~(0x7FL << H3GeoIndexer.BASE_CELL_OFFSET)) | ((long) baseCell << H3GeoIndexer.BASE_CELL_OFFSET);
+  }
+}
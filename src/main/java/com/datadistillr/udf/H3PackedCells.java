@@ -0,0 +1,167 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.datadistillr.udf;
+
+import io.netty.buffer.DrillBuf;
+import org.apache.drill.common.exceptions.UserException;
+import org.apache.drill.exec.vector.complex.writer.BaseWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The VARBINARY format produced by the packed traversal functions: a format byte, a shift byte, the number of cells
+ * and then the distinct cells in ascending order, each stored as the varint delta from the previous one.
+ * <p>
+ * The digits below a cell's resolution are always 7, so the low bits they occupy are dropped before taking the
+ * deltas and restored when decoding.  Cells of a neighbourhood are close together, so most then take 1 or 2 bytes
+ * instead of the 8 bytes of a BIGINT list entry.
+ */
+public final class H3PackedCells {
+
+  private static final Logger logger = LoggerFactory.getLogger(H3PackedCells.class);
+
+  static final byte FORMAT = 3;
+
+  private static final int HEADER_BYTES = 2;
+
+  private H3PackedCells() {
+  }
+
+  /**
+   * @return the cells in ascending order without duplicates or the 0 entries H3 uses for missing cells.
+   */
+  public static long[] toSortedArray(List<Long> cells) {
+    long[] sorted = new long[cells.size()];
+    for (int i = 0; i < sorted.length; i++) {
+      sorted[i] = cells.get(i);
+    }
+    return sortDistinct(sorted, sorted.length);
+  }
+
+  /**
+   * Sorts the first count cells in place and drops duplicates and 0 entries.
+   *
+   * @return the sorted cells, which may share the input array.
+   */
+  public static long[] sortDistinct(long[] cells, int count) {
+    Arrays.sort(cells, 0, count);
+    int size = 0;
+    for (int i = 0; i < count; i++) {
+      if (cells[i] != 0L && (size == 0 || cells[size - 1] != cells[i])) {
+        cells[size++] = cells[i];
+      }
+    }
+    return size == cells.length ? cells : Arrays.copyOf(cells, size);
+  }
+
+  /**
+   * @return the number of low bits that are set in every cell, which is 3 bits per unused digit of the finest cell.
+   */
+  static int shift(long[] sortedCells) {
+    int maxResolution = 0;
+    for (long cell : sortedCells) {
+      maxResolution = Math.max(maxResolution, H3IndexBits.getResolution(cell));
+    }
+    return 3 * (H3IndexBits.MAX_RESOLUTION - maxResolution);
+  }
+
+  /**
+   * @return the number of bytes {@link #encode(long[], DrillBuf)} writes for the sorted cells.
+   */
+  public static int encodedSize(long[] sortedCells) {
+    int shift = shift(sortedCells);
+    int size = HEADER_BYTES + H3Varint.length(sortedCells.length);
+    long previous = 0L;
+    for (long cell : sortedCells) {
+      size += H3Varint.length((cell >>> shift) - previous);
+      previous = cell >>> shift;
+    }
+    return size;
+  }
+
+  /**
+   * Writes the sorted cells at the start of the buffer, which must hold at least {@link #encodedSize(long[])} bytes.
+   *
+   * @return the number of bytes written.
+   */
+  public static int encode(long[] sortedCells, DrillBuf buffer) {
+    int shift = shift(sortedCells);
+    buffer.setByte(0, FORMAT);
+    buffer.setByte(1, shift);
+    int index = H3Varint.write(buffer, HEADER_BYTES, sortedCells.length);
+    long previous = 0L;
+    for (long cell : sortedCells) {
+      index = H3Varint.write(buffer, index, (cell >>> shift) - previous);
+      previous = cell >>> shift;
+    }
+    return index;
+  }
+
+  /**
+   * @param reader the function's reader, which is reset to the packed cells.
+   * @return whether the packed cells contain the cell.  Decoding stops at the first larger cell.
+   */
+  public static boolean contains(H3Varint.Reader reader, DrillBuf buffer, int start, int end, long cell) {
+    open(reader, buffer, start, end);
+    int shift = buffer.getByte(start + 1);
+    long count = reader.next();
+    long current = 0L;
+    for (long i = 0; i < count; i++) {
+      current += reader.next();
+      long decoded = unshift(current, shift);
+      if (decoded >= cell) {
+        return decoded == cell;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Writes the packed cells to a list in ascending order.
+   *
+   * @param reader the function's reader, which is reset to the packed cells.
+   */
+  public static void writeCells(H3Varint.Reader reader, DrillBuf buffer, int start, int end,
+                                BaseWriter.ListWriter listWriter) {
+    open(reader, buffer, start, end);
+    int shift = buffer.getByte(start + 1);
+    long count = reader.next();
+    long current = 0L;
+    for (long i = 0; i < count; i++) {
+      current += reader.next();
+      listWriter.bigInt().writeBigInt(unshift(current, shift));
+    }
+  }
+
+  private static long unshift(long value, int shift) {
+    return (value << shift) | ((1L << shift) - 1);
+  }
+
+  private static void open(H3Varint.Reader reader, DrillBuf buffer, int start, int end) {
+    if (end - start < HEADER_BYTES || buffer.getByte(start) != FORMAT) {
+      throw UserException.functionError()
+        .message("Value is not a packed H3 cell list")
+        .build(logger);
+    }
+    reader.reset(buffer, start + HEADER_BYTES, end);
+  }
+}
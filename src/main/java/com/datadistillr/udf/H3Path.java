@@ -0,0 +1,207 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.datadistillr.udf;
+
+import com.uber.h3core.H3Core;
+import io.netty.buffer.DrillBuf;
+import org.apache.drill.common.exceptions.UserException;
+import org.apache.drill.exec.vector.complex.writer.BaseWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+
+/**
+ * The points of a trajectory as the h3Path aggregate gathers them, and the VARBINARY path format it returns: a format
+ * byte followed by the cells of the path in order as 8 byte little endian longs, laid out like an {@link H3CellSet}
+ * but neither sorted nor distinct, since a path can come back to a cell it left.
+ * <p>
+ * Points are kept in primitive arrays in the order they arrive, which need not be the order of their times, and are
+ * only indexed once the group is complete, all together with {@link H3Batch}.  A group may hold no more points, and its
+ * path no more cells, than the traversal limit.
+ */
+public final class H3Path {
+
+  private static final Logger logger = LoggerFactory.getLogger(H3Path.class);
+
+  static final byte FORMAT = 4;
+
+  static final int HEADER_BYTES = 1;
+
+  static final int CELL_BYTES = 8;
+
+  private static final int MIN_CAPACITY = 16;
+
+  private long[] times = new long[MIN_CAPACITY];
+
+  private double[] latitudes = new double[MIN_CAPACITY];
+
+  private double[] longitudes = new double[MIN_CAPACITY];
+
+  private int size;
+
+  /**
+   * @throws UserException if the group already holds as many points as the traversal limit.
+   */
+  public void add(long time, double latitude, double longitude) {
+    long max = H3Traversal.maxCells();
+    if (size >= max) {
+      throw UserException.functionError()
+        .message("h3Path: the group has more than %d points", max)
+        .addContext("Raise the limit with the " + H3Config.MAX_TRAVERSAL_CELLS + " setting")
+        .build(logger);
+    }
+    if (size == times.length) {
+      int capacity = (int) Math.min(size * 2L, Math.min(max, Integer.MAX_VALUE - 8));
+      times = Arrays.copyOf(times, capacity);
+      latitudes = Arrays.copyOf(latitudes, capacity);
+      longitudes = Arrays.copyOf(longitudes, capacity);
+    }
+    times[size] = time;
+    latitudes[size] = latitude;
+    longitudes[size] = longitude;
+    size++;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Indexes the points, orders their cells by time, drops repeats of the previous cell and fills each gap between
+   * cells that are not neighbors with the cells of the line between them.  Points with the same time keep the order
+   * they were added in.  A gap whose line is undefined, as across a pentagon, or longer than the traversal limit is
+   * left as a jump.  Points that cannot be indexed are skipped.
+   *
+   * @return the cells of the path.
+   * @throws UserException if the path would have more cells than the traversal limit.
+   */
+  public long[] cells(H3Core h3, int resolution) {
+    long[] indexed = new long[size];
+    H3Batch.geoToH3(latitudes, longitudes, size, resolution, indexed);
+    int[] order = sortByTime();
+
+    long max = H3Traversal.maxCells();
+    long[] path = new long[size];
+    int length = 0;
+    long previous = 0L;
+    for (int i = 0; i < size; i++) {
+      long cell = indexed[order[i]];
+      if (cell == 0L || cell == previous) {
+        continue;
+      }
+      if (previous != 0L) {
+        // The size comes from the grid distance, so a gap too long to fill is never drawn.
+        int lineSize = H3Native.lineSize(h3, previous, cell);
+        long[] line = lineSize <= max ? H3Native.line(h3, previous, cell, lineSize) : null;
+        if (line != null && line.length > 2) {
+          checkLength(length + line.length - 1L, max);
+          path = ensureCapacity(path, length + line.length - 2 + size - i);
+          System.arraycopy(line, 1, path, length, line.length - 2);
+          length += line.length - 2;
+        }
+      }
+      checkLength(length + 1L, max);
+      path[length++] = cell;
+      previous = cell;
+    }
+    return Arrays.copyOf(path, length);
+  }
+
+  private static void checkLength(long length, long max) {
+    if (length > max) {
+      throw UserException.functionError()
+        .message("h3Path: the path has more than %d cells", max)
+        .addContext("Raise the limit with the " + H3Config.MAX_TRAVERSAL_CELLS + " setting")
+        .build(logger);
+    }
+  }
+
+  /**
+   * @return the indexes of the points ordered by time, by a stable bottom-up merge sort.
+   */
+  private int[] sortByTime() {
+    int[] order = new int[size];
+    for (int i = 0; i < size; i++) {
+      order[i] = i;
+    }
+    int[] scratch = new int[size];
+    for (int width = 1; width < size; width *= 2) {
+      for (int low = 0; low < size; low += 2 * width) {
+        int middle = Math.min(low + width, size);
+        int high = Math.min(low + 2 * width, size);
+        int i = low;
+        int j = middle;
+        for (int k = low; k < high; k++) {
+          if (i < middle && (j >= high || times[order[i]] <= times[order[j]])) {
+            scratch[k] = order[i++];
+          } else {
+            scratch[k] = order[j++];
+          }
+        }
+      }
+      int[] sorted = scratch;
+      scratch = order;
+      order = sorted;
+    }
+    return order;
+  }
+
+  private static long[] ensureCapacity(long[] cells, int capacity) {
+    return capacity <= cells.length ? cells : Arrays.copyOf(cells, Math.max(capacity, cells.length * 2));
+  }
+
+  /**
+   * @return the number of bytes a path of the given number of cells takes.
+   */
+  public static int encodedSize(int length) {
+    return HEADER_BYTES + length * CELL_BYTES;
+  }
+
+  /**
+   * Writes the cells as a path at the start of the buffer, which must hold at least {@link #encodedSize(int)} bytes.
+   *
+   * @return the number of bytes written.
+   */
+  public static int encode(long[] cells, DrillBuf buffer) {
+    buffer.setByte(0, FORMAT);
+    int index = HEADER_BYTES;
+    for (long cell : cells) {
+      buffer.setLong(index, cell);
+      index += CELL_BYTES;
+    }
+    return index;
+  }
+
+  /**
+   * Writes the cells of an encoded path to the list in order.
+   */
+  public static void writeCells(DrillBuf buffer, int start, int end, BaseWriter.ListWriter listWriter) {
+    int length = end - start;
+    if (length < HEADER_BYTES || buffer.getByte(start) != FORMAT || (length - HEADER_BYTES) % CELL_BYTES != 0) {
+      throw UserException.functionError()
+        .message("Value is not an H3 path")
+        .build(logger);
+    }
+    for (int index = start + HEADER_BYTES; index < end; index += CELL_BYTES) {
+      listWriter.bigInt().writeBigInt(buffer.getLong(index));
+    }
+  }
+}
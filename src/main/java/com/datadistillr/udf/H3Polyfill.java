@@ -0,0 +1,202 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.datadistillr.udf;
+
+import com.uber.h3core.H3Core;
+import com.uber.h3core.util.GeoCoord;
+import io.netty.buffer.DrillBuf;
+import org.apache.drill.common.exceptions.UserException;
+import org.apache.drill.exec.vector.complex.writer.BaseWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Row-level implementations of the functions in {@link H3PolyfillFunctions}.  The cells of a polygon are looked up
+ * in the Drillbit's {@link H3PolyfillCache} by the hash of its WKB or GeoJSON before anything is parsed, so a polygon
+ * that was filled at the same resolution recently costs a hash of its bytes and a copy of its cells.
+ */
+public final class H3Polyfill {
+
+  private static final Logger logger = LoggerFactory.getLogger(H3Polyfill.class);
+
+  static final long DEFAULT_MAX_CELLS = 10_000_000L;
+
+  static final long DEFAULT_CACHE_BYTES = 64L << 20;
+
+  private static final H3PolyfillCache CACHE =
+    new H3PolyfillCache(H3Config.getLong(H3Config.POLYFILL_CACHE_BYTES, DEFAULT_CACHE_BYTES));
+
+  private static volatile long maxCells = -1L;
+
+  private H3Polyfill() {
+  }
+
+  /**
+   * @return the most cells a single polyfill call may fill, estimated before filling.
+   */
+  public static long maxCells() {
+    long max = maxCells;
+    if (max < 0L) {
+      max = H3Config.getLong(H3Config.MAX_POLYFILL_CELLS, DEFAULT_MAX_CELLS);
+      maxCells = max;
+    }
+    return max;
+  }
+
+  /**
+   * Writes the cells whose centers are in the WKB Polygon or MultiPolygon as a list of BIGINT cells in ascending
+   * order.
+   */
+  public static void polyfill(H3Core h3, H3FunctionMetrics metrics, H3Polygons polygons, DrillBuf input, int start,
+                              int end, int resolution, BaseWriter.ComplexWriter outWriter) {
+    long started = metrics.start();
+    try {
+      if (h3 == null) {
+        metrics.fallback();
+        return;
+      }
+      writeCells(cells("h3Polyfill", h3, polygons, null, input, start, end, resolution), outWriter);
+    } catch (RuntimeException e) {
+      metrics.error();
+      throw e;
+    } finally {
+      metrics.stop(started);
+    }
+  }
+
+  /**
+   * Writes the cells whose centers are in the WKB Polygon or MultiPolygon to the buffer as an {@link H3CellSet}.
+   */
+  public static DrillBuf polyfillSet(H3Core h3, H3FunctionMetrics metrics, H3Polygons polygons, DrillBuf input,
+                                     int start, int end, int resolution, DrillBuf buffer) {
+    long started = metrics.start();
+    try {
+      if (h3 == null) {
+        metrics.fallback();
+        return H3Strings.empty(buffer);
+      }
+      return writeSet(cells("h3PolyfillSet", h3, polygons, null, input, start, end, resolution), buffer);
+    } catch (RuntimeException e) {
+      metrics.error();
+      throw e;
+    } finally {
+      metrics.stop(started);
+    }
+  }
+
+  /**
+   * Writes the cells whose centers are in the GeoJSON Polygon, MultiPolygon, Feature or FeatureCollection as a list
+   * of BIGINT cells in ascending order.
+   */
+  public static void polyfillGeoJson(H3Core h3, H3FunctionMetrics metrics, H3Polygons polygons, H3GeoJson geoJson,
+                                     DrillBuf input, int start, int end, int resolution,
+                                     BaseWriter.ComplexWriter outWriter) {
+    long started = metrics.start();
+    try {
+      if (h3 == null) {
+        metrics.fallback();
+        return;
+      }
+      writeCells(cells("h3PolyfillGeoJson", h3, polygons, geoJson, input, start, end, resolution), outWriter);
+    } catch (RuntimeException e) {
+      metrics.error();
+      throw e;
+    } finally {
+      metrics.stop(started);
+    }
+  }
+
+  /**
+   * @param geoJson the reader for GeoJSON input, or null if the input is WKB.
+   * @return the sorted cells of the polygons in the input, from the cache if they are there.
+   */
+  private static ByteBuffer cells(String function, H3Core h3, H3Polygons polygons, H3GeoJson geoJson,
+                                  DrillBuf input, int start, int end, int resolution) {
+    H3PolyfillCache.Key key = new H3PolyfillCache.Key(input, start, end, resolution);
+    ByteBuffer cells = CACHE.get(key);
+    if (cells == null) {
+      if (geoJson == null) {
+        H3Wkb.readPolygons(input, start, end, polygons);
+      } else {
+        geoJson.readPolygons(input, start, end, polygons);
+      }
+      cells = CACHE.put(key, fill(function, h3, polygons, resolution));
+    }
+    return cells;
+  }
+
+  /**
+   * @return the cells whose centers are in the polygons, in ascending order without duplicates.
+   * @throws UserException if the polygons may hold more cells than the configured maximum.
+   */
+  static long[] fill(String function, H3Core h3, H3Polygons polygons, int resolution) {
+    int count = polygons.polygonCount();
+    double estimate = 0;
+    for (int polygon = 0; polygon < count; polygon++) {
+      estimate += polygons.estimateCells(polygon, resolution);
+    }
+    long max = maxCells();
+    if (estimate > max) {
+      throw UserException.functionError()
+        .message("%s: the polygon may hold up to %.0f cells at resolution %d, more than the limit of %d", function,
+          estimate, resolution, max)
+        .addContext("Raise the limit with the " + H3Config.MAX_POLYFILL_CELLS + " setting")
+        .build(logger);
+    }
+    long[] cells = new long[0];
+    int size = 0;
+    for (int polygon = 0; polygon < count; polygon++) {
+      int outer = polygons.firstRing(polygon);
+      List<List<GeoCoord>> holes = new ArrayList<>();
+      for (int ring = outer + 1; ring < polygons.ringEnd(polygon); ring++) {
+        holes.add(polygons.ring(ring));
+      }
+      List<Long> filled = h3.polyfill(polygons.ring(outer), holes, resolution);
+      if (size + filled.size() > cells.length) {
+        cells = Arrays.copyOf(cells, size + filled.size());
+      }
+      for (int i = 0; i < filled.size(); i++) {
+        cells[size++] = filled.get(i);
+      }
+    }
+    return H3PackedCells.sortDistinct(cells, size);
+  }
+
+  private static void writeCells(ByteBuffer cells, BaseWriter.ComplexWriter outWriter) {
+    BaseWriter.ListWriter listWriter = outWriter.rootAsList();
+    for (int index = cells.position(); index < cells.limit(); index += H3CellSet.CELL_BYTES) {
+      listWriter.bigInt().writeBigInt(cells.getLong(index));
+    }
+  }
+
+  private static DrillBuf writeSet(ByteBuffer cells, DrillBuf buffer) {
+    int length = H3CellSet.HEADER_BYTES + cells.remaining();
+    buffer = buffer.reallocIfNeeded(length);
+    buffer.setByte(0, H3CellSet.FORMAT);
+    buffer.setBytes(H3CellSet.HEADER_BYTES, cells);
+    buffer.writerIndex(length);
+    return buffer;
+  }
+}
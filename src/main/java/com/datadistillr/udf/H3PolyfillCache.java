@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.datadistillr.udf;
+
+import io.netty.buffer.DrillBuf;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The cells of recently filled polygons, shared by every fragment on the Drillbit so that queries which fill the same
+ * polygons again, as dashboards do, find them already filled.  Results are keyed by a 128-bit hash of the WKB or
+ * GeoJSON bytes together with their length and the resolution, and are kept off-heap in direct buffers as the sorted
+ * cells in 8 byte longs, laid out like the body of an {@link H3CellSet} so that a set is written with a single copy.
+ * <p>
+ * The cache holds at most the configured number of bytes of cells, evicting the least recently used results to make
+ * room.  A result larger than that is not kept.  The memory of an evicted result is freed when it is next collected.
+ */
+final class H3PolyfillCache {
+
+  /**
+   * The byte order of the cells in an {@link H3CellSet}.
+   */
+  static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+  private final long maxBytes;
+
+  private final LinkedHashMap<Key, ByteBuffer> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+  private long bytes;
+
+  /**
+   * @param maxBytes the most bytes of cells to keep, or 0 to keep none.
+   */
+  H3PolyfillCache(long maxBytes) {
+    this.maxBytes = maxBytes;
+  }
+
+  /**
+   * @return the cells of the key, positioned at the first cell, or null if they are not in the cache.
+   */
+  ByteBuffer get(Key key) {
+    ByteBuffer cells;
+    synchronized (this) {
+      cells = entries.get(key);
+    }
+    if (cells == null) {
+      H3Metrics.POLYFILL_CACHE_MISSES.inc();
+      return null;
+    }
+    H3Metrics.POLYFILL_CACHE_HITS.inc();
+    return cells.duplicate().order(ORDER);
+  }
+
+  /**
+   * Stores the sorted cells of the key if they fit.
+   *
+   * @return the cells as {@link #get} returns them.
+   */
+  ByteBuffer put(Key key, long[] sortedCells) {
+    long size = (long) sortedCells.length * H3CellSet.CELL_BYTES;
+    boolean keep = size <= maxBytes;
+    ByteBuffer cells = (keep ? ByteBuffer.allocateDirect((int) size) : ByteBuffer.allocate((int) size))
+      .order(ORDER);
+    for (long cell : sortedCells) {
+      cells.putLong(cell);
+    }
+    cells.flip();
+    if (keep) {
+      synchronized (this) {
+        ByteBuffer previous = entries.put(key, cells);
+        bytes += size - (previous == null ? 0 : previous.capacity());
+        Iterator<Map.Entry<Key, ByteBuffer>> eldest = entries.entrySet().iterator();
+        while (bytes > maxBytes) {
+          bytes -= eldest.next().getValue().capacity();
+          eldest.remove();
+        }
+      }
+    }
+    return cells.duplicate().order(ORDER);
+  }
+
+  synchronized long bytes() {
+    return bytes;
+  }
+
+  /**
+   * Identifies a polygon's WKB or GeoJSON by two independent 64-bit hashes and its length, which makes results of
+   * different polygons sharing a key vanishingly unlikely without keeping the bytes themselves.
+   */
+  static final class Key {
+
+    private final long hash1;
+
+    private final long hash2;
+
+    private final int length;
+
+    private final int resolution;
+
+    Key(DrillBuf buffer, int start, int end, int resolution) {
+      long h1 = 0x9e3779b97f4a7c15L;
+      long h2 = 0xc2b2ae3d27d4eb4fL;
+      int index = start;
+      for (; index + 8 <= end; index += 8) {
+        long word = buffer.getLong(index);
+        h1 = Long.rotateLeft(h1 ^ word * 0x87c37b91114253d5L, 31) * 0x4cf5ad432745937fL;
+        h2 = Long.rotateLeft(h2 + word, 27) * 0x100000001b3L + 0x52dce729L;
+      }
+      long tail = 0L;
+      for (; index < end; index++) {
+        tail = (tail << 8) | (buffer.getByte(index) & 0xFF);
+      }
+      this.hash1 = mix(h1 ^ tail * 0x87c37b91114253d5L);
+      this.hash2 = mix(h2 + tail);
+      this.length = end - start;
+      this.resolution = resolution;
+    }
+
+    /**
+     * MurmurHash3's 64-bit finalizer.
+     */
+    private static long mix(long h) {
+      h = (h ^ (h >>> 33)) * 0xff51afd7ed558ccdL;
+      h = (h ^ (h >>> 33)) * 0xc4ceb9fe1a85ec53L;
+      return h ^ (h >>> 33);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (!(other instanceof Key)) {
+        return false;
+      }
+      Key key = (Key) other;
+      return hash1 == key.hash1 && hash2 == key.hash2 && length == key.length && resolution == key.resolution;
+    }
+
+    @Override
+    public int hashCode() {
+      return (int) hash1;
+    }
+  }
+}
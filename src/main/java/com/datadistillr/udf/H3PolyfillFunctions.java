@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.datadistillr.udf;
+
+import io.netty.buffer.DrillBuf;
+import org.apache.drill.exec.expr.DrillSimpleFunc;
+import org.apache.drill.exec.expr.annotations.FunctionTemplate;
+import org.apache.drill.exec.expr.annotations.Output;
+import org.apache.drill.exec.expr.annotations.Param;
+import org.apache.drill.exec.expr.annotations.Workspace;
+import org.apache.drill.exec.expr.holders.IntHolder;
+import org.apache.drill.exec.expr.holders.VarBinaryHolder;
+import org.apache.drill.exec.expr.holders.VarCharHolder;
+import org.apache.drill.exec.vector.complex.writer.BaseWriter;
+
+import javax.inject.Inject;
+
+/**
+ * Functions that fill polygons with the cells whose centers they contain, as H3's polyfill does.  Results are kept
+ * by the Drillbit (see {@link H3PolyfillCache}), so the same polygons filled again by later queries are not refilled.
+ */
+public class H3PolyfillFunctions {
+
+  @FunctionTemplate(names = {"h3Polyfill", "h3_polyfill"},
+    scope = FunctionTemplate.FunctionScope.SIMPLE)
+  public static class h3Polyfill implements DrillSimpleFunc {
+
+    @Param
+    VarBinaryHolder geometryInput;
+
+    @Param
+    IntHolder resolutionInput;
+
+    @Output
+    BaseWriter.ComplexWriter outWriter;
+
+    @Workspace
+    com.uber.h3core.H3Core h3;
+
+    @Workspace
+    com.datadistillr.udf.H3FunctionMetrics metrics;
+
+    @Workspace
+    com.datadistillr.udf.H3Polygons polygons;
+
+    @Override
+    public void setup() {
+      metrics = com.datadistillr.udf.H3Metrics.function("h3Polyfill", true);
+      polygons = new com.datadistillr.udf.H3Polygons();
+      try {
+        h3 = com.uber.h3core.H3Core.newInstance();
+      } catch (java.io.IOException e) {
+        h3 = null;
+      }
+    }
+
+    @Override
+    public void eval() {
+      com.datadistillr.udf.H3Polyfill.polyfill(h3, metrics, polygons, geometryInput.buffer, geometryInput.start,
+        geometryInput.end, resolutionInput.value, outWriter);
+    }
+  }
+
+  @FunctionTemplate(names = {"h3PolyfillSet", "h3_polyfill_set"},
+    scope = FunctionTemplate.FunctionScope.SIMPLE,
+    nulls = FunctionTemplate.NullHandling.NULL_IF_NULL)
+  public static class h3PolyfillSet implements DrillSimpleFunc {
+
+    @Param
+    VarBinaryHolder geometryInput;
+
+    @Param
+    IntHolder resolutionInput;
+
+    @Output
+    VarBinaryHolder out;
+
+    @Inject
+    DrillBuf buffer;
+
+    @Workspace
+    com.uber.h3core.H3Core h3;
+
+    @Workspace
+    com.datadistillr.udf.H3FunctionMetrics metrics;
+
+    @Workspace
+    com.datadistillr.udf.H3Polygons polygons;
+
+    @Override
+    public void setup() {
+      metrics = com.datadistillr.udf.H3Metrics.function("h3PolyfillSet", true);
+      polygons = new com.datadistillr.udf.H3Polygons();
+      try {
+        h3 = com.uber.h3core.H3Core.newInstance();
+      } catch (java.io.IOException e) {
+        h3 = null;
+      }
+    }
+
+    @Override
+    public void eval() {
+      buffer = com.datadistillr.udf.H3Polyfill.polyfillSet(h3, metrics, polygons, geometryInput.buffer,
+        geometryInput.start, geometryInput.end, resolutionInput.value, buffer);
+      out.buffer = buffer;
+      out.start = 0;
+      out.end = buffer.writerIndex();
+    }
+  }
+
+  @FunctionTemplate(names = {"h3PolyfillGeoJson", "h3_polyfill_geojson"},
+    scope = FunctionTemplate.FunctionScope.SIMPLE)
+  public static class h3PolyfillGeoJson implements DrillSimpleFunc {
+
+    @Param
+    VarCharHolder geometryInput;
+
+    @Param
+    IntHolder resolutionInput;
+
+    @Output
+    BaseWriter.ComplexWriter outWriter;
+
+    @Workspace
+    com.uber.h3core.H3Core h3;
+
+    @Workspace
+    com.datadistillr.udf.H3FunctionMetrics metrics;
+
+    @Workspace
+    com.datadistillr.udf.H3Polygons polygons;
+
+    @Workspace
+    com.datadistillr.udf.H3GeoJson geoJson;
+
+    @Override
+    public void setup() {
+      metrics = com.datadistillr.udf.H3Metrics.function("h3PolyfillGeoJson", true);
+      polygons = new com.datadistillr.udf.H3Polygons();
+      geoJson = new com.datadistillr.udf.H3GeoJson();
+      try {
+        h3 = com.uber.h3core.H3Core.newInstance();
+      } catch (java.io.IOException e) {
+        h3 = null;
+      }
+    }
+
+    @Override
+    public void eval() {
+      com.datadistillr.udf.H3Polyfill.polyfillGeoJson(h3, metrics, polygons, geoJson, geometryInput.buffer,
+        geometryInput.start, geometryInput.end, resolutionInput.value, outWriter);
+    }
+  }
+}
@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.datadistillr.udf;
+
+import com.uber.h3core.util.GeoCoord;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The rings of one or more polygons in primitive coordinate arrays, which a function keeps in its workspace and refills
+ * for every row.  The first ring of each polygon is its outer boundary and any others are holes.  Rings are kept open:
+ * a last point that repeats the first is dropped when the ring ends.
+ */
+public final class H3Polygons {
+
+  private double[] lats = new double[64];
+
+  private double[] lngs = new double[64];
+
+  private int points;
+
+  private int[] ringEnds = new int[8];
+
+  private int rings;
+
+  private int[] polygonEnds = new int[4];
+
+  private int polygons;
+
+  private int polygonStart;
+
+  /**
+   * Whether the outer ring of the current polygon was dropped, so that its holes must not take its place.
+   */
+  private boolean outerDropped;
+
+  /**
+   * Removes every polygon.
+   */
+  public void clear() {
+    points = 0;
+    rings = 0;
+    polygons = 0;
+    polygonStart = 0;
+    outerDropped = false;
+  }
+
+  void addPoint(double lat, double lng) {
+    if (points == lats.length) {
+      lats = Arrays.copyOf(lats, points * 2);
+      lngs = Arrays.copyOf(lngs, points * 2);
+    }
+    lats[points] = lat;
+    lngs[points] = lng;
+    points++;
+  }
+
+  /**
+   * Ends the ring of the points added since the last one ended.  Rings of fewer than three distinct points enclose
+   * nothing and are dropped, and so are the holes of a polygon whose outer ring was dropped.
+   */
+  void endRing() {
+    int ringStart = ringStart(rings);
+    if (points - ringStart > 1 && lats[points - 1] == lats[ringStart] && lngs[points - 1] == lngs[ringStart]) {
+      points--;
+    }
+    if (points - ringStart < 3 || outerDropped) {
+      outerDropped |= rings == polygonStart;
+      points = ringStart;
+      return;
+    }
+    if (rings == ringEnds.length) {
+      ringEnds = Arrays.copyOf(ringEnds, rings * 2);
+    }
+    ringEnds[rings++] = points;
+  }
+
+  /**
+   * Ends the polygon of the rings ended since the last one.  A polygon without an outer ring is dropped.
+   */
+  void endPolygon() {
+    outerDropped = false;
+    if (rings == polygonStart) {
+      return;
+    }
+    if (polygons == polygonEnds.length) {
+      polygonEnds = Arrays.copyOf(polygonEnds, polygons * 2);
+    }
+    polygonEnds[polygons++] = rings;
+    polygonStart = rings;
+  }
+
+  int polygonCount() {
+    return polygons;
+  }
+
+  /**
+   * @return the index of the first ring of the polygon, which is its outer boundary.
+   */
+  int firstRing(int polygon) {
+    return polygon == 0 ? 0 : polygonEnds[polygon - 1];
+  }
+
+  /**
+   * @return the index after the last ring of the polygon.
+   */
+  int ringEnd(int polygon) {
+    return polygonEnds[polygon];
+  }
+
+  /**
+   * @return the points of the ring in the form H3Core's polyfill takes.
+   */
+  List<GeoCoord> ring(int ring) {
+    int start = ringStart(ring);
+    int end = ringEnds[ring];
+    List<GeoCoord> coords = new ArrayList<>(end - start);
+    for (int i = start; i < end; i++) {
+      coords.add(new GeoCoord(lats[i], lngs[i]));
+    }
+    return coords;
+  }
+
+  /**
+   * @return an upper estimate of the number of cells of the resolution that fill the polygon, from the area of its
+   * bounding box.  H3's polyfill sizes its working memory the same way.
+   */
+  double estimateCells(int polygon, int resolution) {
+    int outer = firstRing(polygon);
+    int start = ringStart(outer);
+    int end = ringEnds[outer];
+    double minLat = Double.POSITIVE_INFINITY;
+    double maxLat = Double.NEGATIVE_INFINITY;
+    double minLng = Double.POSITIVE_INFINITY;
+    double maxLng = Double.NEGATIVE_INFINITY;
+    for (int i = start; i < end; i++) {
+      minLat = Math.min(minLat, lats[i]);
+      maxLat = Math.max(maxLat, lats[i]);
+      minLng = Math.min(minLng, lngs[i]);
+      maxLng = Math.max(maxLng, lngs[i]);
+    }
+    double width = Math.toRadians(maxLng - minLng);
+    if (width > Math.PI) {
+      // H3 takes a box wider than half the globe to cross the antimeridian.
+      width = 2 * Math.PI - width;
+    }
+    double areaKm2 = H3GreatCircle.EARTH_RADIUS_KM * H3GreatCircle.EARTH_RADIUS_KM * width
+      * Math.abs(Math.sin(Math.toRadians(maxLat)) - Math.sin(Math.toRadians(minLat)));
+    return Math.ceil(areaKm2 / H3Resolutions.hexAreaKm2(resolution)) + (end - start);
+  }
+
+  private int ringStart(int ring) {
+    return ring == 0 ? 0 : ringEnds[ring - 1];
+  }
+}
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.datadistillr.udf;
+
+/**
+ * Finds the cells whose centers lie within a distance of a point.  The point is indexed, the k-ring around its cell
+ * is expanded into a primitive buffer with {@link H3Neighbors}, and the cells whose centers are too far away are
+ * dropped, all without calling the native library.
+ * <p>
+ * k is chosen from the resolution's average edge length.  Across the grid, cell centers one step apart are at least
+ * 1.2 average edge lengths apart and no point is more than 1.27 edge lengths from the center of its cell, so the
+ * factors below leave a margin on both.
+ * <p>
+ * The last search is kept, so a UDF that holds one instance in its workspace finds the cells only once when its
+ * arguments are constant or repeat from row to row.  Instances are not thread-safe.
+ */
+public final class H3RadiusSearch {
+
+  /**
+   * Lower bound on the distance between cell centers one grid step apart, in average edge lengths.
+   */
+  private static final double SPACING_EDGES = 1.1;
+
+  /**
+   * Upper bound on the distance from a point to the center of its cell, in average edge lengths.
+   */
+  private static final double CELL_RADIUS_EDGES = 1.3;
+
+  private final double[] center = new double[3];
+
+  private long[] cells = new long[1];
+
+  private int count;
+
+  private double lastLatitude = Double.NaN;
+
+  private double lastLongitude = Double.NaN;
+
+  private double lastKm = Double.NaN;
+
+  private int lastResolution = -1;
+
+  /**
+   * Finds the cells at the resolution whose centers are within km kilometers of the point.  A distance smaller than
+   * the cell containing the point may find no cells at all.
+   *
+   * @param function the SQL name of the calling function, for error messages.
+   * @return the number of cells found, which are at the start of {@link #cells()}.
+   * @throws IllegalArgumentException if the resolution is out of range or a coordinate is not finite.
+   * @throws org.apache.drill.common.exceptions.UserException if the search would expand more cells than the
+   *         traversal limit.
+   */
+  public int search(String function, double latitude, double longitude, double km, int resolution) {
+    if (latitude == lastLatitude && longitude == lastLongitude && km == lastKm && resolution == lastResolution) {
+      return count;
+    }
+    long origin = H3GeoIndexer.geoToH3(latitude, longitude, resolution);
+    lastResolution = -1;
+    count = 0;
+    if (km >= 0.0) {
+      double edge = H3Resolutions.edgeLengthKm(resolution);
+      double rings = Math.ceil((km + CELL_RADIUS_EDGES * edge) / (SPACING_EDGES * edge));
+      int k = rings < Integer.MAX_VALUE ? (int) rings : Integer.MAX_VALUE;
+      H3Traversal.checkKRing(function, k);
+      int size = H3Neighbors.kRingSize(k);
+      if (cells.length < size) {
+        cells = new long[size];
+      }
+      count = trim(H3Neighbors.kRing(origin, k, cells), latitude, longitude, km);
+    }
+    lastLatitude = latitude;
+    lastLongitude = longitude;
+    lastKm = km;
+    lastResolution = resolution;
+    return count;
+  }
+
+  public long[] cells() {
+    return cells;
+  }
+
+  /**
+   * Moves the cells whose centers are within the distance to the start of the buffer, keeping their order.
+   *
+   * @return the number of cells kept.
+   */
+  private int trim(int ringSize, double latitude, double longitude, double km) {
+    double lat = Math.toRadians(latitude);
+    double lng = Math.toRadians(longitude);
+    double x = Math.cos(lat) * Math.cos(lng);
+    double y = Math.cos(lat) * Math.sin(lng);
+    double z = Math.sin(lat);
+    // Compare squared chord lengths, which stay precise for distances far below the Earth's radius.
+    double angle = Math.min(km / H3GreatCircle.EARTH_RADIUS_KM, Math.PI);
+    double chord = 2.0 * Math.sin(angle / 2.0);
+    double maxChordSquared = chord * chord;
+    int kept = 0;
+    for (int i = 0; i < ringSize; i++) {
+      H3GeoIndexer.cellCenter(cells[i], center, 0);
+      double dx = center[0] - x;
+      double dy = center[1] - y;
+      double dz = center[2] - z;
+      if (dx * dx + dy * dy + dz * dz <= maxChordSquared) {
+        cells[kept++] = cells[i];
+      }
+    }
+    return kept;
+  }
+}
@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.datadistillr.udf;
+
+/**
+ * Per-resolution constants of the H3 grid, taken from the tables in H3's C library so that they can be looked up
+ * without a native call.  They depend only on their arguments, so Drill can fold the functions built on them into
+ * constants when the arguments are literals.
+ */
+public final class H3Resolutions {
+
+  /**
+   * Average hexagon area in square kilometers at each resolution.
+   */
+  private static final double[] HEX_AREA_KM2 = {
+    4250546.848, 607220.9782, 86745.85403, 12392.26486, 1770.323552, 252.9033645, 36.1290521, 5.1612932, 0.7373276,
+    0.1053325, 0.0150475, 0.0021496, 0.0003071, 0.0000439, 0.0000063, 0.0000009
+  };
+
+  /**
+   * Average hexagon area in square meters at each resolution.
+   */
+  private static final double[] HEX_AREA_M2 = {
+    4.25055E+12, 6.07221E+11, 86745854035.0, 12392264862.0, 1770323552.0, 252903364.5, 36129052.1, 5161293.2,
+    737327.6, 105332.5, 15047.5, 2149.6, 307.1, 43.9, 6.3, 0.9
+  };
+
+  /**
+   * Average hexagon edge length in kilometers at each resolution.
+   */
+  private static final double[] EDGE_LENGTH_KM = {
+    1107.712591, 418.6760055, 158.2446558, 59.81085794, 22.6063794, 8.544408276, 3.229482772, 1.220629759,
+    0.461354684, 0.174375668, 0.065907807, 0.024910561, 0.009415526, 0.003559893, 0.001348575, 0.000509713
+  };
+
+  /**
+   * Average hexagon edge length in meters at each resolution.  These are not exactly the kilometer lengths times
+   * 1000, because H3 rounds the two tables separately.
+   */
+  private static final double[] EDGE_LENGTH_M = {
+    1107712.591, 418676.0055, 158244.6558, 59810.85794, 22606.3794, 8544.408276, 3229.482772, 1220.629759,
+    461.3546837, 174.3756681, 65.90780749, 24.9105614, 9.415526211, 3.559893033, 1.348574562, 0.509713273
+  };
+
+  private H3Resolutions() {
+  }
+
+  /**
+   * @return the average hexagon edge length in kilometers, as H3Core.edgeLength returns.
+   * @throws IllegalArgumentException if the resolution is out of range.
+   */
+  public static double edgeLengthKm(int resolution) {
+    H3GeoIndexer.checkResolution(resolution);
+    return EDGE_LENGTH_KM[resolution];
+  }
+
+  /**
+   * @return the average hexagon edge length in meters, as H3Core.edgeLength returns.
+   * @throws IllegalArgumentException if the resolution is out of range.
+   */
+  public static double edgeLengthM(int resolution) {
+    H3GeoIndexer.checkResolution(resolution);
+    return EDGE_LENGTH_M[resolution];
+  }
+
+  /**
+   * @return the average hexagon area in square kilometers, as H3Core.hexArea returns.
+   * @throws IllegalArgumentException if the resolution is out of range.
+   */
+  public static double hexAreaKm2(int resolution) {
+    H3GeoIndexer.checkResolution(resolution);
+    return HEX_AREA_KM2[resolution];
+  }
+
+  /**
+   * @return the average hexagon area in square meters, as H3Core.hexArea returns.
+   * @throws IllegalArgumentException if the resolution is out of range.
+   */
+  public static double hexAreaM2(int resolution) {
+    H3GeoIndexer.checkResolution(resolution);
+    return HEX_AREA_M2[resolution];
+  }
+
+  /**
+   * @return the number of cells at the resolution, 2 + 120 * 7^resolution, as H3Core.numHexagons returns.
+   * @throws IllegalArgumentException if the resolution is out of range.
+   */
+  public static long numHexagons(int resolution) {
+    H3GeoIndexer.checkResolution(resolution);
+    long power = 1L;
+    for (int r = 0; r < resolution; r++) {
+      power *= 7L;
+    }
+    return 2L + 120L * power;
+  }
+
+  /**
+   * @return the most cells a k-ring can have, 3k(k + 1) + 1, as H3's maxKringSize returns but without overflowing
+   * an int for large k.
+   * @throws IllegalArgumentException if k is negative.
+   */
+  public static long maxKringSize(int k) {
+    if (k < 0) {
+      throw new IllegalArgumentException("k must not be negative, got " + k);
+    }
+    return 3L * k * (k + 1L) + 1L;
+  }
+}
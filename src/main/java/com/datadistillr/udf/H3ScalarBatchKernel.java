@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.datadistillr.udf;
+
+/**
+ * Runs the batch operations one point at a time.  It works on every JVM the plugin supports.
+ */
+final class H3ScalarBatchKernel implements H3BatchKernel {
+
+  @Override
+  public void geoToH3(double[] latitudes, double[] longitudes, int count, int resolution, long[] out) {
+    for (int i = 0; i < count; i++) {
+      out[i] = geoToH3(latitudes[i], longitudes[i], resolution);
+    }
+  }
+
+  @Override
+  public void distanceKm(double[] latitudes1, double[] longitudes1, double[] latitudes2, double[] longitudes2,
+                         int count, double[] out) {
+    for (int i = 0; i < count; i++) {
+      out[i] = H3GreatCircle.distanceKm(latitudes1[i], longitudes1[i], latitudes2[i], longitudes2[i]);
+    }
+  }
+
+  /**
+   * @return the cell, or 0 if the point cannot be indexed.
+   */
+  static long geoToH3(double latitude, double longitude, int resolution) {
+    try {
+      return H3GeoIndexer.geoToH3(latitude, longitude, resolution);
+    } catch (IllegalArgumentException e) {
+      return 0L;
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "scalar";
+  }
+}
@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.datadistillr.udf;
+
+import io.netty.buffer.DrillBuf;
+import org.apache.drill.exec.vector.complex.writer.BaseWriter;
+
+/**
+ * Row-level implementations of the functions in {@link H3CellSetFunctions}.  Sets that are produced are written at the
+ * start of the buffer given, and the buffer is returned with its writer index set to the length of the set.
+ */
+public final class H3SetOperations {
+
+  private H3SetOperations() {
+  }
+
+  /**
+   * Encodes the distinct cells collected by h3SetAgg.
+   *
+   * @param cells the {@link H3CellMap} of the current group.
+   * @return the buffer, with a writer index of 0 if no cells were collected.
+   */
+  public static DrillBuf encode(Object cells, DrillBuf buffer) {
+    H3CellMap map = (H3CellMap) cells;
+    if (map.size() == 0) {
+      return H3Strings.empty(buffer);
+    }
+    long[] sorted = map.sortedKeys();
+    buffer = buffer.reallocIfNeeded(H3CellSet.encodedSize(sorted.length));
+    buffer.writerIndex(H3CellSet.encode(sorted, buffer));
+    return buffer;
+  }
+
+  public static DrillBuf union(H3FunctionMetrics metrics, DrillBuf left, int leftStart, int leftEnd,
+                               DrillBuf right, int rightStart, int rightEnd, DrillBuf buffer) {
+    long started = metrics.start();
+    try {
+      buffer = buffer.reallocIfNeeded(leftEnd - leftStart + rightEnd - rightStart);
+      buffer.writerIndex(H3CellSet.union(left, leftStart, leftEnd, right, rightStart, rightEnd, buffer));
+      return buffer;
+    } catch (RuntimeException e) {
+      metrics.error();
+      throw e;
+    } finally {
+      metrics.stop(started);
+    }
+  }
+
+  public static DrillBuf intersect(H3FunctionMetrics metrics, DrillBuf left, int leftStart, int leftEnd,
+                                   DrillBuf right, int rightStart, int rightEnd, DrillBuf buffer) {
+    long started = metrics.start();
+    try {
+      buffer = buffer.reallocIfNeeded(Math.min(leftEnd - leftStart, rightEnd - rightStart));
+      buffer.writerIndex(H3CellSet.intersect(left, leftStart, leftEnd, right, rightStart, rightEnd, buffer));
+      return buffer;
+    } catch (RuntimeException e) {
+      metrics.error();
+      throw e;
+    } finally {
+      metrics.stop(started);
+    }
+  }
+
+  public static int cardinality(H3FunctionMetrics metrics, DrillBuf set, int start, int end) {
+    long started = metrics.start();
+    try {
+      return H3CellSet.cardinality(set, start, end);
+    } catch (RuntimeException e) {
+      metrics.error();
+      throw e;
+    } finally {
+      metrics.stop(started);
+    }
+  }
+
+  /**
+   * @return 1 if the set contains the cell, otherwise 0.
+   */
+  public static int contains(H3FunctionMetrics metrics, DrillBuf set, int start, int end, long cell) {
+    long started = metrics.start();
+    try {
+      return H3CellSet.contains(set, start, end, cell) ? 1 : 0;
+    } catch (RuntimeException e) {
+      metrics.error();
+      throw e;
+    } finally {
+      metrics.stop(started);
+    }
+  }
+
+  /**
+   * Writes the cells of the set as a list of BIGINTs, or an empty list if the set is not set.
+   */
+  public static void writeCells(H3FunctionMetrics metrics, int isSet, DrillBuf set, int start, int end,
+                                BaseWriter.ComplexWriter outWriter) {
+    long started = metrics.start();
+    try {
+      BaseWriter.ListWriter listWriter = outWriter.rootAsList();
+      if (isSet == 1) {
+        H3CellSet.writeCells(set, start, end, listWriter);
+      }
+    } catch (RuntimeException e) {
+      metrics.error();
+      throw e;
+    } finally {
+      metrics.stop(started);
+    }
+  }
+}
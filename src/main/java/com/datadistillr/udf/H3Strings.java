@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.datadistillr.udf;
+
+import io.netty.buffer.DrillBuf;
+import org.apache.drill.exec.expr.fn.impl.StringFunctionHelpers;
+import org.apache.drill.exec.vector.complex.writer.BaseWriter;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Conversions between VARCHAR values and H3 cells.  Addresses are parsed from and formatted into Drill buffers
+ * directly, without the String and byte array that H3Core's String methods go through.
+ * <p>
+ * Methods that produce a VARCHAR or VARBINARY value write it at the start of the buffer they are given, reallocating
+ * it if needed, and return the buffer with its writer index set to the length of the value.
+ */
+public final class H3Strings {
+
+  private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+  private H3Strings() {
+  }
+
+  /**
+   * @return the UTF-8 text in the buffer between start and end.
+   */
+  public static String read(DrillBuf buffer, int start, int end) {
+    return StringFunctionHelpers.toStringFromUTF8(start, end, buffer);
+  }
+
+  /**
+   * Parses a hexadecimal address the way H3Core's stringToH3 does.
+   *
+   * @throws NumberFormatException if the text is not an unsigned hexadecimal number of at most 16 digits.
+   */
+  public static long readCell(DrillBuf buffer, int start, int end) {
+    long cell = parseCell(buffer, start, end);
+    if (cell == 0L && !isZero(buffer, start, end)) {
+      throw new NumberFormatException("Not an H3 address: \"" + read(buffer, start, end) + "\"");
+    }
+    return cell;
+  }
+
+  /**
+   * Parses a hexadecimal address without failing on bad input.
+   *
+   * @return the index, or 0 if the text is not a hexadecimal number of at most 16 digits.
+   */
+  public static long parseCell(DrillBuf buffer, int start, int end) {
+    int length = end - start;
+    if (length == 0 || length > 16) {
+      return 0L;
+    }
+    long value = 0L;
+    for (int i = start; i < end; i++) {
+      int digit = Character.digit(buffer.getByte(i), 16);
+      if (digit < 0) {
+        return 0L;
+      }
+      value = (value << 4) | digit;
+    }
+    return value;
+  }
+
+  /**
+   * Writes the text to the start of the buffer as UTF-8.
+   */
+  public static DrillBuf write(DrillBuf buffer, String value) {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    buffer = buffer.reallocIfNeeded(bytes.length);
+    buffer.setBytes(0, bytes);
+    buffer.writerIndex(bytes.length);
+    return buffer;
+  }
+
+  /**
+   * Writes the address of the cell to the start of the buffer, in the same lowercase form as H3Core's h3ToString.
+   */
+  public static DrillBuf writeCell(DrillBuf buffer, long cell) {
+    buffer = buffer.reallocIfNeeded(16);
+    buffer.writerIndex(formatCell(buffer, cell));
+    return buffer;
+  }
+
+  /**
+   * Appends the address of the cell to a list of VARCHARs, using the start of the buffer as scratch space.
+   */
+  public static void writeCell(BaseWriter.ListWriter listWriter, DrillBuf buffer, long cell) {
+    listWriter.varChar().writeVarChar(0, formatCell(buffer, cell), buffer);
+  }
+
+  /**
+   * Sets the writer index of the buffer to 0, which the functions use for an empty result.
+   */
+  public static DrillBuf empty(DrillBuf buffer) {
+    buffer.writerIndex(0);
+    return buffer;
+  }
+
+  private static boolean isZero(DrillBuf buffer, int start, int end) {
+    if (start == end) {
+      return false;
+    }
+    for (int i = start; i < end; i++) {
+      if (buffer.getByte(i) != '0') {
+        return false;
+      }
+    }
+    return end - start <= 16;
+  }
+
+  /**
+   * @return the number of bytes written, at most 16.
+   */
+  static int formatCell(DrillBuf buffer, long cell) {
+    int digits = Math.max(1, 16 - Long.numberOfLeadingZeros(cell) / 4);
+    for (int i = digits - 1; i >= 0; i--) {
+      buffer.setByte(i, HEX_DIGITS[(int) (cell & 0xF)]);
+      cell >>>= 4;
+    }
+    return digits;
+  }
+}
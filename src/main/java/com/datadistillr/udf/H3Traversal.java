@@ -0,0 +1,778 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.datadistillr.udf;
+
+import com.uber.h3core.H3Core;
+import com.uber.h3core.exceptions.LocalIjUndefinedException;
+import com.uber.h3core.exceptions.PentagonEncounteredException;
+import com.uber.h3core.util.CoordIJ;
+import io.netty.buffer.DrillBuf;
+import org.apache.drill.common.exceptions.UserException;
+import org.apache.drill.exec.vector.complex.writer.BaseWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+/**
+ * Row-level implementations of the functions in {@link H3TraversalFunctions}.  Neighbourhoods and lines are checked
+ * against the configured maximum size before anything is computed, so no call holds more than that many cells
+ * outside of Drill's memory accounting.  k-rings are expanded into the {@link H3KRing} each UDF keeps in its
+ * workspace, which holds up to 20 bytes per cell of the largest k-ring the UDF has seen and is reused from row to
+ * row.  Lines take a fresh array of 8 bytes per cell, and hex ranges and rings go through H3Core's lists of boxed
+ * cells.
+ */
+public final class H3Traversal {
+
+  private static final Logger logger = LoggerFactory.getLogger(H3Traversal.class);
+
+  static final long DEFAULT_MAX_CELLS = 1_000_000L;
+
+  private static volatile long maxCells = -1L;
+
+  private H3Traversal() {
+  }
+
+  /**
+   * @return the most cells a single traversal function call may return.
+   */
+  public static long maxCells() {
+    long max = maxCells;
+    if (max < 0L) {
+      max = H3Config.getLong(H3Config.MAX_TRAVERSAL_CELLS, DEFAULT_MAX_CELLS);
+      maxCells = max;
+    }
+    return max;
+  }
+
+  /**
+   * @throws UserException if k is negative or the k-ring would have more cells than the configured maximum.
+   */
+  public static void checkKRing(String function, int k) {
+    // 3k(k+1)+1 overflows a long for k above 2^30, which is far past any limit anyway.
+    check(function, k, k >= 1 << 30 ? Long.MAX_VALUE : 3L * k * (k + 1L) + 1L);
+  }
+
+  /**
+   * @throws UserException if k is negative or the hollow ring would have more cells than the configured maximum.
+   */
+  public static void checkHexRing(String function, int k) {
+    check(function, k, k == 0 ? 1L : 6L * k);
+  }
+
+  private static void check(String function, int k, long cells) {
+    if (k < 0) {
+      throw UserException.functionError()
+        .message("%s: k must not be negative, got %d", function, k)
+        .build(logger);
+    }
+    long max = maxCells();
+    if (cells > max) {
+      throw UserException.functionError()
+        .message("%s: k of %d produces %d cells per row, more than the limit of %d", function, k, cells, max)
+        .addContext("Raise the limit with the " + H3Config.MAX_TRAVERSAL_CELLS + " setting")
+        .build(logger);
+    }
+  }
+
+  /**
+   * @param size the number of cells in the line, from {@link H3Native#lineSize}, negative if it is undefined.
+   * @throws UserException if the line would have more cells than the configured maximum.
+   */
+  public static void checkLine(String function, long size) {
+    long max = maxCells();
+    if (size > max) {
+      throw UserException.functionError()
+        .message("%s: the line has %d cells, more than the limit of %d", function, size, max)
+        .addContext("Raise the limit with the " + H3Config.MAX_TRAVERSAL_CELLS + " setting")
+        .build(logger);
+    }
+  }
+
+  /**
+   * Writes the k-ring of the origin as a flat list of BIGINT cells, or as one list per distance.
+   */
+  public static void kRing(String function, H3Core h3, H3FunctionMetrics metrics, H3KRing ring, long origin, int k,
+                           BaseWriter.ComplexWriter outWriter, boolean byDistance) {
+    long started = metrics.start();
+    try {
+      if (h3 == null) {
+        metrics.fallback();
+        return;
+      }
+      checkKRing(function, k);
+      writeKRing(h3, ring, origin, k, outWriter.rootAsList(), byDistance);
+    } catch (RuntimeException e) {
+      metrics.error();
+      throw e;
+    } finally {
+      metrics.stop(started);
+    }
+  }
+
+  /**
+   * Writes the k-ring of the origin address as a flat list of VARCHAR addresses, or as one list per distance.
+   */
+  public static void kRing(String function, H3Core h3, H3FunctionMetrics metrics, H3KRing ring,
+                           H3AddressCache addresses, DrillBuf input, int start, int end, int k,
+                           BaseWriter.ComplexWriter outWriter, DrillBuf buffer, boolean byDistance) {
+    long started = metrics.start();
+    try {
+      if (h3 == null) {
+        metrics.fallback();
+        return;
+      }
+      checkKRing(function, k);
+      writeKRingAddresses(h3, ring, addresses.readCell(input, start, end), k, outWriter.rootAsList(), buffer,
+        byDistance);
+    } catch (RuntimeException e) {
+      metrics.error();
+      throw e;
+    } finally {
+      metrics.stop(started);
+    }
+  }
+
+  /**
+   * Writes the k-ring of the origin as a flat list of {cell, distance} maps with BIGINT cells.
+   */
+  public static void kRingDistancesFlat(H3Core h3, H3FunctionMetrics metrics, H3KRing ring, long origin, int k,
+                                        BaseWriter.ComplexWriter outWriter) {
+    long started = metrics.start();
+    try {
+      if (h3 == null) {
+        metrics.fallback();
+        return;
+      }
+      checkKRing("kRingDistancesFlat", k);
+      writeKRingEntries(h3, ring, origin, k, outWriter.rootAsList());
+    } catch (RuntimeException e) {
+      metrics.error();
+      throw e;
+    } finally {
+      metrics.stop(started);
+    }
+  }
+
+  /**
+   * Writes the k-ring of the origin address as a flat list of {cell, distance} maps with VARCHAR addresses.
+   */
+  public static void kRingDistancesFlat(H3Core h3, H3FunctionMetrics metrics, H3KRing ring, DrillBuf input, int start,
+                                        int end, int k, BaseWriter.ComplexWriter outWriter, DrillBuf buffer) {
+    long started = metrics.start();
+    try {
+      if (h3 == null) {
+        metrics.fallback();
+        return;
+      }
+      checkKRing("kRingDistancesFlat", k);
+      writeKRingAddressEntries(h3, ring, H3Strings.readCell(input, start, end), k, outWriter.rootAsList(), buffer);
+    } catch (RuntimeException e) {
+      metrics.error();
+      throw e;
+    } finally {
+      metrics.stop(started);
+    }
+  }
+
+  /**
+   * Writes the rings of the origin as one list of BIGINT cells per distance, or nothing if a pentagon is in range.
+   */
+  public static void hexRange(H3Core h3, H3FunctionMetrics metrics, long origin, int k,
+                              BaseWriter.ComplexWriter outWriter) {
+    long started = metrics.start();
+    try {
+      if (h3 == null) {
+        metrics.fallback();
+        return;
+      }
+      checkKRing("hexRange", k);
+      writeHexRange(h3, origin, k, outWriter, null);
+    } catch (RuntimeException e) {
+      metrics.error();
+      throw e;
+    } finally {
+      metrics.stop(started);
+    }
+  }
+
+  /**
+   * Writes the rings of the origin address as one list of VARCHAR addresses per distance, or nothing if a pentagon is
+   * in range.
+   */
+  public static void hexRange(H3Core h3, H3FunctionMetrics metrics, DrillBuf input, int start, int end, int k,
+                              BaseWriter.ComplexWriter outWriter, DrillBuf buffer) {
+    long started = metrics.start();
+    try {
+      if (h3 == null) {
+        metrics.fallback();
+        return;
+      }
+      checkKRing("hexRange", k);
+      writeHexRange(h3, H3Strings.readCell(input, start, end), k, outWriter, buffer);
+    } catch (RuntimeException e) {
+      metrics.error();
+      throw e;
+    } finally {
+      metrics.stop(started);
+    }
+  }
+
+  /**
+   * Writes the hollow ring at distance k from the origin as BIGINT cells, or nothing if it has a pentagon.
+   */
+  public static void hexRing(H3Core h3, H3FunctionMetrics metrics, long origin, int k,
+                             BaseWriter.ComplexWriter outWriter) {
+    long started = metrics.start();
+    try {
+      if (h3 == null) {
+        metrics.fallback();
+        return;
+      }
+      checkHexRing("hexRing", k);
+      writeHexRing(h3, origin, k, outWriter, null);
+    } catch (RuntimeException e) {
+      metrics.error();
+      throw e;
+    } finally {
+      metrics.stop(started);
+    }
+  }
+
+  /**
+   * Writes the hollow ring at distance k from the origin address as VARCHAR addresses, or nothing if it has a
+   * pentagon.
+   */
+  public static void hexRing(H3Core h3, H3FunctionMetrics metrics, DrillBuf input, int start, int end, int k,
+                             BaseWriter.ComplexWriter outWriter, DrillBuf buffer) {
+    long started = metrics.start();
+    try {
+      if (h3 == null) {
+        metrics.fallback();
+        return;
+      }
+      checkHexRing("hexRing", k);
+      writeHexRing(h3, H3Strings.readCell(input, start, end), k, outWriter, buffer);
+    } catch (RuntimeException e) {
+      metrics.error();
+      throw e;
+    } finally {
+      metrics.stop(started);
+    }
+  }
+
+  /**
+   * Writes the line between the cells as BIGINT cells, or nothing if the line is undefined.
+   */
+  public static void line(H3Core h3, H3FunctionMetrics metrics, long startCell, long endCell,
+                          BaseWriter.ComplexWriter outWriter) {
+    long started = metrics.start();
+    try {
+      if (h3 == null) {
+        metrics.fallback();
+        return;
+      }
+      writeLine("h3Line", h3, startCell, endCell, outWriter, null);
+    } catch (RuntimeException e) {
+      metrics.error();
+      throw e;
+    } finally {
+      metrics.stop(started);
+    }
+  }
+
+  /**
+   * Writes the line between the addresses as VARCHAR addresses, or nothing if the line is undefined.
+   */
+  public static void line(H3Core h3, H3FunctionMetrics metrics, DrillBuf startInput, int startStart, int startEnd,
+                          DrillBuf endInput, int endStart, int endEnd, BaseWriter.ComplexWriter outWriter,
+                          DrillBuf buffer) {
+    long started = metrics.start();
+    try {
+      if (h3 == null) {
+        metrics.fallback();
+        return;
+      }
+      writeLine("h3Line", h3, H3Strings.readCell(startInput, startStart, startEnd),
+        H3Strings.readCell(endInput, endStart, endEnd), outWriter, buffer);
+    } catch (RuntimeException e) {
+      metrics.error();
+      throw e;
+    } finally {
+      metrics.stop(started);
+    }
+  }
+
+  /**
+   * Writes the k-ring of the origin to the buffer in the {@link H3PackedCells} format.
+   */
+  public static DrillBuf kRingPacked(H3Core h3, H3FunctionMetrics metrics, H3KRing ring, long origin, int k,
+                                     DrillBuf buffer) {
+    long started = metrics.start();
+    try {
+      if (h3 == null) {
+        metrics.fallback();
+        return H3Strings.empty(buffer);
+      }
+      checkKRing("kRingPacked", k);
+      int count = ring.find(h3, origin, k, false);
+      return writePacked(H3PackedCells.sortDistinct(ring.cells(), count), buffer);
+    } catch (RuntimeException e) {
+      metrics.error();
+      throw e;
+    } finally {
+      metrics.stop(started);
+    }
+  }
+
+  /**
+   * Writes the hollow ring at distance k from the origin to the buffer in the {@link H3PackedCells} format, empty if
+   * the ring has a pentagon.
+   */
+  public static DrillBuf hexRingPacked(H3Core h3, H3FunctionMetrics metrics, long origin, int k, DrillBuf buffer) {
+    long started = metrics.start();
+    try {
+      if (h3 == null) {
+        metrics.fallback();
+        return H3Strings.empty(buffer);
+      }
+      checkHexRing("hexRingPacked", k);
+      long[] cells;
+      try {
+        cells = H3PackedCells.toSortedArray(h3.hexRing(origin, k));
+      } catch (PentagonEncounteredException e) {
+        cells = new long[0];
+      }
+      return writePacked(cells, buffer);
+    } catch (RuntimeException e) {
+      metrics.error();
+      throw e;
+    } finally {
+      metrics.stop(started);
+    }
+  }
+
+  /**
+   * Writes the line between the cells to the buffer in the {@link H3PackedCells} format, empty if the line is
+   * undefined.
+   */
+  public static DrillBuf linePacked(H3Core h3, H3FunctionMetrics metrics, long startCell, long endCell,
+                                    DrillBuf buffer) {
+    long started = metrics.start();
+    try {
+      if (h3 == null) {
+        metrics.fallback();
+        return H3Strings.empty(buffer);
+      }
+      int size = H3Native.lineSize(h3, startCell, endCell);
+      checkLine("h3LinePacked", size);
+      long[] cells = H3Native.line(h3, startCell, endCell, size);
+      if (cells == null) {
+        cells = new long[0];
+      }
+      return writePacked(H3PackedCells.sortDistinct(cells, cells.length), buffer);
+    } catch (RuntimeException e) {
+      metrics.error();
+      throw e;
+    } finally {
+      metrics.stop(started);
+    }
+  }
+
+  /**
+   * @return 1 if the packed cells contain the cell, otherwise 0.
+   */
+  public static int packedContains(H3FunctionMetrics metrics, H3Varint.Reader reader, DrillBuf packed, int start,
+                                   int end, long cell) {
+    long started = metrics.start();
+    try {
+      return H3PackedCells.contains(reader, packed, start, end, cell) ? 1 : 0;
+    } catch (RuntimeException e) {
+      metrics.error();
+      throw e;
+    } finally {
+      metrics.stop(started);
+    }
+  }
+
+  /**
+   * Writes packed cells as a list of BIGINTs in cell order, or an empty list if the value is not set.
+   */
+  public static void packedUnpack(H3FunctionMetrics metrics, H3Varint.Reader reader, int isSet, DrillBuf packed,
+                                  int start, int end, BaseWriter.ComplexWriter outWriter) {
+    long started = metrics.start();
+    try {
+      BaseWriter.ListWriter listWriter = outWriter.rootAsList();
+      if (isSet == 1) {
+        H3PackedCells.writeCells(reader, packed, start, end, listWriter);
+      }
+    } catch (RuntimeException e) {
+      metrics.error();
+      throw e;
+    } finally {
+      metrics.stop(started);
+    }
+  }
+
+  /**
+   * Writes the local IJ coordinates of the cell in the origin's frame as an {i, j} map, or nothing if they are
+   * undefined.
+   */
+  public static void toLocalIj(H3Core h3, H3FunctionMetrics metrics, long origin, long cell,
+                               BaseWriter.ComplexWriter outWriter) {
+    long started = metrics.start();
+    try {
+      if (h3 == null) {
+        metrics.fallback();
+        return;
+      }
+      int[] ij = new int[2];
+      if (H3Native.toLocalIj(h3, origin, cell, ij) != 0) {
+        H3Metrics.LOCAL_IJ_FAILURES.inc();
+        return;
+      }
+      BaseWriter.MapWriter mapWriter = outWriter.rootAsMap();
+      mapWriter.start();
+      mapWriter.integer("i").writeInt(ij[0]);
+      mapWriter.integer("j").writeInt(ij[1]);
+      mapWriter.end();
+    } catch (RuntimeException e) {
+      metrics.error();
+      throw e;
+    } finally {
+      metrics.stop(started);
+    }
+  }
+
+  /**
+   * @return the cell at the local IJ coordinates of the origin's frame, or 0 if there is none.
+   */
+  public static long localIjToH3(H3Core h3, H3FunctionMetrics metrics, H3Memo memo, long origin, int i, int j) {
+    long started = metrics.start();
+    try {
+      if (h3 == null) {
+        metrics.fallback();
+        return 0L;
+      }
+      long ij = ((long) i << 32) | (j & 0xFFFFFFFFL);
+      if (memo.find(origin, ij)) {
+        metrics.memoHit();
+        return memo.value();
+      }
+      long cell;
+      try {
+        cell = h3.experimentalLocalIjToH3(origin, new CoordIJ(i, j));
+      } catch (LocalIjUndefinedException e) {
+        cell = 0L;
+      }
+      memo.put(cell);
+      return cell;
+    } catch (RuntimeException e) {
+      metrics.error();
+      throw e;
+    } finally {
+      metrics.stop(started);
+    }
+  }
+
+  /**
+   * @return the grid distance between the cells, or a negative number if it is undefined.
+   */
+  public static long distance(H3Core h3, H3FunctionMetrics metrics, H3Memo memo, H3LocalIj localIj, long startCell,
+                              long endCell) {
+    long started = metrics.start();
+    try {
+      if (h3 == null) {
+        metrics.fallback();
+        return 0L;
+      }
+      return memoDistance(h3, metrics, memo, localIj, startCell, endCell);
+    } catch (RuntimeException e) {
+      metrics.error();
+      throw e;
+    } finally {
+      metrics.stop(started);
+    }
+  }
+
+  public static long distance(H3Core h3, H3FunctionMetrics metrics, H3Memo memo, H3LocalIj localIj,
+                              DrillBuf startInput, int startStart, int startEnd, DrillBuf endInput, int endStart,
+                              int endEnd) {
+    long started = metrics.start();
+    try {
+      if (h3 == null) {
+        metrics.fallback();
+        return 0L;
+      }
+      return memoDistance(h3, metrics, memo, localIj, H3Strings.readCell(startInput, startStart, startEnd),
+        H3Strings.readCell(endInput, endStart, endEnd));
+    } catch (RuntimeException e) {
+      metrics.error();
+      throw e;
+    } finally {
+      metrics.stop(started);
+    }
+  }
+
+  /**
+   * @return the memoized grid distance between the cells, computing and remembering it on a miss.
+   */
+  private static long memoDistance(H3Core h3, H3FunctionMetrics metrics, H3Memo memo, H3LocalIj localIj,
+                                   long startCell, long endCell) {
+    if (memo.find(startCell, endCell)) {
+      metrics.memoHit();
+      long distance = memo.value();
+      if (distance < 0) {
+        // Count the failure as if it had been computed again.
+        H3Metrics.DISTANCE_FAILURES.inc();
+      }
+      return distance;
+    }
+    long distance = localIj.distance(h3, startCell, endCell);
+    memo.put(distance);
+    return distance;
+  }
+
+  /**
+   * @return the grid distance from the cell to the nearest cell of the set, or -1 if it is further than the maximum
+   * distance, the cell is not set or the field could not be built.
+   */
+  public static int distanceToSet(H3FunctionMetrics metrics, H3DistanceField field, int isSet, long cell) {
+    long started = metrics.start();
+    try {
+      if (field == null) {
+        metrics.fallback();
+        return -1;
+      }
+      return isSet == 0 ? -1 : field.distance(cell);
+    } catch (RuntimeException e) {
+      metrics.error();
+      throw e;
+    } finally {
+      metrics.stop(started);
+    }
+  }
+
+  public static int distanceToSet(H3FunctionMetrics metrics, H3DistanceField field, int isSet, DrillBuf input,
+                                  int start, int end) {
+    long started = metrics.start();
+    try {
+      if (field == null) {
+        metrics.fallback();
+        return -1;
+      }
+      return isSet == 0 ? -1 : field.distance(H3Strings.parseCell(input, start, end));
+    } catch (RuntimeException e) {
+      metrics.error();
+      throw e;
+    } finally {
+      metrics.stop(started);
+    }
+  }
+
+  /**
+   * Writes the cells whose centers are within km kilometers of the point as a list of BIGINT cells, nearest rings
+   * first.
+   */
+  public static void cellsWithinKm(H3FunctionMetrics metrics, H3RadiusSearch search, double latitude,
+                                   double longitude, double km, int resolution, BaseWriter.ComplexWriter outWriter) {
+    long started = metrics.start();
+    try {
+      int count = search.search("h3CellsWithinKm", latitude, longitude, km, resolution);
+      long[] cells = search.cells();
+      BaseWriter.ListWriter listWriter = outWriter.rootAsList();
+      for (int i = 0; i < count; i++) {
+        listWriter.bigInt().writeBigInt(cells[i]);
+      }
+    } catch (RuntimeException e) {
+      metrics.error();
+      throw e;
+    } finally {
+      metrics.stop(started);
+    }
+  }
+
+  /**
+   * Writes the k-ring of the origin as BIGINT cells, either as one flat list or as one list per distance.
+   */
+  private static void writeKRing(H3Core h3, H3KRing ring, long origin, int k, BaseWriter.ListWriter listWriter,
+                                 boolean byDistance) {
+    writeRings(h3, ring, origin, k, listWriter, byDistance, new CellWriter() {
+      @Override
+      public void write(BaseWriter.ListWriter listWriter, long cell, int distance) {
+        listWriter.bigInt().writeBigInt(cell);
+      }
+    });
+  }
+
+  /**
+   * Writes the k-ring of the origin as VARCHAR addresses, either as one flat list or as one list per distance.
+   */
+  private static void writeKRingAddresses(H3Core h3, H3KRing ring, long origin, int k,
+                                          BaseWriter.ListWriter listWriter, final DrillBuf buffer, boolean byDistance) {
+    writeRings(h3, ring, origin, k, listWriter, byDistance, new CellWriter() {
+      @Override
+      public void write(BaseWriter.ListWriter listWriter, long cell, int distance) {
+        H3Strings.writeCell(listWriter, buffer, cell);
+      }
+    });
+  }
+
+  /**
+   * Writes the k-ring of the origin as one flat list of {cell, distance} maps with BIGINT cells.
+   */
+  private static void writeKRingEntries(H3Core h3, H3KRing ring, long origin, int k, BaseWriter.ListWriter listWriter) {
+    writeRings(h3, ring, origin, k, listWriter, false, new CellWriter() {
+      @Override
+      public void write(BaseWriter.ListWriter listWriter, long cell, int distance) {
+        BaseWriter.MapWriter mapWriter = listWriter.map();
+        mapWriter.start();
+        mapWriter.bigInt("cell").writeBigInt(cell);
+        mapWriter.integer("distance").writeInt(distance);
+        mapWriter.end();
+      }
+    });
+  }
+
+  /**
+   * Writes the k-ring of the origin as one flat list of {cell, distance} maps with VARCHAR addresses.
+   */
+  private static void writeKRingAddressEntries(H3Core h3, H3KRing ring, long origin, int k,
+                                               BaseWriter.ListWriter listWriter, final DrillBuf buffer) {
+    writeRings(h3, ring, origin, k, listWriter, false, new CellWriter() {
+      @Override
+      public void write(BaseWriter.ListWriter listWriter, long cell, int distance) {
+        BaseWriter.MapWriter mapWriter = listWriter.map();
+        mapWriter.start();
+        mapWriter.varChar("cell").writeVarChar(0, H3Strings.formatCell(buffer, cell), buffer);
+        mapWriter.integer("distance").writeInt(distance);
+        mapWriter.end();
+      }
+    });
+  }
+
+  /**
+   * Writes the k-ring in the order H3Core.kRing returns it, or grouped by distance in the order H3Core's
+   * kRingDistances returns each distance.
+   */
+  private static void writeRings(H3Core h3, H3KRing ring, long origin, int k, BaseWriter.ListWriter listWriter,
+                                 boolean byDistance, CellWriter cellWriter) {
+    int count = ring.find(h3, origin, k, byDistance);
+    long[] cells = ring.cells();
+    int[] distances = ring.distances();
+    if (!byDistance) {
+      for (int i = 0; i < count; i++) {
+        cellWriter.write(listWriter, cells[i], distances[i]);
+      }
+      return;
+    }
+    int i = 0;
+    for (int distance = 0; distance <= k; distance++) {
+      BaseWriter.ListWriter ringWriter = startRing(listWriter, true);
+      for (int ringEnd = ring.ringEnd(distance); i < ringEnd; i++) {
+        cellWriter.write(ringWriter, cells[i], distance);
+      }
+      endRing(ringWriter, true);
+    }
+  }
+
+  private static BaseWriter.ListWriter startRing(BaseWriter.ListWriter listWriter, boolean byDistance) {
+    if (!byDistance) {
+      return listWriter;
+    }
+    BaseWriter.ListWriter ringWriter = listWriter.list();
+    ringWriter.startList();
+    return ringWriter;
+  }
+
+  private static void endRing(BaseWriter.ListWriter ringWriter, boolean byDistance) {
+    if (byDistance) {
+      ringWriter.endList();
+    }
+  }
+
+  private static void writeHexRange(H3Core h3, long origin, int k, BaseWriter.ComplexWriter outWriter,
+                                    DrillBuf buffer) {
+    List<List<Long>> rings;
+    try {
+      rings = h3.hexRange(origin, k);
+    } catch (PentagonEncounteredException e) {
+      return;
+    }
+    BaseWriter.ListWriter listWriter = outWriter.rootAsList();
+    for (List<Long> ring : rings) {
+      BaseWriter.ListWriter ringWriter = listWriter.list();
+      ringWriter.startList();
+      for (Long cell : ring) {
+        writeCell(ringWriter, cell, buffer);
+      }
+      ringWriter.endList();
+    }
+  }
+
+  private static void writeHexRing(H3Core h3, long origin, int k, BaseWriter.ComplexWriter outWriter,
+                                   DrillBuf buffer) {
+    List<Long> ring;
+    try {
+      ring = h3.hexRing(origin, k);
+    } catch (PentagonEncounteredException e) {
+      return;
+    }
+    BaseWriter.ListWriter listWriter = outWriter.rootAsList();
+    for (Long cell : ring) {
+      writeCell(listWriter, cell, buffer);
+    }
+  }
+
+  private static void writeLine(String function, H3Core h3, long startCell, long endCell,
+                                BaseWriter.ComplexWriter outWriter, DrillBuf buffer) {
+    int size = H3Native.lineSize(h3, startCell, endCell);
+    checkLine(function, size);
+    long[] line = H3Native.line(h3, startCell, endCell, size);
+    if (line == null) {
+      return;
+    }
+    BaseWriter.ListWriter listWriter = outWriter.rootAsList();
+    for (long cell : line) {
+      writeCell(listWriter, cell, buffer);
+    }
+  }
+
+  /**
+   * Writes the cell as a BIGINT, or as a VARCHAR address when a scratch buffer is given.
+   */
+  private static void writeCell(BaseWriter.ListWriter listWriter, long cell, DrillBuf buffer) {
+    if (buffer == null) {
+      listWriter.bigInt().writeBigInt(cell);
+    } else {
+      H3Strings.writeCell(listWriter, buffer, cell);
+    }
+  }
+
+  private static DrillBuf writePacked(long[] cells, DrillBuf buffer) {
+    int size = H3PackedCells.encodedSize(cells);
+    buffer = buffer.reallocIfNeeded(size);
+    buffer.writerIndex(H3PackedCells.encode(cells, buffer));
+    return buffer;
+  }
+
+  private interface CellWriter {
+    void write(BaseWriter.ListWriter listWriter, long cell, int distance);
+  }
+}
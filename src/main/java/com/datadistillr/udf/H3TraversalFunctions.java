@@ -26,7 +26,14 @@ import org.apache.drill.exec.expr.annotations.Output;
 import org.apache.drill.exec.expr.annotations.Param;
 import org.apache.drill.exec.expr.annotations.Workspace;
 import org.apache.drill.exec.expr.holders.BigIntHolder;
+import org.apache.drill.exec.expr.holders.BitHolder;
+import org.apache.drill.exec.expr.holders.Float8Holder;
 import org.apache.drill.exec.expr.holders.IntHolder;
+import org.apache.drill.exec.expr.holders.NullableBigIntHolder;
+import org.apache.drill.exec.expr.holders.NullableIntHolder;
+import org.apache.drill.exec.expr.holders.NullableVarBinaryHolder;
+import org.apache.drill.exec.expr.holders.NullableVarCharHolder;
+import org.apache.drill.exec.expr.holders.VarBinaryHolder;
 import org.apache.drill.exec.expr.holders.VarCharHolder;
 import org.apache.drill.exec.vector.complex.writer.BaseWriter;
 
@@ -50,8 +57,16 @@ public class H3TraversalFunctions {
     @Workspace
     com.uber.h3core.H3Core h3;
 
+    @Workspace
+    com.datadistillr.udf.H3FunctionMetrics metrics;
+
+    @Workspace
+    com.datadistillr.udf.H3KRing ring;
+
     @Override
     public void setup() {
+      metrics = com.datadistillr.udf.H3Metrics.function("kRing", true);
+      ring = new com.datadistillr.udf.H3KRing();
       try {
         h3 = com.uber.h3core.H3Core.newInstance();
       } catch (java.io.IOException e) {
@@ -61,19 +76,8 @@ public class H3TraversalFunctions {
 
     @Override
     public void eval() {
-      if (h3 == null) {
-        return;
-      }
-
-      long origin = originInput.value;
-      int k = kInput.value;
-
-      java.util.List<Long> results = h3.kRing(origin, k);
-      org.apache.drill.exec.vector.complex.writer.BaseWriter.ListWriter queryListWriter = outWriter.rootAsList();
-
-      for (Long result : results) {
-        queryListWriter.bigInt().writeBigInt(result);
-      }
+      com.datadistillr.udf.H3Traversal.kRing("kRing", h3, metrics, ring, originInput.value, kInput.value, outWriter,
+        false);
     }
   }
 
@@ -96,8 +100,20 @@ public class H3TraversalFunctions {
     @Workspace
     com.uber.h3core.H3Core h3;
 
+    @Workspace
+    com.datadistillr.udf.H3FunctionMetrics metrics;
+
+    @Workspace
+    com.datadistillr.udf.H3KRing ring;
+
+    @Workspace
+    com.datadistillr.udf.H3AddressCache addresses;
+
     @Override
     public void setup() {
+      metrics = com.datadistillr.udf.H3Metrics.function("kRing", true);
+      ring = new com.datadistillr.udf.H3KRing();
+      addresses = com.datadistillr.udf.H3AddressCache.create();
       try {
         h3 = com.uber.h3core.H3Core.newInstance();
       } catch (java.io.IOException e) {
@@ -107,19 +123,8 @@ public class H3TraversalFunctions {
 
     @Override
     public void eval() {
-      if (h3 == null) {
-        return;
-      }
-
-      String h3Address = org.apache.drill.exec.expr.fn.impl.StringFunctionHelpers.getStringFromVarCharHolder(originInput);
-      int k = kInput.value;
-
-      java.util.List<String> results = h3.kRing(h3Address, k);
-      org.apache.drill.exec.vector.complex.writer.BaseWriter.ListWriter queryListWriter = outWriter.rootAsList();
-      for (String result : results) {
-        buffer.setBytes(0, result.getBytes());
-        queryListWriter.varChar().writeVarChar(0, result.getBytes().length, buffer);
-      }
+      com.datadistillr.udf.H3Traversal.kRing("kRing", h3, metrics, ring, addresses, originInput.buffer,
+        originInput.start, originInput.end, kInput.value, outWriter, buffer, false);
     }
   }
 
@@ -139,8 +144,16 @@ public class H3TraversalFunctions {
     @Workspace
     com.uber.h3core.H3Core h3;
 
+    @Workspace
+    com.datadistillr.udf.H3FunctionMetrics metrics;
+
+    @Workspace
+    com.datadistillr.udf.H3KRing ring;
+
     @Override
     public void setup() {
+      metrics = com.datadistillr.udf.H3Metrics.function("kRingDistances", true);
+      ring = new com.datadistillr.udf.H3KRing();
       try {
         h3 = com.uber.h3core.H3Core.newInstance();
       } catch (java.io.IOException e) {
@@ -150,24 +163,8 @@ public class H3TraversalFunctions {
 
     @Override
     public void eval() {
-      if (h3 == null) {
-        return;
-      }
-
-      long origin = originInput.value;
-      int k = kInput.value;
-
-      java.util.List<java.util.List<Long>> results = h3.kRingDistances(origin, k);
-      org.apache.drill.exec.vector.complex.writer.BaseWriter.ListWriter queryListWriter = outWriter.rootAsList();
-      org.apache.drill.exec.vector.complex.writer.BaseWriter.ListWriter innerListWriter;
-      for (java.util.List<Long> innerList : results) {
-        innerListWriter = queryListWriter.list();
-        innerListWriter.startList();
-        for (Long result: innerList) {
-          innerListWriter.bigInt().writeBigInt(result);
-        }
-        innerListWriter.endList();
-      }
+      com.datadistillr.udf.H3Traversal.kRing("kRingDistances", h3, metrics, ring, originInput.value, kInput.value,
+        outWriter, true);
     }
   }
 
@@ -190,8 +187,20 @@ public class H3TraversalFunctions {
     @Workspace
     com.uber.h3core.H3Core h3;
 
+    @Workspace
+    com.datadistillr.udf.H3FunctionMetrics metrics;
+
+    @Workspace
+    com.datadistillr.udf.H3KRing ring;
+
+    @Workspace
+    com.datadistillr.udf.H3AddressCache addresses;
+
     @Override
     public void setup() {
+      metrics = com.datadistillr.udf.H3Metrics.function("kRingDistances", true);
+      ring = new com.datadistillr.udf.H3KRing();
+      addresses = com.datadistillr.udf.H3AddressCache.create();
       try {
         h3 = com.uber.h3core.H3Core.newInstance();
       } catch (java.io.IOException e) {
@@ -201,32 +210,15 @@ public class H3TraversalFunctions {
 
     @Override
     public void eval() {
-      if (h3 == null) {
-        return;
-      }
-
-      String h3Address = org.apache.drill.exec.expr.fn.impl.StringFunctionHelpers.getStringFromVarCharHolder(originInput);
-      int k = kInput.value;
-
-      java.util.List<java.util.List<String>> results = h3.kRingDistances(h3Address, k);
-      org.apache.drill.exec.vector.complex.writer.BaseWriter.ListWriter queryListWriter = outWriter.rootAsList();
-      org.apache.drill.exec.vector.complex.writer.BaseWriter.ListWriter innerListWriter;
-      for (java.util.List<String> innerList : results) {
-        innerListWriter = queryListWriter.list();
-        innerListWriter.startList();
-        for (String result: innerList) {
-          buffer.setBytes(0, result.getBytes());
-          innerListWriter.varChar().writeVarChar(0, result.length(), buffer);
-        }
-        innerListWriter.endList();
-      }
+      com.datadistillr.udf.H3Traversal.kRing("kRingDistances", h3, metrics, ring, addresses, originInput.buffer,
+        originInput.start, originInput.end, kInput.value, outWriter, buffer, true);
     }
   }
 
 
-  @FunctionTemplate(names = {"hexRange", "hex_range"},
+  @FunctionTemplate(names = {"kRingDistancesFlat", "k_ring_distances_flat"},
     scope = FunctionTemplate.FunctionScope.SIMPLE)
-  public static class hexRange implements DrillSimpleFunc {
+  public static class kRingDistancesFlat implements DrillSimpleFunc {
 
     @Param
     BigIntHolder originInput;
@@ -240,8 +232,16 @@ public class H3TraversalFunctions {
     @Workspace
     com.uber.h3core.H3Core h3;
 
+    @Workspace
+    com.datadistillr.udf.H3FunctionMetrics metrics;
+
+    @Workspace
+    com.datadistillr.udf.H3KRing ring;
+
     @Override
     public void setup() {
+      metrics = com.datadistillr.udf.H3Metrics.function("kRingDistancesFlat", true);
+      ring = new com.datadistillr.udf.H3KRing();
       try {
         h3 = com.uber.h3core.H3Core.newInstance();
       } catch (java.io.IOException e) {
@@ -251,34 +251,14 @@ public class H3TraversalFunctions {
 
     @Override
     public void eval() {
-      if (h3 == null) {
-        return;
-      }
-
-      long origin = originInput.value;
-      int k = kInput.value;
-      java.util.List<java.util.List<Long>> results;
-      try {
-        results = h3.hexRange(origin, k);
-      } catch (com.uber.h3core.exceptions.PentagonEncounteredException e) {
-        return;
-      }
-      org.apache.drill.exec.vector.complex.writer.BaseWriter.ListWriter queryListWriter = outWriter.rootAsList();
-      org.apache.drill.exec.vector.complex.writer.BaseWriter.ListWriter innerListWriter;
-      for (java.util.List<Long> innerList : results) {
-        innerListWriter = queryListWriter.list();
-        innerListWriter.startList();
-        for (Long result: innerList) {
-          innerListWriter.bigInt().writeBigInt(result);
-        }
-        innerListWriter.endList();
-      }
+      com.datadistillr.udf.H3Traversal.kRingDistancesFlat(h3, metrics, ring, originInput.value, kInput.value,
+        outWriter);
     }
   }
 
-  @FunctionTemplate(names = {"hexRange", "hex_range"},
+  @FunctionTemplate(names = {"kRingDistancesFlat", "k_ring_distances_flat"},
     scope = FunctionTemplate.FunctionScope.SIMPLE)
-  public static class hexRangeString implements DrillSimpleFunc {
+  public static class kRingStringDistancesFlat implements DrillSimpleFunc {
 
     @Param
     VarCharHolder originInput;
@@ -295,8 +275,16 @@ public class H3TraversalFunctions {
     @Workspace
     com.uber.h3core.H3Core h3;
 
+    @Workspace
+    com.datadistillr.udf.H3FunctionMetrics metrics;
+
+    @Workspace
+    com.datadistillr.udf.H3KRing ring;
+
     @Override
     public void setup() {
+      metrics = com.datadistillr.udf.H3Metrics.function("kRingDistancesFlat", true);
+      ring = new com.datadistillr.udf.H3KRing();
       try {
         h3 = com.uber.h3core.H3Core.newInstance();
       } catch (java.io.IOException e) {
@@ -306,40 +294,52 @@ public class H3TraversalFunctions {
 
     @Override
     public void eval() {
-      if (h3 == null) {
-        return;
-      }
+      com.datadistillr.udf.H3Traversal.kRingDistancesFlat(h3, metrics, ring, originInput.buffer, originInput.start,
+        originInput.end, kInput.value, outWriter, buffer);
+    }
+  }
+
+  @FunctionTemplate(names = {"hexRange", "hex_range"},
+    scope = FunctionTemplate.FunctionScope.SIMPLE)
+  public static class hexRange implements DrillSimpleFunc {
+
+    @Param
+    BigIntHolder originInput;
+
+    @Param
+    IntHolder kInput;
+
+    @Output
+    BaseWriter.ComplexWriter outWriter;
+
+    @Workspace
+    com.uber.h3core.H3Core h3;
+
+    @Workspace
+    com.datadistillr.udf.H3FunctionMetrics metrics;
 
-      String h3Address = org.apache.drill.exec.expr.fn.impl.StringFunctionHelpers.getStringFromVarCharHolder(originInput);
-      int k = kInput.value;
-      java.util.List<java.util.List<String>> results;
+    @Override
+    public void setup() {
+      metrics = com.datadistillr.udf.H3Metrics.function("hexRange", true);
       try {
-        results = h3.hexRange(h3Address, k);
-      } catch (com.uber.h3core.exceptions.PentagonEncounteredException e) {
-        return;
+        h3 = com.uber.h3core.H3Core.newInstance();
+      } catch (java.io.IOException e) {
+        h3 = null;
       }
+    }
 
-      org.apache.drill.exec.vector.complex.writer.BaseWriter.ListWriter queryListWriter = outWriter.rootAsList();
-      org.apache.drill.exec.vector.complex.writer.BaseWriter.ListWriter innerListWriter;
-
-      for (java.util.List<String> innerList : results) {
-        innerListWriter = queryListWriter.list();
-        innerListWriter.startList();
-        for (String result: innerList) {
-          buffer.setBytes(0, result.getBytes());
-          innerListWriter.varChar().writeVarChar(0, result.length(), buffer);
-        }
-        innerListWriter.endList();
-      }
+    @Override
+    public void eval() {
+      com.datadistillr.udf.H3Traversal.hexRange(h3, metrics, originInput.value, kInput.value, outWriter);
     }
   }
 
-  @FunctionTemplate(names = {"hexRing", "hex_ring"},
+  @FunctionTemplate(names = {"hexRange", "hex_range"},
     scope = FunctionTemplate.FunctionScope.SIMPLE)
-  public static class hexRing implements DrillSimpleFunc {
+  public static class hexRangeString implements DrillSimpleFunc {
 
     @Param
-    BigIntHolder originInput;
+    VarCharHolder originInput;
 
     @Param
     IntHolder kInput;
@@ -347,11 +347,18 @@ public class H3TraversalFunctions {
     @Output
     BaseWriter.ComplexWriter outWriter;
 
+    @Inject
+    DrillBuf buffer;
+
     @Workspace
     com.uber.h3core.H3Core h3;
 
+    @Workspace
+    com.datadistillr.udf.H3FunctionMetrics metrics;
+
     @Override
     public void setup() {
+      metrics = com.datadistillr.udf.H3Metrics.function("hexRange", true);
       try {
         h3 = com.uber.h3core.H3Core.newInstance();
       } catch (java.io.IOException e) {
@@ -361,24 +368,43 @@ public class H3TraversalFunctions {
 
     @Override
     public void eval() {
-      if (h3 == null) {
-        return;
-      }
+      com.datadistillr.udf.H3Traversal.hexRange(h3, metrics, originInput.buffer, originInput.start, originInput.end,
+        kInput.value, outWriter, buffer);
+    }
+  }
+
+  @FunctionTemplate(names = {"hexRing", "hex_ring"},
+    scope = FunctionTemplate.FunctionScope.SIMPLE)
+  public static class hexRing implements DrillSimpleFunc {
+
+    @Param
+    BigIntHolder originInput;
+
+    @Param
+    IntHolder kInput;
+
+    @Output
+    BaseWriter.ComplexWriter outWriter;
 
-      long origin = originInput.value;
-      int k = kInput.value;
+    @Workspace
+    com.uber.h3core.H3Core h3;
+
+    @Workspace
+    com.datadistillr.udf.H3FunctionMetrics metrics;
 
-      java.util.List<Long> results = null;
+    @Override
+    public void setup() {
+      metrics = com.datadistillr.udf.H3Metrics.function("hexRing", true);
       try {
-        results = h3.hexRing(origin, k);
-      } catch (com.uber.h3core.exceptions.PentagonEncounteredException e) {
-        return;
+        h3 = com.uber.h3core.H3Core.newInstance();
+      } catch (java.io.IOException e) {
+        h3 = null;
       }
-      org.apache.drill.exec.vector.complex.writer.BaseWriter.ListWriter queryListWriter = outWriter.rootAsList();
+    }
 
-      for (Long result : results) {
-        queryListWriter.bigInt().writeBigInt(result);
-      }
+    @Override
+    public void eval() {
+      com.datadistillr.udf.H3Traversal.hexRing(h3, metrics, originInput.value, kInput.value, outWriter);
     }
   }
 
@@ -401,8 +427,12 @@ public class H3TraversalFunctions {
     @Workspace
     com.uber.h3core.H3Core h3;
 
+    @Workspace
+    com.datadistillr.udf.H3FunctionMetrics metrics;
+
     @Override
     public void setup() {
+      metrics = com.datadistillr.udf.H3Metrics.function("hexRing", true);
       try {
         h3 = com.uber.h3core.H3Core.newInstance();
       } catch (java.io.IOException e) {
@@ -412,24 +442,8 @@ public class H3TraversalFunctions {
 
     @Override
     public void eval() {
-      if (h3 == null) {
-        return;
-      }
-
-      String h3Address = org.apache.drill.exec.expr.fn.impl.StringFunctionHelpers.getStringFromVarCharHolder(originInput);
-      int k = kInput.value;
-
-      java.util.List<String> results = null;
-      try {
-        results = h3.hexRing(h3Address, k);
-      } catch (com.uber.h3core.exceptions.PentagonEncounteredException e) {
-        return;
-      }
-      org.apache.drill.exec.vector.complex.writer.BaseWriter.ListWriter queryListWriter = outWriter.rootAsList();
-      for (String result : results) {
-        buffer.setBytes(0, result.getBytes());
-        queryListWriter.varChar().writeVarChar(0, result.getBytes().length, buffer);
-      }
+      com.datadistillr.udf.H3Traversal.hexRing(h3, metrics, originInput.buffer, originInput.start, originInput.end,
+        kInput.value, outWriter, buffer);
     }
   }
 
@@ -449,8 +463,12 @@ public class H3TraversalFunctions {
     @Workspace
     com.uber.h3core.H3Core h3;
 
+    @Workspace
+    com.datadistillr.udf.H3FunctionMetrics metrics;
+
     @Override
     public void setup() {
+      metrics = com.datadistillr.udf.H3Metrics.function("h3Line", true);
       try {
         h3 = com.uber.h3core.H3Core.newInstance();
       } catch (java.io.IOException e) {
@@ -460,24 +478,7 @@ public class H3TraversalFunctions {
 
     @Override
     public void eval() {
-      if (h3 == null) {
-        return;
-      }
-
-      long start = startHolder.value;
-      long end = endHolder.value;
-      java.util.List<Long> line;
-      try {
-       line = h3.h3Line(start, end);
-      } catch (com.uber.h3core.exceptions.LineUndefinedException e) {
-        return;
-      }
-
-      org.apache.drill.exec.vector.complex.writer.BaseWriter.ListWriter queryListWriter = outWriter.rootAsList();
-
-      for (Long result : line) {
-        queryListWriter.bigInt().writeBigInt(result);
-      }
+      com.datadistillr.udf.H3Traversal.line(h3, metrics, startHolder.value, endHolder.value, outWriter);
     }
   }
 
@@ -501,8 +502,12 @@ public class H3TraversalFunctions {
     @Workspace
     com.uber.h3core.H3Core h3;
 
+    @Workspace
+    com.datadistillr.udf.H3FunctionMetrics metrics;
+
     @Override
     public void setup() {
+      metrics = com.datadistillr.udf.H3Metrics.function("h3Line", true);
       try {
         h3 = com.uber.h3core.H3Core.newInstance();
       } catch (java.io.IOException e) {
@@ -512,31 +517,104 @@ public class H3TraversalFunctions {
 
     @Override
     public void eval() {
-      if (h3 == null) {
-        return;
-      }
+      com.datadistillr.udf.H3Traversal.line(h3, metrics, startHolder.buffer, startHolder.start, startHolder.end,
+        endHolder.buffer, endHolder.start, endHolder.end, outWriter, buffer);
+    }
+  }
+
+  @FunctionTemplate(names = {"kRingPacked", "k_ring_packed"},
+    scope = FunctionTemplate.FunctionScope.SIMPLE,
+    nulls = NullHandling.NULL_IF_NULL)
+  public static class kRingPacked implements DrillSimpleFunc {
 
-      String start = org.apache.drill.exec.expr.fn.impl.StringFunctionHelpers.getStringFromVarCharHolder(startHolder);
-      String end = org.apache.drill.exec.expr.fn.impl.StringFunctionHelpers.getStringFromVarCharHolder(endHolder);
-      java.util.List<String> line;
+    @Param
+    BigIntHolder originInput;
+
+    @Param
+    IntHolder kInput;
+
+    @Output
+    VarBinaryHolder out;
+
+    @Inject
+    DrillBuf buffer;
+
+    @Workspace
+    com.uber.h3core.H3Core h3;
+
+    @Workspace
+    com.datadistillr.udf.H3FunctionMetrics metrics;
+
+    @Workspace
+    com.datadistillr.udf.H3KRing ring;
+
+    @Override
+    public void setup() {
+      metrics = com.datadistillr.udf.H3Metrics.function("kRingPacked", true);
+      ring = new com.datadistillr.udf.H3KRing();
       try {
-        line = h3.h3Line(start, end);
-      } catch (com.uber.h3core.exceptions.LineUndefinedException e) {
-        return;
+        h3 = com.uber.h3core.H3Core.newInstance();
+      } catch (java.io.IOException e) {
+        h3 = null;
       }
+    }
+
+    @Override
+    public void eval() {
+      buffer = com.datadistillr.udf.H3Traversal.kRingPacked(h3, metrics, ring, originInput.value, kInput.value,
+        buffer);
+      out.buffer = buffer;
+      out.start = 0;
+      out.end = buffer.writerIndex();
+    }
+  }
+
+  @FunctionTemplate(names = {"hexRingPacked", "hex_ring_packed"},
+    scope = FunctionTemplate.FunctionScope.SIMPLE,
+    nulls = NullHandling.NULL_IF_NULL)
+  public static class hexRingPacked implements DrillSimpleFunc {
 
-      org.apache.drill.exec.vector.complex.writer.BaseWriter.ListWriter queryListWriter = outWriter.rootAsList();
-      for (String result : line) {
-        buffer.setBytes(0, result.getBytes());
-        queryListWriter.varChar().writeVarChar(0, result.getBytes().length, buffer);
+    @Param
+    BigIntHolder originInput;
+
+    @Param
+    IntHolder kInput;
+
+    @Output
+    VarBinaryHolder out;
+
+    @Inject
+    DrillBuf buffer;
+
+    @Workspace
+    com.uber.h3core.H3Core h3;
+
+    @Workspace
+    com.datadistillr.udf.H3FunctionMetrics metrics;
+
+    @Override
+    public void setup() {
+      metrics = com.datadistillr.udf.H3Metrics.function("hexRingPacked", true);
+      try {
+        h3 = com.uber.h3core.H3Core.newInstance();
+      } catch (java.io.IOException e) {
+        h3 = null;
       }
     }
+
+    @Override
+    public void eval() {
+      buffer = com.datadistillr.udf.H3Traversal.hexRingPacked(h3, metrics, originInput.value, kInput.value, buffer);
+      out.buffer = buffer;
+      out.start = 0;
+      out.end = buffer.writerIndex();
+    }
   }
 
-  @FunctionTemplate(names = {"h3Distance", "h3_distance"},
+  @FunctionTemplate(names = {"h3LinePacked", "h3_line_packed"},
     scope = FunctionTemplate.FunctionScope.SIMPLE,
     nulls = NullHandling.NULL_IF_NULL)
-  public static class h3Distance implements DrillSimpleFunc {
+  public static class h3LinePacked implements DrillSimpleFunc {
 
     @Param
     BigIntHolder startHolder;
@@ -545,13 +623,20 @@ public class H3TraversalFunctions {
     BigIntHolder endHolder;
 
     @Output
-    BigIntHolder out;
+    VarBinaryHolder out;
+
+    @Inject
+    DrillBuf buffer;
 
     @Workspace
     com.uber.h3core.H3Core h3;
 
+    @Workspace
+    com.datadistillr.udf.H3FunctionMetrics metrics;
+
     @Override
     public void setup() {
+      metrics = com.datadistillr.udf.H3Metrics.function("h3LinePacked", true);
       try {
         h3 = com.uber.h3core.H3Core.newInstance();
       } catch (java.io.IOException e) {
@@ -561,20 +646,196 @@ public class H3TraversalFunctions {
 
     @Override
     public void eval() {
-      if (h3 == null) {
-        return;
+      buffer = com.datadistillr.udf.H3Traversal.linePacked(h3, metrics, startHolder.value, endHolder.value, buffer);
+      out.buffer = buffer;
+      out.start = 0;
+      out.end = buffer.writerIndex();
+    }
+  }
+
+  @FunctionTemplate(names = {"h3PackedContains", "h3_packed_contains"},
+    scope = FunctionTemplate.FunctionScope.SIMPLE,
+    nulls = NullHandling.NULL_IF_NULL)
+  public static class h3PackedContains implements DrillSimpleFunc {
+
+    @Param
+    VarBinaryHolder packedInput;
+
+    @Param
+    BigIntHolder cellInput;
+
+    @Output
+    BitHolder result;
+
+    @Workspace
+    com.datadistillr.udf.H3FunctionMetrics metrics;
+
+    @Workspace
+    com.datadistillr.udf.H3Varint.Reader reader;
+
+    @Override
+    public void setup() {
+      metrics = com.datadistillr.udf.H3Metrics.function("h3PackedContains", false);
+      reader = new com.datadistillr.udf.H3Varint.Reader();
+    }
+
+    @Override
+    public void eval() {
+      result.value = com.datadistillr.udf.H3Traversal.packedContains(metrics, reader, packedInput.buffer,
+        packedInput.start, packedInput.end, cellInput.value);
+    }
+  }
+
+  @FunctionTemplate(names = {"h3PackedUnpack", "h3_packed_unpack"},
+    scope = FunctionTemplate.FunctionScope.SIMPLE)
+  public static class h3PackedUnpack implements DrillSimpleFunc {
+
+    @Param
+    NullableVarBinaryHolder packedInput;
+
+    @Output
+    BaseWriter.ComplexWriter outWriter;
+
+    @Workspace
+    com.datadistillr.udf.H3FunctionMetrics metrics;
+
+    @Workspace
+    com.datadistillr.udf.H3Varint.Reader reader;
+
+    @Override
+    public void setup() {
+      metrics = com.datadistillr.udf.H3Metrics.function("h3PackedUnpack", false);
+      reader = new com.datadistillr.udf.H3Varint.Reader();
+    }
+
+    @Override
+    public void eval() {
+      com.datadistillr.udf.H3Traversal.packedUnpack(metrics, reader, packedInput.isSet, packedInput.buffer,
+        packedInput.start, packedInput.end, outWriter);
+    }
+  }
+
+  @FunctionTemplate(names = {"h3ToLocalIj", "h3_to_local_ij"},
+    scope = FunctionTemplate.FunctionScope.SIMPLE)
+  public static class h3ToLocalIj implements DrillSimpleFunc {
+
+    @Param
+    BigIntHolder originHolder;
+
+    @Param
+    BigIntHolder cellHolder;
+
+    @Output
+    BaseWriter.ComplexWriter outWriter;
+
+    @Workspace
+    com.uber.h3core.H3Core h3;
+
+    @Workspace
+    com.datadistillr.udf.H3FunctionMetrics metrics;
+
+    @Override
+    public void setup() {
+      metrics = com.datadistillr.udf.H3Metrics.function("h3ToLocalIj", true);
+      try {
+        h3 = com.uber.h3core.H3Core.newInstance();
+      } catch (java.io.IOException e) {
+        h3 = null;
       }
+    }
+
+    @Override
+    public void eval() {
+      com.datadistillr.udf.H3Traversal.toLocalIj(h3, metrics, originHolder.value, cellHolder.value, outWriter);
+    }
+  }
+
+  @FunctionTemplate(names = {"localIjToH3", "local_ij_to_h3"},
+    scope = FunctionTemplate.FunctionScope.SIMPLE,
+    nulls = NullHandling.NULL_IF_NULL)
+  public static class localIjToH3 implements DrillSimpleFunc {
+
+    @Param
+    BigIntHolder originHolder;
 
-      long start = startHolder.value;
-      long end = endHolder.value;
-      int distance;
+    @Param
+    IntHolder iHolder;
+
+    @Param
+    IntHolder jHolder;
+
+    @Output
+    BigIntHolder out;
+
+    @Workspace
+    com.uber.h3core.H3Core h3;
+
+    @Workspace
+    com.datadistillr.udf.H3FunctionMetrics metrics;
+
+    @Workspace
+    com.datadistillr.udf.H3Memo memo;
+
+    @Override
+    public void setup() {
+      metrics = com.datadistillr.udf.H3Metrics.function("localIjToH3", true);
+      memo = com.datadistillr.udf.H3Memo.forFunction("localIjToH3");
       try {
-        distance = h3.h3Distance(start, end);
-      } catch (com.uber.h3core.exceptions.DistanceUndefinedException e) {
-        distance = -1;
+        h3 = com.uber.h3core.H3Core.newInstance();
+      } catch (java.io.IOException e) {
+        h3 = null;
       }
+    }
 
-      out.value = distance;
+    @Override
+    public void eval() {
+      out.value = com.datadistillr.udf.H3Traversal.localIjToH3(h3, metrics, memo, originHolder.value, iHolder.value,
+        jHolder.value);
+    }
+  }
+
+  @FunctionTemplate(names = {"h3Distance", "h3_distance"},
+    scope = FunctionTemplate.FunctionScope.SIMPLE,
+    nulls = NullHandling.NULL_IF_NULL)
+  public static class h3Distance implements DrillSimpleFunc {
+
+    @Param
+    BigIntHolder startHolder;
+
+    @Param
+    BigIntHolder endHolder;
+
+    @Output
+    BigIntHolder out;
+
+    @Workspace
+    com.uber.h3core.H3Core h3;
+
+    @Workspace
+    com.datadistillr.udf.H3LocalIj localIj;
+
+    @Workspace
+    com.datadistillr.udf.H3FunctionMetrics metrics;
+
+    @Workspace
+    com.datadistillr.udf.H3Memo memo;
+
+    @Override
+    public void setup() {
+      metrics = com.datadistillr.udf.H3Metrics.function("h3Distance", true);
+      memo = com.datadistillr.udf.H3Memo.forFunction("h3Distance");
+      try {
+        h3 = com.uber.h3core.H3Core.newInstance();
+      } catch (java.io.IOException e) {
+        h3 = null;
+      }
+      localIj = new com.datadistillr.udf.H3LocalIj();
+    }
+
+    @Override
+    public void eval() {
+      out.value = com.datadistillr.udf.H3Traversal.distance(h3, metrics, memo, localIj, startHolder.value,
+        endHolder.value);
     }
   }
 
@@ -596,31 +857,158 @@ public class H3TraversalFunctions {
     @Workspace
     com.uber.h3core.H3Core h3;
 
+    @Workspace
+    com.datadistillr.udf.H3LocalIj localIj;
+
+    @Workspace
+    com.datadistillr.udf.H3FunctionMetrics metrics;
+
+    @Workspace
+    com.datadistillr.udf.H3Memo memo;
+
     @Override
     public void setup() {
+      metrics = com.datadistillr.udf.H3Metrics.function("h3Distance", true);
+      memo = com.datadistillr.udf.H3Memo.forFunction("h3Distance");
       try {
         h3 = com.uber.h3core.H3Core.newInstance();
       } catch (java.io.IOException e) {
         h3 = null;
       }
+      localIj = new com.datadistillr.udf.H3LocalIj();
     }
 
     @Override
     public void eval() {
-      if (h3 == null) {
+      out.value = com.datadistillr.udf.H3Traversal.distance(h3, metrics, memo, localIj, startHolder.buffer,
+        startHolder.start, startHolder.end, endHolder.buffer, endHolder.start, endHolder.end);
+    }
+  }
+
+  @FunctionTemplate(names = {"h3DistanceToSet", "h3_distance_to_set"},
+    scope = FunctionTemplate.FunctionScope.SIMPLE,
+    nulls = NullHandling.INTERNAL)
+  public static class h3DistanceToSet implements DrillSimpleFunc {
+
+    @Param
+    NullableBigIntHolder cellInput;
+
+    @Param(constant = true)
+    VarCharHolder cellSet;
+
+    @Param(constant = true)
+    IntHolder maxKInput;
+
+    @Output
+    NullableIntHolder out;
+
+    @Workspace
+    com.datadistillr.udf.H3DistanceField field;
+
+    @Workspace
+    com.datadistillr.udf.H3FunctionMetrics metrics;
+
+    @Override
+    public void setup() {
+      metrics = com.datadistillr.udf.H3Metrics.function("h3DistanceToSet", false);
+      com.uber.h3core.H3Core h3;
+      try {
+        h3 = com.uber.h3core.H3Core.newInstance();
+      } catch (java.io.IOException e) {
         return;
       }
+      String spec = org.apache.drill.exec.expr.fn.impl.StringFunctionHelpers.getStringFromVarCharHolder(cellSet);
+      field = com.datadistillr.udf.H3DistanceField.build(h3, spec, maxKInput.value);
+    }
+
+    @Override
+    public void eval() {
+      int distance = com.datadistillr.udf.H3Traversal.distanceToSet(metrics, field, cellInput.isSet, cellInput.value);
+      out.isSet = distance < 0 ? 0 : 1;
+      out.value = distance < 0 ? 0 : distance;
+    }
+  }
+
+  @FunctionTemplate(names = {"h3DistanceToSet", "h3_distance_to_set"},
+    scope = FunctionTemplate.FunctionScope.SIMPLE,
+    nulls = NullHandling.INTERNAL)
+  public static class h3StringDistanceToSet implements DrillSimpleFunc {
+
+    @Param
+    NullableVarCharHolder cellInput;
+
+    @Param(constant = true)
+    VarCharHolder cellSet;
 
-      String start = org.apache.drill.exec.expr.fn.impl.StringFunctionHelpers.getStringFromVarCharHolder(startHolder);
-      String end = org.apache.drill.exec.expr.fn.impl.StringFunctionHelpers.getStringFromVarCharHolder(endHolder);
-      int distance;
+    @Param(constant = true)
+    IntHolder maxKInput;
+
+    @Output
+    NullableIntHolder out;
+
+    @Workspace
+    com.datadistillr.udf.H3DistanceField field;
+
+    @Workspace
+    com.datadistillr.udf.H3FunctionMetrics metrics;
+
+    @Override
+    public void setup() {
+      metrics = com.datadistillr.udf.H3Metrics.function("h3DistanceToSet", false);
+      com.uber.h3core.H3Core h3;
       try {
-        distance = h3.h3Distance(start, end);
-      } catch (com.uber.h3core.exceptions.DistanceUndefinedException e) {
-        distance = -1;
+        h3 = com.uber.h3core.H3Core.newInstance();
+      } catch (java.io.IOException e) {
+        return;
       }
+      String spec = org.apache.drill.exec.expr.fn.impl.StringFunctionHelpers.getStringFromVarCharHolder(cellSet);
+      field = com.datadistillr.udf.H3DistanceField.build(h3, spec, maxKInput.value);
+    }
 
-      out.value = distance;
+    @Override
+    public void eval() {
+      int distance = com.datadistillr.udf.H3Traversal.distanceToSet(metrics, field, cellInput.isSet, cellInput.buffer,
+        cellInput.start, cellInput.end);
+      out.isSet = distance < 0 ? 0 : 1;
+      out.value = distance < 0 ? 0 : distance;
+    }
+  }
+
+  @FunctionTemplate(names = {"h3CellsWithinKm", "h3_cells_within_km"},
+    scope = FunctionTemplate.FunctionScope.SIMPLE)
+  public static class h3CellsWithinKm implements DrillSimpleFunc {
+
+    @Param
+    Float8Holder latitude;
+
+    @Param
+    Float8Holder longitude;
+
+    @Param
+    Float8Holder km;
+
+    @Param
+    IntHolder resolution;
+
+    @Output
+    BaseWriter.ComplexWriter outWriter;
+
+    @Workspace
+    com.datadistillr.udf.H3RadiusSearch search;
+
+    @Workspace
+    com.datadistillr.udf.H3FunctionMetrics metrics;
+
+    @Override
+    public void setup() {
+      metrics = com.datadistillr.udf.H3Metrics.function("h3CellsWithinKm", false);
+      search = new com.datadistillr.udf.H3RadiusSearch();
+    }
+
+    @Override
+    public void eval() {
+      com.datadistillr.udf.H3Traversal.cellsWithinKm(metrics, search, latitude.value, longitude.value, km.value,
+        resolution.value, outWriter);
     }
   }
 }
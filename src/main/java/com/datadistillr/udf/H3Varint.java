@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.datadistillr.udf;
+
+import io.netty.buffer.DrillBuf;
+
+/**
+ * Unsigned LEB128 variable length integers, used by the compact binary formats in this package.
+ * Sorted H3 cells are stored as varint deltas, which takes 2 to 5 bytes per cell for typical neighbourhoods.
+ */
+public final class H3Varint {
+
+  private H3Varint() {
+  }
+
+  /**
+   * @return the number of bytes {@link #write(DrillBuf, int, long)} uses for the value.
+   */
+  public static int length(long value) {
+    int length = 1;
+    while ((value & ~0x7FL) != 0L) {
+      value >>>= 7;
+      length++;
+    }
+    return length;
+  }
+
+  /**
+   * Writes the value at the index.
+   *
+   * @return the index just past the written bytes.
+   */
+  public static int write(DrillBuf buffer, int index, long value) {
+    while ((value & ~0x7FL) != 0L) {
+      buffer.setByte(index++, (int) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    buffer.setByte(index++, (int) value);
+    return index;
+  }
+
+  /**
+   * Reads varints sequentially from a range of a buffer.  A single reader can be kept in a UDF workspace and
+   * reset for every row.
+   */
+  public static final class Reader {
+
+    private DrillBuf buffer;
+
+    private int position;
+
+    private int end;
+
+    public Reader reset(DrillBuf buffer, int start, int end) {
+      this.buffer = buffer;
+      this.position = start;
+      this.end = end;
+      return this;
+    }
+
+    public boolean hasNext() {
+      return position < end;
+    }
+
+    /**
+     * @throws IllegalStateException if the range ends in the middle of a value.
+     */
+    public long next() {
+      long value = 0L;
+      int shift = 0;
+      while (position < end) {
+        byte b = buffer.getByte(position++);
+        value |= (long) (b & 0x7F) << shift;
+        if (b >= 0) {
+          return value;
+        }
+        shift += 7;
+      }
+      throw new IllegalStateException("Truncated varint");
+    }
+  }
+}
@@ -0,0 +1,203 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.datadistillr.udf;
+
+import io.netty.buffer.DrillBuf;
+
+/**
+ * Reads geometries from WKB in a Drill buffer straight into primitive coordinates, without the ESRI geometry objects
+ * that OGCGeometry.fromBinary builds.  Both byte orders are read, as are the ISO and PostGIS extended forms with Z or M
+ * ordinates and an SRID, whose extra values are skipped.  WKB x is longitude and y is latitude.
+ */
+final class H3Wkb {
+
+  private static final int POINT = 1;
+
+  private static final int POLYGON = 3;
+
+  private static final int MULTI_POLYGON = 6;
+
+  private static final int EWKB_Z = 0x80000000;
+
+  private static final int EWKB_M = 0x40000000;
+
+  private static final int EWKB_SRID = 0x20000000;
+
+  /**
+   * Size of a byte order byte and a geometry type.
+   */
+  private static final int HEADER_BYTES = 5;
+
+  private H3Wkb() {
+  }
+
+  /**
+   * Replaces the polygons with those of a WKB Polygon or MultiPolygon.
+   *
+   * @throws IllegalArgumentException if the bytes are not a well-formed WKB Polygon or MultiPolygon.
+   */
+  static void readPolygons(DrillBuf buffer, int start, int end, H3Polygons polygons) {
+    polygons.clear();
+    long header = readHeader(buffer, start, end);
+    int type = type(header);
+    int index = start + headerSize(header);
+    boolean bigEndian = bigEndian(header);
+    if (type == POLYGON) {
+      index = readPolygon(buffer, index, end, bigEndian, dimensions(header), polygons);
+    } else if (type == MULTI_POLYGON) {
+      int count = readCount(buffer, index, end, bigEndian, HEADER_BYTES + 4);
+      index += 4;
+      for (int i = 0; i < count; i++) {
+        long part = readHeader(buffer, index, end);
+        if (type(part) != POLYGON) {
+          throw new IllegalArgumentException("WKB MultiPolygon has a part of geometry type " + type(part));
+        }
+        index = readPolygon(buffer, index + headerSize(part), end, bigEndian(part), dimensions(part), polygons);
+      }
+    } else {
+      throw new IllegalArgumentException("Not a WKB Polygon or MultiPolygon: geometry type " + type);
+    }
+    if (index != end) {
+      throw new IllegalArgumentException("WKB has " + (end - index) + " bytes after the geometry");
+    }
+  }
+
+  /**
+   * Reads a WKB Point into the array as its latitude, or y, followed by its longitude, or x, parsing the header once
+   * for both.
+   *
+   * @throws IllegalArgumentException if the bytes are not a well-formed WKB Point.
+   */
+  static void readPoint(DrillBuf buffer, int start, int end, double[] point) {
+    long header = readHeader(buffer, start, end);
+    if (type(header) != POINT) {
+      throw new IllegalArgumentException("Not a WKB Point: geometry type " + type(header));
+    }
+    int index = start + headerSize(header);
+    int size = dimensions(header) * 8;
+    if (end - index != size) {
+      throw new IllegalArgumentException("WKB Point has " + (end - index) + " bytes of coordinates, not " + size);
+    }
+    boolean bigEndian = bigEndian(header);
+    point[0] = readDouble(buffer, index + 8, bigEndian);
+    point[1] = readDouble(buffer, index, bigEndian);
+  }
+
+  private static int readPolygon(DrillBuf buffer, int index, int end, boolean bigEndian, int dimensions,
+                                 H3Polygons polygons) {
+    int rings = readCount(buffer, index, end, bigEndian, 4);
+    index += 4;
+    int pointBytes = dimensions * 8;
+    for (int i = 0; i < rings; i++) {
+      int points = readCount(buffer, index, end, bigEndian, pointBytes);
+      index += 4;
+      for (int j = 0; j < points; j++) {
+        polygons.addPoint(readDouble(buffer, index + 8, bigEndian), readDouble(buffer, index, bigEndian));
+        index += pointBytes;
+      }
+      polygons.endRing();
+    }
+    polygons.endPolygon();
+    return index;
+  }
+
+  /**
+   * Reads the byte order and geometry type at the index.
+   *
+   * @return the geometry type in the low 32 bits, whether it is big endian in bit 32 and whether an SRID follows in
+   * bit 33.
+   */
+  private static long readHeader(DrillBuf buffer, int index, int end) {
+    if (end - index < HEADER_BYTES) {
+      throw new IllegalArgumentException("WKB ends before the geometry type");
+    }
+    byte order = buffer.getByte(index);
+    if (order != 0 && order != 1) {
+      throw new IllegalArgumentException("Not WKB: unknown byte order " + order);
+    }
+    boolean bigEndian = order == 0;
+    int type = readInt(buffer, index + 1, bigEndian);
+    long header = bigEndian ? 1L << 32 : 0L;
+    if ((type & EWKB_SRID) != 0) {
+      if (end - index < HEADER_BYTES + 4) {
+        throw new IllegalArgumentException("WKB ends before the SRID");
+      }
+      header |= 1L << 33;
+    }
+    return header | (type & 0xFFFFFFFFL);
+  }
+
+  private static boolean bigEndian(long header) {
+    return (header & (1L << 32)) != 0;
+  }
+
+  private static int headerSize(long header) {
+    return (header & (1L << 33)) != 0 ? HEADER_BYTES + 4 : HEADER_BYTES;
+  }
+
+  /**
+   * @return the two dimensional geometry type, without the ISO offsets or the EWKB flags for Z, M and SRID.
+   */
+  private static int type(long header) {
+    return ((int) header & 0x0FFFFFFF) % 1000;
+  }
+
+  /**
+   * @return the number of ordinates of each point.
+   */
+  private static int dimensions(long header) {
+    int type = (int) header;
+    int dimensions = 2;
+    if ((type & EWKB_Z) != 0) {
+      dimensions++;
+    }
+    if ((type & EWKB_M) != 0) {
+      dimensions++;
+    }
+    int iso = (type & 0x0FFFFFFF) / 1000;
+    return dimensions + (iso == 3 ? 2 : iso == 1 || iso == 2 ? 1 : 0);
+  }
+
+  /**
+   * Reads a count of elements that each take at least minimumBytes, checking that they can fit in the rest of the
+   * WKB.
+   */
+  private static int readCount(DrillBuf buffer, int index, int end, boolean bigEndian, int minimumBytes) {
+    if (end - index < 4) {
+      throw new IllegalArgumentException("WKB ends before a count");
+    }
+    int count = readInt(buffer, index, bigEndian);
+    if (count < 0 || (long) count * minimumBytes > end - index - 4) {
+      throw new IllegalArgumentException("WKB ends before its " + (count & 0xFFFFFFFFL) + " elements");
+    }
+    return count;
+  }
+
+  private static int readInt(DrillBuf buffer, int index, boolean bigEndian) {
+    // DrillBuf is little endian, and its getIntLE and getLongLE swap bytes.
+    int value = buffer.getInt(index);
+    return bigEndian ? Integer.reverseBytes(value) : value;
+  }
+
+  private static double readDouble(DrillBuf buffer, int index, boolean bigEndian) {
+    long value = buffer.getLong(index);
+    return Double.longBitsToDouble(bigEndian ? Long.reverseBytes(value) : value);
+  }
+}
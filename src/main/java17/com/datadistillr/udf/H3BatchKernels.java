@@ -0,0 +1,48 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.datadistillr.udf;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Chooses the {@link H3BatchKernel} for the running JVM.  This is the Java 17 version, packaged under
+ * META-INF/versions/17 of the multi-release jar.  It uses {@link H3VectorBatchKernel} when the
+ * {@code jdk.incubator.vector} module has been added to the JVM and its preferred species has at least two lanes,
+ * and the scalar kernel otherwise.
+ */
+final class H3BatchKernels {
+
+  private static final Logger logger = LoggerFactory.getLogger(H3BatchKernels.class);
+
+  private H3BatchKernels() {
+  }
+
+  static H3BatchKernel create() {
+    try {
+      if (H3VectorBatchKernel.lanes() >= 2) {
+        return new H3VectorBatchKernel();
+      }
+    } catch (LinkageError | RuntimeException e) {
+      logger.debug("Vector API unavailable, using scalar H3 batch kernel: {}", e.toString());
+    }
+    return new H3ScalarBatchKernel();
+  }
+}
@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.datadistillr.udf;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Runs the batch operations with the incubating vector API.
+ * <p>
+ * For geoToH3 the conversion to radians, the trigonometry and the search for the nearest of the 20 icosahedron faces
+ * are done a vector of points at a time.  The projection onto the face and the digit computation branch per point,
+ * so they stay scalar in {@link H3GeoIndexer#faceToH3}.  Blocks holding a coordinate that is not finite are handed to
+ * the scalar kernel, as is the tail of the arrays.  The haversine distance is lanewise throughout.
+ */
+final class H3VectorBatchKernel implements H3BatchKernel {
+
+  private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+  private static final int FACES = 20;
+
+  private static final double DEGREES_TO_RADIANS = Math.PI / 180.0;
+
+  private static final double[] FACE_X = new double[FACES];
+  private static final double[] FACE_Y = new double[FACES];
+  private static final double[] FACE_Z = new double[FACES];
+
+  static {
+    for (int f = 0; f < FACES; f++) {
+      double[] center = H3GeoIndexer.faceCenter(f);
+      FACE_X[f] = center[0];
+      FACE_Y[f] = center[1];
+      FACE_Z[f] = center[2];
+    }
+  }
+
+  /**
+   * @return the number of doubles in the preferred vector.
+   */
+  static int lanes() {
+    return SPECIES.length();
+  }
+
+  @Override
+  public void geoToH3(double[] latitudes, double[] longitudes, int count, int resolution, long[] out) {
+    int lanes = SPECIES.length();
+    int bound = SPECIES.loopBound(count);
+    double[] x = new double[lanes];
+    double[] y = new double[lanes];
+    double[] z = new double[lanes];
+    double[] faces = new double[lanes];
+    int i = 0;
+    for (; i < bound; i += lanes) {
+      DoubleVector lat = DoubleVector.fromArray(SPECIES, latitudes, i).mul(DEGREES_TO_RADIANS);
+      DoubleVector lng = DoubleVector.fromArray(SPECIES, longitudes, i).mul(DEGREES_TO_RADIANS);
+      if (!lat.test(VectorOperators.IS_FINITE).and(lng.test(VectorOperators.IS_FINITE)).allTrue()) {
+        for (int lane = i; lane < i + lanes; lane++) {
+          out[lane] = H3ScalarBatchKernel.geoToH3(latitudes[lane], longitudes[lane], resolution);
+        }
+        continue;
+      }
+      DoubleVector cosLat = lat.lanewise(VectorOperators.COS);
+      DoubleVector vx = lng.lanewise(VectorOperators.COS).mul(cosLat);
+      DoubleVector vy = lng.lanewise(VectorOperators.SIN).mul(cosLat);
+      DoubleVector vz = lat.lanewise(VectorOperators.SIN);
+
+      DoubleVector face = DoubleVector.zero(SPECIES);
+      DoubleVector sqd = squareDistance(0, vx, vy, vz);
+      for (int f = 1; f < FACES; f++) {
+        DoubleVector sqdT = squareDistance(f, vx, vy, vz);
+        VectorMask<Double> nearer = sqdT.compare(VectorOperators.LT, sqd);
+        sqd = sqd.blend(sqdT, nearer);
+        face = face.blend(f, nearer);
+      }
+
+      vx.intoArray(x, 0);
+      vy.intoArray(y, 0);
+      vz.intoArray(z, 0);
+      face.intoArray(faces, 0);
+      for (int lane = 0; lane < lanes; lane++) {
+        out[i + lane] = H3GeoIndexer.faceToH3((int) faces[lane], x[lane], y[lane], z[lane], resolution);
+      }
+    }
+    for (; i < count; i++) {
+      out[i] = H3ScalarBatchKernel.geoToH3(latitudes[i], longitudes[i], resolution);
+    }
+  }
+
+  @Override
+  public void distanceKm(double[] latitudes1, double[] longitudes1, double[] latitudes2, double[] longitudes2,
+                         int count, double[] out) {
+    int lanes = SPECIES.length();
+    int bound = SPECIES.loopBound(count);
+    int i = 0;
+    for (; i < bound; i += lanes) {
+      DoubleVector lat1 = DoubleVector.fromArray(SPECIES, latitudes1, i).mul(DEGREES_TO_RADIANS);
+      DoubleVector lng1 = DoubleVector.fromArray(SPECIES, longitudes1, i).mul(DEGREES_TO_RADIANS);
+      DoubleVector lat2 = DoubleVector.fromArray(SPECIES, latitudes2, i).mul(DEGREES_TO_RADIANS);
+      DoubleVector lng2 = DoubleVector.fromArray(SPECIES, longitudes2, i).mul(DEGREES_TO_RADIANS);
+      DoubleVector sinLat = lat1.sub(lat2).mul(0.5).lanewise(VectorOperators.SIN);
+      DoubleVector sinLng = lng1.sub(lng2).mul(0.5).lanewise(VectorOperators.SIN);
+      DoubleVector a = sinLat.mul(sinLat).add(lat1.lanewise(VectorOperators.COS)
+        .mul(lat2.lanewise(VectorOperators.COS)).mul(sinLng).mul(sinLng));
+      a.sqrt().lanewise(VectorOperators.ATAN2, a.neg().add(1.0).sqrt())
+        .mul(2.0 * H3GreatCircle.EARTH_RADIUS_KM)
+        .intoArray(out, i);
+    }
+    for (; i < count; i++) {
+      out[i] = H3GreatCircle.distanceKm(latitudes1[i], longitudes1[i], latitudes2[i], longitudes2[i]);
+    }
+  }
+
+  private static DoubleVector squareDistance(int face, DoubleVector x, DoubleVector y, DoubleVector z) {
+    DoubleVector dx = x.sub(FACE_X[face]);
+    DoubleVector dy = y.sub(FACE_Y[face]);
+    DoubleVector dz = z.sub(FACE_Z[face]);
+    return dx.mul(dx).add(dy.mul(dy)).add(dz.mul(dz));
+  }
+
+  @Override
+  public String toString() {
+    return "vector (" + SPECIES + ")";
+  }
+}
@@ -0,0 +1,205 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.datadistillr.udf;
+
+import org.apache.drill.common.types.TypeProtos.MinorType;
+import org.apache.drill.exec.physical.rowSet.RowSet;
+import org.apache.drill.exec.record.metadata.SchemaBuilder;
+import org.apache.drill.exec.record.metadata.TupleMetadata;
+import org.apache.drill.test.ClusterFixture;
+import org.apache.drill.test.ClusterFixtureBuilder;
+import org.apache.drill.test.ClusterTest;
+import org.apache.drill.test.QueryBuilder;
+import org.apache.drill.test.rowSet.RowSetComparison;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class H3AggregateUDFTest extends ClusterTest {
+
+  @BeforeClass
+  public static void setup() throws Exception {
+    ClusterFixtureBuilder builder = ClusterFixture.builder(dirTestWatcher);
+    startCluster(builder);
+  }
+
+  @Test
+  public void testH3Histogram() throws Exception {
+    String sql = "SELECT e.entry.cell AS cell, e.entry.`count` AS cnt FROM " +
+      "(SELECT flatten(h3HistogramEntries(h3Histogram(cell))) AS entry " +
+      "FROM (VALUES(617700169958293503), (617733151102074879), (617700169958293503)) AS t(cell)) AS e";
+
+    QueryBuilder q = client.queryBuilder().sql(sql);
+    RowSet results = q.rowSet();
+
+    TupleMetadata expectedSchema = new SchemaBuilder()
+      .addNullable("cell", MinorType.BIGINT)
+      .addNullable("cnt", MinorType.BIGINT)
+      .build();
+
+    RowSet expected = client.rowSetBuilder(expectedSchema)
+      .addRow(617700169958293503L, 2L)
+      .addRow(617733151102074879L, 1L)
+      .build();
+
+    new RowSetComparison(expected).verifyAndClearAll(results);
+  }
+
+  @Test
+  public void testH3HistogramMerge() throws Exception {
+    String sql = "SELECT e.entry.cell AS cell, e.entry.`count` AS cnt FROM " +
+      "(SELECT flatten(h3HistogramEntries(h3HistogramMerge(partial))) AS entry FROM " +
+      "(SELECT grp, h3Histogram(cell) AS partial " +
+      "FROM (VALUES(1, 617700169958293503), (2, 617733151102074879), (2, 617700169958293503)) AS t(grp, cell) " +
+      "GROUP BY grp)) AS e";
+
+    QueryBuilder q = client.queryBuilder().sql(sql);
+    RowSet results = q.rowSet();
+
+    TupleMetadata expectedSchema = new SchemaBuilder()
+      .addNullable("cell", MinorType.BIGINT)
+      .addNullable("cnt", MinorType.BIGINT)
+      .build();
+
+    RowSet expected = client.rowSetBuilder(expectedSchema)
+      .addRow(617700169958293503L, 2L)
+      .addRow(617733151102074879L, 1L)
+      .build();
+
+    new RowSetComparison(expected).verifyAndClearAll(results);
+  }
+
+  @Test
+  public void testH3Pyramid() throws Exception {
+    String sql = "SELECT e.entry.res AS res, e.entry.cell AS cell, e.entry.`count` AS cnt FROM " +
+      "(SELECT flatten(h3PyramidEntries(h3Pyramid(cell, 8))) AS entry " +
+      "FROM (VALUES(617700169958293503), (617700169999712255), (617700169958293503)) AS t(cell)) AS e";
+
+    QueryBuilder q = client.queryBuilder().sql(sql);
+    RowSet results = q.rowSet();
+
+    TupleMetadata expectedSchema = new SchemaBuilder()
+      .addNullable("res", MinorType.INT)
+      .addNullable("cell", MinorType.BIGINT)
+      .addNullable("cnt", MinorType.BIGINT)
+      .build();
+
+    RowSet expected = client.rowSetBuilder(expectedSchema)
+      .addRow(8, 613196570331971583L, 2L)
+      .addRow(8, 613196570373914623L, 1L)
+      .addRow(9, 617700169958293503L, 2L)
+      .addRow(9, 617700169999712255L, 1L)
+      .build();
+
+    new RowSetComparison(expected).verifyAndClearAll(results);
+  }
+
+  @Test
+  public void testH3AdaptiveBins() throws Exception {
+    String sql = "SELECT e.entry.res AS res, e.entry.cell AS cell, e.entry.`count` AS cnt FROM " +
+      "(SELECT flatten(h3PyramidEntries(h3AdaptiveBins(cell, 1, 7))) AS entry " +
+      "FROM (VALUES(617700169958293503), (617700169999712255), (617700169958293503)) AS t(cell)) AS e";
+
+    QueryBuilder q = client.queryBuilder().sql(sql);
+    RowSet results = q.rowSet();
+
+    TupleMetadata expectedSchema = new SchemaBuilder()
+      .addNullable("res", MinorType.INT)
+      .addNullable("cell", MinorType.BIGINT)
+      .addNullable("cnt", MinorType.BIGINT)
+      .build();
+
+    RowSet expected = client.rowSetBuilder(expectedSchema)
+      .addRow(7, 608692970752835583L, 1L)
+      .addRow(9, 617700169958293503L, 2L)
+      .build();
+
+    new RowSetComparison(expected).verifyAndClearAll(results);
+  }
+
+  @Test
+  public void testH3AdaptiveBinsMixedResolutions() throws Exception {
+    // The second cell is the parent of the first.  The first has to be kept, so the parent's own count goes to its
+    // center child instead of overlapping it.
+    String sql = "SELECT e.entry.res AS res, e.entry.cell AS cell, e.entry.`count` AS cnt FROM " +
+      "(SELECT flatten(h3PyramidEntries(h3AdaptiveBins(cell, 1, 7))) AS entry " +
+      "FROM (VALUES(617700169958293503), (613196570331971583), (617700169958293503)) AS t(cell)) AS e";
+
+    QueryBuilder q = client.queryBuilder().sql(sql);
+    RowSet results = q.rowSet();
+
+    TupleMetadata expectedSchema = new SchemaBuilder()
+      .addNullable("res", MinorType.INT)
+      .addNullable("cell", MinorType.BIGINT)
+      .addNullable("cnt", MinorType.BIGINT)
+      .build();
+
+    RowSet expected = client.rowSetBuilder(expectedSchema)
+      .addRow(9, 617700169957507071L, 1L)
+      .addRow(9, 617700169958293503L, 2L)
+      .build();
+
+    new RowSetComparison(expected).verifyAndClearAll(results);
+  }
+
+  @Test
+  public void testH3Path() throws Exception {
+    // Out of time order, with a repeated cell and a gap of two cells between the last two points.
+    String sql = "SELECT flatten(h3PathCells(h3Path(CAST(lat AS DOUBLE), CAST(lng AS DOUBLE), CAST(ts AS TIMESTAMP), " +
+      "9))) AS cell FROM (VALUES(37.775, -122.408, '2024-01-01 00:00:03'), " +
+      "(37.775, -122.418, '2024-01-01 00:00:01'), (37.775, -122.418, '2024-01-01 00:00:02')) AS t(lat, lng, ts)";
+
+    QueryBuilder q = client.queryBuilder().sql(sql);
+    RowSet results = q.rowSet();
+
+    TupleMetadata expectedSchema = new SchemaBuilder()
+      .add("cell", MinorType.BIGINT)
+      .build();
+
+    RowSet expected = client.rowSetBuilder(expectedSchema)
+      .addRow(617700169957507071L)
+      .addRow(617700169958031359L)
+      .addRow(617700169963012095L)
+      .addRow(617700169961701375L)
+      .build();
+
+    new RowSetComparison(expected).verifyAndClearAll(results);
+  }
+
+  @Test
+  public void testH3PathLongGap() throws Exception {
+    // About 1,180,000 cells apart at resolution 15, more than the traversal limit, so the gap is left as a jump.
+    String sql = "SELECT flatten(h3PathCells(h3Path(CAST(lat AS DOUBLE), CAST(lng AS DOUBLE), CAST(ts AS TIMESTAMP), " +
+      "15))) AS cell FROM (VALUES(37.775938728915946, -122.41795063018799, '2024-01-01 00:00:01'), " +
+      "(37.775938728915946, -110.0, '2024-01-01 00:00:02')) AS t(lat, lng, ts)";
+
+    QueryBuilder q = client.queryBuilder().sql(sql);
+    RowSet results = q.rowSet();
+
+    TupleMetadata expectedSchema = new SchemaBuilder()
+      .add("cell", MinorType.BIGINT)
+      .build();
+
+    RowSet expected = client.rowSetBuilder(expectedSchema)
+      .addRow(644721767722457330L)
+      .addRow(644693889606232926L)
+      .build();
+
+    new RowSetComparison(expected).verifyAndClearAll(results);
+  }
+}
@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.datadistillr.udf;
+
+import org.apache.drill.common.types.TypeProtos.MinorType;
+import org.apache.drill.exec.physical.rowSet.RowSet;
+import org.apache.drill.exec.record.metadata.SchemaBuilder;
+import org.apache.drill.exec.record.metadata.TupleMetadata;
+import org.apache.drill.test.ClusterFixture;
+import org.apache.drill.test.ClusterFixtureBuilder;
+import org.apache.drill.test.ClusterTest;
+import org.apache.drill.test.QueryBuilder;
+import org.apache.drill.test.rowSet.RowSetComparison;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class H3CellSetUDFTest extends ClusterTest {
+
+  private static final String SETS = "(SELECT " +
+    "h3SetAgg(CASE WHEN grp = 1 THEN cell END) AS a, " +
+    "h3SetAgg(CASE WHEN grp = 2 THEN cell END) AS b " +
+    "FROM (VALUES(1, 617700169958293503), (1, 617733151102074879), (1, 617700169958293503), " +
+    "(2, 617733151102074879), (2, 617700169999712255)) AS t(grp, cell))";
+
+  @BeforeClass
+  public static void setup() throws Exception {
+    ClusterFixtureBuilder builder = ClusterFixture.builder(dirTestWatcher);
+    startCluster(builder);
+  }
+
+  @Test
+  public void testH3SetCardinalityAndContains() throws Exception {
+    String sql = "SELECT h3SetCardinality(a) AS card, " +
+      "h3SetContains(a, 617733151102074879) AS hit, " +
+      "h3SetContains(a, 617700169999712255) AS miss FROM " + SETS;
+
+    QueryBuilder q = client.queryBuilder().sql(sql);
+    RowSet results = q.rowSet();
+
+    TupleMetadata expectedSchema = new SchemaBuilder()
+      .addNullable("card", MinorType.INT)
+      .addNullable("hit", MinorType.BIT)
+      .addNullable("miss", MinorType.BIT)
+      .build();
+
+    RowSet expected = client.rowSetBuilder(expectedSchema)
+      .addRow(2, true, false)
+      .build();
+
+    new RowSetComparison(expected).verifyAndClearAll(results);
+  }
+
+  @Test
+  public void testH3SetUnion() throws Exception {
+    String sql = "SELECT flatten(h3SetCells(h3SetUnion(a, b))) AS cell FROM " + SETS;
+
+    QueryBuilder q = client.queryBuilder().sql(sql);
+    RowSet results = q.rowSet();
+
+    TupleMetadata expectedSchema = new SchemaBuilder()
+      .add("cell", MinorType.BIGINT)
+      .build();
+
+    RowSet expected = client.rowSetBuilder(expectedSchema)
+      .addRow(617700169958293503L)
+      .addRow(617700169999712255L)
+      .addRow(617733151102074879L)
+      .build();
+
+    new RowSetComparison(expected).verifyAndClearAll(results);
+  }
+
+  @Test
+  public void testH3SetIntersect() throws Exception {
+    String sql = "SELECT flatten(h3SetCells(h3SetIntersect(a, b))) AS cell FROM " + SETS;
+
+    QueryBuilder q = client.queryBuilder().sql(sql);
+    RowSet results = q.rowSet();
+
+    TupleMetadata expectedSchema = new SchemaBuilder()
+      .add("cell", MinorType.BIGINT)
+      .build();
+
+    RowSet expected = client.rowSetBuilder(expectedSchema)
+      .addRow(617733151102074879L)
+      .build();
+
+    new RowSetComparison(expected).verifyAndClearAll(results);
+  }
+}
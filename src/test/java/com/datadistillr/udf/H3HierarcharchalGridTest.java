@@ -19,6 +19,7 @@
 package com.datadistillr.udf;
 
 import org.apache.drill.common.types.TypeProtos.MinorType;
+import org.apache.drill.exec.metrics.DrillMetrics;
 import org.apache.drill.exec.physical.rowSet.RowSet;
 import org.apache.drill.exec.record.metadata.SchemaBuilder;
 import org.apache.drill.exec.record.metadata.TupleMetadata;
@@ -30,6 +31,9 @@ import org.apache.drill.test.rowSet.RowSetComparison;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
 public class H3HierarcharchalGridTest extends ClusterTest {
 
   @BeforeClass
@@ -76,4 +80,32 @@ public class H3HierarcharchalGridTest extends ClusterTest {
     new RowSetComparison(expected).verifyAndClearAll(results);
   }
 
+  @Test
+  public void testH3ToParentMemo() throws Exception {
+    long hits = DrillMetrics.getRegistry().counter("drill.h3.h3ToParent.memo_hits").getCount();
+    long nativeCalls = DrillMetrics.getRegistry().counter("drill.h3.h3ToParent.native_calls").getCount();
+
+    String sql = "SELECT h3ToParent(cell, 4) AS address " +
+      "FROM (VALUES(599686042433355775), (599686042433355775), (599686042433355775)) AS t(cell)";
+
+    QueryBuilder q = client.queryBuilder().sql(sql);
+    RowSet results = q.rowSet();
+
+    TupleMetadata expectedSchema = new SchemaBuilder()
+      .add("address", MinorType.BIGINT)
+      .build();
+
+    RowSet expected = client.rowSetBuilder(expectedSchema)
+      .addRow(595182446027210751L)
+      .addRow(595182446027210751L)
+      .addRow(595182446027210751L)
+      .build();
+
+    new RowSetComparison(expected).verifyAndClearAll(results);
+
+    // Only the first of the repeated rows calls into the H3 library.
+    assertEquals(hits + 2, DrillMetrics.getRegistry().counter("drill.h3.h3ToParent.memo_hits").getCount());
+    assertEquals(nativeCalls + 1, DrillMetrics.getRegistry().counter("drill.h3.h3ToParent.native_calls").getCount());
+    assertTrue(DrillMetrics.getRegistry().getGauges().containsKey("drill.h3.h3ToParent.memo_hit_rate"));
+  }
 }
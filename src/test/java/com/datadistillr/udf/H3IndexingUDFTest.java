@@ -20,6 +20,7 @@ package com.datadistillr.udf;
 
 import org.apache.drill.common.types.TypeProtos.DataMode;
 import org.apache.drill.common.types.TypeProtos.MinorType;
+import org.apache.drill.exec.metrics.DrillMetrics;
 import org.apache.drill.exec.physical.rowSet.RowSet;
 import org.apache.drill.exec.record.metadata.SchemaBuilder;
 import org.apache.drill.exec.record.metadata.TupleMetadata;
@@ -32,6 +33,9 @@ import org.apache.drill.test.rowSet.RowSetComparison;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
 
 public class H3IndexingUDFTest extends ClusterTest {
 
@@ -60,6 +64,62 @@ public class H3IndexingUDFTest extends ClusterTest {
     new RowSetComparison(expected).verifyAndClearAll(results);
   }
 
+  @Test
+  public void testGeoToH3Metrics() throws Exception {
+    long rows = DrillMetrics.getRegistry().counter("drill.h3.geoToH3.rows").getCount();
+    long nativeCalls = DrillMetrics.getRegistry().counter("drill.h3.geoToH3.native_calls").getCount();
+
+    String sql = "SELECT geoToH3(CAST(lat AS DOUBLE), 10.0, 5) AS address FROM (VALUES(1.0), (2.0), (3.0)) AS t(lat)";
+    client.queryBuilder().sql(sql).run();
+
+    assertTrue(DrillMetrics.getRegistry().counter("drill.h3.geoToH3.rows").getCount() >= rows + 3);
+    // geoToH3 is computed in Java, so it never calls into the native library.
+    assertEquals(nativeCalls, DrillMetrics.getRegistry().counter("drill.h3.geoToH3.native_calls").getCount());
+    assertEquals(0, DrillMetrics.getRegistry().counter("drill.h3.geoToH3.fallbacks").getCount());
+  }
+
+  @Test
+  public void testGeoToH3FromWkb() throws RpcException {
+    String sql = "SELECT geoToH3(binary_string('\\x01\\x01\\x00\\x00\\x00\\x00\\x00\\x00\\xB4\\xBF\\x9A\\x5E\\xC0" +
+      "\\x68\\x32\\xD4\\xF5\\x51\\xE3\\x42\\x40'), 9) AS address FROM (VALUES(1))";
+
+    QueryBuilder q = client.queryBuilder().sql(sql);
+    RowSet results = q.rowSet();
+
+    TupleMetadata expectedSchema = new SchemaBuilder()
+      .add("address", MinorType.BIGINT)
+      .build();
+
+    RowSet expected = client.rowSetBuilder(expectedSchema)
+      .addRow(617700169958293503L)
+      .build();
+
+    new RowSetComparison(expected).verifyAndClearAll(results);
+  }
+
+  @Test
+  public void testGeoToH3FromGeoJson() throws RpcException {
+    String sql = "SELECT geoToH3(geometry, 9) AS address FROM (VALUES" +
+      "('{\"type\": \"Point\", \"coordinates\": [-122.41795063018799, 37.775938728915946]}'), " +
+      "('{\"type\": \"Feature\", \"properties\": {\"id\": 1}, " +
+      "\"geometry\": {\"coordinates\": [-122.41795063018799, 37.775938728915946], \"type\": \"Point\"}}')" +
+      ") AS t(geometry)";
+
+    QueryBuilder q = client.queryBuilder().sql(sql);
+    RowSet results = q.rowSet();
+
+    TupleMetadata expectedSchema = new SchemaBuilder()
+      .add("address", MinorType.BIGINT)
+      .build();
+
+    RowSet expected = client.rowSetBuilder(expectedSchema)
+      .addRow(617700169958293503L)
+      .addRow(617700169958293503L)
+      .build();
+
+    new RowSetComparison(expected).verifyAndClearAll(results);
+  }
+
   @Test
   public void testGeoToH3Address() throws RpcException {
     String sql = "SELECT geoToH3Address(37.775938728915946, -122.41795063018799, 9) AS address " +
@@ -18,10 +18,18 @@
 
 package com.datadistillr.udf;
 
+import org.apache.drill.common.types.TypeProtos.MinorType;
+import org.apache.drill.exec.physical.rowSet.RowSet;
+import org.apache.drill.exec.record.metadata.SchemaBuilder;
+import org.apache.drill.exec.record.metadata.TupleMetadata;
 import org.apache.drill.test.ClusterFixture;
 import org.apache.drill.test.ClusterFixtureBuilder;
 import org.apache.drill.test.ClusterTest;
+import org.apache.drill.test.rowSet.RowSetComparison;
 import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.assertTrue;
 
 public class H3InspectionUDFTest extends ClusterTest {
 
@@ -31,4 +39,29 @@ public class H3InspectionUDFTest extends ClusterTest {
     startCluster(builder);
   }
 
+  @Test
+  public void testStringToH3Repeated() throws Exception {
+    long hits = H3Metrics.ADDRESS_CACHE_HITS.getCount();
+
+    String sql = "SELECT stringToH3(address) AS cell, h3IsValid(address) AS valid " +
+      "FROM (VALUES('8928308280fffff'), ('8928308280fffff'), ('8928308280ffff'), ('8928308280fffff')) AS t(address)";
+    RowSet results = client.queryBuilder().sql(sql).rowSet();
+
+    TupleMetadata expectedSchema = new SchemaBuilder()
+      .add("cell", MinorType.BIGINT)
+      .add("valid", MinorType.BIT)
+      .build();
+
+    RowSet expected = client.rowSetBuilder(expectedSchema)
+      .addRow(617700169958293503L, true)
+      .addRow(617700169958293503L, true)
+      .addRow(38606260622393343L, false)
+      .addRow(617700169958293503L, true)
+      .build();
+
+    new RowSetComparison(expected).verifyAndClearAll(results);
+
+    // Both functions parse each repeated address once.
+    assertTrue(H3Metrics.ADDRESS_CACHE_HITS.getCount() >= hits + 4);
+  }
 }
@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.datadistillr.udf;
+
+import org.apache.drill.common.types.TypeProtos.MinorType;
+import org.apache.drill.exec.physical.rowSet.RowSet;
+import org.apache.drill.exec.record.metadata.SchemaBuilder;
+import org.apache.drill.exec.record.metadata.TupleMetadata;
+import org.apache.drill.test.ClusterFixture;
+import org.apache.drill.test.ClusterFixtureBuilder;
+import org.apache.drill.test.ClusterTest;
+import org.apache.drill.test.QueryBuilder;
+import org.apache.drill.test.rowSet.RowSetComparison;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+
+public class H3LookupUDFTest extends ClusterTest {
+
+  private static String tablePath;
+
+  @BeforeClass
+  public static void setup() throws Exception {
+    ClusterFixtureBuilder builder = ClusterFixture.builder(dirTestWatcher);
+    startCluster(builder);
+
+    // A res 9 cell and the res 5 parent of a neighbouring area
+    File tableFile = new File(dirTestWatcher.getTmpDir(), "regions.h3lt");
+    H3LookupTableBuilder.write(tableFile, new long[] {599685771850416127L, 617700169958293503L}, new int[] {2, 1}, 2);
+    tablePath = tableFile.getAbsolutePath();
+  }
+
+  @Test
+  public void testH3Lookup() throws Exception {
+    String sql = String.format("SELECT h3Lookup(617700169958293503, '%1$s') AS exact, " +
+      "h3Lookup(617700169999712255, '%1$s') AS fallback, " +
+      "h3Lookup(617733151102074879, '%1$s') AS missing FROM (VALUES(1))", tablePath);
+
+    QueryBuilder q = client.queryBuilder().sql(sql);
+    RowSet results = q.rowSet();
+
+    TupleMetadata expectedSchema = new SchemaBuilder()
+      .addNullable("exact", MinorType.INT)
+      .addNullable("fallback", MinorType.INT)
+      .addNullable("missing", MinorType.INT)
+      .build();
+
+    RowSet expected = client.rowSetBuilder(expectedSchema)
+      .addRow(1, 2, null)
+      .build();
+
+    new RowSetComparison(expected).verifyAndClearAll(results);
+  }
+
+  @Test
+  public void testH3LookupFromString() throws Exception {
+    String sql = String.format("SELECT h3Lookup('8928308280fffff', '%1$s') AS exact, " +
+      "h3Lookup('89283082a87ffff', '%1$s') AS fallback FROM (VALUES(1))", tablePath);
+
+    QueryBuilder q = client.queryBuilder().sql(sql);
+    RowSet results = q.rowSet();
+
+    TupleMetadata expectedSchema = new SchemaBuilder()
+      .addNullable("exact", MinorType.INT)
+      .addNullable("fallback", MinorType.INT)
+      .build();
+
+    RowSet expected = client.rowSetBuilder(expectedSchema)
+      .addRow(1, 2)
+      .build();
+
+    new RowSetComparison(expected).verifyAndClearAll(results);
+  }
+}
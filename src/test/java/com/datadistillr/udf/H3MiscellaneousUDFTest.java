@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.datadistillr.udf;
+
+import org.apache.drill.common.types.TypeProtos.MinorType;
+import org.apache.drill.exec.metrics.DrillMetrics;
+import org.apache.drill.exec.physical.rowSet.RowSet;
+import org.apache.drill.exec.record.metadata.SchemaBuilder;
+import org.apache.drill.exec.record.metadata.TupleMetadata;
+import org.apache.drill.test.ClusterFixture;
+import org.apache.drill.test.ClusterFixtureBuilder;
+import org.apache.drill.test.ClusterTest;
+import org.apache.drill.test.QueryBuilder;
+import org.apache.drill.test.rowSet.RowSetComparison;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+
+public class H3MiscellaneousUDFTest extends ClusterTest {
+
+  @BeforeClass
+  public static void setup() throws Exception {
+    ClusterFixtureBuilder builder = ClusterFixture.builder(dirTestWatcher);
+    startCluster(builder);
+  }
+
+  @Test
+  public void testPointDistKm() throws Exception {
+    String sql = "SELECT h3_point_dist_km(37.775938728915946, -122.41795063018799, 37.3382, -121.8863) AS dist " +
+      "FROM (VALUES(1))";
+
+    // Same as H3Core.pointDist(..., LengthUnit.km).
+    assertEquals(67.56821269265374, client.queryBuilder().sql(sql).singletonDouble(), 1e-9);
+  }
+
+  @Test
+  public void testCellDistKm() throws Exception {
+    String sql = "SELECT h3CellDistKm(617700169958293503, 617700428211552255) AS dist FROM (VALUES(1))";
+
+    // Same as H3Core.pointDist between the h3ToGeo centers of the cells.
+    assertEquals(67.58897297158528, client.queryBuilder().sql(sql).singletonDouble(), 1e-9);
+  }
+
+  @Test
+  public void testCellDistKmFromString() throws Exception {
+    String sql = "SELECT h3_cell_dist_km('8928308280fffff', '89283444927ffff') AS dist FROM (VALUES(1))";
+
+    assertEquals(67.58897297158528, client.queryBuilder().sql(sql).singletonDouble(), 1e-9);
+  }
+
+  @Test
+  public void testCellDistKmInvalidCell() throws Exception {
+    String sql = "SELECT h3CellDistKm(0, 617700428211552255) AS dist FROM (VALUES(1))";
+
+    assertTrue(Double.isNaN(client.queryBuilder().sql(sql).singletonDouble()));
+  }
+
+  @Test
+  public void testCellAreaKm2() throws Exception {
+    String sql = "SELECT h3CellAreaKm2(617700169958293503) AS area FROM (VALUES(1))";
+
+    // Same as H3Core.cellArea(..., AreaUnit.km2).
+    assertEquals(0.10939818864660064, client.queryBuilder().sql(sql).singletonDouble(), 1e-9);
+  }
+
+  @Test
+  public void testCellAreaM2FromString() throws Exception {
+    String sql = "SELECT h3_cell_area_m2('8928308280fffff') AS area FROM (VALUES(1))";
+
+    assertEquals(109398.18864660064, client.queryBuilder().sql(sql).singletonDouble(), 1e-6);
+  }
+
+  @Test
+  public void testCellAreaPentagon() throws Exception {
+    String sql = "SELECT h3_cell_area_km2(617133886438375423) AS area FROM (VALUES(1))";
+
+    assertEquals(0.053147194940568535, client.queryBuilder().sql(sql).singletonDouble(), 1e-9);
+  }
+
+  @Test
+  public void testCellAreaInvalidCell() throws Exception {
+    String sql = "SELECT h3CellAreaKm2(0) AS area FROM (VALUES(1))";
+
+    assertTrue(Double.isNaN(client.queryBuilder().sql(sql).singletonDouble()));
+  }
+
+  @Test
+  public void testExactEdgeLength() throws Exception {
+    String sql = "SELECT h3ExactEdgeLength(1266218516299644927) AS length FROM (VALUES(1))";
+
+    // Same as H3Core.exactEdgeLength(..., LengthUnit.km).
+    assertEquals(0.20945858729823577, client.queryBuilder().sql(sql).singletonDouble(), 1e-9);
+  }
+
+  @Test
+  public void testExactEdgeLengthMFromString() throws Exception {
+    String sql = "SELECT h3_exact_edge_length_m('11928308280fffff') AS length FROM (VALUES(1))";
+
+    assertEquals(209.45858729823578, client.queryBuilder().sql(sql).singletonDouble(), 1e-6);
+  }
+
+  @Test
+  public void testExactEdgeLengthNotAnEdge() throws Exception {
+    String sql = "SELECT h3ExactEdgeLengthKm(617700169958293503) AS length FROM (VALUES(1))";
+
+    assertTrue(Double.isNaN(client.queryBuilder().sql(sql).singletonDouble()));
+  }
+
+  @Test
+  public void testCellAreaCache() throws Exception {
+    long hits = H3Metrics.MEASURE_CACHE_HITS.getCount();
+
+    String sql = "SELECT h3CellAreaM2(cell) AS area FROM (VALUES(617700169958293503), (617700169958293503), " +
+      "(617700169958293503)) AS t(cell)";
+    client.queryBuilder().sql(sql).run();
+
+    // The cell is measured at most once, so the repeats are found in the cache.
+    assertTrue(H3Metrics.MEASURE_CACHE_HITS.getCount() >= hits + 2);
+  }
+
+  @Test
+  public void testResolutionTables() throws Exception {
+    String sql = "SELECT hexAreaKm2(9) AS area_km2, hex_area_m2(9) AS area_m2, edgeLengthKm(9) AS edge_km, " +
+      "edge_length_m(9) AS edge_m, numHexagons(2) AS hexagons, max_kring_size(2) AS kring FROM (VALUES(1))";
+    QueryBuilder q = client.queryBuilder().sql(sql);
+    RowSet results = q.rowSet();
+
+    TupleMetadata expectedSchema = new SchemaBuilder()
+      .add("area_km2", MinorType.FLOAT8)
+      .add("area_m2", MinorType.FLOAT8)
+      .add("edge_km", MinorType.FLOAT8)
+      .add("edge_m", MinorType.FLOAT8)
+      .add("hexagons", MinorType.BIGINT)
+      .add("kring", MinorType.BIGINT)
+      .build();
+
+    // The values H3Core returns.
+    RowSet expected = client.rowSetBuilder(expectedSchema)
+      .addRow(0.1053325, 105332.5, 0.174375668, 174.3756681, 5882L, 19L)
+      .build();
+
+    new RowSetComparison(expected).verifyAndClearAll(results);
+  }
+
+  @Test
+  public void testResolutionTablesMetrics() throws Exception {
+    long nativeCalls = DrillMetrics.getRegistry().counter("drill.h3.hexAreaKm2.native_calls").getCount();
+
+    String sql = "SELECT hexAreaKm2(res) AS area FROM (VALUES(1), (2), (3)) AS t(res)";
+    client.queryBuilder().sql(sql).run();
+
+    // The areas come from static tables, so the native library is never called.
+    assertEquals(nativeCalls, DrillMetrics.getRegistry().counter("drill.h3.hexAreaKm2.native_calls").getCount());
+  }
+}
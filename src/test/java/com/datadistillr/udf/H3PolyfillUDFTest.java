@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.datadistillr.udf;
+
+import org.apache.drill.common.exceptions.UserRemoteException;
+import org.apache.drill.common.types.TypeProtos.MinorType;
+import org.apache.drill.exec.physical.rowSet.RowSet;
+import org.apache.drill.exec.record.metadata.SchemaBuilder;
+import org.apache.drill.exec.record.metadata.TupleMetadata;
+import org.apache.drill.test.ClusterFixture;
+import org.apache.drill.test.ClusterFixtureBuilder;
+import org.apache.drill.test.ClusterTest;
+import org.apache.drill.test.QueryBuilder;
+import org.apache.drill.test.rowSet.RowSetComparison;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class H3PolyfillUDFTest extends ClusterTest {
+
+  /**
+   * The WKB of POLYGON((-122.4 37.7, -122.35 37.7, -122.35 37.8, -122.4 37.7)).
+   */
+  private static final String TRIANGLE = "binary_string('" +
+    "\\x01\\x03\\x00\\x00\\x00\\x01\\x00\\x00\\x00\\x04\\x00\\x00\\x00\\x9A\\x99\\x99\\x99\\x99\\x99\\x5E" +
+    "\\xC0\\x9A\\x99\\x99\\x99\\x99\\xD9\\x42\\x40\\x66\\x66\\x66\\x66\\x66\\x96\\x5E\\xC0\\x9A\\x99\\x99" +
+    "\\x99\\x99\\xD9\\x42\\x40\\x66\\x66\\x66\\x66\\x66\\x96\\x5E\\xC0\\x66\\x66\\x66\\x66\\x66\\xE6\\x42" +
+    "\\x40\\x9A\\x99\\x99\\x99\\x99\\x99\\x5E\\xC0\\x9A\\x99\\x99\\x99\\x99\\xD9\\x42\\x40" +
+    "')";
+
+  @BeforeClass
+  public static void setup() throws Exception {
+    ClusterFixtureBuilder builder = ClusterFixture.builder(dirTestWatcher);
+    startCluster(builder);
+  }
+
+  @Test
+  public void testPolyfill() throws Exception {
+    String sql = "SELECT flatten(h3Polyfill(" + TRIANGLE + ", 7)) AS cell FROM (VALUES(1))";
+
+    QueryBuilder q = client.queryBuilder().sql(sql);
+    RowSet results = q.rowSet();
+
+    TupleMetadata expectedSchema = new SchemaBuilder()
+      .add("cell", MinorType.BIGINT)
+      .build();
+
+    RowSet expected = client.rowSetBuilder(expectedSchema)
+      .addRow(608692970585063423L)
+      .addRow(608692970635395071L)
+      .addRow(608692970652172287L)
+      .build();
+
+    new RowSetComparison(expected).verifyAndClearAll(results);
+  }
+
+  @Test
+  public void testPolyfillGeoJson() throws Exception {
+    String sql = "SELECT flatten(h3_polyfill_geojson(" +
+      "'{\"type\": \"Feature\", \"properties\": {\"name\": \"triangle\"}, " +
+      "\"geometry\": {\"type\": \"Polygon\", " +
+      "\"coordinates\": [[[-122.4, 37.7], [-122.35, 37.7], [-122.35, 37.8], [-122.4, 37.7]]]}}', 7)) AS cell " +
+      "FROM (VALUES(1))";
+
+    QueryBuilder q = client.queryBuilder().sql(sql);
+    RowSet results = q.rowSet();
+
+    TupleMetadata expectedSchema = new SchemaBuilder()
+      .add("cell", MinorType.BIGINT)
+      .build();
+
+    RowSet expected = client.rowSetBuilder(expectedSchema)
+      .addRow(608692970585063423L)
+      .addRow(608692970635395071L)
+      .addRow(608692970652172287L)
+      .build();
+
+    new RowSetComparison(expected).verifyAndClearAll(results);
+  }
+
+  @Test
+  public void testPolyfillDegenerateOuterRing() throws Exception {
+    // The outer ring is a single point, so the polygon encloses nothing, and its hole must not be filled instead.
+    String sql = "SELECT repeated_count(h3_polyfill_geojson(" +
+      "'{\"type\": \"Polygon\", \"coordinates\": [[[-122.5, 37.6], [-122.5, 37.6]], " +
+      "[[-122.4, 37.7], [-122.35, 37.7], [-122.35, 37.8], [-122.4, 37.7]]]}', 7)) AS cnt FROM (VALUES(1))";
+
+    QueryBuilder q = client.queryBuilder().sql(sql);
+    RowSet results = q.rowSet();
+
+    TupleMetadata expectedSchema = new SchemaBuilder()
+      .add("cnt", MinorType.INT)
+      .build();
+
+    RowSet expected = client.rowSetBuilder(expectedSchema)
+      .addRow(0)
+      .build();
+
+    new RowSetComparison(expected).verifyAndClearAll(results);
+  }
+
+  @Test
+  public void testPolyfillSetCached() throws Exception {
+    String sql = "SELECT h3SetCardinality(h3PolyfillSet(" + TRIANGLE + ", 9)) AS card FROM (VALUES(1))";
+    client.queryBuilder().sql(sql).run();
+    long hits = H3Metrics.POLYFILL_CACHE_HITS.getCount();
+
+    QueryBuilder q = client.queryBuilder().sql(sql);
+    RowSet results = q.rowSet();
+
+    TupleMetadata expectedSchema = new SchemaBuilder()
+      .add("card", MinorType.INT)
+      .build();
+
+    RowSet expected = client.rowSetBuilder(expectedSchema)
+      .addRow(222)
+      .build();
+
+    new RowSetComparison(expected).verifyAndClearAll(results);
+    // The second query finds the polygon the first one filled.
+    assertTrue(H3Metrics.POLYFILL_CACHE_HITS.getCount() > hits);
+  }
+
+  @Test
+  public void testPolyfillNotAPolygon() throws Exception {
+    String sql = "SELECT h3PolyfillSet(binary_string('\\x01\\x01\\x00\\x00\\x00'), 9) AS cells FROM (VALUES(1))";
+    try {
+      client.queryBuilder().sql(sql).run();
+      fail();
+    } catch (UserRemoteException e) {
+      assertTrue(e.getMessage().contains("Not a WKB Polygon or MultiPolygon"));
+    }
+  }
+
+  @Test
+  public void testPolyfillTooManyCells() throws Exception {
+    String sql = "SELECT h3PolyfillSet(" + TRIANGLE + ", 15) AS cells FROM (VALUES(1))";
+    try {
+      client.queryBuilder().sql(sql).run();
+      fail();
+    } catch (UserRemoteException e) {
+      assertTrue(e.getMessage().contains("more than the limit of 10000000"));
+    }
+  }
+}
@@ -18,6 +18,7 @@
 
 package com.datadistillr.udf;
 
+import org.apache.drill.common.exceptions.UserRemoteException;
 import org.apache.drill.common.types.TypeProtos.MinorType;
 import org.apache.drill.exec.physical.rowSet.RowSet;
 import org.apache.drill.exec.record.metadata.SchemaBuilder;
@@ -31,6 +32,9 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 
 import static org.apache.drill.test.rowSet.RowSetUtilities.longArray;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.apache.drill.test.rowSet.RowSetUtilities.strArray;
 
 
@@ -107,6 +111,51 @@ public class H3TraversalUDFTest extends ClusterTest {
     new RowSetComparison(expected).verifyAndClearAll(results);
   }
 
+  @Test
+  public void testKRingNearPentagon() throws Exception {
+    // A neighbor of the pentagon 870800000ffffff, whose k-ring H3 finds by its slower search, in that search's order.
+    String sql = "SELECT flatten(kRing(608126687300812799, 1)) AS ring FROM (VALUES(1))";
+
+    QueryBuilder q = client.queryBuilder().sql(sql);
+    RowSet results = q.rowSet();
+
+    TupleMetadata expectedSchema = new SchemaBuilder()
+      .add("ring", MinorType.BIGINT)
+      .build();
+
+    RowSet expected = client.rowSetBuilder(expectedSchema)
+      .addRow(608126687300812799L)
+      .addRow(608126687552471039L)
+      .addRow(608126687200149503L)
+      .addRow(608126687233703935L)
+      .addRow(608126688022233087L)
+      .addRow(608126687267258367L)
+      .addRow(608126688055787519L)
+      .build();
+
+    new RowSetComparison(expected).verifyAndClearAll(results);
+  }
+
+  @Test
+  public void testKRingDistancesNearPentagon() throws Exception {
+    String sql = "SELECT flatten(kRingDistances(608126687300812799, 1)) AS ring FROM (VALUES(1))";
+
+    QueryBuilder q = client.queryBuilder().sql(sql);
+    RowSet results = q.rowSet();
+
+    TupleMetadata expectedSchema = new SchemaBuilder()
+      .addArray("ring", MinorType.BIGINT)
+      .build();
+
+    RowSet expected = client.rowSetBuilder(expectedSchema)
+      .addRow((Object) longArray(608126687300812799L))
+      .addRow((Object) longArray(608126687552471039L, 608126687200149503L, 608126687233703935L, 608126688022233087L,
+        608126687267258367L, 608126688055787519L))
+      .build();
+
+    new RowSetComparison(expected).verifyAndClearAll(results);
+  }
+
   @Test
   public void testKRingStringDistances() throws Exception {
     String sql = "SELECT flatten(kRingDistances('8928308280fffff', 5)) AS ring FROM (VALUES(1)) LIMIT 3";
@@ -181,6 +230,23 @@ public class H3TraversalUDFTest extends ClusterTest {
     new RowSetComparison(expected).verifyAndClearAll(results);
   }
 
+  @Test
+  public void testH3LineUndefined() throws Exception {
+    String sql = "SELECT repeated_count(h3Line(599686042433355775, h3ToParent(599686023106002943, 4))) as cells FROM (VALUES(1))";
+    QueryBuilder q = client.queryBuilder().sql(sql);
+    RowSet results = q.rowSet();
+
+    TupleMetadata expectedSchema = new SchemaBuilder()
+      .add("cells", MinorType.INT)
+      .build();
+
+    RowSet expected = client.rowSetBuilder(expectedSchema)
+      .addRow(0)
+      .build();
+
+    new RowSetComparison(expected).verifyAndClearAll(results);
+  }
+
   @Test
   public void testH3Distance() throws Exception {
     String sql = "SELECT h3Distance(599686042433355775, 599686023106002943) as distance FROM (VALUES(1))";
@@ -214,4 +280,239 @@ public class H3TraversalUDFTest extends ClusterTest {
 
     new RowSetComparison(expected).verifyAndClearAll(results);
   }
+
+  @Test
+  public void testKRingPacked() throws Exception {
+    String sql = "SELECT flatten(h3PackedUnpack(kRingPacked(599686042433355775, 1))) AS ring FROM (VALUES(1))";
+    QueryBuilder q = client.queryBuilder().sql(sql);
+    RowSet results = q.rowSet();
+
+    TupleMetadata expectedSchema = new SchemaBuilder()
+      .add("ring", MinorType.BIGINT)
+      .build();
+
+    RowSet expected = client.rowSetBuilder(expectedSchema)
+      .addRow(599686014516068351L)
+      .addRow(599686015589810175L)
+      .addRow(599686030622195711L)
+      .addRow(599686038138388479L)
+      .addRow(599686042433355775L)
+      .addRow(599686043507097599L)
+      .addRow(599686044580839423L)
+      .build();
+
+    new RowSetComparison(expected).verifyAndClearAll(results);
+  }
+
+  @Test
+  public void testPackedContains() throws Exception {
+    String sql = "SELECT h3PackedContains(hexRingPacked(599686042433355775, 1), 599686030622195711) AS ring_hit, " +
+      "h3PackedContains(hexRingPacked(599686042433355775, 1), 599686042433355775) AS ring_miss, " +
+      "h3PackedContains(h3LinePacked(599686042433355775, 599686030622195711), 599686030622195711) AS line_hit " +
+      "FROM (VALUES(1))";
+    QueryBuilder q = client.queryBuilder().sql(sql);
+    RowSet results = q.rowSet();
+
+    TupleMetadata expectedSchema = new SchemaBuilder()
+      .add("ring_hit", MinorType.BIT)
+      .add("ring_miss", MinorType.BIT)
+      .add("line_hit", MinorType.BIT)
+      .build();
+
+    RowSet expected = client.rowSetBuilder(expectedSchema)
+      .addRow(true, false, true)
+      .build();
+
+    new RowSetComparison(expected).verifyAndClearAll(results);
+  }
+
+  @Test
+  public void testKRingLimit() throws Exception {
+    String sql = "SELECT kRing(599686042433355775, 2000) AS ring FROM (VALUES(1))";
+    try {
+      client.queryBuilder().sql(sql).run();
+      fail();
+    } catch (UserRemoteException e) {
+      assertTrue(e.getMessage().contains("k of 2000 produces 12006001 cells per row"));
+    }
+  }
+
+  @Test
+  public void testLineLimit() throws Exception {
+    String sql = "SELECT h3Line(644721767722457330, 644693889606232926) AS line FROM (VALUES(1))";
+    try {
+      client.queryBuilder().sql(sql).run();
+      fail();
+    } catch (UserRemoteException e) {
+      assertTrue(e.getMessage().contains("the line has 1180196 cells, more than the limit of 1000000"));
+    }
+  }
+
+  @Test
+  public void testKRingDistancesFlat() throws Exception {
+    String sql = "SELECT e.entry.cell AS cell, e.entry.distance AS distance FROM " +
+      "(SELECT flatten(kRingDistancesFlat(599686042433355775, 1)) AS entry FROM (VALUES(1))) AS e LIMIT 3";
+    QueryBuilder q = client.queryBuilder().sql(sql);
+    RowSet results = q.rowSet();
+
+    TupleMetadata expectedSchema = new SchemaBuilder()
+      .addNullable("cell", MinorType.BIGINT)
+      .addNullable("distance", MinorType.INT)
+      .build();
+
+    RowSet expected = client.rowSetBuilder(expectedSchema)
+      .addRow(599686042433355775L, 0)
+      .addRow(599686030622195711L, 1)
+      .addRow(599686044580839423L, 1)
+      .build();
+
+    new RowSetComparison(expected).verifyAndClearAll(results);
+  }
+
+  @Test
+  public void testStringKRingDistancesFlat() throws Exception {
+    String sql = "SELECT e.entry.cell AS cell, e.entry.distance AS distance FROM " +
+      "(SELECT flatten(kRingDistancesFlat('8928308280fffff', 1)) AS entry FROM (VALUES(1))) AS e LIMIT 2";
+    QueryBuilder q = client.queryBuilder().sql(sql);
+    RowSet results = q.rowSet();
+
+    TupleMetadata expectedSchema = new SchemaBuilder()
+      .addNullable("cell", MinorType.VARCHAR)
+      .addNullable("distance", MinorType.INT)
+      .build();
+
+    RowSet expected = client.rowSetBuilder(expectedSchema)
+      .addRow("8928308280fffff", 0)
+      .addRow("8928308280bffff", 1)
+      .build();
+
+    new RowSetComparison(expected).verifyAndClearAll(results);
+  }
+
+  @Test
+  public void testH3ToLocalIj() throws Exception {
+    String sql = "SELECT t.ij.i AS i, t.ij.j AS j FROM " +
+      "(SELECT h3ToLocalIj(599686042433355775, 599686030622195711) AS ij FROM (VALUES(1))) AS t";
+    QueryBuilder q = client.queryBuilder().sql(sql);
+    RowSet results = q.rowSet();
+
+    TupleMetadata expectedSchema = new SchemaBuilder()
+      .addNullable("i", MinorType.INT)
+      .addNullable("j", MinorType.INT)
+      .build();
+
+    RowSet expected = client.rowSetBuilder(expectedSchema)
+      .addRow(28, 16)
+      .build();
+
+    new RowSetComparison(expected).verifyAndClearAll(results);
+  }
+
+  @Test
+  public void testLocalIjToH3() throws Exception {
+    String sql = "SELECT localIjToH3(599686042433355775, 28, 16) AS cell FROM (VALUES(1))";
+    QueryBuilder q = client.queryBuilder().sql(sql);
+    RowSet results = q.rowSet();
+
+    TupleMetadata expectedSchema = new SchemaBuilder()
+      .add("cell", MinorType.BIGINT)
+      .build();
+
+    RowSet expected = client.rowSetBuilder(expectedSchema)
+      .addRow(599686030622195711L)
+      .build();
+
+    new RowSetComparison(expected).verifyAndClearAll(results);
+  }
+
+  @Test
+  public void testH3DistanceFromConstantOrigin() throws Exception {
+    String sql = "SELECT h3Distance(599686042433355775, cell) AS distance " +
+      "FROM (VALUES(599686042433355775), (599686030622195711), (599686018811035647)) AS t(cell)";
+    QueryBuilder q = client.queryBuilder().sql(sql);
+    RowSet results = q.rowSet();
+
+    TupleMetadata expectedSchema = new SchemaBuilder()
+      .add("distance", MinorType.BIGINT)
+      .build();
+
+    RowSet expected = client.rowSetBuilder(expectedSchema)
+      .addRow(0)
+      .addRow(1)
+      .addRow(2)
+      .build();
+
+    new RowSetComparison(expected).verifyAndClearAll(results);
+  }
+
+  @Test
+  public void testH3DistanceToSet() throws Exception {
+    String sql = "SELECT h3DistanceToSet(cell, '599686042433355775, 85283447fffffff', 1) AS distance " +
+      "FROM (VALUES(599686042433355775), (599686030622195711), (599686018811035647)) AS t(cell)";
+    QueryBuilder q = client.queryBuilder().sql(sql);
+    RowSet results = q.rowSet();
+
+    TupleMetadata expectedSchema = new SchemaBuilder()
+      .addNullable("distance", MinorType.INT)
+      .build();
+
+    RowSet expected = client.rowSetBuilder(expectedSchema)
+      .addRow(0)
+      .addRow(0)
+      .addSingleCol(null)
+      .build();
+
+    new RowSetComparison(expected).verifyAndClearAll(results);
+  }
+
+  @Test
+  public void testH3DistanceToSetFileOutsideDirectory() throws Exception {
+    // No cell set directory is configured, so the path is parsed as cells and its contents never reach the error.
+    String sql = "SELECT h3DistanceToSet(599686042433355775, '/etc/passwd', 1) AS distance FROM (VALUES(1))";
+    try {
+      client.queryBuilder().sql(sql).run();
+      fail();
+    } catch (UserRemoteException e) {
+      assertTrue(e.getMessage().contains("The H3 cell set has something other than an H3 cell at position 1"));
+      assertFalse(e.getMessage().contains("root:"));
+    }
+  }
+
+  @Test
+  public void testH3CellsWithinKm() throws Exception {
+    // The seven cells whose h3ToGeo centers are within 500 m of the point by H3Core.pointDist.
+    String sql = "SELECT repeated_count(cells) AS cells, repeated_contains(cells, 617700169958293503) AS has_origin " +
+      "FROM (SELECT h3_cells_within_km(37.775938728915946, -122.41795063018799, 0.5, 9) AS cells FROM (VALUES(1)))";
+    QueryBuilder q = client.queryBuilder().sql(sql);
+    RowSet results = q.rowSet();
+
+    TupleMetadata expectedSchema = new SchemaBuilder()
+      .add("cells", MinorType.INT)
+      .add("has_origin", MinorType.BIT)
+      .build();
+
+    RowSet expected = client.rowSetBuilder(expectedSchema)
+      .addRow(7, true)
+      .build();
+
+    new RowSetComparison(expected).verifyAndClearAll(results);
+  }
+
+  @Test
+  public void testH3CellsWithinKmNegative() throws Exception {
+    String sql = "SELECT repeated_count(h3CellsWithinKm(37.775938728915946, -122.41795063018799, -1.0, 9)) AS cells " +
+      "FROM (VALUES(1))";
+    QueryBuilder q = client.queryBuilder().sql(sql);
+    RowSet results = q.rowSet();
+
+    TupleMetadata expectedSchema = new SchemaBuilder()
+      .add("cells", MinorType.INT)
+      .build();
+
+    RowSet expected = client.rowSetBuilder(expectedSchema)
+      .addRow(0)
+      .build();
+
+    new RowSetComparison(expected).verifyAndClearAll(results);
+  }
 }